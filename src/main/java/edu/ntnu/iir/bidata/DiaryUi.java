@@ -1,11 +1,17 @@
 package edu.ntnu.iir.bidata;
 
+import edu.ntnu.iir.bidata.index.IndexingPipeline;
 import edu.ntnu.iir.bidata.models.Author;
 import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.persistence.CompressedPageStore;
+import edu.ntnu.iir.bidata.persistence.DiaryJournal;
+import edu.ntnu.iir.bidata.persistence.MappedPageStore;
+import edu.ntnu.iir.bidata.persistence.RecoveryReport;
 import edu.ntnu.iir.bidata.registers.AuthorRegister;
 import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
 import edu.ntnu.iir.bidata.ui.DiaryEntryUi;
 import edu.ntnu.iir.bidata.ui.FindAuthorUi;
+import edu.ntnu.iir.bidata.ui.TransferUi;
 import edu.ntnu.iir.bidata.ui.UpdateNameUi;
 import edu.ntnu.iir.bidata.ui.DiaryEntrySearchUi;
 import edu.ntnu.iir.bidata.ui.data.EntrySearchResult;
@@ -13,7 +19,12 @@ import edu.ntnu.iir.bidata.ui.data.EntrySearchResult;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.IntStream;
 
 import static edu.ntnu.iir.bidata.ui.DiaryUiUtils.*;
@@ -21,15 +32,28 @@ import static java.lang.System.*;
 
 public class DiaryUi {
 
+    private static final Path DATA_DIRECTORY = Path.of("diary-data");
+    private static final Duration IDLE_PAGE_TIME = Duration.ofDays(7);
+    private static final Duration IDLE_SWEEP_INTERVAL = Duration.ofMinutes(15);
+    private static final int DICTIONARY_BYTES = 16 * 1024;
+    private static final int DICTIONARY_SAMPLE_PAGES = 1_000;
+    private static final int DICTIONARY_SAMPLE_CHARS = 1024 * 1024;
+
     private BufferedReader reader;
+    private DiaryJournal journal;
+    private MappedPageStore pageStore;
+    private ScheduledExecutorService idlePageSweeper;
+    private IndexingPipeline indexingPipeline;
     private final List<String> menuItems = new ArrayList<>();
-    private final AuthorRegister authorRegister = new AuthorRegister();
-    private final DiaryEntryRegister diaryEntryRegister = new DiaryEntryRegister();
+    private final AuthorRegister authorRegister;
+    private DiaryEntryRegister diaryEntryRegister;
+    private final boolean ownsData;
 
     private UpdateNameUi updateNameUi;
     private FindAuthorUi findAuthorUi;
     private DiaryEntryUi diaryEntryUi;
     private DiaryEntrySearchUi diaryEntrySearchUi;
+    private TransferUi transferUi;
 
     private enum EMenuCommand {
         UP, DOWN, ENTER, BACK, INVALID;
@@ -60,6 +84,8 @@ public class DiaryUi {
         UPDATE_NAME,
         FIND_AUTHORS,
         SEARCH_DIARY_ENTRIES,
+        IMPORT_DIARIES,
+        EXPORT_DIARIES,
         EXIT;
 
         public static EMenuOption fromIndex(int index) {
@@ -69,12 +95,32 @@ public class DiaryUi {
                 case 2 -> UPDATE_NAME;
                 case 3 -> FIND_AUTHORS;
                 case 4 -> SEARCH_DIARY_ENTRIES;
-                case 5 -> EXIT;
+                case 5 -> IMPORT_DIARIES;
+                case 6 -> EXPORT_DIARIES;
+                case 7 -> EXIT;
                 default -> throw new IllegalArgumentException("Invalid menu index: " + index);
             };
         }
     }
 
+    public DiaryUi() {
+        this.authorRegister = new AuthorRegister();
+        this.ownsData = true;
+    }
+
+    /**
+     * Creates a session sharing the registers and stores of another UI, with its own reader and menus.
+     */
+    private DiaryUi(DiaryUi shared, BufferedReader reader) {
+        this.reader = reader;
+        this.authorRegister = shared.authorRegister;
+        this.diaryEntryRegister = shared.diaryEntryRegister;
+        this.journal = shared.journal;
+        this.menuItems.addAll(shared.menuItems);
+        this.ownsData = false;
+        createMenus();
+    }
+
     public void init() {
         this.reader = new BufferedReader(new InputStreamReader(in));
         this.menuItems.addAll(Arrays.asList(
@@ -83,14 +129,125 @@ public class DiaryUi {
                 "Update name",
                 "Find authors",
                 "Search diary entries",
+                "Import diaries",
+                "Export diaries",
                 "Exit"
         ));
 
+        try {
+            this.pageStore = MappedPageStore.open(DATA_DIRECTORY.resolve(MappedPageStore.FILE_NAME));
+        } catch (IOException e) {
+            out.println("Could not open the page store, page text will be kept in memory: " + e.getMessage());
+        }
+        this.indexingPipeline = new IndexingPipeline(IndexingPipeline.Consistency.EVENTUAL, IndexingPipeline.DEFAULT_CAPACITY);
+        this.diaryEntryRegister = new DiaryEntryRegister(pageStore, indexingPipeline);
+        createMenus();
+
+        try {
+            this.journal = DiaryJournal.open(DATA_DIRECTORY, authorRegister, diaryEntryRegister);
+            RecoveryReport recovery = journal.getRecoveryReport();
+            if (!recovery.isIntact()) {
+                out.println("Saved diaries were damaged (" + recovery.problem() + "): kept changes up to number "
+                        + recovery.lastLsn() + ", discarded " + recovery.bytesDiscarded() + " bytes after them");
+            }
+        } catch (IOException e) {
+            out.println("Could not open saved diaries, changes will not be saved: " + e.getMessage());
+        }
+        if (journal == null || (journal.getSnapshotLsn() == 0 && journal.getReplayedRecords() == 0))
+            addSampleData();
+
+        if (pageStore == null) startIdlePageSweeper();
+    }
+
+    /**
+     * Compresses the text of idle pages on a background thread, when page text is kept on the heap because the
+     * page store could not be opened. Text in the page store is already off the heap, so it is left there.
+     * The first sweep, which may compress most of the diaries, runs one interval after start-up.
+     */
+    private void startIdlePageSweeper() {
+        CompressedPageStore idlePageStore = new CompressedPageStore(
+                CompressedPageStore.trainDictionary(sampleTexts(), DICTIONARY_BYTES));
+        this.idlePageSweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "diary-idle-pages");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = IDLE_SWEEP_INTERVAL.toMillis();
+        idlePageSweeper.scheduleWithFixedDelay(() -> {
+            try {
+                diaryEntryRegister.storeIdlePages(idlePageStore, IDLE_PAGE_TIME);
+            } catch (IllegalStateException e) {
+                // The diaries are read-only and entries cannot be locked for writing; try again next time.
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Collects page texts to train the compression dictionary on, stopping at {@link #DICTIONARY_SAMPLE_PAGES}
+     * pages or {@link #DICTIONARY_SAMPLE_CHARS} characters, so large diaries are not all decoded onto the heap.
+     * The dictionary is much smaller than the sample, so the most common words show up well before either limit.
+     */
+    private List<String> sampleTexts() {
+        List<String> samples = new ArrayList<>();
+        long chars = 0;
+        for (DiaryEntry entry : diaryEntryRegister.getAllDiaryEntries()) {
+            Iterator<String> texts = entry.getPageTexts();
+            while (texts.hasNext()) {
+                if (samples.size() >= DICTIONARY_SAMPLE_PAGES || chars >= DICTIONARY_SAMPLE_CHARS) return samples;
+                String text = texts.next();
+                samples.add(text);
+                chars += text.length();
+            }
+        }
+        return samples;
+    }
+
+    private void createMenus() {
         this.diaryEntryUi = new DiaryEntryUi(authorRegister, diaryEntryRegister);
         this.updateNameUi = new UpdateNameUi();
         this.findAuthorUi = new FindAuthorUi(authorRegister);
         this.diaryEntrySearchUi = new DiaryEntrySearchUi(diaryEntryRegister, findAuthorUi);
+        this.transferUi = new TransferUi(authorRegister, diaryEntryRegister);
+    }
+
+    /**
+     * Opens another session on the diaries of this UI, such as one per connection of a
+     * {@link edu.ntnu.iir.bidata.server.TerminalServer}. The session shares the registers with this UI and every
+     * other session, but has its own reader and menu state, and leaves the saved diaries open when it exits.
+     * Call after {@link #init()}.
+     *
+     * @param reader Reader the session reads commands from. Closed when the session exits.
+     * @return The session, started with {@link #start()}.
+     */
+    public DiaryUi openSession(BufferedReader reader) {
+        if (reader == null) throw new IllegalArgumentException("Reader cannot be null");
+        if (diaryEntryRegister == null) throw new IllegalStateException("The diaries have not been opened");
+        return new DiaryUi(this, reader);
+    }
 
+    /**
+     * Saves and closes the diaries opened by {@link #init()}. Done when the menu exits, unless this UI is
+     * a session opened with {@link #openSession(BufferedReader)}.
+     *
+     * @throws IOException if the diaries could not be saved.
+     */
+    public void close() throws IOException {
+        if (idlePageSweeper != null) idlePageSweeper.shutdownNow();
+        if (indexingPipeline != null) indexingPipeline.close();
+        try {
+            if (journal != null) {
+                try {
+                    journal.checkpoint();
+                } finally {
+                    journal.close();
+                }
+            }
+        } finally {
+            if (pageStore != null) pageStore.close();
+        }
+    }
+
+    private void addSampleData() {
         authorRegister.addAuthor("Robert", "te", "Nero");
         authorRegister.addAuthor("Tara", "Nordmann", "Nero");
         authorRegister.addAuthor("Tero", "Tatta", "Nero");
@@ -148,6 +305,10 @@ public class DiaryUi {
             while (!exitMenu) {
                 clearScreen();
                 showSectionTitle("MAIN MENU");
+                if (journal != null && journal.getFailure() != null) {
+                    out.println("Changes can no longer be saved, so the diaries are read-only: "
+                            + journal.getFailure().getMessage());
+                }
 
                 showMenu(this.menuItems, currentIndex);
 
@@ -162,19 +323,26 @@ public class DiaryUi {
                     case DOWN -> currentIndex = Math.min(this.menuItems.size() - 1, currentIndex + 1);
                     case ENTER -> {
                         EMenuOption option = EMenuOption.fromIndex(currentIndex);
-                        switch (option) {
-                            case CREATE_DIARY_ENTRY -> diaryEntryUi.navigateCreateMenu(reader);
-                            case UPDATE_DIARY_ENTRY -> diaryEntryUi.updateDiaryEntryMenu(reader);
-                            case UPDATE_NAME -> updateNameUi.updateNameMenu(reader, authorRegister);
-                            case FIND_AUTHORS -> findAuthorUi.selectAuthorInteractive(reader);
-                            case SEARCH_DIARY_ENTRIES -> {
-                                Map<DiaryEntry, EntrySearchResult> entries = diaryEntrySearchUi.selectDiaryEntry(reader);
-                                diaryEntryUi.navigateToEntryFromSearch(reader, entries,false);
-                            }
+                        try {
+                            switch (option) {
+                                case CREATE_DIARY_ENTRY -> diaryEntryUi.navigateCreateMenu(reader);
+                                case UPDATE_DIARY_ENTRY -> diaryEntryUi.updateDiaryEntryMenu(reader);
+                                case UPDATE_NAME -> updateNameUi.updateNameMenu(reader, authorRegister);
+                                case FIND_AUTHORS -> findAuthorUi.selectAuthorInteractive(reader);
+                                case SEARCH_DIARY_ENTRIES -> {
+                                    Map<DiaryEntry, EntrySearchResult> entries = diaryEntrySearchUi.selectDiaryEntry(reader);
+                                    diaryEntryUi.navigateToEntryFromSearch(reader, entries,false);
+                                }
+                                case IMPORT_DIARIES -> transferUi.importMenu(reader);
+                                case EXPORT_DIARIES -> transferUi.exportMenu(reader);
 
-                            case EXIT -> {
-                                exitMenu = true;
+                                case EXIT -> {
+                                    exitMenu = true;
+                                }
                             }
+                        } catch (IllegalStateException e) {
+                            out.println(e.getMessage());
+                            readCommand(reader);
                         }
                     }
                     case BACK, INVALID -> {
@@ -188,6 +356,7 @@ public class DiaryUi {
         }
         finally {
             this.reader.close();
+            if (ownsData) close();
         }
     }
 }
@@ -1,8 +1,15 @@
 package edu.ntnu.iir.bidata;
 
 
+import edu.ntnu.iir.bidata.server.TerminalServer;
+
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 
+import static java.lang.System.in;
 import static java.lang.System.out;
 
 public class MainApp {
@@ -10,10 +17,34 @@ public class MainApp {
         DiaryUi ui = new DiaryUi();
 
         ui.init();
+        if (args.length > 0 && args[0].equals("--serve")) {
+            serve(ui, args.length > 1 ? Integer.parseInt(args[1]) : TerminalServer.DEFAULT_PORT);
+            return;
+        }
         try {
             ui.start();
         } catch (IOException e) {
             out.println("Program crashed during initialization. Try restarting the application.");
         }
     }
+
+    /**
+     * Serves the diaries to telnet-style clients on this machine until Enter is pressed on the console.
+     */
+    private static void serve(DiaryUi ui, int port) {
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), port);
+        try (TerminalServer server = TerminalServer.start(address, reader -> ui.openSession(reader).start())) {
+            out.println("Serving diaries on " + address.getHostString() + ":" + server.getPort()
+                    + ". Press Enter to stop.");
+            new BufferedReader(new InputStreamReader(in)).readLine();
+        } catch (IOException e) {
+            out.println("Could not serve the diaries: " + e.getMessage());
+        } finally {
+            try {
+                ui.close();
+            } catch (IOException e) {
+                out.println("Could not save the diaries: " + e.getMessage());
+            }
+        }
+    }
 }
@@ -0,0 +1,286 @@
+package edu.ntnu.iir.bidata.index;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Applies updates of word counts and search indexes, either at once or later on an indexer thread.
+ * <p>
+ * With {@link Consistency#SYNC}, an update runs on the thread submitting it, before the edit returns.
+ * With {@link Consistency#EVENTUAL}, updates are put in a bounded ring buffer, and a background thread takes
+ * everything that has piled up as one batch, applies it in the order submitted, and then runs the batch hooks,
+ * so a search index publishes one new version per batch instead of one per edit. An edit then only pays for
+ * capturing what changed, however long the page is, and waits only while the buffer is full.
+ * <p>
+ * Other threads see an update once its batch is applied. A thread reading what it has changed itself calls
+ * {@link #awaitIndexed()} first, which returns at once unless some of its own updates are still in the buffer.
+ */
+public final class IndexingPipeline implements Closeable {
+
+    /**
+     * When updates become visible.
+     */
+    public enum Consistency {
+        /**
+         * Updates are applied by the thread making the edit, before the edit returns.
+         */
+        SYNC,
+        /**
+         * Updates are applied by the indexer thread shortly after the edit. Threads see their own updates
+         * after {@link #awaitIndexed()}.
+         */
+        EVENTUAL
+    }
+
+    /**
+     * Default number of updates the ring buffer holds.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final Consistency consistency;
+    private final Runnable[] ring;
+    private final List<Runnable> batchHooks = new CopyOnWriteArrayList<>();
+    private final ThreadLocal<long[]> lastSubmitted = ThreadLocal.withInitial(() -> new long[1]);
+    private final Thread indexer;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private final Condition batchApplied = lock.newCondition();
+
+    private long submitted;
+    private long taken;
+    private volatile long applied;
+    private long batches;
+    private long failures;
+    private boolean closed;
+
+    /**
+     * Creates a pipeline. With eventual consistency, its indexer thread is started.
+     *
+     * @param consistency When updates become visible.
+     * @param capacity    Number of updates the ring buffer holds before edits wait, rounded up to a power of two.
+     * @throws IllegalArgumentException if consistency is null or if capacity is less than 1.
+     */
+    public IndexingPipeline(Consistency consistency, int capacity) {
+        if (consistency == null) throw new IllegalArgumentException("Consistency cannot be null");
+        if (capacity < 1) throw new IllegalArgumentException("Capacity must be at least 1");
+
+        int size = 1;
+        while (size < capacity) size <<= 1;
+        this.consistency = consistency;
+        this.ring = new Runnable[consistency == Consistency.EVENTUAL ? size : 0];
+        if (consistency == Consistency.EVENTUAL) {
+            this.indexer = new Thread(this::indexLoop, "diary-indexer");
+            this.indexer.setDaemon(true);
+            this.indexer.start();
+        } else {
+            this.indexer = null;
+        }
+    }
+
+    /**
+     * Retrieves when updates become visible.
+     *
+     * @return The consistency mode.
+     */
+    public Consistency getConsistency() {
+        return consistency;
+    }
+
+    /**
+     * Checks whether updates are applied later instead of by the submitting thread.
+     * An update submitted from the indexer thread itself is always applied at once.
+     *
+     * @return true if updates submitted by the current thread are queued.
+     */
+    public boolean isDeferred() {
+        return consistency == Consistency.EVENTUAL && Thread.currentThread() != indexer;
+    }
+
+    /**
+     * Registers code to run after each batch of updates, such as publishing a new version of an index.
+     * With synchronous consistency each update is a batch of its own.
+     *
+     * @param hook Code to run.
+     * @throws IllegalArgumentException if hook is null.
+     */
+    public void addBatchHook(Runnable hook) {
+        if (hook == null) throw new IllegalArgumentException("Hook cannot be null");
+        batchHooks.add(hook);
+    }
+
+    /**
+     * Submits an update. Updates are applied one at a time, in the order they were submitted.
+     * The update must only use what it captured when submitted, since the data it comes from may have changed
+     * again by the time it runs.
+     *
+     * @param update Update to apply.
+     * @throws IllegalArgumentException if update is null.
+     * @throws IllegalStateException if the pipeline is closed.
+     */
+    public void submit(Runnable update) {
+        if (update == null) throw new IllegalArgumentException("Update cannot be null");
+        if (!isDeferred()) {
+            update.run();
+            if (indexer == null) batchHooks.forEach(Runnable::run);
+            return;
+        }
+
+        lock.lock();
+        try {
+            while (!closed && submitted - taken == ring.length) notFull.awaitUninterruptibly();
+            if (closed) throw new IllegalStateException("Indexing pipeline is closed");
+            ring[(int) (submitted & (ring.length - 1))] = update;
+            lastSubmitted.get()[0] = ++submitted;
+            if (submitted - taken == 1) notEmpty.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Waits until the updates submitted by the current thread have been applied, so it reads its own writes.
+     * Returns at once if they have, which is the usual case.
+     */
+    public void awaitIndexed() {
+        if (!isDeferred()) return;
+        awaitApplied(lastSubmitted.get()[0]);
+    }
+
+    /**
+     * Waits until every update submitted so far, by any thread, has been applied.
+     * Used before reading everything at once, such as when saving a snapshot.
+     */
+    public void awaitAll() {
+        if (!isDeferred()) return;
+        long target;
+        lock.lock();
+        try {
+            target = submitted;
+        } finally {
+            lock.unlock();
+        }
+        awaitApplied(target);
+    }
+
+    /**
+     * Retrieves the number of batches applied so far.
+     *
+     * @return Number of batches.
+     */
+    public long getBatches() {
+        lock.lock();
+        try {
+            return batches;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of updates applied so far with eventual consistency.
+     *
+     * @return Number of updates.
+     */
+    public long getAppliedUpdates() {
+        return applied;
+    }
+
+    /**
+     * Retrieves the number of updates that threw an exception when applied. The indexer keeps going after them.
+     *
+     * @return Number of failed updates.
+     */
+    public long getFailures() {
+        lock.lock();
+        try {
+            return failures;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies every update submitted so far and stops the indexer thread. Updates submitted afterwards are rejected.
+     */
+    @Override
+    public void close() {
+        if (indexer == null) return;
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            notEmpty.signal();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            indexer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void awaitApplied(long target) {
+        if (applied >= target) return;
+        lock.lock();
+        try {
+            while (applied < target) batchApplied.awaitUninterruptibly();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void indexLoop() {
+        Runnable[] batch = new Runnable[ring.length];
+        while (true) {
+            int size;
+            lock.lock();
+            try {
+                while (taken == submitted && !closed) notEmpty.awaitUninterruptibly();
+                if (taken == submitted) return;
+                size = (int) (submitted - taken);
+                for (int index = 0; index < size; index++) {
+                    int slot = (int) (taken++ & (ring.length - 1));
+                    batch[index] = ring[slot];
+                    ring[slot] = null;
+                }
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+
+            int failed = 0;
+            for (int index = 0; index < size; index++) {
+                try {
+                    batch[index].run();
+                } catch (RuntimeException e) {
+                    failed++;
+                }
+                batch[index] = null;
+            }
+            for (Runnable hook : batchHooks) {
+                try {
+                    hook.run();
+                } catch (RuntimeException e) {
+                    failed++;
+                }
+            }
+
+            lock.lock();
+            try {
+                applied += size;
+                batches++;
+                failures += failed;
+                batchApplied.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
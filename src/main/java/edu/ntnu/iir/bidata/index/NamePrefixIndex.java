@@ -0,0 +1,111 @@
+package edu.ntnu.iir.bidata.index;
+
+import edu.ntnu.iir.bidata.models.Author;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Sorted, case-folded index from one name field (first name, last name or nickname) to authors.
+ * <p>
+ * Names are kept in a {@link ConcurrentSkipListMap}, so both exact and starts-with lookups
+ * cost O(log n + k), where k is the number of matching authors.
+ * Authors without a value for the field are not indexed.
+ * <p>
+ * Lookups do not lock and may run while the index changes; changes are made one at a time.
+ */
+public class NamePrefixIndex {
+
+    private final NavigableMap<String, Set<Author>> names = new ConcurrentSkipListMap<>();
+
+    /**
+     * Adds an author under a name.
+     *
+     * @param name   Name to index the author under. Null or blank names are ignored.
+     * @param author Author to add.
+     */
+    public synchronized void add(String name, Author author) {
+        if (name == null || name.isBlank()) return;
+        names.computeIfAbsent(fold(name), key -> ConcurrentHashMap.newKeySet()).add(author);
+    }
+
+    /**
+     * Removes an author from under a name.
+     *
+     * @param name   Name the author was indexed under. Null or blank names are ignored.
+     * @param author Author to remove.
+     */
+    public synchronized void remove(String name, Author author) {
+        if (name == null || name.isBlank()) return;
+        String key = fold(name);
+        Set<Author> authors = names.get(key);
+        if (authors == null) return;
+        authors.remove(author);
+        if (authors.isEmpty()) names.remove(key);
+    }
+
+    /**
+     * Moves an author from one name to another. The author is added under the new name before it is
+     * removed from the old one, so a lookup running meanwhile finds it under at least one of them.
+     *
+     * @param oldName Name the author was indexed under.
+     * @param newName Name to index the author under.
+     * @param author  Author to move.
+     */
+    public synchronized void move(String oldName, String newName, Author author) {
+        boolean oldIndexed = oldName != null && !oldName.isBlank();
+        boolean newIndexed = newName != null && !newName.isBlank();
+        if (oldIndexed && newIndexed && fold(oldName).equals(fold(newName))) return;
+        add(newName, author);
+        remove(oldName, author);
+    }
+
+    /**
+     * Finds the authors whose name equals the given name, ignoring case.
+     *
+     * @param name Name to look up.
+     * @return Read-only set of matching authors.
+     */
+    public Set<Author> findExact(String name) {
+        Set<Author> authors = names.get(fold(name));
+        return authors == null ? Set.of() : Collections.unmodifiableSet(authors);
+    }
+
+    /**
+     * Finds the authors whose name starts with the given prefix, ignoring case.
+     * The matches are produced lazily, in name order.
+     *
+     * @param prefix Prefix to look up.
+     * @return Iterator over matching authors.
+     */
+    public Iterator<Author> findPrefix(String prefix) {
+        String key = fold(prefix);
+        return names.tailMap(key, true).entrySet().stream()
+                .takeWhile(entry -> entry.getKey().startsWith(key))
+                .flatMap(entry -> entry.getValue().stream())
+                .iterator();
+    }
+
+    /**
+     * Finds the authors whose name matches, either exactly or by prefix.
+     *
+     * @param name       Name or prefix to look up.
+     * @param startsWith true to match names starting with the given name.
+     * @return Iterator over matching authors.
+     */
+    public Iterator<Author> find(String name, boolean startsWith) {
+        return startsWith ? findPrefix(name) : findExact(name).iterator();
+    }
+
+    /**
+     * Removes all names from the index.
+     */
+    public synchronized void clear() {
+        names.clear();
+    }
+
+    private static String fold(String name) {
+        return name.toLowerCase();
+    }
+}
@@ -0,0 +1,257 @@
+package edu.ntnu.iir.bidata.index;
+
+import java.util.Comparator;
+import java.util.function.BiPredicate;
+
+/**
+ * Immutable sorted map that shares structure between versions.
+ * <p>
+ * The map is a weight-balanced binary tree. Adding or removing a key copies only the O(log n) nodes on the path to
+ * it and returns a new map, while the old map stays valid and unchanged, so a reader holding a version can keep
+ * using it for as long as it likes while writers publish newer ones. Every node knows the size of its subtree,
+ * so the number of keys in a range is counted in O(log n) without visiting them.
+ *
+ * @param <K> Type of keys.
+ * @param <V> Type of values.
+ */
+public final class PersistentSortedMap<K, V> {
+
+    /**
+     * Weight ratio two sibling subtrees may not exceed, and the ratio deciding between a single and a double
+     * rotation, as in Adams' weight-balanced trees.
+     */
+    private static final int DELTA = 3;
+    private static final int GAMMA = 2;
+
+    private record Node<K, V>(K key, V value, Node<K, V> left, Node<K, V> right, int size) {
+    }
+
+    private final Comparator<? super K> comparator;
+    private final Node<K, V> root;
+
+    private PersistentSortedMap(Comparator<? super K> comparator, Node<K, V> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    /**
+     * Creates an empty map.
+     *
+     * @param comparator Order of the keys.
+     * @param <K>        Type of keys.
+     * @param <V>        Type of values.
+     * @return An empty map.
+     * @throws IllegalArgumentException if comparator is null.
+     */
+    public static <K, V> PersistentSortedMap<K, V> empty(Comparator<? super K> comparator) {
+        if (comparator == null) throw new IllegalArgumentException("Comparator cannot be null");
+        return new PersistentSortedMap<>(comparator, null);
+    }
+
+    /**
+     * Retrieves the number of keys in the map.
+     *
+     * @return Number of keys.
+     */
+    public int size() {
+        return size(root);
+    }
+
+    /**
+     * Checks whether the map has no keys.
+     *
+     * @return true if the map is empty.
+     */
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    /**
+     * Looks up the value of a key.
+     *
+     * @param key Key to look up.
+     * @return The value, or null if the key is not in the map.
+     */
+    public V get(K key) {
+        Node<K, V> node = root;
+        while (node != null) {
+            int order = comparator.compare(key, node.key);
+            if (order == 0) return node.value;
+            node = order < 0 ? node.left : node.right;
+        }
+        return null;
+    }
+
+    /**
+     * Creates a version of the map with a key set to a value.
+     *
+     * @param key   Key to set.
+     * @param value Value of the key.
+     * @return The new version. This map is left unchanged.
+     */
+    public PersistentSortedMap<K, V> put(K key, V value) {
+        return new PersistentSortedMap<>(comparator, put(root, key, value));
+    }
+
+    /**
+     * Creates a version of the map without a key.
+     *
+     * @param key Key to remove.
+     * @return The new version, or this map if the key is not in it.
+     */
+    public PersistentSortedMap<K, V> remove(K key) {
+        Node<K, V> removed = remove(root, key);
+        return removed == root ? this : new PersistentSortedMap<>(comparator, removed);
+    }
+
+    /**
+     * Counts the keys in a range.
+     *
+     * @param from First key of the range, included, or null for no lower bound.
+     * @param to   End of the range, not included, or null for no upper bound.
+     * @return Number of keys in the range.
+     */
+    public int count(K from, K to) {
+        int below = from == null ? 0 : rank(from);
+        int end = to == null ? size(root) : rank(to);
+        return Math.max(0, end - below);
+    }
+
+    /**
+     * Visits the keys in a range in ascending order, until the visitor asks to stop.
+     *
+     * @param from    First key of the range, included, or null for no lower bound.
+     * @param to      End of the range, not included, or null for no upper bound.
+     * @param visitor Called with each key and value. Returns false to stop.
+     * @return false if the visitor stopped early.
+     */
+    public boolean forEach(K from, K to, BiPredicate<? super K, ? super V> visitor) {
+        return forEach(root, from, to, visitor);
+    }
+
+    /**
+     * Visits every key in descending order, until the visitor asks to stop.
+     *
+     * @param visitor Called with each key and value. Returns false to stop.
+     * @return false if the visitor stopped early.
+     */
+    public boolean forEachDescending(BiPredicate<? super K, ? super V> visitor) {
+        return forEachDescending(root, visitor);
+    }
+
+    /**
+     * Counts the keys less than a key.
+     */
+    private int rank(K key) {
+        int rank = 0;
+        Node<K, V> node = root;
+        while (node != null) {
+            int order = comparator.compare(key, node.key);
+            if (order <= 0) {
+                node = node.left;
+            } else {
+                rank += size(node.left) + 1;
+                node = node.right;
+            }
+        }
+        return rank;
+    }
+
+    private boolean forEach(Node<K, V> node, K from, K to, BiPredicate<? super K, ? super V> visitor) {
+        if (node == null) return true;
+        boolean aboveFrom = from == null || comparator.compare(node.key, from) >= 0;
+        boolean belowTo = to == null || comparator.compare(node.key, to) < 0;
+        if (aboveFrom && !forEach(node.left, from, to, visitor)) return false;
+        if (aboveFrom && belowTo && !visitor.test(node.key, node.value)) return false;
+        return !belowTo || forEach(node.right, from, to, visitor);
+    }
+
+    private static <K, V> boolean forEachDescending(Node<K, V> node, BiPredicate<? super K, ? super V> visitor) {
+        if (node == null) return true;
+        return forEachDescending(node.right, visitor)
+                && visitor.test(node.key, node.value)
+                && forEachDescending(node.left, visitor);
+    }
+
+    private Node<K, V> put(Node<K, V> node, K key, V value) {
+        if (node == null) return new Node<>(key, value, null, null, 1);
+        int order = comparator.compare(key, node.key);
+        if (order < 0) return balance(node.key, node.value, put(node.left, key, value), node.right);
+        if (order > 0) return balance(node.key, node.value, node.left, put(node.right, key, value));
+        return new Node<>(key, value, node.left, node.right, node.size);
+    }
+
+    private Node<K, V> remove(Node<K, V> node, K key) {
+        if (node == null) return null;
+        int order = comparator.compare(key, node.key);
+        if (order < 0) {
+            Node<K, V> left = remove(node.left, key);
+            return left == node.left ? node : balance(node.key, node.value, left, node.right);
+        }
+        if (order > 0) {
+            Node<K, V> right = remove(node.right, key);
+            return right == node.right ? node : balance(node.key, node.value, node.left, right);
+        }
+        return glue(node.left, node.right);
+    }
+
+    /**
+     * Joins the two subtrees of a removed node, replacing it with the nearest key from the larger one.
+     */
+    private static <K, V> Node<K, V> glue(Node<K, V> left, Node<K, V> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.size > right.size) {
+            Node<K, V> max = left;
+            while (max.right != null) max = max.right;
+            return balance(max.key, max.value, removeMax(left), right);
+        }
+        Node<K, V> min = right;
+        while (min.left != null) min = min.left;
+        return balance(min.key, min.value, left, removeMin(right));
+    }
+
+    private static <K, V> Node<K, V> removeMin(Node<K, V> node) {
+        if (node.left == null) return node.right;
+        return balance(node.key, node.value, removeMin(node.left), node.right);
+    }
+
+    private static <K, V> Node<K, V> removeMax(Node<K, V> node) {
+        if (node.right == null) return node.left;
+        return balance(node.key, node.value, node.left, removeMax(node.right));
+    }
+
+    /**
+     * Builds a node from subtrees that are at most one insert or removal away from balanced,
+     * rotating once or twice if one side has become too heavy.
+     */
+    private static <K, V> Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+        int leftSize = size(left);
+        int rightSize = size(right);
+        if (leftSize + rightSize > 1) {
+            if (rightSize > DELTA * leftSize) {
+                return size(right.left) < GAMMA * size(right.right)
+                        ? node(right.key, right.value, node(key, value, left, right.left), right.right)
+                        : node(right.left.key, right.left.value,
+                                node(key, value, left, right.left.left),
+                                node(right.key, right.value, right.left.right, right.right));
+            }
+            if (leftSize > DELTA * rightSize) {
+                return size(left.right) < GAMMA * size(left.left)
+                        ? node(left.key, left.value, left.left, node(key, value, left.right, right))
+                        : node(left.right.key, left.right.value,
+                                node(left.key, left.value, left.left, left.right.left),
+                                node(key, value, left.right.right, right));
+            }
+        }
+        return node(key, value, left, right);
+    }
+
+    private static <K, V> Node<K, V> node(K key, V value, Node<K, V> left, Node<K, V> right) {
+        return new Node<>(key, value, left, right, size(left) + size(right) + 1);
+    }
+
+    private static int size(Node<?, ?> node) {
+        return node == null ? 0 : node.size;
+    }
+}
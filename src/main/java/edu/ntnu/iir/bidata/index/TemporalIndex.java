@@ -0,0 +1,165 @@
+package edu.ntnu.iir.bidata.index;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable sorted index from a point in time to the diary entries stamped with it.
+ * <p>
+ * Entries are kept in a {@link PersistentSortedMap} keyed by time, so day and range queries are answered
+ * with a range lookup, costing O(log n + k) where k is the number of matching entries.
+ * Each entry sits under exactly one time; when its time changes it is moved with
+ * {@link #move(LocalDateTime, LocalDateTime, long, DiaryEntry)}.
+ * <p>
+ * Changes return a new version of the index that shares all but O(log n) nodes with the old one, so a query
+ * runs against the version it started with while writers publish newer ones. Entries stamped with the same time
+ * are told apart, and ordered, by a number the caller gives each entry.
+ */
+public final class TemporalIndex {
+
+    /**
+     * Position of an entry in the index.
+     *
+     * @param time   Time the entry is stamped with.
+     * @param number Number given to the entry, ordering entries stamped with the same time.
+     */
+    private record Key(LocalDateTime time, long number) {
+    }
+
+    private static final Comparator<Key> ORDER = Comparator.comparing(Key::time).thenComparingLong(Key::number);
+
+    private static final TemporalIndex EMPTY = new TemporalIndex(PersistentSortedMap.empty(ORDER));
+
+    private final PersistentSortedMap<Key, DiaryEntry> entries;
+
+    private TemporalIndex(PersistentSortedMap<Key, DiaryEntry> entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Retrieves the empty index.
+     *
+     * @return Index without entries.
+     */
+    public static TemporalIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Adds an entry under a point in time.
+     *
+     * @param time   Time to index the entry under.
+     * @param number Number of the entry, unique within the index.
+     * @param entry  Entry to add.
+     * @return The new version of the index.
+     */
+    public TemporalIndex add(LocalDateTime time, long number, DiaryEntry entry) {
+        return new TemporalIndex(entries.put(new Key(time, number), entry));
+    }
+
+    /**
+     * Removes an entry from under a point in time.
+     *
+     * @param time   Time the entry was indexed under.
+     * @param number Number of the entry.
+     * @return The new version of the index, or this index if the entry was not under that time.
+     */
+    public TemporalIndex remove(LocalDateTime time, long number) {
+        PersistentSortedMap<Key, DiaryEntry> removed = entries.remove(new Key(time, number));
+        return removed == entries ? this : new TemporalIndex(removed);
+    }
+
+    /**
+     * Moves an entry from one point in time to another.
+     *
+     * @param oldTime Time the entry is indexed under.
+     * @param newTime Time to index the entry under.
+     * @param number  Number of the entry.
+     * @param entry   Entry to move.
+     * @return The new version of the index.
+     */
+    public TemporalIndex move(LocalDateTime oldTime, LocalDateTime newTime, long number, DiaryEntry entry) {
+        if (oldTime.equals(newTime)) return this;
+        return new TemporalIndex(entries.remove(new Key(oldTime, number)).put(new Key(newTime, number), entry));
+    }
+
+    /**
+     * Retrieves the number of entries in the index.
+     *
+     * @return Number of entries.
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * Finds the most recently indexed entries, without sorting the whole index.
+     *
+     * @param limit Maximum number of entries to return.
+     * @return Up to limit entries, newest first.
+     */
+    public List<DiaryEntry> latest(int limit) {
+        List<DiaryEntry> result = new ArrayList<>();
+        if (limit <= 0) return result;
+        entries.forEachDescending((key, entry) -> {
+            result.add(entry);
+            return result.size() < limit;
+        });
+        return result;
+    }
+
+    /**
+     * Finds the entries indexed on a date.
+     *
+     * @param date Date to look up.
+     * @return Matching entries, oldest first.
+     */
+    public List<DiaryEntry> on(LocalDate date) {
+        return between(date, date);
+    }
+
+    /**
+     * Finds the entries indexed between two dates, both inclusive.
+     *
+     * @param start First date of the range.
+     * @param end   Last date of the range. {@link LocalDate#MAX} leaves the range open at the end, since the day
+     *              after it cannot be represented.
+     * @return Matching entries, oldest first.
+     */
+    public List<DiaryEntry> between(LocalDate start, LocalDate end) {
+        if (end.isBefore(start)) return List.of();
+        return between(start.atStartOfDay(), end.equals(LocalDate.MAX) ? null : end.plusDays(1).atStartOfDay());
+    }
+
+    /**
+     * Finds the entries indexed at or after one point in time and before another.
+     *
+     * @param from First point in time of the range, or null for no lower bound.
+     * @param to   End of the range, not included, or null for no upper bound.
+     * @return Matching entries, oldest first.
+     */
+    public List<DiaryEntry> between(LocalDateTime from, LocalDateTime to) {
+        if (from != null && to != null && !from.isBefore(to)) return List.of();
+        Key first = from == null ? null : new Key(from, Long.MIN_VALUE);
+        Key end = to == null ? null : new Key(to, Long.MIN_VALUE);
+        List<DiaryEntry> result = new ArrayList<>(entries.count(first, end));
+        entries.forEach(first, end, (key, entry) -> result.add(entry));
+        return result;
+    }
+
+    /**
+     * Groups entries by their author, keeping the order of the entries.
+     *
+     * @param matches Entries to group.
+     * @return Map from author to the author's entries.
+     */
+    public static Map<Author, List<DiaryEntry>> groupByAuthor(Collection<DiaryEntry> matches) {
+        return matches.stream()
+                .collect(Collectors.groupingBy(DiaryEntry::getAuthor, HashMap::new, Collectors.toList()));
+    }
+}
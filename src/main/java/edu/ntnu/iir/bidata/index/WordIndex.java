@@ -0,0 +1,588 @@
+package edu.ntnu.iir.bidata.index;
+
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.models.DiaryEntryListener;
+import edu.ntnu.iir.bidata.models.Page;
+import edu.ntnu.iir.bidata.text.TokenBuffer;
+import edu.ntnu.iir.bidata.text.Tokenizer;
+import edu.ntnu.iir.bidata.text.Vocabulary;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiPredicate;
+
+/**
+ * Positional inverted index from normalized words to the pages they occur on.
+ * <p>
+ * Every word maps to a posting list with one {@link Posting} per page containing the word,
+ * holding the word offsets within the page. All postings are kept in one {@link PersistentSortedMap} keyed by the
+ * {@link Vocabulary} id of the word, the number the index gave the page's entry, and the order the page was indexed
+ * in. The posting list of a word is one range of the map, found by hashing the query word once, and the postings of
+ * one entry are one range within it. The index listens to the diary entries it holds,
+ * so adding, editing and removing pages keeps the posting lists up to date.
+ * A word lookup costs the size of its posting list, not the size of the corpus,
+ * and phrase and proximity queries are answered by intersecting position lists
+ * instead of rescanning page text.
+ * <p>
+ * The index may be searched and changed from several threads. Changes are made one at a time, and each one
+ * publishes a new version of the postings that shares everything but the changed paths with the previous one.
+ * A search takes the current version without locking and keeps reading it until it is done, so a long search
+ * neither waits for pages being indexed nor holds them up, and never sees a page half indexed.
+ * <p>
+ * Given an {@link IndexingPipeline}, the index is changed by the pipeline instead of by the thread editing the
+ * entry. With eventual consistency, edits only capture the pages they changed, and the indexer thread indexes
+ * them and publishes one version per batch. Searches first wait for the changes of the searching thread.
+ * Each page remembers the words it was indexed with, so it can be taken out again without its old text.
+ */
+public class WordIndex implements DiaryEntryListener {
+
+    /**
+     * One page containing a word.
+     *
+     * @param entry     Diary entry the page belongs to.
+     * @param page      Page containing the word.
+     * @param positions Word offsets of the word within the page, in ascending order.
+     */
+    public record Posting(DiaryEntry entry, Page page, int[] positions) {
+
+        /**
+         * Retrieves the number of times the word occurs on the page.
+         *
+         * @return Number of occurrences.
+         */
+        public int occurrences() {
+            return positions.length;
+        }
+
+        /**
+         * Retrieves the current page number of the page within its entry.
+         * The number is looked up on demand, so it stays correct when earlier pages are removed.
+         *
+         * @return The page number (starting at 1).
+         */
+        public int pageNumber() {
+            return entry.getPageNumber(page);
+        }
+    }
+
+    /**
+     * One page matching a phrase or proximity query.
+     *
+     * @param entry    Diary entry the page belongs to.
+     * @param page     Matching page.
+     * @param position Word offset of the first match within the page.
+     */
+    public record PageMatch(DiaryEntry entry, Page page, int position) {
+
+        /**
+         * Retrieves the current page number of the page within its entry.
+         *
+         * @return The page number (starting at 1).
+         */
+        public int pageNumber() {
+            return entry.getPageNumber(page);
+        }
+    }
+
+    /**
+     * Position of a posting in the map: the word, then the entry, then the order the page was indexed in.
+     */
+    private record Key(int wordId, long entry, long sequence) {
+    }
+
+    /**
+     * One published version of the index.
+     */
+    private record Version(PersistentSortedMap<Key, Posting> postings, int numberOfWords) {
+
+        int count(int wordId) {
+            return wordId < 0 ? 0 : postings.count(first(wordId), first(wordId + 1));
+        }
+
+        boolean forEach(int wordId, BiPredicate<Key, Posting> visitor) {
+            return wordId < 0 || postings.forEach(first(wordId), first(wordId + 1), visitor);
+        }
+
+        boolean forEach(int wordId, long entry, BiPredicate<Key, Posting> visitor) {
+            return wordId < 0 || postings.forEach(
+                    new Key(wordId, entry, Long.MIN_VALUE), new Key(wordId, entry + 1, Long.MIN_VALUE), visitor);
+        }
+
+        private static Key first(int wordId) {
+            return new Key(wordId, Long.MIN_VALUE, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * How a page is indexed: the number of its entry, the order it was indexed in, and its distinct word ids.
+     */
+    private record Indexed(long entry, long sequence, int[] wordIds) {
+    }
+
+    private static final Comparator<Key> ORDER = Comparator.comparingInt(Key::wordId)
+            .thenComparingLong(Key::entry)
+            .thenComparingLong(Key::sequence);
+
+    private final Vocabulary vocabulary;
+    private final IndexingPipeline pipeline;
+    private PersistentSortedMap<Key, Posting> postings = PersistentSortedMap.empty(ORDER);
+    private int numberOfWords;
+    private volatile Version version = new Version(postings, 0);
+    private final Map<Page, Indexed> indexedPages = new HashMap<>();
+    private final Map<DiaryEntry, Long> entryNumbers = new ConcurrentHashMap<>();
+    private final AtomicLong nextEntryNumber = new AtomicLong();
+    private long nextSequence;
+    private boolean changed;
+    private int[] slots = new int[0];
+
+    /**
+     * Creates an empty index using the shared vocabulary.
+     */
+    public WordIndex() {
+        this(Vocabulary.shared());
+    }
+
+    /**
+     * Creates an empty index using the given vocabulary.
+     *
+     * @param vocabulary Vocabulary mapping words to ids.
+     * @throws IllegalArgumentException if vocabulary is null.
+     */
+    public WordIndex(Vocabulary vocabulary) {
+        this(vocabulary, null);
+    }
+
+    /**
+     * Creates an empty index that is changed through a pipeline.
+     *
+     * @param vocabulary Vocabulary mapping words to ids.
+     * @param pipeline   Pipeline applying changes, or null to change the index on the thread editing an entry.
+     * @throws IllegalArgumentException if vocabulary is null.
+     */
+    public WordIndex(Vocabulary vocabulary, IndexingPipeline pipeline) {
+        if (vocabulary == null) throw new IllegalArgumentException("Vocabulary cannot be null");
+        this.vocabulary = vocabulary;
+        this.pipeline = pipeline;
+        if (pipeline != null) pipeline.addBatchHook(this::publishChanges);
+    }
+
+    /**
+     * Indexes every page of an entry and starts listening for changes to it.
+     *
+     * @param entry Diary entry to index.
+     * @throws IllegalArgumentException if entry is null.
+     */
+    public void addEntry(DiaryEntry entry) {
+        if (entry == null) throw new IllegalArgumentException("Diary entry cannot be null");
+        entryNumbers.computeIfAbsent(entry, key -> nextEntryNumber.getAndIncrement());
+        List<Runnable> pages = entry.getPages().stream().map(page -> indexing(entry, page)).toList();
+        change(() -> pages.forEach(Runnable::run));
+        entry.addListener(this);
+    }
+
+    /**
+     * Removes every page of an entry from the index and stops listening for changes to it.
+     *
+     * @param entry Diary entry to remove.
+     * @throws IllegalArgumentException if entry is null.
+     */
+    public void removeEntry(DiaryEntry entry) {
+        if (entry == null) throw new IllegalArgumentException("Diary entry cannot be null");
+        entry.removeListener(this);
+        List<Page> pages = entry.getPages();
+        change(() -> pages.forEach(this::unindexPage));
+        entryNumbers.remove(entry);
+    }
+
+    /**
+     * Retrieves the posting list of a word.
+     *
+     * @param word Word to look up. Case and punctuation around the word are ignored.
+     * @return Postings for the word, grouped by entry in the order the entries were added, and within an entry
+     *         in the order the pages were indexed.
+     */
+    public List<Posting> getPostings(String word) {
+        if (word == null || word.isBlank()) return List.of();
+        Version current = searchedVersion();
+        int wordId = vocabulary.lookup(normalize(word));
+        List<Posting> list = new ArrayList<>(current.count(wordId));
+        current.forEach(wordId, (key, posting) -> list.add(posting));
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Finds the entries containing a word, ordered by how often the word occurs in each entry.
+     *
+     * @param word  Word to search for. Case and punctuation around the word are ignored.
+     * @param limit Maximum number of entries to return.
+     * @return Matching entries, most occurrences first.
+     */
+    public List<DiaryEntry> findEntries(String word, int limit) {
+        if (word == null || word.isBlank() || limit <= 0) return List.of();
+        Map<DiaryEntry, Integer> occurrencesPerEntry = new LinkedHashMap<>();
+        searchedVersion().forEach(vocabulary.lookup(normalize(word)), (key, posting) ->
+                occurrencesPerEntry.merge(posting.entry(), posting.occurrences(), Integer::sum) != null);
+
+        return occurrencesPerEntry.entrySet().stream()
+                .sorted(Map.Entry.<DiaryEntry, Integer>comparingByValue().reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    /**
+     * Returns map between page numbers and pages of one entry containing a word.
+     * Only the postings of the entry are visited, and their page numbers are found in one pass over its pages.
+     *
+     * @param entry Diary entry to look in.
+     * @param word  Word to search for. Case and punctuation around the word are ignored.
+     * @return Map between page numbers and pages, ordered by page number.
+     */
+    public Map<Integer, Page> getPagesContainingWord(DiaryEntry entry, String word) {
+        if (entry == null || word == null || word.isBlank()) return Map.of();
+        Version current = searchedVersion();
+        Long number = entryNumbers.get(entry);
+        if (number == null) return Map.of();
+
+        Set<Page> found = Collections.newSetFromMap(new IdentityHashMap<>());
+        current.forEach(vocabulary.lookup(normalize(word)), number, (key, posting) -> found.add(posting.page()));
+        if (found.isEmpty()) return Map.of();
+
+        Map<Integer, Page> result = new TreeMap<>();
+        List<Page> pages = entry.getPages();
+        for (int index = 0; index < pages.size() && result.size() < found.size(); index++) {
+            if (found.contains(pages.get(index))) result.put(index + 1, pages.get(index));
+        }
+        return result;
+    }
+
+    /**
+     * Finds the pages where the words of a phrase occur next to each other, in order.
+     *
+     * @param phrase Phrase to search for. Case is ignored.
+     * @param limit  Maximum number of pages to return.
+     * @return Matching pages, in the order of {@link #getPostings(String)}.
+     */
+    public List<PageMatch> findPhrase(String phrase, int limit) {
+        List<String> words = splitQuery(phrase);
+        if (words.isEmpty() || limit <= 0) return List.of();
+
+        return findMatches(words, limit, termPositions -> {
+            for (int start : termPositions[0]) {
+                boolean matches = true;
+                for (int term = 1; term < termPositions.length && matches; term++) {
+                    matches = Arrays.binarySearch(termPositions[term], start + term) >= 0;
+                }
+                if (matches) return start;
+            }
+            return -1;
+        });
+    }
+
+    /**
+     * Finds the pages where all the given words occur within a window of words.
+     * With two words, a distance of 1 means the words are adjacent in either order.
+     *
+     * @param words       Words to search for. Case is ignored.
+     * @param maxDistance Maximum distance, in words, between the first and the last matching word.
+     * @param limit       Maximum number of pages to return.
+     * @return Matching pages, in the order of {@link #getPostings(String)}.
+     * @throws IllegalArgumentException if maxDistance is negative.
+     */
+    public List<PageMatch> findNear(List<String> words, int maxDistance, int limit) {
+        if (maxDistance < 0) throw new IllegalArgumentException("Distance cannot be negative");
+        if (words == null || limit <= 0) return List.of();
+        List<String> terms = words.stream()
+                .filter(word -> word != null && !word.isBlank())
+                .map(WordIndex::normalize)
+                .filter(word -> !word.isEmpty())
+                .distinct()
+                .toList();
+        if (terms.isEmpty()) return List.of();
+
+        return findMatches(terms, limit, termPositions -> smallestWindowStart(termPositions, maxDistance));
+    }
+
+    /**
+     * Retrieves the number of distinct words in the index.
+     *
+     * @return Number of distinct words.
+     */
+    public int getNumberOfWords() {
+        return searchedVersion().numberOfWords();
+    }
+
+    @Override
+    public void pageAdded(DiaryEntry entry, Page page) {
+        change(indexing(entry, page));
+    }
+
+    @Override
+    public void pageTextChanged(DiaryEntry entry, Page page, String oldText) {
+        change(indexing(entry, page));
+    }
+
+    @Override
+    public void pageRemoved(DiaryEntry entry, Page page, int pageNumber) {
+        change(() -> unindexPage(page));
+    }
+
+    /**
+     * Normalizes a query word the same way page text is split and stored in the index: the first word of the
+     * query, by the rules of {@link Tokenizer.Mode#WORDS}, in lower case. Whitespace and punctuation around the
+     * word are dropped, so "venn," finds "venn".
+     *
+     * @param word Word to normalize.
+     * @return The normalized word, or an empty string if the query holds no word.
+     */
+    public static String normalize(String word) {
+        TokenBuffer words = Tokenizer.tokenize(word, Tokenizer.Mode.WORDS);
+        return words.size() == 0 ? "" : words.normalizedToken(0);
+    }
+
+    /**
+     * Splits a query into normalized words, using the same rules as page text.
+     *
+     * @param query Query to split.
+     * @return Normalized words in query order.
+     */
+    public static List<String> splitQuery(String query) {
+        if (query == null || query.isBlank()) return List.of();
+        TokenBuffer words = Tokenizer.tokenize(query, Tokenizer.Mode.WORDS);
+        List<String> result = new ArrayList<>(words.size());
+        for (int index = 0; index < words.size(); index++) {
+            result.add(words.normalizedToken(index));
+        }
+        return result;
+    }
+
+    /**
+     * Decides whether one page matches, given the positions of every query term on the page.
+     */
+    @FunctionalInterface
+    private interface PositionMatcher {
+        /**
+         * @param termPositions Positions of each query term on the page, in query order.
+         * @return Word offset of the first match, or -1 if the page does not match.
+         */
+        int firstMatch(int[][] termPositions);
+    }
+
+    /**
+     * Receives the positions of one word on a page.
+     */
+    @FunctionalInterface
+    private interface WordPositions {
+        void accept(int wordId, int[] positions);
+    }
+
+    private List<PageMatch> findMatches(List<String> terms, int limit, PositionMatcher matcher) {
+        Version current = searchedVersion();
+        int[] wordIds = new int[terms.size()];
+        int rarest = 0;
+        for (int term = 0; term < wordIds.length; term++) {
+            wordIds[term] = vocabulary.lookup(terms.get(term));
+            if (current.count(wordIds[term]) == 0) return List.of();
+            if (current.count(wordIds[term]) < current.count(wordIds[rarest])) rarest = term;
+        }
+
+        List<PageMatch> matches = new ArrayList<>();
+        current.forEach(wordIds[rarest], (candidate, rarestPosting) -> {
+            int[][] termPositions = new int[wordIds.length][];
+            for (int term = 0; term < wordIds.length; term++) {
+                Posting posting = current.postings().get(
+                        new Key(wordIds[term], candidate.entry(), candidate.sequence()));
+                if (posting == null) return true;
+                termPositions[term] = posting.positions();
+            }
+
+            int position = matcher.firstMatch(termPositions);
+            if (position >= 0) matches.add(new PageMatch(rarestPosting.entry(), rarestPosting.page(), position));
+            return matches.size() < limit;
+        });
+        return matches;
+    }
+
+    /**
+     * Finds the start of the first window of at most maxDistance + 1 words containing every term,
+     * by sweeping over the merged position lists.
+     */
+    private static int smallestWindowStart(int[][] termPositions, int maxDistance) {
+        int total = 0;
+        for (int[] positions : termPositions) total += positions.length;
+
+        long[] merged = new long[total];
+        int index = 0;
+        for (int term = 0; term < termPositions.length; term++) {
+            for (int position : termPositions[term]) {
+                merged[index++] = ((long) position << 32) | term;
+            }
+        }
+        Arrays.sort(merged);
+
+        int[] inWindow = new int[termPositions.length];
+        int covered = 0;
+        int left = 0;
+        for (long right : merged) {
+            if (inWindow[(int) right]++ == 0) covered++;
+            while (covered == termPositions.length) {
+                int leftPosition = (int) (merged[left] >>> 32);
+                if ((int) (right >>> 32) - leftPosition <= maxDistance) return leftPosition;
+                if (--inWindow[(int) merged[left]] == 0) covered--;
+                left++;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Retrieves the version for a search, after the changes made by the searching thread have been applied.
+     */
+    private Version searchedVersion() {
+        if (pipeline != null) pipeline.awaitIndexed();
+        return version;
+    }
+
+    /**
+     * Applies a change to the index, then publishes it: at once without a pipeline,
+     * otherwise through the pipeline, which publishes after each batch.
+     */
+    private void change(Runnable update) {
+        if (pipeline == null) {
+            synchronized (this) {
+                update.run();
+                publish();
+            }
+            return;
+        }
+        pipeline.submit(() -> {
+            synchronized (this) {
+                update.run();
+                changed = true;
+            }
+        });
+    }
+
+    /**
+     * Captures what indexing a page takes. A change applied later by the pipeline indexes the page as it is now,
+     * even if it has changed again by the time the change runs.
+     */
+    private Runnable indexing(DiaryEntry entry, Page page) {
+        Long number = entryNumbers.get(entry);
+        if (number == null) return () -> { };
+        if (pipeline == null) return () -> indexPage(entry, number, page, wordIdsOf(page));
+        Page.Snapshot snapshot = page.snapshot();
+        return () -> indexPage(entry, number, page, vocabulary == Vocabulary.shared()
+                ? snapshot.wordIds() : wordIdsOf(snapshot.text(), true));
+    }
+
+    private synchronized void publishChanges() {
+        if (!changed) return;
+        changed = false;
+        publish();
+    }
+
+    /**
+     * Makes the changes since the last call visible to searches. Called by writers, holding the monitor.
+     */
+    private void publish() {
+        version = new Version(postings, numberOfWords);
+    }
+
+    /**
+     * Adds the postings of a page, after the postings of every page indexed before it.
+     * A page that is already indexed is first removed, so it is never indexed twice.
+     */
+    private void indexPage(DiaryEntry entry, long number, Page page, int[] wordIds) {
+        unindexPage(page);
+        long sequence = nextSequence++;
+        int[] distinct = new int[wordIds.length];
+        int[] distinctCount = new int[1];
+        forEachWord(wordIds, (wordId, positions) -> {
+            if (!hasPostings(wordId)) numberOfWords++;
+            postings = postings.put(new Key(wordId, number, sequence), new Posting(entry, page, positions));
+            distinct[distinctCount[0]++] = wordId;
+        });
+        indexedPages.put(page, new Indexed(number, sequence, Arrays.copyOf(distinct, distinctCount[0])));
+    }
+
+    private boolean hasPostings(int wordId) {
+        return postings.count(Version.first(wordId), Version.first(wordId + 1)) > 0;
+    }
+
+    private void unindexPage(Page page) {
+        Indexed indexed = indexedPages.remove(page);
+        if (indexed == null) return;
+        for (int wordId : indexed.wordIds()) {
+            postings = postings.remove(new Key(wordId, indexed.entry(), indexed.sequence()));
+            if (!hasPostings(wordId)) numberOfWords--;
+        }
+    }
+
+    /**
+     * Retrieves the word ids of a page, reusing the ids cached by the page when this index uses the shared vocabulary.
+     */
+    private int[] wordIdsOf(Page page) {
+        return vocabulary == Vocabulary.shared() ? page.getWordIds() : wordIdsOf(page.getText(), true);
+    }
+
+    /**
+     * Looks up the id of every word of a text, in order.
+     * Words without an id are assigned one if assignIds is true and given {@link Vocabulary#UNKNOWN} otherwise.
+     */
+    private int[] wordIdsOf(String text, boolean assignIds) {
+        TokenBuffer words = Tokenizer.tokenize(text, Tokenizer.Mode.WORDS);
+        int[] wordIds = new int[words.size()];
+        for (int position = 0; position < wordIds.length; position++) {
+            String word = words.normalizedToken(position);
+            wordIds[position] = assignIds ? vocabulary.idOf(word) : vocabulary.lookup(word);
+        }
+        return wordIds;
+    }
+
+    /**
+     * Groups the words of a page by vocabulary id in two linear passes, without sorting:
+     * the first pass gives each distinct word a slot and counts it, the second fills in the positions.
+     * Slots are looked up in an array indexed by word id that is reset after each page. Unknown words are skipped.
+     */
+    private void forEachWord(int[] wordIds, WordPositions action) {
+        int[] distinct = new int[wordIds.length];
+        int[] counts = new int[wordIds.length];
+        int distinctCount = 0;
+        for (int wordId : wordIds) {
+            if (wordId < 0) continue;
+            if (wordId >= slots.length) {
+                int oldLength = slots.length;
+                slots = Arrays.copyOf(slots, Math.max(wordId + 1, oldLength * 2));
+                Arrays.fill(slots, oldLength, slots.length, -1);
+            }
+            int slot = slots[wordId];
+            if (slot < 0) {
+                slot = distinctCount++;
+                slots[wordId] = slot;
+                distinct[slot] = wordId;
+            }
+            counts[slot]++;
+        }
+
+        int[][] positions = new int[distinctCount][];
+        for (int slot = 0; slot < distinctCount; slot++) {
+            positions[slot] = new int[counts[slot]];
+            counts[slot] = 0;
+        }
+        for (int position = 0; position < wordIds.length; position++) {
+            int wordId = wordIds[position];
+            if (wordId < 0) continue;
+            int slot = slots[wordId];
+            positions[slot][counts[slot]++] = position;
+        }
+        for (int slot = 0; slot < distinctCount; slot++) {
+            slots[distinct[slot]] = -1;
+        }
+
+        for (int slot = 0; slot < distinctCount; slot++) {
+            action.accept(distinct[slot], positions[slot]);
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package edu.ntnu.iir.bidata.models;
 
+import edu.ntnu.iir.bidata.text.Vocabulary;
+import edu.ntnu.iir.bidata.text.WordCounter;
+
 import java.time.LocalDateTime;
-import java.util.HashMap;
-import java.util.Map;
 
 import static edu.ntnu.iir.bidata.ui.DiaryUiUtils.STD_MAX_LENGTH_NAME;
 import static edu.ntnu.iir.bidata.ui.DiaryUiUtils.STD_MAX_LENGTH_TITLES;
@@ -10,6 +11,8 @@ import static edu.ntnu.iir.bidata.ui.DiaryUiUtils.STD_MAX_LENGTH_TITLES;
 /**
  * Author of a diary entry.
  * An author can have a first name, last name, and/or nickname.
+ * The author's word counts are changed by its diary entries from any thread, and are read and written
+ * holding the counter's monitor.
  */
 public class Author {
     private String firstName;
@@ -19,7 +22,7 @@ public class Author {
     private LocalDateTime lastTimeCreated;
     private LocalDateTime lastTimeChanged;
 
-    private final Map<String, Long> wordCount = new HashMap<>();
+    private final WordCounter wordCount = new WordCounter();
 
     /**
      * Creates a new author with first name, last name, and nickname.
@@ -257,34 +260,73 @@ public class Author {
     }
 
 
-    public void addWordToWordCount(Map<String, Long> newWords) {
-        if (newWords == null) return;
-        for (Map.Entry<String, Long> entry : newWords.entrySet()) {
-            String word = entry.getKey();
-            Long count = entry.getValue();
-            Long currentCount = wordCount.getOrDefault(word, 0L);
-            wordCount.put(word, currentCount + count);
+    /**
+     * Adds one occurrence of a word to the author's word count.
+     *
+     * @param wordId Vocabulary id of the word to count.
+     */
+    public void addWordToWordCount(int wordId) {
+        synchronized (wordCount) {
+            wordCount.increment(wordId);
         }
     }
 
-    public Map<String, Long> getWordCount() {
-        return wordCount;
+    /**
+     * Removes one occurrence of a word from the author's word count.
+     * The word is dropped from the count when no occurrences are left.
+     *
+     * @param wordId Vocabulary id of the word to uncount.
+     */
+    public void removeWordFromWordCount(int wordId) {
+        synchronized (wordCount) {
+            wordCount.decrement(wordId);
+        }
     }
 
-    public void removeWordFromWordCount(Map<String, Long> words) {
-        if (words == null) return;
-        for (Map.Entry<String, Long> entry : words.entrySet()) {
-            String word = entry.getKey();
-            Long count = entry.getValue();
-            Long currentCount = wordCount.get(word);
-            if (currentCount != null) {
-                Long newCount = currentCount - count;
-                if (newCount > 0L) {
-                    wordCount.put(word, newCount);
-                } else {
-                    wordCount.remove(word);
-                }
-            }
+    /**
+     * Retrieves the number of times the author has used a word across all diary entries.
+     *
+     * @param word Word to look up, ignoring case.
+     * @return Number of occurrences, or 0 if the word is not used.
+     */
+    public long getWordCount(String word) {
+        if (word == null) return 0L;
+        int wordId = Vocabulary.shared().lookup(word.toLowerCase());
+        synchronized (wordCount) {
+            return wordCount.get(wordId);
         }
     }
+
+    /**
+     * Retrieves the number of times the author has used each word across all diary entries.
+     * The counts are copied, so later edits do not change them.
+     *
+     * @return Copy of the word counts, keyed by shared vocabulary id.
+     */
+    public WordCounter getWordCount() {
+        synchronized (wordCount) {
+            return wordCount.copy();
+        }
+    }
+
+    /**
+     * Adds saved word counts to the author, used when restoring saved authors.
+     *
+     * @param counts Counts to add, keyed by shared vocabulary id.
+     * @throws IllegalArgumentException if counts is null.
+     */
+    public void restoreWordCount(WordCounter counts) {
+        if (counts == null) throw new IllegalArgumentException("Word counts cannot be null");
+        synchronized (wordCount) {
+            counts.forEach(wordCount::add);
+        }
+    }
+
+    /**
+     * Retrieves the counter itself, for diary entries to update together with their own counts.
+     * Callers hold its monitor while they use it.
+     */
+    WordCounter wordCounter() {
+        return wordCount;
+    }
 }
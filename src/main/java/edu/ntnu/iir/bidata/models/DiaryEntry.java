@@ -1,8 +1,20 @@
 package edu.ntnu.iir.bidata.models;
 
+import edu.ntnu.iir.bidata.index.IndexingPipeline;
+import edu.ntnu.iir.bidata.text.Tokenizer;
+import edu.ntnu.iir.bidata.text.Vocabulary;
+import edu.ntnu.iir.bidata.text.WordCounter;
+
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.IntStream;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
 
 import static edu.ntnu.iir.bidata.ui.DiaryUiUtils.STD_MAX_LENGTH_NAME;
 import static edu.ntnu.iir.bidata.ui.DiaryUiUtils.STD_MAX_LENGTH_TITLES;
@@ -14,22 +26,42 @@ import static edu.ntnu.iir.bidata.ui.DiaryUiUtils.STD_MAX_LENGTH_TITLES;
  * The following functionality is provided:
  * <ul>
  *   <li>Add new pages</li>
+ *   <li>Insert pages at a position and move pages</li>
  *   <li>Remove existing pages</li>
  *   <li>Edit text and title of a page</li>
  *   <li>Change the title of the diary entry itself</li>
  *   <li>Navigate between pages</li>
  * </ul>
+ * Page text can be kept in a {@link PageTextStore} instead of on the heap, see {@link #storePagesIn(PageTextStore)}.
+ * <p>
+ * An entry may be viewed from many threads while one of them edits it. Readers take an optimistic
+ * {@link StampedLock} stamp and only retry, under a read lock, if a writer changed the entry meanwhile, so viewers
+ * of a popular entry never contend with each other. Writers hold the stamp exclusively while they change the
+ * pages, word counts, title or time of last change, and take turns on a separate lock that also covers notifying
+ * listeners, so listeners see changes in the order they were made and can read the entry while doing so.
+ * Given a write gate, writers also hold it around the change and the notification, see
+ * {@link #setWriteGate(Lock)}.
+ * <p>
+ * Word counts are kept up to date by the writer, unless the entry counts through an {@link IndexingPipeline}
+ * with eventual consistency, see {@link #indexThrough(IndexingPipeline)}.
  */
 public class DiaryEntry {
 
     private final int maxWordsPerPage;
-    private final LinkedList<Page> pages;
+    private final PageTable pages;
     private final Author author;
     private String entryTitle;
     private final LocalDateTime timeCreated;
     private LocalDateTime timeChanged;
 
-    private final Map<String, Long> wordCount;
+    private final WordCounter wordCount;
+    private PageTextStore pageTextStore;
+    private volatile IndexingPipeline indexer;
+    private volatile Lock writeGate;
+
+    private final List<DiaryEntryListener> listeners = new CopyOnWriteArrayList<>();
+    private final StampedLock lock = new StampedLock();
+    private final ReentrantLock writerLock = new ReentrantLock();
 
     /**
      * Creates a new diary entry.
@@ -42,20 +74,37 @@ public class DiaryEntry {
      *                                  or if maxTextLengthPerPage is less than or equal to 0.
      */
     public DiaryEntry(Author author, int maxTextLengthPerPage, String entryTitle) {
+        this(author, maxTextLengthPerPage, entryTitle, LocalDateTime.now());
+    }
+
+    /**
+     * Creates a diary entry with a given creation time, used when restoring saved entries.
+     *
+     * @param author Author of the diary entry.
+     * @param maxTextLengthPerPage Maximum text length per page.
+     * @param entryTitle Initial title of the diary entry.
+     * @param timeCreated Time the diary entry was first created.
+     * @throws IllegalArgumentException if author or timeCreated is null,
+     *                                  or if maxTextLengthPerPage is less than or equal to 0.
+     */
+    public DiaryEntry(Author author, int maxTextLengthPerPage, String entryTitle, LocalDateTime timeCreated) {
         if (author == null) {
             throw new IllegalArgumentException("Author cannot be null");
         }
         if (maxTextLengthPerPage <= 0) {
             throw new IllegalArgumentException("Maximum text length per page must be greater than 0");
         }
+        if (timeCreated == null) {
+            throw new IllegalArgumentException("Time created cannot be null");
+        }
 
         this.author = author;
         this.entryTitle = entryTitle;
         this.maxWordsPerPage = maxTextLengthPerPage;
-        this.timeCreated = LocalDateTime.now();
+        this.timeCreated = timeCreated;
         this.timeChanged = this.timeCreated;
-        this.pages = new LinkedList<>();
-        this.wordCount = new HashMap<>();
+        this.pages = new PageTable();
+        this.wordCount = new WordCounter();
 
         author.setLastTimeCreated(this.timeCreated);
     }
@@ -71,34 +120,123 @@ public class DiaryEntry {
     public void addPage(String title, String text) {
         validateTitle(title);
         validateText(text);
-        this.pages.add(new Page(title, text));
-        addToWordToWordCount(text);
-        updateTimeChanged();
+        Page page = new Page(title, text);
+        Lock gate = lockWriter();
+        try {
+            boolean deferred = countsLater();
+            write(() -> {
+                pages.add(page);
+                if (!deferred) addToWordCount(page);
+            });
+            if (deferred) countLater(page.getBody(), 1);
+            updateTimeChanged();
+            listeners.forEach(listener -> listener.pageAdded(this, page));
+            storeText(page);
+        } finally {
+            unlockWriter(gate);
+        }
     }
+
     /**
-     * Returns map between page numbers and Pages, containing spesific word
+     * Adds a saved page to the end of the diary entry, used when restoring saved entries.
+     * The words of the page are taken as given instead of being read from the text again,
+     * and the text is not checked against the word limit, since it was checked when the page was written.
+     * Word counts and the time of last change are left alone; restore the counts through
+     * {@link #restoreWordCount(WordCounter)}.
      *
-     * @param word Word to search for.
-     * @return  Returns map between page numbers and Pages,containing spesific word
+     * @param title   Page title.
+     * @param text    Page text.
+     * @param wordIds Shared vocabulary ids of the words of text, in order.
+     * @throws IllegalArgumentException if title is null or empty, or if text or wordIds is null.
      */
-    public Map<Integer, Page> getPagesContainingWord(String word) {
-        if (word == null || word.isBlank())
-            return Map.of();
-
-        Map<Integer, Page> result = new LinkedHashMap<>();
-        IntStream.range(0, pages.size())
-                .forEach(index -> {
-                    Page page = pages.get(index);
-                    if (page.getText().toLowerCase().contains(word.toLowerCase())) {
-                        result.put(index+1, page);
-                    }
-                });
+    public void restorePage(String title, String text, int[] wordIds) {
+        validateTitle(title);
+        restorePage(new Page(title, text, wordIds));
+    }
 
-        return result;
+    /**
+     * Adds a saved page to the end of the diary entry like {@link #restorePage(String, String, int[])}, copying its
+     * text as UTF-8 bytes straight into a page store instead of decoding it.
+     *
+     * @param title   Page title.
+     * @param store   Store to keep the text in.
+     * @param utf8    Page text encoded as UTF-8, from the position to the limit of the buffer.
+     * @param wordIds Shared vocabulary ids of the words of the text, in order.
+     * @throws IllegalArgumentException if title is null or empty, or if store, utf8 or wordIds is null.
+     */
+    public void restorePage(String title, PageTextStore store, ByteBuffer utf8, int[] wordIds) {
+        validateTitle(title);
+        restorePage(new Page(title, store, utf8, wordIds));
     }
 
+    private void restorePage(Page page) {
+        Lock gate = lockWriter();
+        try {
+            write(() -> pages.add(page));
+            listeners.forEach(listener -> listener.pageAdded(this, page));
+            storeText(page);
+        } finally {
+            unlockWriter(gate);
+        }
+    }
 
+    /**
+     * Inserts a new page at a position. The page currently at that position,
+     * and every page after it, move one page back.
+     *
+     * @param pageNumber Page number of the new page, from 1 up to and including the number of pages + 1.
+     * @param title      Page title.
+     * @param text       Page text.
+     * @throws IllegalArgumentException if pageNumber is outside the valid range,
+     *                                  if title is null or empty,
+     *                                  if text is null, blank, or longer than maxTextLengthPerPage.
+     */
+    public void insertPage(int pageNumber, String title, String text) {
+        validateTitle(title);
+        validateText(text);
+        Lock gate = lockWriter();
+        try {
+            if (pageNumber < 1 || pageNumber > pages.size() + 1) {
+                throw new IllegalArgumentException(
+                        pageNumber + " is an invalid page number. Must be between 1 and " + (pages.size() + 1)
+                );
+            }
+            Page page = new Page(title, text);
+            boolean deferred = countsLater();
+            write(() -> {
+                pages.insert(pageNumber - 1, page);
+                if (!deferred) addToWordCount(page);
+            });
+            if (deferred) countLater(page.getBody(), 1);
+            updateTimeChanged();
+            listeners.forEach(listener -> listener.pageAdded(this, page));
+            storeText(page);
+        } finally {
+            unlockWriter(gate);
+        }
+    }
 
+    /**
+     * Moves a page to a new position. Only the pages between the old and the new position move.
+     *
+     * @param fromPageNumber Current page number of the page.
+     * @param toPageNumber   New page number of the page.
+     * @throws IllegalArgumentException if either page number is less than 1 or greater than the number of pages.
+     */
+    public void movePage(int fromPageNumber, int toPageNumber) {
+        Lock gate = lockWriter();
+        try {
+            validatePageNumber(fromPageNumber);
+            validatePageNumber(toPageNumber);
+            if (fromPageNumber == toPageNumber) return;
+            Page page = pages.get(fromPageNumber - 1);
+            write(() -> pages.move(fromPageNumber - 1, toPageNumber - 1));
+            updateTimeChanged();
+            listeners.forEach(listener -> listener.pageMoved(this, page, fromPageNumber));
+        } finally {
+            unlockWriter(gate);
+        }
+    }
 
     /**
      * Removes a page from the diary entry.
@@ -107,10 +245,22 @@ public class DiaryEntry {
      * @throws IllegalArgumentException if pageNumber is less than 1 or greater than the number of pages.
      */
     public void removePage(int pageNumber) {
-        validatePageNumber(pageNumber);
-        Page removed = this.pages.remove(pageNumber - 1);
-        removeFromWordCount(removed.getText());
-        updateTimeChanged();
+        Lock gate = lockWriter();
+        try {
+            validatePageNumber(pageNumber);
+            Page removed = pages.get(pageNumber - 1);
+            boolean deferred = countsLater();
+            if (deferred) countLater(removed.getBody(), -1);
+            write(() -> {
+                pages.remove(pageNumber - 1);
+                if (!deferred) removeFromWordCount(removed);
+            });
+            updateTimeChanged();
+            listeners.forEach(listener -> listener.pageRemoved(this, removed, pageNumber));
+            removed.releaseText();
+        } finally {
+            unlockWriter(gate);
+        }
     }
 
     /**
@@ -121,8 +271,7 @@ public class DiaryEntry {
      * @throws IllegalArgumentException if pageNumber is less than 1 or greater than the number of pages.
      */
     public String getPageText(int pageNumber) {
-        validatePageNumber(pageNumber);
-        return pages.get(pageNumber - 1).getText();
+        return pageAt(pageNumber).getText();
     }
 
     /**
@@ -133,8 +282,7 @@ public class DiaryEntry {
      * @throws IllegalArgumentException if pageNumber is less than 1 or greater than the number of pages.
      */
     public String getPageTitle(int pageNumber) {
-        validatePageNumber(pageNumber);
-        return pages.get(pageNumber - 1).getTitle();
+        return pageAt(pageNumber).getTitle();
     }
 
     /**
@@ -146,7 +294,7 @@ public class DiaryEntry {
      *                                  or if there is no page after currentPageNumber.
      */
     public String getNextPageText(int currentPageNumber) {
-        validatePageNumber(currentPageNumber);
+        pageAt(currentPageNumber);
         return getPageText(currentPageNumber + 1);
     }
 
@@ -195,12 +343,26 @@ public class DiaryEntry {
      *                                  if newText is null, blank, or longer than maxTextLengthPerPage.
      */
     public void setPageText(int pageNumber, String newText) {
-        validatePageNumber(pageNumber);
         validateText(newText);
-        Page page = pages.get(pageNumber - 1);
-        updateWordCount(page.getText(), newText);
-        page.setText(newText);
-        updateTimeChanged();
+        Lock gate = lockWriter();
+        try {
+            validatePageNumber(pageNumber);
+            Page page = pages.get(pageNumber - 1);
+            String oldText = page.getText();
+            boolean deferred = countsLater();
+            if (deferred) countLater(page.getBody(), -1);
+            write(() -> {
+                if (!deferred) removeFromWordCount(page);
+                page.setText(newText);
+                if (!deferred) addToWordCount(page);
+            });
+            if (deferred) countLater(page.getBody(), 1);
+            updateTimeChanged();
+            listeners.forEach(listener -> listener.pageTextChanged(this, page, oldText));
+            storeText(page);
+        } finally {
+            unlockWriter(gate);
+        }
     }
 
     /**
@@ -212,25 +374,80 @@ public class DiaryEntry {
      *                                  or if newTitle is null or empty.
      */
     public void setPageTitle(int pageNumber, String newTitle) {
-        validatePageNumber(pageNumber);
         validateTitle(newTitle);
-        pages.get(pageNumber - 1).setTitle(newTitle);
-        updateTimeChanged();
+        Lock gate = lockWriter();
+        try {
+            validatePageNumber(pageNumber);
+            Page page = pages.get(pageNumber - 1);
+            String oldTitle = page.getTitle();
+            write(() -> page.setTitle(newTitle));
+            updateTimeChanged();
+            listeners.forEach(listener -> listener.pageTitleChanged(this, page, oldTitle));
+        } finally {
+            unlockWriter(gate);
+        }
     }
-    public Map<String, Long> getWordCount() {
-        return wordCount;
+    /**
+     * Retrieves the number of times each word is used in this diary entry.
+     * The counts are copied, so later edits do not change them and changing them does not change the entry.
+     *
+     * @return Copy of the word counts, keyed by shared vocabulary id.
+     */
+    public WordCounter getWordCount() {
+        IndexingPipeline current = indexer;
+        if (current != null) current.awaitIndexed();
+        return read(wordCount::copy);
+    }
+
+    /**
+     * Adds saved word counts to the entry, used when restoring saved entries after their pages.
+     *
+     * @param counts Counts to add, keyed by shared vocabulary id.
+     * @throws IllegalArgumentException if counts is null.
+     */
+    public void restoreWordCount(WordCounter counts) {
+        if (counts == null) throw new IllegalArgumentException("Word counts cannot be null");
+        Lock gate = lockWriter();
+        try {
+            write(() -> counts.forEach(wordCount::add));
+        } finally {
+            unlockWriter(gate);
+        }
+    }
+
+    /**
+     * Retrieves the number of times a word is used in this diary entry.
+     *
+     * @param word Word to look up, ignoring case.
+     * @return Number of occurrences, or 0 if the word is not used.
+     */
+    public long getWordCount(String word) {
+        if (word == null) return 0L;
+        int wordId = Vocabulary.shared().lookup(word.toLowerCase());
+        IndexingPipeline current = indexer;
+        if (current != null) current.awaitIndexed();
+        return read(() -> wordCount.get(wordId));
     }
 
     /**
      * Changes the title of the entire diary entry.
      *
      * @param newTitle New title.
-     * @throws IllegalArgumentException if newTitle is null or empty.
+     * @throws IllegalArgumentException if newTitle is null or empty,
+     *                                  or if a listener rejects the new title.
      */
     public void setEntryTitle(String newTitle) {
         validateTitle(newTitle);
-        this.entryTitle = newTitle;
-        updateTimeChanged();
+        Lock gate = lockWriter();
+        try {
+            listeners.forEach(listener -> listener.entryTitleChanging(this, newTitle));
+            String oldTitle = this.entryTitle;
+            write(() -> this.entryTitle = newTitle);
+            updateTimeChanged();
+            listeners.forEach(listener -> listener.entryTitleChanged(this, oldTitle));
+        } finally {
+            unlockWriter(gate);
+        }
     }
 
     /**
@@ -239,7 +456,7 @@ public class DiaryEntry {
      * @return Number of pages.
      */
     public int getNmbPages() {
-        return pages.size();
+        return readInt(pages::size);
     }
 
     /**
@@ -252,21 +469,142 @@ public class DiaryEntry {
     }
 
     /**
-     * Retrieves an iterator over all page texts in the diary entry.
+     * Retrieves an iterator over all page texts in the diary entry, as they were when called.
      *
      * @return Iterator over page texts.
      */
     public Iterator<String> getPageTexts() {
-        return pages.stream().map(Page::getText).iterator();
+        return getPages().stream().map(Page::getText).iterator();
     }
 
     /**
-     * Retrieves an iterator over all page titles in the diary entry.
+     * Retrieves an iterator over all page titles in the diary entry, as they were when called.
      *
      * @return Iterator over page titles.
      */
     public Iterator<String> getPageTitles() {
-        return pages.stream().map(Page::getTitle).iterator();
+        return getPages().stream().map(Page::getTitle).iterator();
+    }
+
+    /**
+     * Retrieves the pages in the diary entry, in page order, as they were when called.
+     *
+     * @return Read-only list of pages.
+     */
+    public List<Page> getPages() {
+        return read(() -> List.copyOf(pages.asList()));
+    }
+
+    /**
+     * Retrieves the page number of a page in this diary entry.
+     *
+     * @param page The page to look up.
+     * @return The page number (starting at 1), or -1 if the page is not part of this entry.
+     */
+    public int getPageNumber(Page page) {
+        int index = readInt(() -> pages.indexOf(page));
+        return index < 0 ? -1 : index + 1;
+    }
+
+    /**
+     * Moves the text of every page to a store, and keeps the text of pages added or changed later in the same store.
+     * Text is stored after listeners have been notified of a change, so they can still use the text and word ids on the heap.
+     *
+     * @param store Store to keep page text in.
+     * @throws IllegalArgumentException if store is null.
+     */
+    public void storePagesIn(PageTextStore store) {
+        if (store == null) throw new IllegalArgumentException("Store cannot be null");
+        Lock gate = lockWriter();
+        try {
+            this.pageTextStore = store;
+            pages.asList().forEach(page -> page.storeText(store));
+        } finally {
+            unlockWriter(gate);
+        }
+    }
+
+    /**
+     * Lets go of the text of every page when the entry is removed from its register, so text no other page shares
+     * leaves the {@link PageBodyPool} and its stored copy is released. Text in a store that reuses released space,
+     * such as a compressed store, may no longer be readable afterwards.
+     */
+    public void releasePages() {
+        Lock gate = lockWriter();
+        try {
+            pages.asList().forEach(Page::releaseText);
+        } finally {
+            unlockWriter(gate);
+        }
+    }
+
+    /**
+     * Moves the text of pages still kept on the heap to a store, leaving pages whose text is already in a store
+     * where they are. Unlike {@link #storePagesIn(PageTextStore)}, pages added or changed later stay on the heap.
+     *
+     * @param store Store to move heap text to.
+     * @return Number of pages moved.
+     * @throws IllegalArgumentException if store is null.
+     */
+    public int storeHeapPagesIn(PageTextStore store) {
+        if (store == null) throw new IllegalArgumentException("Store cannot be null");
+        Lock gate = lockWriter();
+        try {
+            int moved = 0;
+            for (Page page : pages.asList()) {
+                if (!page.isTextStored() && page.storeText(store)) moved++;
+            }
+            return moved;
+        } finally {
+            unlockWriter(gate);
+        }
+    }
+
+    /**
+     * Counts the words of pages added or changed from now on through a pipeline. With eventual consistency the
+     * counts of the entry and its author are updated by the indexer thread, so an edit no longer pays for counting
+     * the words of the page; {@link #getWordCount(String)} still sees the edits of the calling thread.
+     *
+     * @param pipeline Pipeline to count through, or null to count on the editing thread.
+     */
+    public void indexThrough(IndexingPipeline pipeline) {
+        Lock gate = lockWriter();
+        try {
+            this.indexer = pipeline;
+        } finally {
+            unlockWriter(gate);
+        }
+    }
+
+    /**
+     * Sets a lock that every change of the entry holds, from before it is made until its listeners have been
+     * notified. Given the shared side of a read-write lock, the holder of the exclusive side sees the entry
+     * between changes, with every change made so far already passed on to the listeners.
+     *
+     * @param writeGate Lock to hold, or null to hold none.
+     */
+    public void setWriteGate(Lock writeGate) {
+        this.writeGate = writeGate;
+    }
+
+    /**
+     * Registers a listener that is notified whenever the pages of this entry change.
+     *
+     * @param listener Listener to register.
+     * @throws IllegalArgumentException if listener is null.
+     */
+    public void addListener(DiaryEntryListener listener) {
+        if (listener == null) throw new IllegalArgumentException("Listener cannot be null");
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters a listener previously registered with {@link #addListener(DiaryEntryListener)}.
+     *
+     * @param listener Listener to unregister.
+     */
+    public void removeListener(DiaryEntryListener listener) {
+        listeners.remove(listener);
     }
 
     /**
@@ -275,7 +613,7 @@ public class DiaryEntry {
      * @return Title of the diary entry.
      */
     public String getEntryTitle() {
-        return entryTitle;
+        return read(() -> entryTitle);
     }
 
     /**
@@ -302,20 +640,127 @@ public class DiaryEntry {
      * @return Time of last change.
      */
     public LocalDateTime getTimeChanged() {
-        return timeChanged;
+        return read(() -> timeChanged);
     }
 
 
+    /**
+     * Sets the time of last change, used when restoring saved entries.
+     * Listeners are notified the same way as for any other change of the time.
+     *
+     * @param timeChanged Time of last change.
+     * @throws IllegalArgumentException if timeChanged is null.
+     */
+    public void setTimeChanged(LocalDateTime timeChanged) {
+        if (timeChanged == null) throw new IllegalArgumentException("Time changed cannot be null");
+        Lock gate = lockWriter();
+        try {
+            moveTimeChanged(timeChanged);
+        } finally {
+            unlockWriter(gate);
+        }
+    }
+
     /**
      * Updates the time of last change to the current time,
      * and also updates the author's first and last change timestamps.
+     * Listeners are notified, so indexes keyed by change time can move the entry.
      */
     private void updateTimeChanged() {
-        this.timeChanged = LocalDateTime.now();
-        author.setLastTimeChanged(this.timeChanged);
+        moveTimeChanged(LocalDateTime.now());
+    }
+
+    private void moveTimeChanged(LocalDateTime newTimeChanged) {
+        LocalDateTime oldTimeChanged = this.timeChanged;
+        write(() -> this.timeChanged = newTimeChanged);
+        author.setLastTimeChanged(newTimeChanged);
+        listeners.forEach(listener -> listener.timeChangedUpdated(this, oldTimeChanged));
     }
 
 
+    /**
+     * Looks up a page by its page number with an optimistic read.
+     */
+    private Page pageAt(int pageNumber) {
+        return read(() -> {
+            validatePageNumber(pageNumber);
+            return pages.get(pageNumber - 1);
+        });
+    }
+
+    /**
+     * Reads state of the entry with an optimistic stamp, and reads it again under the read lock only if a writer
+     * changed the entry meanwhile. The optimistic pass may see the entry half changed, so anything it throws is
+     * discarded unless the stamp is still valid.
+     */
+    private <T> T read(Supplier<T> reader) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                T value = reader.get();
+                if (lock.validate(stamp)) return value;
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) throw e;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return reader.get();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Same as {@link #read(Supplier)}, for int values without boxing them.
+     */
+    private int readInt(IntSupplier reader) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                int value = reader.getAsInt();
+                if (lock.validate(stamp)) return value;
+            } catch (RuntimeException e) {
+                if (lock.validate(stamp)) throw e;
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return reader.getAsInt();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Passes the write gate, if any, and takes the writer lock.
+     *
+     * @return The gate passed, to be given to {@link #unlockWriter(Lock)}.
+     */
+    private Lock lockWriter() {
+        Lock gate = writeGate;
+        if (gate != null) gate.lock();
+        writerLock.lock();
+        return gate;
+    }
+
+    private void unlockWriter(Lock gate) {
+        writerLock.unlock();
+        if (gate != null) gate.unlock();
+    }
+
+    /**
+     * Changes state of the entry holding the stamp exclusively. Called by writers holding the writer lock.
+     */
+    private void write(Runnable change) {
+        long stamp = lock.writeLock();
+        try {
+            change.run();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
     /**
      * Validates that a page number is valid.
      *
@@ -338,7 +783,7 @@ public class DiaryEntry {
     private void validateText(String text) {
         if (text == null) throw new IllegalArgumentException("Text cannot be null");
         if (text.isBlank()) throw new IllegalArgumentException("Text cannot be blank");
-        if (text.split(" ").length > maxWordsPerPage) {
+        if (Tokenizer.count(text, Tokenizer.Mode.WHITESPACE) > maxWordsPerPage) {
             throw new IllegalArgumentException(
                     "Text exceeds the maximum length of " + maxWordsPerPage + " words"
             );
@@ -361,46 +806,62 @@ public class DiaryEntry {
     }
 
 
-    private void addToWordToWordCount(String text) {
-        if (text == null || text.isBlank()) return;
-
-        Arrays.stream(text.split(" "))
-                .filter(word -> !word.isBlank())
-                .map(String::toLowerCase)
-                .forEach(word -> {
-                    Long currentCount = wordCount.get(word);
-                    if (currentCount == null) {
-                        wordCount.put(word, 1L);
-                    } else {
-                        wordCount.put(word, currentCount + 1);
-                    }
-                });
-        author.addWordToWordCount(this.wordCount);
-    }
-    private void updateWordCount(String oldText, String newText) {
-        removeFromWordCount(oldText);
-        addToWordToWordCount(newText);
+    private void storeText(Page page) {
+        if (pageTextStore != null) page.storeText(pageTextStore);
     }
 
+    /**
+     * Adds the words of a page to the counts using the per-word counts of its body,
+     * which pages with the same text work out once between them. The author's counts are shared by all
+     * entries of the author, so they are changed holding their monitor.
+     */
+    private void addToWordCount(Page page) {
+        WordCounter authorCount = author.wordCounter();
+        synchronized (authorCount) {
+            page.getBody().forEachWordCount((wordId, count) -> {
+                wordCount.add(wordId, count);
+                authorCount.add(wordId, count);
+            });
+        }
+    }
 
-    private void removeFromWordCount(String text) {
-        if (text == null || text.isBlank()) return;
-
-        Arrays.stream(text.split(" "))
-                .filter(word -> !word.isBlank())
-                .map(String::toLowerCase)
-                .forEach(word -> {
-                    Long currentCount = wordCount.get(word);
-                    if (currentCount != null) {
-                        if (currentCount > 1) {
-                            wordCount.put(word, currentCount - 1);
-                        } else {
-                            wordCount.remove(word);
-                        }
-                    }
-                });
-        author.removeWordFromWordCount(this.wordCount);
+    /**
+     * Checks whether the writer leaves counting to the indexer thread. Called by writers holding the writer lock.
+     */
+    private boolean countsLater() {
+        IndexingPipeline current = indexer;
+        return current != null && current.isDeferred();
     }
 
+    /**
+     * Hands counting the words of a body to the indexer thread, capturing the text as it is now.
+     * Must not be called holding the stamp, since the indexer takes it to apply the counts and the writer may
+     * wait for room in the pipeline.
+     */
+    private void countLater(PageBody body, int sign) {
+        Consumer<WordCounter.Visitor> counts = body.countLater();
+        WordCounter authorCount = author.wordCounter();
+        indexer.submit(() -> {
+            WordCounter delta = new WordCounter();
+            counts.accept(delta::add);
+            write(() -> {
+                synchronized (authorCount) {
+                    delta.forEach((wordId, count) -> {
+                        wordCount.add(wordId, sign * count);
+                        authorCount.add(wordId, sign * count);
+                    });
+                }
+            });
+        });
+    }
 
+    private void removeFromWordCount(Page page) {
+        WordCounter authorCount = author.wordCounter();
+        synchronized (authorCount) {
+            page.getBody().forEachWordCount((wordId, count) -> {
+                wordCount.add(wordId, -count);
+                authorCount.add(wordId, -count);
+            });
+        }
+    }
 }
@@ -0,0 +1,93 @@
+package edu.ntnu.iir.bidata.models;
+
+import java.time.LocalDateTime;
+
+/**
+ * Receives notifications when a diary entry changes.
+ * <p>
+ * All methods have empty default implementations,
+ * so a listener only overrides the changes it cares about.
+ * Notifications are sent after the change has been applied to the entry,
+ * except {@link #entryTitleChanging(DiaryEntry, String)}, which lets a listener reject a new title.
+ */
+public interface DiaryEntryListener {
+
+    /**
+     * Called after a page has been added to the entry.
+     *
+     * @param entry The diary entry that changed.
+     * @param page  The page that was added.
+     */
+    default void pageAdded(DiaryEntry entry, Page page) {
+    }
+
+    /**
+     * Called after the text of a page has been replaced.
+     *
+     * @param entry   The diary entry that changed.
+     * @param page    The page that changed, already holding the new text.
+     * @param oldText The text the page had before the change.
+     */
+    default void pageTextChanged(DiaryEntry entry, Page page, String oldText) {
+    }
+
+    /**
+     * Called after the title of a page has been replaced.
+     *
+     * @param entry    The diary entry that changed.
+     * @param page     The page that changed, already holding the new title.
+     * @param oldTitle The title the page had before the change.
+     */
+    default void pageTitleChanged(DiaryEntry entry, Page page, String oldTitle) {
+    }
+
+    /**
+     * Called after a page has been removed from the entry.
+     *
+     * @param entry      The diary entry that changed.
+     * @param page       The page that was removed.
+     * @param pageNumber The page number the page had before it was removed.
+     */
+    default void pageRemoved(DiaryEntry entry, Page page, int pageNumber) {
+    }
+
+    /**
+     * Called after a page has been moved to a new position.
+     *
+     * @param entry         The diary entry that changed.
+     * @param page          The page that was moved.
+     * @param oldPageNumber The page number the page had before the move.
+     */
+    default void pageMoved(DiaryEntry entry, Page page, int oldPageNumber) {
+    }
+
+    /**
+     * Called after the time of last change of the entry has moved.
+     *
+     * @param entry          The diary entry that changed, already holding the new time.
+     * @param oldTimeChanged The time of last change before the update.
+     */
+    default void timeChangedUpdated(DiaryEntry entry, LocalDateTime oldTimeChanged) {
+    }
+
+    /**
+     * Called before the title of the entry is changed.
+     * A listener can reject the new title by throwing an exception,
+     * in which case the title is left unchanged.
+     *
+     * @param entry    The diary entry about to change.
+     * @param newTitle The title the entry is about to get.
+     * @throws IllegalArgumentException if the listener rejects the new title.
+     */
+    default void entryTitleChanging(DiaryEntry entry, String newTitle) {
+    }
+
+    /**
+     * Called after the title of the entry has changed.
+     *
+     * @param entry    The diary entry that changed, already holding the new title.
+     * @param oldTitle The title the entry had before the change.
+     */
+    default void entryTitleChanged(DiaryEntry entry, String oldTitle) {
+    }
+}
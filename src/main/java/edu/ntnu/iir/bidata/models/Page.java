@@ -1,13 +1,63 @@
 package edu.ntnu.iir.bidata.models;
 
+import edu.ntnu.iir.bidata.text.Tokenizer;
+import edu.ntnu.iir.bidata.text.Vocabulary;
+
+import java.nio.ByteBuffer;
+import java.util.function.Supplier;
+
 import static edu.ntnu.iir.bidata.ui.DiaryUiUtils.*;
 
 /**
  * A page in a diary entry.
+ * <p>
+ * The words of the text, as ids in the shared {@link Vocabulary}, are worked out the first time they
+ * are needed and kept until the text changes, so counting, indexing and saving a page tokenize it once.
+ * <p>
+ * The text can be moved to a {@link PageTextStore} with {@link #storeText(PageTextStore)}. The page then
+ * keeps only the offset and length of the text in the store, drops its word ids, and decodes the text
+ * each time it is read, so a stored page holds no text on the heap.
+ * <p>
+ * The text itself is a {@link PageBody} from the shared {@link PageBodyPool}, so pages with identical text
+ * share one copy of it, one set of word ids, and one stored copy. Storing the text of one of them stores it
+ * for all of them.
+ * <p>
+ * Title and text may be read from any thread while the entry owning the page changes them.
  */
 public class Page {
-    private String title;
-    private String text;
+
+    /**
+     * The contents of a page at one point in time, taken without decoding stored text,
+     * so it can be read later on another thread while the page keeps changing.
+     *
+     * @param title        Page title.
+     * @param textSource   Reads the page text as it was.
+     * @param knownWordIds Word ids of the text if the page had them at hand, otherwise null.
+     */
+    public record Snapshot(String title, Supplier<String> textSource, int[] knownWordIds) {
+
+        /**
+         * Reads the page text as it was.
+         *
+         * @return The text.
+         */
+        public String text() {
+            return textSource.get();
+        }
+
+        /**
+         * Retrieves the word ids of the text, working them out from the text if the page did not have them.
+         *
+         * @return Shared vocabulary ids of the words of the text, in order.
+         */
+        public int[] wordIds() {
+            return knownWordIds != null ? knownWordIds : PageBody.wordIdsOf(text());
+        }
+    }
+
+    private volatile String title;
+    private volatile PageBody body;
+    private boolean released;
 
     /**
      * Creates a new page.
@@ -28,7 +78,58 @@ public class Page {
         }
 
         this.title = title;
-        this.text = text;
+        this.body = PageBodyPool.shared().intern(text);
+    }
+
+    /**
+     * Creates a page whose words are already known, used when restoring saved pages.
+     *
+     * @param title   Page title.
+     * @param text    Page text.
+     * @param wordIds Shared vocabulary ids of the words of text, in order. The array is kept, not copied.
+     * @throws IllegalArgumentException if title is null or empty, or if text or wordIds is null.
+     */
+    public Page(String title, String text, int[] wordIds) {
+        if (title == null || title.isBlank()) {
+            throw new IllegalArgumentException("Title cannot be null or empty");
+        }
+        if(title.length() >= STD_MAX_LENGTH_TITLES){
+            throw new IllegalArgumentException("Title cannot be longer than " + STD_MAX_LENGTH_TITLES + " characters");
+        }
+        if (text == null) {
+            throw new IllegalArgumentException("Text cannot be null");
+        }
+        if (wordIds == null) {
+            throw new IllegalArgumentException("Word ids cannot be null");
+        }
+
+        this.title = title;
+        this.body = PageBodyPool.shared().intern(text, wordIds);
+    }
+
+    /**
+     * Creates a page whose text is copied as UTF-8 bytes straight into a store, used when restoring saved pages
+     * without decoding their text.
+     *
+     * @param title   Page title.
+     * @param store   Store to keep the text in.
+     * @param utf8    Page text encoded as UTF-8, from the position to the limit of the buffer.
+     * @param wordIds Shared vocabulary ids of the words of the text, in order. The array is kept, not copied.
+     * @throws IllegalArgumentException if title is null or empty, or if store, utf8 or wordIds is null.
+     */
+    public Page(String title, PageTextStore store, ByteBuffer utf8, int[] wordIds) {
+        if (title == null || title.isBlank()) {
+            throw new IllegalArgumentException("Title cannot be null or empty");
+        }
+        if(title.length() >= STD_MAX_LENGTH_TITLES){
+            throw new IllegalArgumentException("Title cannot be longer than " + STD_MAX_LENGTH_TITLES + " characters");
+        }
+        if (wordIds == null) {
+            throw new IllegalArgumentException("Word ids cannot be null");
+        }
+
+        this.title = title;
+        this.body = PageBodyPool.shared().intern(store, utf8, wordIds);
     }
 
     /**
@@ -46,7 +147,62 @@ public class Page {
      * @return The page text.
      */
     public String getText() {
-        return text;
+        return body.getText();
+    }
+
+    /**
+     * Retrieves the body holding the page text, shared with every page with the same text.
+     *
+     * @return The page body.
+     */
+    public PageBody getBody() {
+        return body;
+    }
+
+    /**
+     * Moves the text to a store, replacing the copy on the heap or in another store.
+     * Pages sharing the text move with it. Does nothing if the text is already in that store.
+     *
+     * @param store Store to keep the text in.
+     * @return true if the text was moved, false if it was already in the store.
+     * @throws IllegalArgumentException if store is null.
+     */
+    public boolean storeText(PageTextStore store) {
+        if (store == null) {
+            throw new IllegalArgumentException("Store cannot be null");
+        }
+        return body.storeIn(store);
+    }
+
+    /**
+     * Checks whether the text is kept in a store rather than on the heap.
+     *
+     * @return true if the text is stored.
+     */
+    public boolean isTextStored() {
+        return body.isStored();
+    }
+
+    /**
+     * Retrieves the words of the page text as shared vocabulary ids, in the order they occur.
+     * Words are split the way {@link Tokenizer.Mode#WORDS} splits them and are in lower case.
+     * The ids are kept for the next call unless the text is stored.
+     *
+     * @return The word ids. The array may be shared with the page and must not be modified.
+     */
+    public int[] getWordIds() {
+        return body.getWordIds();
+    }
+
+    /**
+     * Takes a snapshot of the page. Text on the heap is captured by reference and stored text through a reader
+     * from the store, which keeps working after the page changes and the stored text is released.
+     *
+     * @return The contents of the page as they are now.
+     */
+    public Snapshot snapshot() {
+        PageBody current = body;
+        return new Snapshot(title, current.reader(), current.knownWordIds());
     }
 
     /**
@@ -66,7 +222,8 @@ public class Page {
     }
 
     /**
-     * Changes the page text.
+     * Changes the page text. The page lets go of its old body and takes the body of the new text,
+     * which is kept on the heap until it is stored again unless another page already has that text.
      *
      * @param text New page text.
      * @throws IllegalArgumentException if text is null.
@@ -76,6 +233,19 @@ public class Page {
             throw new IllegalArgumentException("Text cannot be null");
         }
 
-        this.text = text;
+        PageBody old = body;
+        body = PageBodyPool.shared().intern(text);
+        if (!released) PageBodyPool.shared().release(old);
+        released = false;
+    }
+
+    /**
+     * Lets go of the body when the page is removed from its diary entry. The store is told the text
+     * is no longer used once no other page shares it. The text stays readable until the store reuses the space.
+     */
+    void releaseText() {
+        if (released) return;
+        released = true;
+        PageBodyPool.shared().release(body);
     }
 }
@@ -0,0 +1,317 @@
+package edu.ntnu.iir.bidata.models;
+
+import edu.ntnu.iir.bidata.text.TokenBuffer;
+import edu.ntnu.iir.bidata.text.Tokenizer;
+import edu.ntnu.iir.bidata.text.Vocabulary;
+import edu.ntnu.iir.bidata.text.WordCounter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * The text of one or more pages, shared by every page with exactly that text.
+ * <p>
+ * Bodies are handed out by a {@link PageBodyPool}, which looks them up by a hash of their content, so identical
+ * texts are kept once. A body also keeps what is worked out from its text: the words as ids in the shared
+ * {@link Vocabulary}, and how many times each distinct word occurs, so pages with the same text tokenize and
+ * count it once between them.
+ * <p>
+ * A body can be moved to a {@link PageTextStore}. It then keeps only the position of the text in the store,
+ * drops its word ids and counts, and decodes the text each time it is read. Every page sharing the body moves
+ * with it.
+ * <p>
+ * Bodies are shared between pages of any entry, and are tokenized by importers on worker threads, so the text
+ * and what is worked out from it are published through volatile fields and can be read from any thread.
+ */
+public final class PageBody {
+
+    /**
+     * Where a stored text is.
+     */
+    record StoredText(PageTextStore store, long offset) {
+    }
+
+    /**
+     * Each distinct word of the text with the number of times it occurs.
+     */
+    private record WordCounts(int[] wordIds, int[] counts) {
+
+        void forEach(WordCounter.Visitor visitor) {
+            for (int index = 0; index < wordIds.length; index++) visitor.accept(wordIds[index], counts[index]);
+        }
+    }
+
+    private final long hash;
+    private final int textBytes;
+    private volatile Object content;
+    private volatile int[] wordIds;
+    private volatile WordCounts wordCounts;
+    PageBodyPool.Slot slot;
+
+    PageBody(long hash, String text, int[] wordIds) {
+        this.hash = hash;
+        this.content = text;
+        this.textBytes = utf8Length(text);
+        this.wordIds = wordIds;
+    }
+
+    /**
+     * Creates a body whose text is already in a store. Word ids given here are kept until the body is stored
+     * again, see {@link #storeIn(PageTextStore)}, so the pages restored with it can be indexed without decoding.
+     */
+    PageBody(long hash, PageTextStore store, long offset, int textBytes, int[] wordIds) {
+        this.hash = hash;
+        this.content = new StoredText(store, offset);
+        this.textBytes = textBytes;
+        this.wordIds = wordIds;
+    }
+
+    /**
+     * Retrieves the text.
+     *
+     * @return The text, decoded from the store if the body is stored.
+     */
+    public String getText() {
+        Object current = content;
+        if (current instanceof StoredText stored) return stored.store().read(stored.offset(), textBytes);
+        return (String) current;
+    }
+
+    /**
+     * Writes the text as UTF-8 to a channel. Stored text is handed from the store to the channel without being
+     * decoded; text on the heap is encoded once for the write.
+     *
+     * @param target Channel to write to.
+     * @throws IOException if the channel cannot be written.
+     */
+    public void transferTo(WritableByteChannel target) throws IOException {
+        Object current = content;
+        if (current instanceof StoredText stored) {
+            stored.store().transferTo(stored.offset(), textBytes, target);
+            return;
+        }
+        ByteBuffer utf8 = ByteBuffer.wrap(((String) current).getBytes(StandardCharsets.UTF_8));
+        while (utf8.hasRemaining()) target.write(utf8);
+    }
+
+    /**
+     * Retrieves the words of the text as shared vocabulary ids, in the order they occur.
+     * Words are split the way {@link Tokenizer.Mode#WORDS} splits them and are in lower case.
+     * The ids are kept for the next call unless the body is stored.
+     *
+     * @return The word ids. The array may be shared and must not be modified.
+     */
+    public int[] getWordIds() {
+        int[] known = wordIds;
+        if (known != null) return known;
+
+        int[] ids = wordIdsOf(getText());
+        if (!isStored()) wordIds = ids;
+        return ids;
+    }
+
+    /**
+     * Visits each distinct word of the text with the number of times it occurs.
+     * The counts are kept for the next call unless the body is stored.
+     *
+     * @param visitor Receives each word id and its count.
+     */
+    public void forEachWordCount(WordCounter.Visitor visitor) {
+        WordCounts known = wordCounts;
+        if (known == null) known = countWords();
+        known.forEach(visitor);
+    }
+
+    /**
+     * Captures the text as it is now, so its words can be counted later on another thread, when the body may
+     * have been moved to a store or released. Counts already worked out are captured as they are, so capturing
+     * costs the same for a short and a long text.
+     *
+     * @return Visits each distinct word of the text as it was with the number of times it occurs, when called.
+     */
+    public Consumer<WordCounter.Visitor> countLater() {
+        WordCounts known = wordCounts;
+        if (known != null) return known::forEach;
+        int[] ids = wordIds;
+        Supplier<String> text = reader();
+        return visitor -> count(ids != null ? ids : wordIdsOf(text.get())).forEach(visitor);
+    }
+
+    /**
+     * Works out the word ids and counts now, so pages added later find them ready.
+     * Used to tokenize texts on worker threads before the pages are added on the thread owning the registers.
+     */
+    public void prepare() {
+        getWordIds();
+        if (wordCounts == null) countWords();
+    }
+
+    private WordCounts countWords() {
+        WordCounts counted = count(getWordIds());
+        if (!isStored()) wordCounts = counted;
+        return counted;
+    }
+
+    private static WordCounts count(int[] wordIds) {
+        int[] sorted = wordIds.clone();
+        Arrays.sort(sorted);
+        int[] distinct = new int[sorted.length];
+        int[] counts = new int[sorted.length];
+        int size = 0;
+        for (int index = 0; index < sorted.length; index++) {
+            if (size > 0 && distinct[size - 1] == sorted[index]) {
+                counts[size - 1]++;
+            } else {
+                distinct[size] = sorted[index];
+                counts[size++] = 1;
+            }
+        }
+        return new WordCounts(Arrays.copyOf(distinct, size), Arrays.copyOf(counts, size));
+    }
+
+    /**
+     * Retrieves the size of the text encoded as UTF-8.
+     *
+     * @return Number of bytes.
+     */
+    public int getTextBytes() {
+        return textBytes;
+    }
+
+    /**
+     * Retrieves the number of pages using this body.
+     *
+     * @return Number of references.
+     */
+    public int getReferences() {
+        return slot == null ? 0 : slot.references();
+    }
+
+    /**
+     * Checks whether the text is kept in a store rather than on the heap.
+     *
+     * @return true if the text is stored.
+     */
+    public boolean isStored() {
+        return content instanceof StoredText;
+    }
+
+    /**
+     * Moves the text to a store, replacing the copy on the heap or in another store.
+     * A body already in the store drops any word ids it was restored with.
+     *
+     * @param store Store to keep the text in.
+     * @return true if the text was moved, false if it was already in the store.
+     */
+    synchronized boolean storeIn(PageTextStore store) {
+        if (content instanceof StoredText stored && stored.store() == store) {
+            wordIds = null;
+            wordCounts = null;
+            return false;
+        }
+
+        long offset = store.append(getText().getBytes(StandardCharsets.UTF_8));
+        releaseStored();
+        StoredText stored = new StoredText(store, offset);
+        content = stored;
+        if (slot != null) slot.stored = stored;
+        wordIds = null;
+        wordCounts = null;
+        return true;
+    }
+
+    /**
+     * Creates a reader of the text as it is now, which keeps working after the body is moved or released.
+     */
+    Supplier<String> reader() {
+        Object current = content;
+        if (current instanceof StoredText stored) return stored.store().reader(stored.offset(), textBytes);
+        String text = (String) current;
+        return () -> text;
+    }
+
+    /**
+     * Retrieves where the text is stored.
+     *
+     * @return The stored text, or null if the text is on the heap.
+     */
+    StoredText storedText() {
+        return content instanceof StoredText stored ? stored : null;
+    }
+
+    /**
+     * Retrieves the word ids if they are at hand without tokenizing.
+     */
+    int[] knownWordIds() {
+        return wordIds;
+    }
+
+    /**
+     * Checks whether the text can still be read, which it cannot once the store holding it is closed.
+     */
+    boolean isReadable() {
+        return !(content instanceof StoredText stored) || stored.store().isOpen();
+    }
+
+    long hash() {
+        return hash;
+    }
+
+    /**
+     * Checks whether the body holds a text, decoding it only if the lengths match.
+     */
+    boolean hasText(String candidate, int candidateBytes) {
+        return candidateBytes == textBytes && getText().equals(candidate);
+    }
+
+    /**
+     * Checks whether the body holds a text given as UTF-8 bytes, encoding its own text only if the lengths match.
+     */
+    boolean hasText(ByteBuffer candidate) {
+        return candidate.remaining() == textBytes
+                && ByteBuffer.wrap(getText().getBytes(StandardCharsets.UTF_8)).equals(candidate);
+    }
+
+    /**
+     * Tells the store the text is no longer used. Called when the last page lets go of the body.
+     */
+    void releaseStored() {
+        if (content instanceof StoredText stored) stored.store().release(stored.offset(), textBytes);
+    }
+
+    static int[] wordIdsOf(String text) {
+        TokenBuffer words = Tokenizer.tokenize(text, Tokenizer.Mode.WORDS);
+        int[] ids = new int[words.size()];
+        for (int index = 0; index < ids.length; index++) {
+            ids[index] = Vocabulary.shared().idOf(words.normalizedToken(index));
+        }
+        return ids;
+    }
+
+    /**
+     * Works out the length of a text encoded as UTF-8 without encoding it.
+     * A surrogate pair takes four bytes, and a lone surrogate one, since it is encoded as a replacement.
+     */
+    static int utf8Length(String text) {
+        int bytes = text.length();
+        for (int index = 0; index < text.length(); index++) {
+            char next = text.charAt(index);
+            if (next < 0x80) continue;
+            if (next < 0x800) {
+                bytes++;
+            } else if (!Character.isSurrogate(next)) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(next) && index + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(index + 1))) {
+                bytes += 2;
+                index++;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,368 @@
+package edu.ntnu.iir.bidata.models;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Pool of page bodies keyed by a hash of their content, so pages with identical text share one {@link PageBody}.
+ * <p>
+ * {@link #intern(String)} hashes the UTF-8 bytes of the text with 64-bit FNV-1a and returns the body already
+ * holding that text, or a new one. Bodies with the same hash are chained and told apart by comparing their text,
+ * so a hash collision costs a comparison but never mixes up two texts. Saved text can be interned as UTF-8 bytes
+ * with {@link #intern(PageTextStore, ByteBuffer, int[])}, which hashes the same bytes without decoding them.
+ * Each body counts the pages using it; when a page changes its text it releases the old body with
+ * {@link #release(PageBody)}, and the body leaves the pool, and its stored copy is released, when no page uses it
+ * any more. The pool only holds bodies weakly, so the body of a page that is dropped without being released,
+ * such as a page of a discarded entry, is still reclaimed, and its stored copy released.
+ * Bodies whose store has been closed are skipped, so a new page never shares text it cannot read.
+ * <p>
+ * The chains are spread over stripes by hash, each with its own lock, so pages with different texts are created
+ * and changed side by side. A stripe's lock is only held to walk or change a chain; texts are compared, and new
+ * stored copies written, outside it.
+ * <p>
+ * The pool keeps count of the bytes of text it holds and of the bytes saved by sharing, see {@link #getStats()}.
+ */
+public final class PageBodyPool {
+
+    private static final PageBodyPool SHARED = new PageBodyPool();
+    private static final int STRIPES = 64;
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    /**
+     * Memory use of the texts in a pool.
+     *
+     * @param bodies             Number of distinct texts.
+     * @param references         Number of pages using them.
+     * @param uniqueBytes        UTF-8 size of the distinct texts.
+     * @param deduplicatedBytes  UTF-8 size of the copies saved because pages share a text.
+     */
+    public record Stats(long bodies, long references, long uniqueBytes, long deduplicatedBytes) {
+    }
+
+    /**
+     * One stripe of the pool: the hash chains of the hashes that map to it, and their counts,
+     * all guarded by the stripe's monitor.
+     */
+    private static final class Stripe {
+
+        private final Map<Long, Slot> slots = new HashMap<>();
+        private long bodies;
+        private long references;
+        private long uniqueBytes;
+        private long deduplicatedBytes;
+    }
+
+    /**
+     * Entry of the pool: a weak reference to a body, with what the pool needs to know after the body is gone.
+     */
+    static final class Slot extends WeakReference<PageBody> {
+
+        private final Stripe stripe;
+        private final long hash;
+        private final int textBytes;
+        private int references;
+        private boolean unlinked;
+        private Slot next;
+        volatile PageBody.StoredText stored;
+
+        Slot(Stripe stripe, PageBody body, ReferenceQueue<PageBody> queue) {
+            super(body, queue);
+            this.stripe = stripe;
+            this.hash = body.hash();
+            this.textBytes = body.getTextBytes();
+        }
+
+        int references() {
+            synchronized (stripe) {
+                return references;
+            }
+        }
+    }
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final ReferenceQueue<PageBody> collected = new ReferenceQueue<>();
+
+    /**
+     * Creates an empty pool. Most code should use {@link #shared()}.
+     */
+    public PageBodyPool() {
+        for (int index = 0; index < stripes.length; index++) stripes[index] = new Stripe();
+    }
+
+    /**
+     * Retrieves the pool shared by all pages.
+     *
+     * @return The shared pool.
+     */
+    public static PageBodyPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Retrieves the body holding a text, creating it if no page has that text, and counts one more page using it.
+     *
+     * @param text The text.
+     * @return The shared body.
+     * @throws IllegalArgumentException if text is null.
+     */
+    public PageBody intern(String text) {
+        return intern(text, null);
+    }
+
+    /**
+     * Retrieves the body holding a text like {@link #intern(String)}, giving a new body word ids already known.
+     *
+     * @param text    The text.
+     * @param wordIds Shared vocabulary ids of the words of text, in order, or null to work them out when needed.
+     * @return The shared body.
+     * @throws IllegalArgumentException if text is null.
+     */
+    public PageBody intern(String text, int[] wordIds) {
+        if (text == null) throw new IllegalArgumentException("Text cannot be null");
+
+        long hash = hash(text);
+        int textBytes = PageBody.utf8Length(text);
+        return intern(hash, textBytes, body -> body.hasText(text, textBytes),
+                () -> new PageBody(hash, text, wordIds));
+    }
+
+    /**
+     * Retrieves the body holding a text given as UTF-8 bytes like {@link #intern(String, int[])}, copying the
+     * bytes into a store if no page has that text, so the text is never decoded. Used to restore saved pages
+     * straight into a page store. If another page adds the same text while the bytes are copied, the copy is
+     * released again and the other page's body is shared.
+     *
+     * @param store   Store for the text of a new body.
+     * @param utf8    Text encoded as UTF-8, from the position to the limit of the buffer. The position is not moved.
+     * @param wordIds Shared vocabulary ids of the words of the text, in order, or null to work them out when needed.
+     * @return The shared body.
+     * @throws IllegalArgumentException if store or utf8 is null.
+     */
+    public PageBody intern(PageTextStore store, ByteBuffer utf8, int[] wordIds) {
+        if (store == null) throw new IllegalArgumentException("Store cannot be null");
+        if (utf8 == null) throw new IllegalArgumentException("Text cannot be null");
+
+        long hash = hash(utf8);
+        int textBytes = utf8.remaining();
+        return intern(hash, textBytes, body -> body.hasText(utf8.duplicate()),
+                () -> new PageBody(hash, store, store.append(utf8.duplicate()), textBytes, wordIds));
+    }
+
+    /**
+     * Counts one page fewer using a body. When no page uses it, the body leaves the pool and its stored text
+     * is released.
+     *
+     * @param body Body a page no longer uses.
+     * @throws IllegalArgumentException if body is null.
+     * @throws IllegalStateException if no page uses the body.
+     */
+    public void release(PageBody body) {
+        if (body == null) throw new IllegalArgumentException("Body cannot be null");
+
+        Slot slot = body.slot;
+        if (slot == null) throw new IllegalStateException("Body is not in use");
+        synchronized (slot.stripe) {
+            if (slot.references == 0) throw new IllegalStateException("Body is not in use");
+            slot.stripe.references--;
+            if (--slot.references > 0) {
+                slot.stripe.deduplicatedBytes -= slot.textBytes;
+                return;
+            }
+            unlink(slot);
+        }
+        body.releaseStored();
+    }
+
+    /**
+     * Retrieves the memory use of the texts in the pool. The stripes are counted one after the other,
+     * so while pages change text the totals may mix counts from slightly different moments.
+     *
+     * @return The pool statistics.
+     */
+    public Stats getStats() {
+        expungeCollected();
+        long bodies = 0;
+        long references = 0;
+        long uniqueBytes = 0;
+        long deduplicatedBytes = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                bodies += stripe.bodies;
+                references += stripe.references;
+                uniqueBytes += stripe.uniqueBytes;
+                deduplicatedBytes += stripe.deduplicatedBytes;
+            }
+        }
+        return new Stats(bodies, references, uniqueBytes, deduplicatedBytes);
+    }
+
+    /**
+     * Finds the body holding a text, or adds a new one.
+     * <p>
+     * The bodies with the same hash and length are copied from the chain holding the stripe's lock, and compared
+     * with the text after letting go of it, since comparing may decode a stored text. A body found that way is
+     * shared if it is still in the pool when the lock is taken again. Otherwise a new body is created, also outside
+     * the lock, and added if no body has joined the chain since it was copied; if one has, only the new arrivals at
+     * the head of the chain are compared in the next round. A new body that ends up not being added releases
+     * its stored text again.
+     */
+    private PageBody intern(long hash, int textBytes, Predicate<PageBody> sameText, Supplier<PageBody> create) {
+        expungeCollected();
+        Stripe stripe = stripeOf(hash);
+        PageBody created = null;
+        Slot compared = null;
+        while (true) {
+            List<PageBody> candidates = new ArrayList<>();
+            Slot head;
+            synchronized (stripe) {
+                head = stripe.slots.get(hash);
+                for (Slot slot = head; slot != null && slot != compared; slot = slot.next) {
+                    PageBody body = slot.get();
+                    if (body != null && slot.textBytes == textBytes) candidates.add(body);
+                }
+            }
+
+            PageBody match = null;
+            for (PageBody body : candidates) {
+                if (body.isReadable() && sameText.test(body)) {
+                    match = body;
+                    break;
+                }
+            }
+            if (match == null && created == null) created = create.get();
+
+            boolean shared = false;
+            synchronized (stripe) {
+                if (match != null) {
+                    shared = !match.slot.unlinked;
+                    if (shared) {
+                        match.slot.references++;
+                        stripe.references++;
+                        stripe.deduplicatedBytes += textBytes;
+                    }
+                } else if (stripe.slots.get(hash) == head) {
+                    return add(stripe, created);
+                }
+            }
+            if (shared) {
+                if (created != null) created.releaseStored();
+                return match;
+            }
+            compared = match == null ? head : null;
+        }
+    }
+
+    /**
+     * Adds a new body, used by one page, at the head of its hash chain. Called holding the stripe's lock.
+     */
+    private PageBody add(Stripe stripe, PageBody body) {
+        Slot slot = new Slot(stripe, body, collected);
+        slot.references = 1;
+        slot.next = stripe.slots.get(body.hash());
+        stripe.slots.put(body.hash(), slot);
+        slot.stored = body.storedText();
+        body.slot = slot;
+        stripe.bodies++;
+        stripe.references++;
+        stripe.uniqueBytes += body.getTextBytes();
+        return body;
+    }
+
+    /**
+     * Removes a slot from its hash chain and from the counts. Called holding the stripe's lock.
+     *
+     * @return true if the slot was in the pool, false if it had already been removed.
+     */
+    private static boolean unlink(Slot slot) {
+        Stripe stripe = slot.stripe;
+        Slot first = stripe.slots.get(slot.hash);
+        if (first == slot) {
+            if (slot.next == null) {
+                stripe.slots.remove(slot.hash);
+            } else {
+                stripe.slots.put(slot.hash, slot.next);
+            }
+        } else {
+            Slot previous = first;
+            while (previous != null && previous.next != slot) previous = previous.next;
+            if (previous == null) return false;
+            previous.next = slot.next;
+        }
+        slot.unlinked = true;
+        stripe.bodies--;
+        stripe.uniqueBytes -= slot.textBytes;
+        if (slot.references > 0) {
+            stripe.references -= slot.references;
+            stripe.deduplicatedBytes -= (long) (slot.references - 1) * slot.textBytes;
+        }
+        return true;
+    }
+
+    /**
+     * Removes the slots of bodies that were reclaimed while pages still counted as using them,
+     * and releases their stored text, which the slot remembers since the body is gone.
+     */
+    private void expungeCollected() {
+        for (Object collectedSlot; (collectedSlot = collected.poll()) != null; ) {
+            Slot slot = (Slot) collectedSlot;
+            boolean removed;
+            synchronized (slot.stripe) {
+                removed = unlink(slot);
+            }
+            PageBody.StoredText stored = slot.stored;
+            if (removed && stored != null) stored.store().release(stored.offset(), slot.textBytes);
+        }
+    }
+
+    private Stripe stripeOf(long hash) {
+        return stripes[Long.hashCode(hash) & (STRIPES - 1)];
+    }
+
+    /**
+     * Hashes the UTF-8 bytes of a text with 64-bit FNV-1a, encoding the characters as they are hashed,
+     * so a text hashes the same whether it is given as a string or as bytes.
+     * A lone surrogate is hashed as the replacement it is encoded as.
+     */
+    static long hash(String text) {
+        long hash = FNV_OFFSET;
+        for (int index = 0; index < text.length(); index++) {
+            char next = text.charAt(index);
+            if (next < 0x80) {
+                hash = mix(hash, next);
+            } else if (next < 0x800) {
+                hash = mix(mix(hash, 0xC0 | next >> 6), 0x80 | next & 0x3F);
+            } else if (!Character.isSurrogate(next)) {
+                hash = mix(mix(mix(hash, 0xE0 | next >> 12), 0x80 | next >> 6 & 0x3F), 0x80 | next & 0x3F);
+            } else if (Character.isHighSurrogate(next) && index + 1 < text.length()
+                    && Character.isLowSurrogate(text.charAt(index + 1))) {
+                int codePoint = Character.toCodePoint(next, text.charAt(++index));
+                hash = mix(mix(mix(mix(hash, 0xF0 | codePoint >> 18), 0x80 | codePoint >> 12 & 0x3F),
+                        0x80 | codePoint >> 6 & 0x3F), 0x80 | codePoint & 0x3F);
+            } else {
+                hash = mix(hash, '?');
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Hashes UTF-8 bytes with 64-bit FNV-1a, from the position to the limit of the buffer.
+     */
+    static long hash(ByteBuffer utf8) {
+        long hash = FNV_OFFSET;
+        for (int index = utf8.position(); index < utf8.limit(); index++) hash = mix(hash, utf8.get(index) & 0xFF);
+        return hash;
+    }
+
+    private static long mix(long hash, int octet) {
+        return (hash ^ octet) * FNV_PRIME;
+    }
+}
@@ -0,0 +1,174 @@
+package edu.ntnu.iir.bidata.models;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Ordered table of the pages in a diary entry.
+ * <p>
+ * Pages are stored in an array with a gap at the position of the last insert or removal
+ * (a gap buffer). Reading a page by position is O(1). Inserting or removing a page only
+ * shifts the pages between the gap and the edit position, so repeated edits around the
+ * same page, and appends, do not shift the whole entry. Moving a page only shifts the
+ * pages between its old and new position.
+ */
+class PageTable {
+
+    private static final int INITIAL_CAPACITY = 8;
+
+    private Page[] buffer = new Page[INITIAL_CAPACITY];
+    private int gapStart = 0;
+    private int gapEnd = INITIAL_CAPACITY;
+
+    private final List<Page> view = new AbstractList<>() {
+        @Override
+        public Page get(int index) {
+            return PageTable.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return PageTable.this.size();
+        }
+    };
+
+    /**
+     * Retrieves the number of pages in the table.
+     *
+     * @return Number of pages.
+     */
+    int size() {
+        return buffer.length - (gapEnd - gapStart);
+    }
+
+    /**
+     * Retrieves the page at a position.
+     *
+     * @param index Position, starting at 0.
+     * @return The page.
+     * @throws IndexOutOfBoundsException if index is outside the table.
+     */
+    Page get(int index) {
+        checkIndex(index, size());
+        return buffer[physical(index)];
+    }
+
+    /**
+     * Appends a page after the last page.
+     *
+     * @param page Page to append.
+     */
+    void add(Page page) {
+        insert(size(), page);
+    }
+
+    /**
+     * Inserts a page at a position, shifting the page at that position and later pages back.
+     *
+     * @param index Position, from 0 up to and including the number of pages.
+     * @param page  Page to insert.
+     * @throws IndexOutOfBoundsException if index is outside the table.
+     */
+    void insert(int index, Page page) {
+        checkIndex(index, size() + 1);
+        moveGap(index);
+        if (gapStart == gapEnd) grow();
+        buffer[gapStart++] = page;
+    }
+
+    /**
+     * Removes the page at a position, shifting later pages forward.
+     *
+     * @param index Position, starting at 0.
+     * @return The removed page.
+     * @throws IndexOutOfBoundsException if index is outside the table.
+     */
+    Page remove(int index) {
+        checkIndex(index, size());
+        moveGap(index);
+        Page removed = buffer[gapEnd];
+        buffer[gapEnd++] = null;
+        return removed;
+    }
+
+    /**
+     * Moves a page to a new position. Only the pages between the two positions are shifted.
+     *
+     * @param from Current position of the page.
+     * @param to   New position of the page.
+     * @throws IndexOutOfBoundsException if either position is outside the table.
+     */
+    void move(int from, int to) {
+        int size = size();
+        checkIndex(from, size);
+        checkIndex(to, size);
+
+        Page moved = get(from);
+        int step = from < to ? 1 : -1;
+        for (int index = from; index != to; index += step) {
+            buffer[physical(index)] = buffer[physical(index + step)];
+        }
+        buffer[physical(to)] = moved;
+    }
+
+    /**
+     * Finds the position of a page, comparing by identity.
+     *
+     * @param page Page to look for.
+     * @return Position of the page, or -1 if the page is not in the table.
+     */
+    int indexOf(Page page) {
+        for (int index = 0; index < gapStart; index++) {
+            if (buffer[index] == page) return index;
+        }
+        for (int index = gapEnd; index < buffer.length; index++) {
+            if (buffer[index] == page) return index - (gapEnd - gapStart);
+        }
+        return -1;
+    }
+
+    /**
+     * Retrieves a read-only list view of the table, in page order.
+     *
+     * @return Read-only list of pages.
+     */
+    List<Page> asList() {
+        return view;
+    }
+
+    private int physical(int index) {
+        return index < gapStart ? index : index + (gapEnd - gapStart);
+    }
+
+    private void moveGap(int index) {
+        if (index < gapStart) {
+            int count = gapStart - index;
+            System.arraycopy(buffer, index, buffer, gapEnd - count, count);
+            Arrays.fill(buffer, index, Math.min(gapStart, gapEnd - count), null);
+            gapStart = index;
+            gapEnd -= count;
+        } else if (index > gapStart) {
+            int count = index - gapStart;
+            System.arraycopy(buffer, gapEnd, buffer, gapStart, count);
+            Arrays.fill(buffer, Math.max(gapEnd, gapStart + count), gapEnd + count, null);
+            gapStart += count;
+            gapEnd += count;
+        }
+    }
+
+    private void grow() {
+        int tail = buffer.length - gapEnd;
+        Page[] grown = new Page[buffer.length * 2];
+        System.arraycopy(buffer, 0, grown, 0, gapStart);
+        System.arraycopy(buffer, gapEnd, grown, grown.length - tail, tail);
+        gapEnd = grown.length - tail;
+        buffer = grown;
+    }
+
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + bound);
+        }
+    }
+}
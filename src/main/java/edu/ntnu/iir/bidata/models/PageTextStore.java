@@ -0,0 +1,93 @@
+package edu.ntnu.iir.bidata.models;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+/**
+ * Storage for page text outside the pages themselves.
+ * <p>
+ * A page whose text is stored keeps only the offset and length of the UTF-8 bytes,
+ * and decodes the text from the store each time it is needed.
+ */
+public interface PageTextStore {
+
+    /**
+     * Stores the bytes of a page text.
+     *
+     * @param utf8 Text encoded as UTF-8.
+     * @return Offset of the stored bytes, used to read them back.
+     */
+    long append(byte[] utf8);
+
+    /**
+     * Stores the bytes of a page text from a buffer, such as a mapping of a saved file, from its position to
+     * its limit. Stores that keep the bytes as they are should copy them without passing through the heap.
+     *
+     * @param utf8 Text encoded as UTF-8. The position of the buffer is moved to its limit.
+     * @return Offset of the stored bytes, used to read them back.
+     */
+    default long append(ByteBuffer utf8) {
+        byte[] bytes = new byte[utf8.remaining()];
+        utf8.get(bytes);
+        return append(bytes);
+    }
+
+    /**
+     * Decodes a stored page text.
+     *
+     * @param offset Offset returned when the text was stored.
+     * @param length Number of bytes stored.
+     * @return The text.
+     * @throws IllegalArgumentException if offset and length do not point at stored bytes.
+     */
+    String read(long offset, int length);
+
+    /**
+     * Writes the UTF-8 bytes of a stored text to a channel, used to export pages without decoding them.
+     * Stores that keep the bytes as they were appended should hand them to the channel directly.
+     *
+     * @param offset Offset returned when the text was stored.
+     * @param length Number of bytes stored.
+     * @param target Channel to write to.
+     * @throws IOException if the channel cannot be written.
+     * @throws IllegalArgumentException if offset and length do not point at stored bytes.
+     */
+    default void transferTo(long offset, int length, WritableByteChannel target) throws IOException {
+        ByteBuffer utf8 = ByteBuffer.wrap(read(offset, length).getBytes(StandardCharsets.UTF_8));
+        while (utf8.hasRemaining()) target.write(utf8);
+    }
+
+    /**
+     * Creates a reader of a stored text that keeps working after the text is released,
+     * used by page snapshots that are read later on another thread.
+     *
+     * @param offset Offset returned when the text was stored.
+     * @param length Number of bytes stored.
+     * @return Reader of the text. Must be safe to call from any thread.
+     */
+    default Supplier<String> reader(long offset, int length) {
+        return () -> read(offset, length);
+    }
+
+    /**
+     * Tells the store that a stored text is no longer used, because the page changed or was removed.
+     * Readers created earlier must still be able to read the text afterwards.
+     *
+     * @param offset Offset returned when the text was stored.
+     * @param length Number of bytes stored.
+     */
+    default void release(long offset, int length) {
+    }
+
+    /**
+     * Checks whether stored texts can still be read.
+     *
+     * @return true unless the store has been closed.
+     */
+    default boolean isOpen() {
+        return true;
+    }
+}
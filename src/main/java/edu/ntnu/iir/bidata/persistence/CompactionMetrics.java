@@ -0,0 +1,24 @@
+package edu.ntnu.iir.bidata.persistence;
+
+import java.time.Duration;
+
+/**
+ * Counters of the compactions run by a {@link DiaryJournal} since it was opened.
+ * <p>
+ * The pause is the part of a compaction that runs on the thread that changes the registers: capturing an image
+ * of the registers and rolling the journal over to a new file. Writing the snapshot and deleting the old
+ * journal files happen on the compactor thread and are reported as the write time.
+ *
+ * @param compactions       Number of compactions that completed.
+ * @param failedCompactions Number of compactions that failed. Their journal files are kept and replayed as usual.
+ * @param bytesReclaimed    Bytes of journal files deleted because a snapshot included their records.
+ * @param lastPause         Pause of the most recent compaction.
+ * @param maxPause          Longest pause of any compaction.
+ * @param totalPause        Sum of the pauses of every compaction.
+ * @param lastWriteTime     Time the most recent completed compaction spent on the compactor thread.
+ * @param lastSnapshotBytes Size of the most recently written snapshot.
+ */
+public record CompactionMetrics(long compactions, long failedCompactions, long bytesReclaimed,
+                                Duration lastPause, Duration maxPause, Duration totalPause,
+                                Duration lastWriteTime, long lastSnapshotBytes) {
+}
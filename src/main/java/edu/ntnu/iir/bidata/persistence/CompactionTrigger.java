@@ -0,0 +1,67 @@
+package edu.ntnu.iir.bidata.persistence;
+
+/**
+ * When a {@link DiaryJournal} starts a background compaction: once the journal has grown by a number of bytes,
+ * or by a number of records, since the last compaction, whichever comes first. A limit of 0 is never reached.
+ *
+ * @param journalBytes   Bytes of records that start a compaction, or 0 for no byte limit.
+ * @param journalRecords Number of records that start a compaction, or 0 for no record limit.
+ */
+public record CompactionTrigger(long journalBytes, long journalRecords) {
+
+    /**
+     * Trigger that never starts a compaction. Compaction then only happens through
+     * {@link DiaryJournal#compact()} and {@link DiaryJournal#checkpoint()}.
+     */
+    public static final CompactionTrigger NEVER = new CompactionTrigger(0, 0);
+
+    /**
+     * Trigger used by a journal unless another is set: a compaction for every 16 MB of records.
+     */
+    public static final CompactionTrigger DEFAULT = ofBytes(16L * 1024 * 1024);
+
+    /**
+     * Creates a trigger.
+     *
+     * @throws IllegalArgumentException if a limit is negative.
+     */
+    public CompactionTrigger {
+        if (journalBytes < 0) throw new IllegalArgumentException("Byte limit cannot be negative");
+        if (journalRecords < 0) throw new IllegalArgumentException("Record limit cannot be negative");
+    }
+
+    /**
+     * Creates a trigger on the size of the journal.
+     *
+     * @param journalBytes Bytes of records that start a compaction.
+     * @return The trigger.
+     * @throws IllegalArgumentException if journalBytes is less than 1.
+     */
+    public static CompactionTrigger ofBytes(long journalBytes) {
+        if (journalBytes < 1) throw new IllegalArgumentException("Byte limit must be at least 1");
+        return new CompactionTrigger(journalBytes, 0);
+    }
+
+    /**
+     * Creates a trigger on the number of records in the journal.
+     *
+     * @param journalRecords Number of records that start a compaction.
+     * @return The trigger.
+     * @throws IllegalArgumentException if journalRecords is less than 1.
+     */
+    public static CompactionTrigger ofRecords(long journalRecords) {
+        if (journalRecords < 1) throw new IllegalArgumentException("Record limit must be at least 1");
+        return new CompactionTrigger(0, journalRecords);
+    }
+
+    /**
+     * Checks whether a journal of the given size should be compacted.
+     *
+     * @param bytes   Bytes of records written since the last compaction.
+     * @param records Number of records written since the last compaction.
+     * @return true if a limit is reached.
+     */
+    public boolean isReached(long bytes, long records) {
+        return journalBytes > 0 && bytes >= journalBytes || journalRecords > 0 && records >= journalRecords;
+    }
+}
@@ -0,0 +1,378 @@
+package edu.ntnu.iir.bidata.persistence;
+
+import edu.ntnu.iir.bidata.models.PageTextStore;
+import edu.ntnu.iir.bidata.text.TokenBuffer;
+import edu.ntnu.iir.bidata.text.Tokenizer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Supplier;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Page text store that keeps each text compressed on the heap, for pages that are rarely read.
+ * <p>
+ * Diary pages are short and written in the same language, so compressing them one by one gains little on its
+ * own: a page is over before the compressor has seen enough text to find repeats. Every text is therefore
+ * deflated against a preset dictionary, trained from sample pages with {@link #trainDictionary(Iterable, int)},
+ * that holds the words and word pairs the pages have in common. Repeats of those can be referred to from the
+ * first word of a page. Texts are stored as raw deflate streams, without the zlib header and checksum.
+ * <p>
+ * Reading a text inflates it, unless it is one of the most recently read texts, which are kept decoded in a
+ * bounded least recently used cache. The store's monitor is only held to look up the cache and the compressed
+ * bytes; texts are inflated outside it, with inflaters taken from a pool, so concurrent reads inflate in
+ * parallel. The store counts the bytes it saves compared with keeping the texts decoded, and the time spent
+ * inflating, so both sides of the trade can be reported.
+ * Released texts are dropped, and their slots reused, at once; page snapshots read through
+ * {@link #reader(long, int)}, which keeps the compressed bytes it needs.
+ */
+public final class CompressedPageStore implements PageTextStore {
+
+    /**
+     * Default number of decoded texts kept in the cache.
+     */
+    public static final int DEFAULT_CACHE_TEXTS = 256;
+
+    /**
+     * Largest useful dictionary, the size of the deflate window.
+     */
+    public static final int MAX_DICTIONARY_BYTES = 32 * 1024;
+
+    private final byte[] dictionary;
+    private final int cacheTexts;
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    private final Queue<Inflater> inflaters = new ConcurrentLinkedQueue<>();
+    private byte[] output = new byte[4096];
+
+    private final List<byte[]> texts = new ArrayList<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private final LinkedHashMap<Long, String> cache;
+
+    private long storedTexts;
+    private long textBytes;
+    private long compressedBytes;
+    private long reads;
+    private long cacheHits;
+    private long decompressionNanos;
+
+    /**
+     * Creates a store with the default cache size.
+     *
+     * @param dictionary Preset dictionary, normally from {@link #trainDictionary(Iterable, int)}. May be empty.
+     * @throws IllegalArgumentException if dictionary is null.
+     */
+    public CompressedPageStore(byte[] dictionary) {
+        this(dictionary, DEFAULT_CACHE_TEXTS);
+    }
+
+    /**
+     * Creates a store.
+     *
+     * @param dictionary Preset dictionary, normally from {@link #trainDictionary(Iterable, int)}. May be empty.
+     * @param cacheTexts Number of decoded texts kept in the cache, 0 for no cache.
+     * @throws IllegalArgumentException if dictionary is null, or if cacheTexts is negative.
+     */
+    public CompressedPageStore(byte[] dictionary, int cacheTexts) {
+        if (dictionary == null) throw new IllegalArgumentException("Dictionary cannot be null");
+        if (cacheTexts < 0) throw new IllegalArgumentException("Cache size cannot be negative");
+
+        this.dictionary = dictionary.length > MAX_DICTIONARY_BYTES
+                ? Arrays.copyOfRange(dictionary, dictionary.length - MAX_DICTIONARY_BYTES, dictionary.length)
+                : dictionary.clone();
+        this.cacheTexts = cacheTexts;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, String> eldest) {
+                return size() > CompressedPageStore.this.cacheTexts;
+            }
+        };
+    }
+
+    /**
+     * Builds a preset dictionary from sample texts: the words and word pairs that occur more than once,
+     * chosen by how many bytes they would save, with the most valuable last, where deflate reaches them with the
+     * shortest distances.
+     *
+     * @param samples  Sample texts, such as the pages already in the registers.
+     * @param maxBytes Largest dictionary to build, at most {@link #MAX_DICTIONARY_BYTES}.
+     * @return The dictionary, empty if the samples have nothing in common.
+     * @throws IllegalArgumentException if samples is null, or if maxBytes is less than 1.
+     */
+    public static byte[] trainDictionary(Iterable<String> samples, int maxBytes) {
+        if (samples == null) throw new IllegalArgumentException("Samples cannot be null");
+        if (maxBytes < 1) throw new IllegalArgumentException("Dictionary size must be at least 1 byte");
+        maxBytes = Math.min(maxBytes, MAX_DICTIONARY_BYTES);
+
+        Map<String, Integer> counts = new HashMap<>();
+        for (String sample : samples) {
+            if (sample == null) continue;
+            TokenBuffer words = Tokenizer.tokenize(sample, Tokenizer.Mode.WHITESPACE);
+            String next = words.size() > 0 ? words.token(0) : null;
+            for (int index = 0; index < words.size(); index++) {
+                String word = next;
+                next = index + 1 < words.size() ? words.token(index + 1) : null;
+                counts.merge(word + " ", 1, Integer::sum);
+                if (next != null) counts.merge(word + " " + next + " ", 1, Integer::sum);
+            }
+        }
+
+        List<Map.Entry<String, Integer>> candidates = new ArrayList<>();
+        for (Map.Entry<String, Integer> candidate : counts.entrySet()) {
+            if (candidate.getValue() > 1) candidates.add(candidate);
+        }
+        candidates.sort(Comparator.comparingLong(
+                (Map.Entry<String, Integer> candidate) -> -(long) candidate.getValue() * candidate.getKey().length()));
+
+        List<byte[]> chosen = new ArrayList<>();
+        int size = 0;
+        for (Map.Entry<String, Integer> candidate : candidates) {
+            byte[] bytes = candidate.getKey().getBytes(StandardCharsets.UTF_8);
+            if (size + bytes.length > maxBytes) continue;
+            chosen.add(bytes);
+            size += bytes.length;
+        }
+
+        byte[] dictionary = new byte[size];
+        int position = 0;
+        for (int index = chosen.size() - 1; index >= 0; index--) {
+            byte[] bytes = chosen.get(index);
+            System.arraycopy(bytes, 0, dictionary, position, bytes.length);
+            position += bytes.length;
+        }
+        return dictionary;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return Slot of the compressed text.
+     * @throws IllegalArgumentException if utf8 is null.
+     */
+    @Override
+    public synchronized long append(byte[] utf8) {
+        if (utf8 == null) throw new IllegalArgumentException("Text cannot be null");
+
+        byte[] compressed = deflate(utf8);
+        Integer free = freeSlots.poll();
+        int slot;
+        if (free == null) {
+            slot = texts.size();
+            texts.add(compressed);
+        } else {
+            slot = free;
+            texts.set(slot, compressed);
+        }
+        storedTexts++;
+        textBytes += utf8.length;
+        compressedBytes += compressed.length;
+        return slot;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String read(long offset, int length) {
+        byte[] compressed;
+        synchronized (this) {
+            compressed = compressedAt(offset, length);
+            reads++;
+            String text = cache.get(offset);
+            if (text != null) {
+                cacheHits++;
+                return text;
+            }
+        }
+
+        long start = System.nanoTime();
+        String text = new String(inflatePooled(compressed, length), StandardCharsets.UTF_8);
+        long nanos = System.nanoTime() - start;
+        synchronized (this) {
+            decompressionNanos += nanos;
+            // The slot may have been released and reused while the text was inflated.
+            if (cacheTexts > 0 && offset < texts.size() && texts.get((int) offset) == compressed) {
+                cache.put(offset, text);
+            }
+        }
+        return text;
+    }
+
+    /**
+     * {@inheritDoc}
+     * The text is inflated straight to the channel as UTF-8, without decoding it or going through the cache.
+     */
+    @Override
+    public void transferTo(long offset, int length, WritableByteChannel target) throws IOException {
+        byte[] compressed;
+        synchronized (this) {
+            compressed = compressedAt(offset, length);
+        }
+        long start = System.nanoTime();
+        ByteBuffer utf8 = ByteBuffer.wrap(inflatePooled(compressed, length));
+        long nanos = System.nanoTime() - start;
+        synchronized (this) {
+            decompressionNanos += nanos;
+        }
+        while (utf8.hasRemaining()) target.write(utf8);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The reader keeps the compressed bytes and inflates them with an inflater of its own, bypassing the cache.
+     */
+    @Override
+    public synchronized Supplier<String> reader(long offset, int length) {
+        byte[] compressed = compressedAt(offset, length);
+        byte[] shared = dictionary;
+        return () -> {
+            Inflater own = new Inflater(true);
+            try {
+                return inflate(own, shared, compressed, length);
+            } finally {
+                own.end();
+            }
+        };
+    }
+
+    /**
+     * {@inheritDoc}
+     * The compressed text is dropped and its slot reused.
+     */
+    @Override
+    public synchronized void release(long offset, int length) {
+        byte[] compressed = compressedAt(offset, length);
+        texts.set((int) offset, null);
+        freeSlots.push((int) offset);
+        cache.remove(offset);
+        storedTexts--;
+        textBytes -= length;
+        compressedBytes -= compressed.length;
+    }
+
+    /**
+     * Retrieves the number of texts in the store.
+     *
+     * @return Number of texts not released.
+     */
+    public synchronized long getStoredTexts() {
+        return storedTexts;
+    }
+
+    /**
+     * Retrieves the size of the texts in the store as UTF-8, about what they would take on the heap decoded.
+     *
+     * @return Number of bytes.
+     */
+    public synchronized long getTextBytes() {
+        return textBytes;
+    }
+
+    /**
+     * Retrieves the size of the texts in the store as compressed.
+     *
+     * @return Number of bytes.
+     */
+    public synchronized long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    /**
+     * Retrieves the number of bytes saved by keeping the texts compressed, not counting the cache.
+     *
+     * @return Number of bytes saved.
+     */
+    public synchronized long getBytesSaved() {
+        return textBytes - compressedBytes;
+    }
+
+    /**
+     * Retrieves the number of texts read.
+     *
+     * @return Number of reads, including those answered by the cache.
+     */
+    public synchronized long getReads() {
+        return reads;
+    }
+
+    /**
+     * Retrieves the number of reads answered by the cache.
+     *
+     * @return Number of cache hits.
+     */
+    public synchronized long getCacheHits() {
+        return cacheHits;
+    }
+
+    /**
+     * Retrieves the total time reads spent inflating texts that were not in the cache.
+     *
+     * @return Time in nanoseconds.
+     */
+    public synchronized long getDecompressionNanos() {
+        return decompressionNanos;
+    }
+
+    private byte[] compressedAt(long offset, int length) {
+        byte[] compressed = offset >= 0 && offset < texts.size() ? texts.get((int) offset) : null;
+        if (compressed == null || length < 0) {
+            throw new IllegalArgumentException("No stored text at offset " + offset + " with length " + length);
+        }
+        return compressed;
+    }
+
+    private byte[] deflate(byte[] utf8) {
+        deflater.reset();
+        if (dictionary.length > 0) deflater.setDictionary(dictionary);
+        deflater.setInput(utf8);
+        deflater.finish();
+        int size = 0;
+        while (!deflater.finished()) {
+            if (size == output.length) output = Arrays.copyOf(output, output.length * 2);
+            size += deflater.deflate(output, size, output.length - size);
+        }
+        return Arrays.copyOf(output, size);
+    }
+
+    /**
+     * Inflates a text with an inflater from the pool, creating one if the pool is empty, and returns it afterwards.
+     * The pool never holds more inflaters than there have been concurrent reads.
+     */
+    private byte[] inflatePooled(byte[] compressed, int length) {
+        Inflater pooled = inflaters.poll();
+        if (pooled == null) pooled = new Inflater(true);
+        try {
+            return inflateBytes(pooled, dictionary, compressed, length);
+        } finally {
+            inflaters.offer(pooled);
+        }
+    }
+
+    private static String inflate(Inflater inflater, byte[] dictionary, byte[] compressed, int length) {
+        return new String(inflateBytes(inflater, dictionary, compressed, length), StandardCharsets.UTF_8);
+    }
+
+    private static byte[] inflateBytes(Inflater inflater, byte[] dictionary, byte[] compressed, int length) {
+        inflater.reset();
+        if (dictionary.length > 0) inflater.setDictionary(dictionary);
+        inflater.setInput(compressed);
+        byte[] utf8 = new byte[length];
+        try {
+            int size = 0;
+            while (size < length) {
+                int inflated = inflater.inflate(utf8, size, length - size);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput())) break;
+                size += inflated;
+            }
+            if (size != length) throw new IllegalStateException("Compressed text is shorter than " + length + " bytes");
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Compressed text is damaged", e);
+        }
+        return utf8;
+    }
+}
@@ -0,0 +1,957 @@
+package edu.ntnu.iir.bidata.persistence;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.models.DiaryEntryListener;
+import edu.ntnu.iir.bidata.models.Page;
+import edu.ntnu.iir.bidata.registers.AuthorRegister;
+import edu.ntnu.iir.bidata.registers.AuthorRegisterListener;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegisterListener;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Append-only journal of every mutation of an {@link AuthorRegister} and a {@link DiaryEntryRegister}.
+ * <p>
+ * Each mutation is encoded as one compact binary record and appended to the journal file through a
+ * {@link FileChannel}. When the journal is opened, the records already in the file are replayed into the
+ * registers, so the registers look the same as when the application last stopped.
+ * After replay the journal listens to the registers and to every diary entry in them.
+ * <p>
+ * Every journal file starts with a header, the magic number "DIARYJNL" as a long and the format version as an int.
+ * A record on disk is laid out as:
+ * <pre>
+ *   int    length of the rest of the record
+ *   int    CRC32C checksum of the rest of the record after this field
+ *   byte   record type
+ *   long   log sequence number, starting at 1
+ *   long   time of the change, UTC epoch seconds
+ *   int    time of the change, nanoseconds
+ *   ...    fields of the record type
+ * </pre>
+ * On open, recovery validates the checksum of every record in the same pass that replays it, straight from the read
+ * buffer, and stops at the first record that is cut off, damaged or unreadable. That record and everything after it
+ * is discarded, so a crash in the middle of a write never makes the journal unloadable;
+ * {@link #getRecoveryReport()} says how much was lost and why. Files written before records had checksums have
+ * no header; they are still replayed, and the current one is sealed on open so new records go to a new file.
+ * <p>
+ * The journal is compacted into a {@link DiarySnapshot} of the registers, so the next open loads the snapshot
+ * with one sequential read and only replays the records written after it. The journal gives the registers and
+ * their entries a write gate, the shared side of a read-write lock that every change holds until it has been
+ * recorded. A compaction takes the exclusive side, so it sees the registers between changes, with exactly the
+ * changes recorded so far; it then captures an image of the registers and rolls the journal file over: the
+ * current file is renamed to a sealed segment named after its last sequence number, and recording continues in
+ * a new file. The snapshot is then written on a background compactor thread, and the sealed segments it
+ * includes are deleted, so writers only pause for the capture and the roll.
+ * A compaction starts by itself on the compactor thread when the journal reaches its {@link CompactionTrigger},
+ * or through {@link #compact()} and {@link #checkpoint()}. {@link #getCompactionMetrics()} reports what
+ * compaction costs.
+ * <p>
+ * When the journal is opened, sealed segments left by a compaction that did not finish are replayed before the
+ * current file. Records already included in the snapshot are skipped by sequence number, so a crash at any
+ * point of a compaction does not apply any change twice.
+ * <p>
+ * Records are made durable through a {@link GroupCommitWriter}, so rapid edits share one {@code force}
+ * instead of paying one each. {@link #getLastCommit()} and {@link #flush()} let callers wait for durability.
+ * <p>
+ * A change is applied before its record is written, so a failed write cannot undo it. Once a batch has failed,
+ * the journal is read-only instead: no more records are written, since they would follow a gap, and the write gate
+ * refuses every later change with an {@link IllegalStateException} before it is applied. A change already under
+ * way when the write fails is kept in memory without being recorded; the recorder never throws out of the middle
+ * of a change. {@link #getFailure()} reports why the journal is read-only.
+ */
+public final class DiaryJournal implements Closeable {
+
+    /**
+     * Name of the journal file within the data directory.
+     */
+    public static final String FILE_NAME = "journal.log";
+
+    /**
+     * Default longest time a record waits for other records to share its commit.
+     */
+    public static final Duration DEFAULT_COMMIT_WINDOW = Duration.ofMillis(2);
+
+    /**
+     * Default number of records that commits a batch without waiting for the window.
+     */
+    public static final int DEFAULT_MAX_BATCH_RECORDS = 64;
+
+    static final int HEADER_BYTES = Integer.BYTES + Integer.BYTES + 1 + Long.BYTES + Long.BYTES + Integer.BYTES;
+
+    static final long FILE_MAGIC = 0x44494152594A4E4CL;
+    static final int FILE_VERSION = 2;
+    static final int FILE_HEADER_BYTES = Long.BYTES + Integer.BYTES;
+
+    private static final ByteBuffer FILE_HEADER = ByteBuffer.allocate(FILE_HEADER_BYTES)
+            .putLong(FILE_MAGIC)
+            .putInt(FILE_VERSION)
+            .flip()
+            .asReadOnlyBuffer();
+    private static final int CHECKSUM_START = Integer.BYTES + Integer.BYTES;
+
+    private static final String SEALED_PREFIX = "journal-";
+    private static final String SEALED_SUFFIX = ".log";
+
+    private final Path directory;
+    private final Duration commitWindow;
+    private final int maxBatchRecords;
+    private FileChannel channel;
+    private volatile GroupCommitWriter writer;
+    private CompletableFuture<Long> lastCommit = CompletableFuture.completedFuture(0L);
+    private final RecordBuffer record = new RecordBuffer();
+    private final CRC32C checksum = new CRC32C();
+    private boolean fileStarted;
+    private final Recorder recorder = new Recorder();
+    private final ReentrantReadWriteLock writeGate = new ReentrantReadWriteLock();
+    private final Lock writableGate = new WritableGate();
+    private volatile IOException failure;
+    private AuthorRegister authorRegister;
+    private DiaryEntryRegister diaryEntryRegister;
+    private long nextLsn = 1;
+    private volatile long snapshotLsn;
+    private long replayedRecords;
+    private long skippedRecords;
+    private long recoveredRecords;
+    private long recoveredBytes;
+    private long discardedBytes;
+    private RecoveryReport.Problem problem = RecoveryReport.Problem.NONE;
+
+    private CompactionTrigger compactionTrigger = CompactionTrigger.DEFAULT;
+    private long journalBytes;
+    private long journalRecords;
+    private ExecutorService compactor;
+    private volatile CompletableFuture<Void> compaction = CompletableFuture.completedFuture(null);
+    private long compactions;
+    private long failedCompactions;
+    private long bytesReclaimed;
+    private long lastPauseNanos;
+    private long maxPauseNanos;
+    private long totalPauseNanos;
+    private long lastWriteNanos;
+    private long lastSnapshotBytes;
+
+    private DiaryJournal(Path directory, FileChannel channel, Duration commitWindow, int maxBatchRecords) {
+        this.directory = directory;
+        this.channel = channel;
+        this.commitWindow = commitWindow;
+        this.maxBatchRecords = maxBatchRecords;
+    }
+
+    /**
+     * Opens the journal in a data directory with the default commit window and batch size.
+     *
+     * @param directory          Data directory, created if missing.
+     * @param authorRegister     Register of authors, normally empty.
+     * @param diaryEntryRegister Register of diary entries, normally empty.
+     * @return The open journal.
+     * @throws IOException if the journal cannot be read or opened for writing.
+     * @throws IllegalArgumentException if a parameter is null.
+     * @see #open(Path, AuthorRegister, DiaryEntryRegister, Duration, int)
+     */
+    public static DiaryJournal open(Path directory, AuthorRegister authorRegister,
+                                    DiaryEntryRegister diaryEntryRegister) throws IOException {
+        return open(directory, authorRegister, diaryEntryRegister, DEFAULT_COMMIT_WINDOW, DEFAULT_MAX_BATCH_RECORDS);
+    }
+
+    /**
+     * Opens the journal in a data directory, loads the snapshot and replays the journal into the registers,
+     * and starts recording every later change of the registers.
+     *
+     * @param directory          Data directory, created if missing.
+     * @param authorRegister     Register of authors, normally empty.
+     * @param diaryEntryRegister Register of diary entries, normally empty.
+     * @param commitWindow       Longest time a record waits for other records to share its commit.
+     * @param maxBatchRecords    Number of records that commits a batch without waiting for the window.
+     * @return The open journal.
+     * @throws IOException if the snapshot or the journal cannot be read, or the journal cannot be opened for writing.
+     * @throws IllegalArgumentException if a parameter is null, if commitWindow is negative,
+     *                                  or if maxBatchRecords is less than 1.
+     */
+    public static DiaryJournal open(Path directory, AuthorRegister authorRegister, DiaryEntryRegister diaryEntryRegister,
+                                    Duration commitWindow, int maxBatchRecords) throws IOException {
+        if (directory == null) throw new IllegalArgumentException("Directory cannot be null");
+        if (commitWindow == null) throw new IllegalArgumentException("Commit window cannot be null");
+        if (authorRegister == null) throw new IllegalArgumentException("Author register cannot be null");
+        if (diaryEntryRegister == null) throw new IllegalArgumentException("Diary entry register cannot be null");
+        if (maxBatchRecords < 1) throw new IllegalArgumentException("Batch size must be at least 1");
+
+        Files.createDirectories(directory);
+        FileChannel channel = FileChannel.open(directory.resolve(FILE_NAME), CREATE, READ, WRITE);
+        DiaryJournal journal = new DiaryJournal(directory, channel, commitWindow, maxBatchRecords);
+        try {
+            journal.snapshotLsn = DiarySnapshot.read(directory.resolve(DiarySnapshot.FILE_NAME),
+                    authorRegister, diaryEntryRegister);
+            journal.nextLsn = journal.snapshotLsn + 1;
+            JournalReplayer replayer = new JournalReplayer(authorRegister, diaryEntryRegister);
+            for (Path segment : journal.sealedSegments()) {
+                if (lastLsnOf(segment) <= journal.snapshotLsn) {
+                    Files.delete(segment);
+                    continue;
+                }
+                long end;
+                try (FileChannel sealed = FileChannel.open(segment, READ, WRITE)) {
+                    end = journal.recover(sealed, replayer);
+                }
+                if (end == 0) Files.delete(segment);
+                journal.journalBytes += end;
+            }
+            long position = journal.recover(channel, replayer);
+            channel.position(position);
+            journal.journalBytes += position;
+            journal.journalRecords = journal.replayedRecords + journal.skippedRecords;
+            journal.fileStarted = position > 0;
+            if (journal.fileStarted && !hasFileHeader(channel)) journal.sealActiveFile(journal.nextLsn - 1);
+        } catch (IOException | RuntimeException e) {
+            journal.channel.close();
+            throw e;
+        }
+        journal.writer = journal.newWriter();
+        journal.attach(authorRegister, diaryEntryRegister);
+        return journal;
+    }
+
+    /**
+     * Sets when compactions start by themselves.
+     *
+     * @param compactionTrigger Limits on the size of the journal, or {@link CompactionTrigger#NEVER}.
+     * @throws IllegalArgumentException if compactionTrigger is null.
+     */
+    public void setCompactionTrigger(CompactionTrigger compactionTrigger) {
+        if (compactionTrigger == null) throw new IllegalArgumentException("Compaction trigger cannot be null");
+        this.compactionTrigger = compactionTrigger;
+    }
+
+    /**
+     * Retrieves when compactions start by themselves.
+     *
+     * @return The compaction trigger.
+     */
+    public CompactionTrigger getCompactionTrigger() {
+        return compactionTrigger;
+    }
+
+    /**
+     * Retrieves the sequence number of the last record included in the snapshot
+     * that was loaded or written most recently.
+     *
+     * @return Sequence number, or 0 if there is no snapshot.
+     */
+    public long getSnapshotLsn() {
+        return snapshotLsn;
+    }
+
+    /**
+     * Retrieves what recovery found when the journal was opened: how many records were read back,
+     * and how much of a damaged or cut off journal was discarded.
+     *
+     * @return The recovery report.
+     */
+    public RecoveryReport getRecoveryReport() {
+        return new RecoveryReport(recoveredRecords, recoveredBytes, discardedBytes,
+                Math.max(snapshotLsn, nextLsn - 1), problem);
+    }
+
+    /**
+     * Retrieves the number of records applied to the registers when the journal was opened,
+     * not counting the records already included in the snapshot.
+     *
+     * @return Number of replayed records.
+     */
+    public long getReplayedRecords() {
+        return replayedRecords;
+    }
+
+    /**
+     * Retrieves the number of records that could not be applied when the journal was opened,
+     * for example because they refer to an entry that no longer exists.
+     *
+     * @return Number of skipped records.
+     */
+    public long getSkippedRecords() {
+        return skippedRecords;
+    }
+
+    /**
+     * Retrieves the sequence number the next record will get.
+     *
+     * @return Next log sequence number.
+     */
+    public long getNextLsn() {
+        return nextLsn;
+    }
+
+    /**
+     * Retrieves the commit of the most recently recorded change.
+     *
+     * @return Future completed with the sequence number of the record when it is on disk.
+     */
+    public CompletableFuture<Long> getLastCommit() {
+        return lastCommit;
+    }
+
+    /**
+     * Retrieves why the journal is read-only.
+     *
+     * @return The error that kept a change from being written, or null if every change so far was written.
+     */
+    public IOException getFailure() {
+        return writer == null ? failure : checkFailure();
+    }
+
+    /**
+     * Commits every recorded change without waiting for the commit window.
+     *
+     * @return Future completed when every change recorded so far is on disk.
+     */
+    public CompletableFuture<Void> flush() {
+        return writer.flush();
+    }
+
+    /**
+     * Starts a compaction: waits until no change of the registers is being made, captures the registers and
+     * rolls the journal over to a new file, then writes the snapshot and deletes the journal files it includes on
+     * the compactor thread. Writers only pause for the capture and the roll.
+     * Must not be called while making a change, such as from a listener of the registers.
+     * If a compaction is already running, no new one is started.
+     *
+     * @return Future completed when the snapshot is written and the journal files behind it are deleted,
+     *         or completed exceptionally if the compaction failed. The journal files are then kept.
+     * @throws IllegalStateException if the journal is closed.
+     */
+    public CompletableFuture<Void> compact() {
+        Lock gate = writeGate.writeLock();
+        gate.lock();
+        try {
+            synchronized (recorder) {
+                if (authorRegister == null) throw new IllegalStateException("Journal is closed");
+                if (!compaction.isDone()) return compaction;
+                compaction = startCompaction();
+                return compaction;
+            }
+        } finally {
+            gate.unlock();
+        }
+    }
+
+    /**
+     * Captures the registers, rolls the journal and hands the snapshot to the compactor. Called holding the
+     * exclusive side of the write gate, so every change made so far has been recorded and none is in progress.
+     *
+     * @return Future of the compaction.
+     */
+    private CompletableFuture<Void> startCompaction() {
+        if (checkFailure() != null) return CompletableFuture.failedFuture(failure);
+        if (nextLsn - 1 == snapshotLsn && journalRecords == 0) return CompletableFuture.completedFuture(null);
+
+        long start = System.nanoTime();
+        long lsn = nextLsn - 1;
+        DiarySnapshot.Image image = DiarySnapshot.capture(authorRegister, diaryEntryRegister);
+        try {
+            roll(lsn);
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                failedCompactions++;
+            }
+            return CompletableFuture.failedFuture(e);
+        }
+        long pauseNanos = System.nanoTime() - start;
+        synchronized (this) {
+            lastPauseNanos = pauseNanos;
+            maxPauseNanos = Math.max(maxPauseNanos, pauseNanos);
+            totalPauseNanos += pauseNanos;
+        }
+        return CompletableFuture.runAsync(() -> writeSnapshot(image, lsn), compactor());
+    }
+
+    private synchronized ExecutorService compactor() {
+        if (compactor == null) {
+            compactor = Executors.newSingleThreadExecutor(task -> {
+                Thread thread = new Thread(task, "diary-compactor");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return compactor;
+    }
+
+    /**
+     * Starts a compaction on the compactor thread, once the writer that reached the trigger has finished its change.
+     * Called holding the recorder's monitor.
+     */
+    private void scheduleCompaction() {
+        if (!compaction.isDone()) return;
+        CompletableFuture<Void> scheduled = new CompletableFuture<>();
+        compaction = scheduled;
+        compactor().execute(() -> {
+            Lock gate = writeGate.writeLock();
+            gate.lock();
+            CompletableFuture<Void> started;
+            try {
+                synchronized (recorder) {
+                    started = authorRegister == null
+                            ? CompletableFuture.failedFuture(new IllegalStateException("Journal is closed"))
+                            : startCompaction();
+                }
+            } finally {
+                gate.unlock();
+            }
+            started.whenComplete((ignored, error) -> {
+                if (error == null) scheduled.complete(null);
+                else scheduled.completeExceptionally(error);
+            });
+        });
+    }
+
+    /**
+     * Retrieves the most recently started compaction.
+     *
+     * @return Future completed when that compaction is done, already completed if none was started.
+     */
+    public CompletableFuture<Void> getLastCompaction() {
+        return compaction;
+    }
+
+    /**
+     * Retrieves the counters of the compactions since the journal was opened.
+     *
+     * @return The compaction metrics.
+     */
+    public synchronized CompactionMetrics getCompactionMetrics() {
+        return new CompactionMetrics(compactions, failedCompactions, bytesReclaimed,
+                Duration.ofNanos(lastPauseNanos), Duration.ofNanos(maxPauseNanos), Duration.ofNanos(totalPauseNanos),
+                Duration.ofNanos(lastWriteNanos), lastSnapshotBytes);
+    }
+
+    /**
+     * Compacts the journal and waits for the compaction to finish, after any compaction already running.
+     * Must not be called while making a change, such as from a listener of the registers.
+     *
+     * @throws IOException if recorded changes could not be written, or the snapshot could not be written.
+     *                     No change is lost in that case; the journal files are kept and replayed on the next open.
+     * @throws IllegalStateException if the journal is closed.
+     */
+    public void checkpoint() throws IOException {
+        if (authorRegister == null) throw new IllegalStateException("Journal is closed");
+        try {
+            compaction.exceptionally(e -> null).join();
+            compact().join();
+        } catch (CompletionException e) {
+            throw asIOException(e.getCause());
+        }
+    }
+
+    /**
+     * Stops recording changes, waits for pending records to reach the disk, and closes the journal file.
+     *
+     * @throws IOException if pending records could not be written, or the file cannot be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        Lock gate = writeGate.writeLock();
+        gate.lock();
+        try {
+            if (authorRegister != null) {
+                authorRegister.removeListener(recorder);
+                diaryEntryRegister.removeListener(recorder);
+                diaryEntryRegister.getAllDiaryEntries().forEach(entry -> entry.removeListener(recorder));
+                authorRegister.setWriteGate(null);
+                diaryEntryRegister.setWriteGate(null);
+                authorRegister = null;
+                diaryEntryRegister = null;
+            }
+        } finally {
+            gate.unlock();
+        }
+        compaction.exceptionally(e -> null).join();
+        synchronized (this) {
+            if (compactor != null) compactor.shutdown();
+        }
+        try {
+            if (writer != null) writer.close();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private GroupCommitWriter newWriter() {
+        return new GroupCommitWriter(channel, commitWindow.toNanos(), TimeUnit.NANOSECONDS, maxBatchRecords);
+    }
+
+    /**
+     * Commits every pending record and renames the journal file to a sealed segment ending at lsn,
+     * then continues in a new, empty journal file. An empty journal file is kept as it is.
+     */
+    private void roll(long lsn) throws IOException {
+        GroupCommitWriter current = writer;
+        try {
+            try {
+                current.close();
+            } catch (IOException e) {
+                failure = e;
+                throw e;
+            }
+            if (sealActiveFile(lsn)) {
+                journalBytes = 0;
+                journalRecords = 0;
+            }
+        } finally {
+            writer = newWriter();
+        }
+    }
+
+    /**
+     * Renames the journal file to a sealed segment ending at lsn and opens a new, empty journal file.
+     * Nothing may be writing to the file.
+     *
+     * @return false if the journal file was empty and was kept as it is.
+     */
+    private boolean sealActiveFile(long lsn) throws IOException {
+        if (channel.size() == 0) return false;
+        Path file = directory.resolve(FILE_NAME);
+        channel.close();
+        try {
+            Files.move(file, directory.resolve(SEALED_PREFIX + String.format("%020d", lsn) + SEALED_SUFFIX),
+                    ATOMIC_MOVE);
+        } finally {
+            channel = FileChannel.open(file, CREATE, READ, WRITE);
+            channel.position(channel.size());
+            fileStarted = channel.size() > 0;
+        }
+        return true;
+    }
+
+    /**
+     * Writes a captured image as the snapshot and deletes the sealed segments it includes. Runs on the compactor.
+     */
+    private void writeSnapshot(DiarySnapshot.Image image, long lsn) {
+        long start = System.nanoTime();
+        try {
+            long size = DiarySnapshot.write(directory.resolve(DiarySnapshot.FILE_NAME), image, lsn);
+            snapshotLsn = lsn;
+            long reclaimed = 0;
+            for (Path segment : sealedSegments()) {
+                if (lastLsnOf(segment) > lsn) continue;
+                reclaimed += Files.size(segment);
+                Files.delete(segment);
+            }
+            synchronized (this) {
+                compactions++;
+                bytesReclaimed += reclaimed;
+                lastWriteNanos = System.nanoTime() - start;
+                lastSnapshotBytes = size;
+            }
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                failedCompactions++;
+            }
+            throw new CompletionException(e);
+        }
+    }
+
+    /**
+     * Lists the sealed segments in the data directory, oldest first.
+     */
+    private List<Path> sealedSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.startsWith(SEALED_PREFIX) && name.endsWith(SEALED_SUFFIX)
+                        && name.length() == SEALED_PREFIX.length() + 20 + SEALED_SUFFIX.length();
+            }).sorted().toList();
+        }
+    }
+
+    private static long lastLsnOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEALED_PREFIX.length(), name.length() - SEALED_SUFFIX.length()));
+    }
+
+    private static IOException asIOException(Throwable error) {
+        if (error instanceof CompletionException || error instanceof UncheckedIOException) error = error.getCause();
+        return error instanceof IOException io ? io : new IOException(error);
+    }
+
+    private void attach(AuthorRegister authorRegister, DiaryEntryRegister diaryEntryRegister) {
+        this.authorRegister = authorRegister;
+        this.diaryEntryRegister = diaryEntryRegister;
+        authorRegister.setWriteGate(writableGate);
+        diaryEntryRegister.setWriteGate(writableGate);
+        authorRegister.addListener(recorder);
+        diaryEntryRegister.addListener(recorder);
+        diaryEntryRegister.getAllDiaryEntries().forEach(entry -> entry.addListener(recorder));
+    }
+
+    /**
+     * Replays a journal file and cuts off whatever follows the last valid record. Once recovery has stopped
+     * at a bad record, later files are not replayed but emptied.
+     *
+     * @return Size of the file that was kept.
+     */
+    private long recover(FileChannel file, JournalReplayer replayer) throws IOException {
+        long end = problem == RecoveryReport.Problem.NONE ? replay(file, replayer) : 0;
+        long size = file.size();
+        if (size > end) {
+            discardedBytes += size - end;
+            file.truncate(end);
+            file.force(true);
+        }
+        recoveredBytes += end;
+        return end;
+    }
+
+    /**
+     * Reads records from the start of a journal file, validating each checksum straight from the read buffer,
+     * and applies the ones newer than the snapshot. Stops at the first record that is cut off, does not match its
+     * checksum, or cannot be decoded, and records why. Files without a header have records without checksums.
+     *
+     * @return Position after the last valid record.
+     */
+    private long replay(FileChannel file, JournalReplayer replayer) throws IOException {
+        long size = file.size();
+        boolean checksummed = hasFileHeader(file);
+        int checksumBytes = checksummed ? Integer.BYTES : 0;
+        int minimumLength = HEADER_BYTES - Integer.BYTES - (Integer.BYTES - checksumBytes);
+        long position = checksummed ? FILE_HEADER_BYTES : 0;
+
+        ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        file.position(position);
+        buffer.flip();
+        while (true) {
+            if (!fill(file, buffer, Integer.BYTES)) {
+                if (buffer.hasRemaining()) problem = RecoveryReport.Problem.TORN_RECORD;
+                break;
+            }
+            int length = buffer.getInt(buffer.position());
+            if (length < minimumLength) {
+                problem = RecoveryReport.Problem.UNREADABLE_RECORD;
+                break;
+            }
+            if (position + Integer.BYTES + length > size) {
+                problem = RecoveryReport.Problem.TORN_RECORD;
+                break;
+            }
+            if (buffer.capacity() < Integer.BYTES + length) {
+                buffer = ByteBuffer.allocate(Integer.BYTES + length).put(buffer).flip();
+            }
+            if (!fill(file, buffer, Integer.BYTES + length)) {
+                problem = RecoveryReport.Problem.TORN_RECORD;
+                break;
+            }
+
+            int recordStart = buffer.position();
+            int recordEnd = recordStart + Integer.BYTES + length;
+            if (checksummed) {
+                checksum.reset();
+                checksum.update(buffer.slice(recordStart + CHECKSUM_START, recordEnd - recordStart - CHECKSUM_START));
+                if ((int) checksum.getValue() != buffer.getInt(recordStart + Integer.BYTES)) {
+                    problem = RecoveryReport.Problem.CHECKSUM_MISMATCH;
+                    break;
+                }
+            }
+            buffer.position(recordStart + Integer.BYTES + checksumBytes);
+            RecordType type = RecordType.fromCode(buffer.get());
+            long lsn = buffer.getLong();
+            LocalDateTime time = RecordBuffer.getTime(buffer);
+            if (type == null) {
+                problem = RecoveryReport.Problem.UNREADABLE_RECORD;
+                break;
+            }
+
+            if (lsn > snapshotLsn) {
+                ByteBuffer payload = buffer.slice(buffer.position(), recordEnd - buffer.position());
+                if (replayer.apply(type, time, payload)) {
+                    replayedRecords++;
+                } else {
+                    skippedRecords++;
+                }
+            }
+            buffer.position(recordEnd);
+            position += Integer.BYTES + length;
+            recoveredRecords++;
+            nextLsn = Math.max(nextLsn, lsn + 1);
+        }
+        return position;
+    }
+
+    /**
+     * Checks whether a journal file starts with the header of the checksummed format.
+     *
+     * @throws IOException if the header has an unknown version.
+     */
+    private static boolean hasFileHeader(FileChannel file) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(FILE_HEADER_BYTES);
+        while (header.hasRemaining()) {
+            if (file.read(header, header.position()) < 0) return false;
+        }
+        if (header.getLong(0) != FILE_MAGIC) return false;
+        int version = header.getInt(Long.BYTES);
+        if (version != FILE_VERSION) throw new IOException("Unsupported journal version " + version);
+        return true;
+    }
+
+    /**
+     * Makes sure at least the given number of bytes are left in the buffer, reading more from the file if needed.
+     *
+     * @return false if the file ends first.
+     */
+    private static boolean fill(FileChannel file, ByteBuffer buffer, int bytes) throws IOException {
+        while (buffer.remaining() < bytes) {
+            buffer.compact();
+            int read = file.read(buffer);
+            buffer.flip();
+            if (read < 0) return false;
+        }
+        return true;
+    }
+
+    private RecordBuffer begin(RecordType type, LocalDateTime time) {
+        return record.clear()
+                .putInt(0)
+                .putInt(0)
+                .putByte(type.code)
+                .putLong(nextLsn)
+                .putTime(time);
+    }
+
+    /**
+     * Hands the record in the buffer to the group commit writer, without waiting for it to reach the disk.
+     * Once a batch has failed, the record is dropped instead, since it would follow a gap, and the journal is
+     * read-only. The change it records has already been applied, so this never throws.
+     */
+    private void append() {
+        if (checkFailure() != null) return;
+        record.putInt(0, record.position() - Integer.BYTES);
+        checksum.reset();
+        checksum.update(record.written().position(CHECKSUM_START));
+        record.putInt(Integer.BYTES, (int) checksum.getValue());
+        if (!fileStarted) {
+            writer.submit(FILE_HEADER.duplicate(), nextLsn);
+            journalBytes += FILE_HEADER_BYTES;
+            fileStarted = true;
+        }
+        lastCommit = writer.submit(record.written(), nextLsn);
+        nextLsn++;
+        journalBytes += record.position();
+        journalRecords++;
+        if (compactionTrigger.isReached(journalBytes, journalRecords)) scheduleCompaction();
+    }
+
+    /**
+     * Makes the journal read-only if the writer has failed.
+     *
+     * @return The error that failed the journal, or null if it has not failed.
+     */
+    private IOException checkFailure() {
+        if (failure == null) {
+            IOException error = writer.getFailure();
+            if (error != null) failure = error;
+        }
+        return failure;
+    }
+
+    /**
+     * Shared side of the write gate that refuses a change once the journal is read-only, before the change is
+     * applied. A thread that already holds the gate, inside a change in progress, is always let through, so a
+     * change is never stopped half way. The exclusive side is held while the writer is replaced, so the writer
+     * checked here is the one the change will be recorded by.
+     */
+    private final class WritableGate implements Lock {
+
+        private final Lock shared = writeGate.readLock();
+
+        @Override
+        public void lock() {
+            boolean nested = writeGate.getReadHoldCount() > 0;
+            shared.lock();
+            if (!nested) refuseIfFailed();
+        }
+
+        @Override
+        public void lockInterruptibly() throws InterruptedException {
+            boolean nested = writeGate.getReadHoldCount() > 0;
+            shared.lockInterruptibly();
+            if (!nested) refuseIfFailed();
+        }
+
+        @Override
+        public boolean tryLock() {
+            boolean nested = writeGate.getReadHoldCount() > 0;
+            if (!shared.tryLock()) return false;
+            if (!nested) refuseIfFailed();
+            return true;
+        }
+
+        @Override
+        public boolean tryLock(long time, TimeUnit unit) throws InterruptedException {
+            boolean nested = writeGate.getReadHoldCount() > 0;
+            if (!shared.tryLock(time, unit)) return false;
+            if (!nested) refuseIfFailed();
+            return true;
+        }
+
+        @Override
+        public void unlock() {
+            shared.unlock();
+        }
+
+        @Override
+        public Condition newCondition() {
+            throw new UnsupportedOperationException("The write gate has no conditions");
+        }
+
+        private void refuseIfFailed() {
+            IOException error = checkFailure();
+            if (error == null) return;
+            shared.unlock();
+            throw new IllegalStateException("The diaries are read-only, since changes could not be saved: "
+                    + (error.getMessage() != null ? error.getMessage() : error), error);
+        }
+    }
+
+    private static String nameOf(DiaryEntry entry) {
+        return entry.getAuthor().getName();
+    }
+
+    /**
+     * Turns register and entry notifications into journal records. Notifications may come from several threads
+     * when the registers are shared; they are recorded one at a time, since they share the record buffer.
+     */
+    private final class Recorder implements AuthorRegisterListener, DiaryEntryRegisterListener, DiaryEntryListener {
+
+        @Override
+        public synchronized void authorAdded(Author author) {
+            begin(RecordType.ADD_AUTHOR, LocalDateTime.now())
+                    .putString(author.getFirstName())
+                    .putString(author.getLastName())
+                    .putString(author.getNickname());
+            append();
+        }
+
+        @Override
+        public synchronized void authorRenamed(String oldName, Author author) {
+            begin(RecordType.RENAME_AUTHOR, LocalDateTime.now())
+                    .putString(oldName)
+                    .putString(author.getFirstName())
+                    .putString(author.getLastName())
+                    .putString(author.getNickname());
+            append();
+        }
+
+        @Override
+        public synchronized void authorRemoved(Author author) {
+            begin(RecordType.REMOVE_AUTHOR, LocalDateTime.now())
+                    .putString(author.getName());
+            append();
+        }
+
+        @Override
+        public synchronized void entryAdded(DiaryEntry entry) {
+            Author author = entry.getAuthor();
+            RecordBuffer buffer = begin(RecordType.ADD_ENTRY, entry.getTimeChanged())
+                    .putString(author.getFirstName())
+                    .putString(author.getLastName())
+                    .putString(author.getNickname())
+                    .putString(entry.getEntryTitle())
+                    .putInt(entry.getMaxWordsPerPage())
+                    .putTime(entry.getTimeCreated())
+                    .putInt(entry.getNmbPages());
+            for (Page page : entry.getPages()) {
+                buffer.putString(page.getTitle()).putString(page.getText());
+            }
+            append();
+            entry.addListener(this);
+        }
+
+        @Override
+        public synchronized void entryRemoved(DiaryEntry entry) {
+            entry.removeListener(this);
+            begin(RecordType.REMOVE_ENTRY, LocalDateTime.now())
+                    .putString(nameOf(entry))
+                    .putString(entry.getEntryTitle());
+            append();
+        }
+
+        @Override
+        public synchronized void pageAdded(DiaryEntry entry, Page page) {
+            begin(RecordType.INSERT_PAGE, entry.getTimeChanged())
+                    .putString(nameOf(entry))
+                    .putString(entry.getEntryTitle())
+                    .putInt(entry.getPageNumber(page))
+                    .putString(page.getTitle())
+                    .putString(page.getText());
+            append();
+        }
+
+        @Override
+        public synchronized void pageTextChanged(DiaryEntry entry, Page page, String oldText) {
+            begin(RecordType.SET_PAGE_TEXT, entry.getTimeChanged())
+                    .putString(nameOf(entry))
+                    .putString(entry.getEntryTitle())
+                    .putInt(entry.getPageNumber(page))
+                    .putString(page.getText());
+            append();
+        }
+
+        @Override
+        public synchronized void pageTitleChanged(DiaryEntry entry, Page page, String oldTitle) {
+            begin(RecordType.SET_PAGE_TITLE, entry.getTimeChanged())
+                    .putString(nameOf(entry))
+                    .putString(entry.getEntryTitle())
+                    .putInt(entry.getPageNumber(page))
+                    .putString(page.getTitle());
+            append();
+        }
+
+        @Override
+        public synchronized void pageRemoved(DiaryEntry entry, Page page, int pageNumber) {
+            begin(RecordType.REMOVE_PAGE, entry.getTimeChanged())
+                    .putString(nameOf(entry))
+                    .putString(entry.getEntryTitle())
+                    .putInt(pageNumber);
+            append();
+        }
+
+        @Override
+        public synchronized void pageMoved(DiaryEntry entry, Page page, int oldPageNumber) {
+            begin(RecordType.MOVE_PAGE, entry.getTimeChanged())
+                    .putString(nameOf(entry))
+                    .putString(entry.getEntryTitle())
+                    .putInt(oldPageNumber)
+                    .putInt(entry.getPageNumber(page));
+            append();
+        }
+
+        @Override
+        public synchronized void entryTitleChanged(DiaryEntry entry, String oldTitle) {
+            begin(RecordType.SET_ENTRY_TITLE, entry.getTimeChanged())
+                    .putString(nameOf(entry))
+                    .putString(oldTitle)
+                    .putString(entry.getEntryTitle());
+            append();
+        }
+    }
+}
@@ -0,0 +1,627 @@
+package edu.ntnu.iir.bidata.persistence;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.models.Page;
+import edu.ntnu.iir.bidata.models.PageTextStore;
+import edu.ntnu.iir.bidata.registers.AuthorRegister;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import edu.ntnu.iir.bidata.text.Vocabulary;
+import edu.ntnu.iir.bidata.text.WordCounter;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedOutputStream;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Point-in-time copy of an {@link AuthorRegister} and a {@link DiaryEntryRegister} in one binary file,
+ * so the registers can be restored without replaying the whole journal.
+ * <p>
+ * Names, titles and words are stored once in a string table at the start of the file and referred to by
+ * their index elsewhere, index -1 meaning null. Page text is nearly always unique, so it is written where
+ * it is used instead, and never has to be held in memory all at once. The words of every page are stored
+ * as string table indexes,
+ * so the word index is rebuilt from the stored words instead of tokenizing the text again, and the word
+ * counts of every entry and author are stored as they are, so they are restored without counting.
+ * The file is laid out as:
+ * <pre>
+ *   long   magic number, "DIARYSNP"
+ *   int    format version
+ *   long   sequence number of the last journal record included
+ *   int    number of strings, then for each: int UTF-8 length and the bytes
+ *   int    number of authors, then for each:
+ *            int first name, int last name, int nickname, byte 1 if in the author register,
+ *            time last created, time last changed, word counts
+ *   int    number of entries, then for each:
+ *            int author number, int title, int maximum words per page, time created, time changed,
+ *            int number of pages, then for each page:
+ *              int title, string text, int number of words, varint word for each word
+ *            word counts
+ *   int    CRC32C checksum of everything before it
+ * </pre>
+ * Strings written in place are an int UTF-8 length followed by the bytes.
+ * Times are written as a byte that is 0 for null, followed by UTC epoch seconds and nanoseconds if not null.
+ * Word counts are written as the number of distinct words, followed by a varint word and a varint count for each.
+ * Varints are unsigned, seven bits per byte with the high bit set on every byte but the last,
+ * so a page of common words takes about one byte per word.
+ * <p>
+ * A snapshot is taken in two steps: the registers are captured into an {@link Image} between their changes,
+ * which copies word counts but not page text, and the image is then encoded and written, which may happen
+ * while the registers keep changing.
+ * It is written to a temporary file, forced to disk, and then renamed over the old snapshot,
+ * so a crash leaves either the old or the new snapshot, never a partial one. It is read back through read-only
+ * mappings of one window of the file at a time, so it can be larger than one mapping: the checksum is validated
+ * window by window without copying, and the file is then read front to back in one pass. Page text is copied as
+ * UTF-8 bytes straight from the mapping into the page store of the diary entry register, and only decoded if the
+ * register keeps page text on the heap. A snapshot that fails its checksum is rejected as a whole.
+ * <p>
+ * Only the current format version is read; a snapshot written in any other version is rejected.
+ */
+public final class DiarySnapshot {
+
+    /**
+     * Name of the snapshot file within the data directory.
+     */
+    public static final String FILE_NAME = "snapshot.bin";
+
+    /**
+     * Default size of one window of a snapshot mapped while it is read.
+     */
+    public static final int DEFAULT_WINDOW_BYTES = 64 * 1024 * 1024;
+
+    static final long MAGIC = 0x4449415259534E50L;
+    static final int VERSION = 3;
+
+    private static final int NONE = -1;
+
+    private DiarySnapshot() {
+    }
+
+    /**
+     * Writes a snapshot of the registers, replacing any earlier snapshot in the same file.
+     *
+     * @param file               Snapshot file.
+     * @param authorRegister     Register of authors.
+     * @param diaryEntryRegister Register of diary entries.
+     * @param lsn                Sequence number of the last journal record reflected in the registers.
+     * @throws IOException if the snapshot cannot be written. The earlier snapshot is then left in place.
+     * @throws IllegalArgumentException if a parameter is null, or if lsn is negative.
+     */
+    public static void write(Path file, AuthorRegister authorRegister, DiaryEntryRegister diaryEntryRegister,
+                             long lsn) throws IOException {
+        if (file == null) throw new IllegalArgumentException("File cannot be null");
+        if (lsn < 0) throw new IllegalArgumentException("Sequence number cannot be negative");
+        write(file, capture(authorRegister, diaryEntryRegister), lsn);
+    }
+
+    /**
+     * Captures what a snapshot of the registers holds, without encoding or writing anything.
+     * Must be called while no change of the registers is in progress, such as holding the exclusive side of their
+     * write gate, so the image holds exactly the changes recorded so far. The image can then be written on any thread
+     * while the registers keep changing, since it shares nothing mutable with them.
+     * <p>
+     * Page text is not copied: text on the heap is immutable and is kept by reference, and stored text is read
+     * from the page store when the image is written. The cost is one small array copy per word count.
+     *
+     * @param authorRegister     Register of authors.
+     * @param diaryEntryRegister Register of diary entries.
+     * @return Image of the registers.
+     * @throws IllegalArgumentException if a parameter is null.
+     */
+    static Image capture(AuthorRegister authorRegister, DiaryEntryRegister diaryEntryRegister) {
+        if (authorRegister == null) throw new IllegalArgumentException("Author register cannot be null");
+        if (diaryEntryRegister == null) throw new IllegalArgumentException("Diary entry register cannot be null");
+
+        diaryEntryRegister.awaitIndexing();
+        Image image = new Image();
+        Map<Author, Integer> authorNumbers = new IdentityHashMap<>();
+        authorRegister.getAllAuthors().forEachRemaining(
+                author -> authorNumbers.computeIfAbsent(author, key -> image.add(key, true)));
+        for (DiaryEntry entry : diaryEntryRegister.getAllDiaryEntries()) {
+            int author = authorNumbers.computeIfAbsent(entry.getAuthor(), key -> image.add(key, false));
+            List<Page> pages = entry.getPages();
+            Page.Snapshot[] pageSnapshots = new Page.Snapshot[pages.size()];
+            for (int page = 0; page < pageSnapshots.length; page++) pageSnapshots[page] = pages.get(page).snapshot();
+            image.entries.add(new EntryImage(author, entry.getEntryTitle(), entry.getMaxWordsPerPage(),
+                    entry.getTimeCreated(), entry.getTimeChanged(), pageSnapshots, Counts.of(entry.getWordCount())));
+        }
+        return image;
+    }
+
+    /**
+     * Writes a captured image of the registers, replacing any earlier snapshot in the same file.
+     *
+     * @param file  Snapshot file.
+     * @param image Image of the registers.
+     * @param lsn   Sequence number of the last journal record reflected in the image.
+     * @return Size of the written snapshot in bytes.
+     * @throws IOException if the snapshot cannot be written. The earlier snapshot is then left in place.
+     */
+    static long write(Path file, Image image, long lsn) throws IOException {
+        StringTable strings = new StringTable();
+        for (AuthorImage author : image.authors) {
+            strings.intern(author.firstName());
+            strings.intern(author.lastName());
+            strings.intern(author.nickname());
+            for (int wordId : author.counts().wordIds()) strings.internWord(wordId);
+        }
+        for (EntryImage entry : image.entries) {
+            strings.intern(entry.title());
+            for (Page.Snapshot page : entry.pages()) {
+                strings.intern(page.title());
+                for (int wordId : page.wordIds()) strings.internWord(wordId);
+            }
+            for (int wordId : entry.counts().wordIds()) strings.internWord(wordId);
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        long size;
+        try (FileChannel channel = FileChannel.open(temporary, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            CRC32C checksum = new CRC32C();
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), checksum), 64 * 1024));
+            out.writeLong(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(lsn);
+
+            out.writeInt(strings.size());
+            for (String value : strings.values) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+
+            out.writeInt(image.authors.size());
+            for (AuthorImage author : image.authors) {
+                out.writeInt(strings.indexOf(author.firstName()));
+                out.writeInt(strings.indexOf(author.lastName()));
+                out.writeInt(strings.indexOf(author.nickname()));
+                out.writeByte(author.registered() ? 1 : 0);
+                writeTime(out, author.lastTimeCreated());
+                writeTime(out, author.lastTimeChanged());
+                writeCounts(out, author.counts(), strings);
+            }
+
+            out.writeInt(image.entries.size());
+            for (EntryImage entry : image.entries) {
+                out.writeInt(entry.author());
+                out.writeInt(strings.indexOf(entry.title()));
+                out.writeInt(entry.maxWordsPerPage());
+                writeTime(out, entry.timeCreated());
+                writeTime(out, entry.timeChanged());
+                out.writeInt(entry.pages().length);
+                for (Page.Snapshot page : entry.pages()) {
+                    out.writeInt(strings.indexOf(page.title()));
+                    byte[] text = page.text().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(text.length);
+                    out.write(text);
+                    int[] wordIds = page.wordIds();
+                    out.writeInt(wordIds.length);
+                    for (int wordId : wordIds) writeVarInt(out, strings.indexOfWord(wordId));
+                }
+                writeCounts(out, entry.counts(), strings);
+            }
+            out.flush();
+            out.writeInt((int) checksum.getValue());
+            out.flush();
+            channel.force(true);
+            size = channel.size();
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, ATOMIC_MOVE, REPLACE_EXISTING);
+        return size;
+    }
+
+    /**
+     * Restores a snapshot into the registers, mapping the file a window of the default size at a time.
+     *
+     * @param file               Snapshot file.
+     * @param authorRegister     Register of authors, normally empty.
+     * @param diaryEntryRegister Register of diary entries, normally empty.
+     * @return Sequence number of the last journal record included in the snapshot, or 0 if the file does not exist.
+     * @throws IOException if the file cannot be read, is not a snapshot, or is cut short.
+     * @throws IllegalArgumentException if a parameter is null.
+     */
+    public static long read(Path file, AuthorRegister authorRegister,
+                            DiaryEntryRegister diaryEntryRegister) throws IOException {
+        return read(file, authorRegister, diaryEntryRegister, DEFAULT_WINDOW_BYTES);
+    }
+
+    /**
+     * Restores a snapshot into the registers. Page text is copied from the file straight into the page store of
+     * the diary entry register, if it has one, and only decoded if page text is kept on the heap.
+     *
+     * @param file               Snapshot file.
+     * @param authorRegister     Register of authors, normally empty.
+     * @param diaryEntryRegister Register of diary entries, normally empty.
+     * @param windowBytes        Size of each window of the file mapped while reading. A page text longer than this
+     *                           gets a window of its own.
+     * @return Sequence number of the last journal record included in the snapshot, or 0 if the file does not exist.
+     * @throws IOException if the file cannot be read, is not a snapshot, or is cut short.
+     * @throws IllegalArgumentException if a parameter is null, or if windowBytes is less than 1.
+     */
+    public static long read(Path file, AuthorRegister authorRegister,
+                            DiaryEntryRegister diaryEntryRegister, int windowBytes) throws IOException {
+        if (file == null) throw new IllegalArgumentException("File cannot be null");
+        if (authorRegister == null) throw new IllegalArgumentException("Author register cannot be null");
+        if (diaryEntryRegister == null) throw new IllegalArgumentException("Diary entry register cannot be null");
+        if (windowBytes < 1) throw new IllegalArgumentException("Window size must be at least 1 byte");
+        if (!Files.exists(file)) return 0;
+
+        PageTextStore store = diaryEntryRegister.getPageTextStore();
+        try (FileChannel channel = FileChannel.open(file, READ)) {
+            Input in = new Input(channel, windowBytes);
+            if (in.getLong() != MAGIC) throw new IOException(file + " is not a diary snapshot");
+            int version = in.getInt();
+            if (version != VERSION) throw new IOException("Unsupported snapshot version " + version);
+            in.limit(verifyChecksum(file, channel, windowBytes));
+            long lsn = in.getLong();
+            LoadedStrings strings = new LoadedStrings(in);
+
+            Author[] authors = new Author[in.getInt()];
+            LocalDateTime[][] authorTimes = new LocalDateTime[authors.length][];
+            for (int index = 0; index < authors.length; index++) {
+                authors[index] = new Author(strings.next(in), strings.next(in), strings.next(in));
+                boolean registered = in.get() == 1;
+                authorTimes[index] = new LocalDateTime[] {readTime(in), readTime(in)};
+                WordCounter counts = new WordCounter();
+                readCounts(in, counts, strings);
+                authors[index].restoreWordCount(counts);
+                if (registered) authorRegister.addAuthor(authors[index]);
+            }
+
+            int entryCount = in.getInt();
+            for (int index = 0; index < entryCount; index++) {
+                Author author = authors[in.getInt()];
+                String title = strings.next(in);
+                int maxWordsPerPage = in.getInt();
+                DiaryEntry entry = new DiaryEntry(author, maxWordsPerPage, title, readTime(in));
+                LocalDateTime timeChanged = readTime(in);
+                int pageCount = in.getInt();
+                for (int page = 0; page < pageCount; page++) {
+                    String pageTitle = strings.next(in);
+                    ByteBuffer text = readBytes(in);
+                    int[] words = new int[in.getInt()];
+                    for (int word = 0; word < words.length; word++) {
+                        words[word] = strings.wordId(readVarInt(in));
+                    }
+                    if (store != null) {
+                        entry.restorePage(pageTitle, store, text, words);
+                    } else {
+                        entry.restorePage(pageTitle, decode(text), words);
+                    }
+                }
+                WordCounter counts = new WordCounter();
+                readCounts(in, counts, strings);
+                entry.restoreWordCount(counts);
+                entry.setTimeChanged(timeChanged);
+                diaryEntryRegister.addDiaryEntry(entry);
+            }
+
+            for (int index = 0; index < authors.length; index++) {
+                authors[index].setLastTimeCreated(authorTimes[index][0]);
+                authors[index].setLastTimeChanged(authorTimes[index][1]);
+            }
+            return lsn;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException(file + " is cut short or damaged", e);
+        }
+    }
+
+    private static <T> int add(List<T> list, T value) {
+        list.add(value);
+        return list.size() - 1;
+    }
+
+    /**
+     * Registers captured for a snapshot, in the order they are written.
+     */
+    static final class Image {
+
+        private final List<AuthorImage> authors = new ArrayList<>();
+        private final List<EntryImage> entries = new ArrayList<>();
+
+        private int add(Author author, boolean registered) {
+            return DiarySnapshot.add(authors, new AuthorImage(author.getFirstName(), author.getLastName(),
+                    author.getNickname(), registered, author.getLastTimeCreated(), author.getLastTimeChanged(),
+                    Counts.of(author.getWordCount())));
+        }
+    }
+
+    private record AuthorImage(String firstName, String lastName, String nickname, boolean registered,
+                               LocalDateTime lastTimeCreated, LocalDateTime lastTimeChanged, Counts counts) {
+    }
+
+    private record EntryImage(int author, String title, int maxWordsPerPage, LocalDateTime timeCreated,
+                              LocalDateTime timeChanged, Page.Snapshot[] pages, Counts counts) {
+    }
+
+    /**
+     * Copy of a word counter as parallel arrays of word ids and counts.
+     */
+    private record Counts(int[] wordIds, long[] counts) {
+
+        /**
+         * Copies a counter into arrays. The counter must be a copy that no other thread changes, such as one from
+         * {@link Author#getWordCount()} or {@link DiaryEntry#getWordCount()}, which copy it holding the lock its
+         * writers hold, so its size and its entries agree.
+         */
+        static Counts of(WordCounter counter) {
+            int[] wordIds = new int[counter.size()];
+            long[] counts = new long[counter.size()];
+            int[] next = {0};
+            counter.forEach((wordId, count) -> {
+                wordIds[next[0]] = wordId;
+                counts[next[0]++] = count;
+            });
+            return new Counts(wordIds, counts);
+        }
+    }
+
+    /**
+     * Checks the CRC32C checksum in the last four bytes of a snapshot against everything before it,
+     * mapping one window of the file at a time so nothing is copied.
+     *
+     * @return Position of the checksum, which is where the rest of the snapshot ends.
+     */
+    private static long verifyChecksum(Path file, FileChannel channel, int windowBytes) throws IOException {
+        long end = channel.size() - Integer.BYTES;
+        if (end < 0) throw new IOException(file + " is cut short or damaged");
+        CRC32C checksum = new CRC32C();
+        for (long position = 0; position < end; position += windowBytes) {
+            long size = Math.min(windowBytes, end - position);
+            checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, position, size));
+        }
+        ByteBuffer stored = ByteBuffer.allocate(Integer.BYTES);
+        while (stored.hasRemaining()) {
+            if (channel.read(stored, end + stored.position()) < 0) {
+                throw new IOException(file + " is cut short or damaged");
+            }
+        }
+        if ((int) checksum.getValue() != stored.getInt(0)) {
+            throw new IOException(file + " does not match its checksum");
+        }
+        return end;
+    }
+
+    /**
+     * Decodes UTF-8 bytes from the position to the limit of a buffer.
+     */
+    private static String decode(ByteBuffer utf8) {
+        byte[] bytes = new byte[utf8.remaining()];
+        utf8.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the bytes written at the current position as an int length followed by the bytes, without copying them.
+     */
+    private static ByteBuffer readBytes(Input in) throws IOException {
+        int length = in.getInt();
+        if (length < 0) throw new IndexOutOfBoundsException("Negative string length " + length);
+        return in.slice(length);
+    }
+
+    private static void writeVarInt(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    private static long readVarLong(Input in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte next = in.get();
+            value |= (long) (next & 0x7F) << shift;
+            if (next >= 0) return value;
+        }
+        throw new IndexOutOfBoundsException("Varint is too long");
+    }
+
+    private static int readVarInt(Input in) throws IOException {
+        long value = readVarLong(in);
+        if (value > Integer.MAX_VALUE) throw new IndexOutOfBoundsException("Varint is too large");
+        return (int) value;
+    }
+
+    private static void writeCounts(DataOutputStream out, Counts counts, StringTable strings) throws IOException {
+        out.writeInt(counts.wordIds().length);
+        for (int index = 0; index < counts.wordIds().length; index++) {
+            writeVarInt(out, strings.indexOfWord(counts.wordIds()[index]));
+            writeVarInt(out, counts.counts()[index]);
+        }
+    }
+
+    private static void readCounts(Input in, WordCounter counter, LoadedStrings strings) throws IOException {
+        int size = in.getInt();
+        for (int index = 0; index < size; index++) {
+            int wordId = strings.wordId(readVarInt(in));
+            counter.add(wordId, readVarLong(in));
+        }
+    }
+
+    private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+        if (time == null) {
+            out.writeByte(0);
+            return;
+        }
+        out.writeByte(1);
+        out.writeLong(time.toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(time.getNano());
+    }
+
+    private static LocalDateTime readTime(Input in) throws IOException {
+        return in.get() == 0 ? null : RecordBuffer.getTime(in.need(Long.BYTES + Integer.BYTES));
+    }
+
+    /**
+     * Strings of a snapshot in the order they are first seen, each stored once.
+     * Vocabulary words are mapped through an array indexed by word id, so each page word costs one array read.
+     */
+    private static final class StringTable {
+
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private int[] wordIndexes = new int[0];
+
+        void intern(String value) {
+            if (value != null) indexes.computeIfAbsent(value, key -> add(values, key));
+        }
+
+        void internWord(int wordId) {
+            if (wordId >= wordIndexes.length) {
+                int oldLength = wordIndexes.length;
+                wordIndexes = Arrays.copyOf(wordIndexes, Math.max(wordId + 1, Vocabulary.shared().size()));
+                Arrays.fill(wordIndexes, oldLength, wordIndexes.length, NONE);
+            }
+            if (wordIndexes[wordId] == NONE) {
+                String word = Vocabulary.shared().word(wordId);
+                intern(word);
+                wordIndexes[wordId] = indexes.get(word);
+            }
+        }
+
+        int indexOf(String value) {
+            return value == null ? NONE : indexes.get(value);
+        }
+
+        int indexOfWord(int wordId) {
+            return wordIndexes[wordId];
+        }
+
+        int size() {
+            return values.size();
+        }
+    }
+
+    /**
+     * String table of a snapshot being read. The strings are names, titles and words, so the table is decoded
+     * up front, and a word is looked up in the vocabulary once.
+     */
+    private static final class LoadedStrings {
+
+        private final String[] values;
+        private final int[] wordIds;
+
+        /**
+         * Decodes the string table at the current position of the input, and moves past it.
+         */
+        LoadedStrings(Input in) throws IOException {
+            int size = in.getInt();
+            if (size < 0) throw new IndexOutOfBoundsException("Negative string count " + size);
+            this.values = new String[size];
+            for (int index = 0; index < size; index++) values[index] = decode(readBytes(in));
+            this.wordIds = new int[size];
+            Arrays.fill(wordIds, NONE);
+        }
+
+        /**
+         * Reads a string table index from the input and retrieves the string.
+         *
+         * @return The string, or null for index -1.
+         */
+        String next(Input in) throws IOException {
+            int index = in.getInt();
+            return index == NONE ? null : values[index];
+        }
+
+        /**
+         * Maps a string table index to a shared vocabulary id.
+         */
+        int wordId(int index) {
+            int wordId = wordIds[index];
+            if (wordId == NONE) {
+                wordId = Vocabulary.shared().idOf(values[index]);
+                wordIds[index] = wordId;
+            }
+            return wordId;
+        }
+    }
+
+    /**
+     * Reads a snapshot front to back through read-only mappings of one window of the file at a time.
+     * A value that runs past the end of the current window is read from a new window starting at the value,
+     * so no value is ever split between windows, and a file of any size can be read.
+     * Windows stay valid after the channel is closed, so slices of them can be kept.
+     */
+    private static final class Input {
+
+        private final FileChannel channel;
+        private final int windowBytes;
+        private long end;
+        private long base;
+        private ByteBuffer window = ByteBuffer.allocate(0);
+
+        Input(FileChannel channel, int windowBytes) throws IOException {
+            this.channel = channel;
+            this.windowBytes = windowBytes;
+            this.end = channel.size();
+        }
+
+        /**
+         * Makes sure the next bytes are in the current window, mapping a new one if they are not.
+         *
+         * @return The window, positioned at the next byte.
+         * @throws BufferUnderflowException if the snapshot ends before that many bytes.
+         */
+        ByteBuffer need(int bytes) throws IOException {
+            if (window.remaining() >= bytes) return window;
+            long position = base + window.position();
+            if (bytes > end - position) throw new BufferUnderflowException();
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(end - position, Math.max(windowBytes, bytes)));
+            base = position;
+            return window;
+        }
+
+        byte get() throws IOException {
+            return need(Byte.BYTES).get();
+        }
+
+        int getInt() throws IOException {
+            return need(Integer.BYTES).getInt();
+        }
+
+        long getLong() throws IOException {
+            return need(Long.BYTES).getLong();
+        }
+
+        /**
+         * Takes the next bytes as a buffer of their own and moves past them.
+         */
+        ByteBuffer slice(int length) throws IOException {
+            ByteBuffer current = need(length);
+            ByteBuffer slice = current.slice(current.position(), length);
+            current.position(current.position() + length);
+            return slice;
+        }
+
+        /**
+         * Ends the input at a position, leaving out what follows, such as the checksum.
+         */
+        void limit(long end) {
+            this.end = end;
+            window.limit((int) Math.min(window.limit(), Math.max(window.position(), end - base)));
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package edu.ntnu.iir.bidata.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Writes records to a file channel in batches, making each batch durable with a single {@code force}.
+ * <p>
+ * Submitted records are copied into a pending batch and the caller gets a future that completes
+ * once the record is on disk. A background thread commits the pending batch when it holds
+ * {@code maxRecords} records, or when the oldest record in it has waited for the commit window,
+ * whichever comes first. Records submitted while a commit is in progress go into the next batch,
+ * so even with a window of zero, callers that arrive together share one {@code force}.
+ * Records are written in the order they were submitted.
+ * <p>
+ * Once a batch fails to be written, the writer is failed for good: the failed batch, every record still pending
+ * and every record submitted later complete exceptionally with the same error, and nothing more is written.
+ * A record after the failed ones would otherwise leave a gap in the file that looks like a complete history.
+ * If the commit thread is interrupted or stops on an unexpected error, the writer fails the same way, so no caller
+ * waits forever for a record that will not be written.
+ */
+public final class GroupCommitWriter implements Closeable {
+
+    private final FileChannel channel;
+    private final long windowNanos;
+    private final int maxRecords;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition batchReady = lock.newCondition();
+    private final Thread committer;
+
+    private ByteBuffer pending = ByteBuffer.allocate(64 * 1024);
+    private ByteBuffer committing = ByteBuffer.allocate(64 * 1024);
+    private List<CompletableFuture<Void>> pendingFutures = new ArrayList<>();
+    private List<CompletableFuture<Void>> committingFutures = new ArrayList<>();
+    private long batchStartNanos;
+    private boolean flushRequested;
+    private boolean closed;
+    private IOException failure;
+
+    private long committedBatches;
+    private long committedRecords;
+
+    /**
+     * Creates a writer and starts its commit thread. Records are written at the current position of the channel.
+     *
+     * @param channel    Channel to write to.
+     * @param window     Longest time a record waits for more records before its batch is committed.
+     * @param unit       Unit of window.
+     * @param maxRecords Number of records that commits a batch at once.
+     * @throws IllegalArgumentException if channel or unit is null, if window is negative,
+     *                                  or if maxRecords is less than 1.
+     */
+    public GroupCommitWriter(FileChannel channel, long window, TimeUnit unit, int maxRecords) {
+        if (channel == null) throw new IllegalArgumentException("Channel cannot be null");
+        if (unit == null) throw new IllegalArgumentException("Time unit cannot be null");
+        if (window < 0) throw new IllegalArgumentException("Commit window cannot be negative");
+        if (maxRecords < 1) throw new IllegalArgumentException("Batch size must be at least 1");
+
+        this.channel = channel;
+        this.windowNanos = unit.toNanos(window);
+        this.maxRecords = maxRecords;
+        this.committer = new Thread(this::commitLoop, "diary-group-commit");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    /**
+     * Adds a record to the pending batch.
+     *
+     * @param record Bytes of the record, from position to limit. The bytes are copied before this method returns.
+     * @param lsn    Sequence number of the record, used to complete the future.
+     * @return Future completed with lsn when the record is on disk,
+     *         or completed exceptionally if the batch could not be written.
+     * @throws IllegalStateException if the writer is closed.
+     */
+    public CompletableFuture<Long> submit(ByteBuffer record, long lsn) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        lock.lock();
+        try {
+            if (closed) throw new IllegalStateException("Writer is closed");
+            if (failure != null) return CompletableFuture.failedFuture(failure);
+
+            if (pendingFutures.isEmpty()) batchStartNanos = System.nanoTime();
+            if (pending.remaining() < record.remaining()) pending = grow(pending, record.remaining());
+            pending.put(record.duplicate());
+            pendingFutures.add(future);
+            if (pendingFutures.size() == 1 || pendingFutures.size() >= maxRecords) batchReady.signal();
+        } finally {
+            lock.unlock();
+        }
+        return future.thenApply(ignored -> lsn);
+    }
+
+    /**
+     * Commits the pending batch without waiting for the window to pass.
+     *
+     * @return Future completed when every record submitted so far is on disk,
+     *         or completed exceptionally if the writer has failed.
+     */
+    public CompletableFuture<Void> flush() {
+        lock.lock();
+        try {
+            if (failure != null) return CompletableFuture.failedFuture(failure);
+            List<CompletableFuture<Void>> waitFor = new ArrayList<>(committingFutures);
+            waitFor.addAll(pendingFutures);
+            if (!pendingFutures.isEmpty()) {
+                flushRequested = true;
+                batchReady.signal();
+            }
+            return CompletableFuture.allOf(waitFor.toArray(CompletableFuture[]::new));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of batches committed so far.
+     *
+     * @return Number of batches, each costing one {@code force}.
+     */
+    public long getCommittedBatches() {
+        lock.lock();
+        try {
+            return committedBatches;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the number of records committed so far.
+     *
+     * @return Number of records.
+     */
+    public long getCommittedRecords() {
+        lock.lock();
+        try {
+            return committedRecords;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves the error that failed the writer.
+     *
+     * @return The error, or null if every batch so far was written.
+     */
+    public IOException getFailure() {
+        lock.lock();
+        try {
+            return failure;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Commits every pending record and stops the commit thread. The channel is left open.
+     *
+     * @throws IOException if the writer has failed, so some records were not written.
+     */
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            batchReady.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            committer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) throw failure;
+    }
+
+    private void commitLoop() {
+        try {
+            while (true) {
+                lock.lock();
+                try {
+                    if (!awaitBatch()) return;
+                    swapBatches();
+                } finally {
+                    lock.unlock();
+                }
+                if (!commit()) return;
+            }
+        } catch (InterruptedException e) {
+            fail(new InterruptedIOException("The commit thread was interrupted"));
+        } catch (RuntimeException | Error e) {
+            fail(new IOException("The commit thread stopped", e));
+            throw e;
+        }
+    }
+
+    /**
+     * Waits, holding the lock, until the pending batch should be committed.
+     *
+     * @return false when the writer is closed and nothing is pending.
+     */
+    private boolean awaitBatch() throws InterruptedException {
+        while (true) {
+            if (!pendingFutures.isEmpty()) {
+                if (closed || flushRequested || pendingFutures.size() >= maxRecords) return true;
+                long waited = System.nanoTime() - batchStartNanos;
+                if (waited >= windowNanos) return true;
+                batchReady.awaitNanos(windowNanos - waited);
+            } else {
+                if (closed) return false;
+                batchReady.await();
+            }
+        }
+    }
+
+    private void swapBatches() {
+        ByteBuffer batch = pending;
+        pending = committing.clear();
+        committing = batch.flip();
+
+        List<CompletableFuture<Void>> futures = pendingFutures;
+        pendingFutures = committingFutures;
+        committingFutures = futures;
+        flushRequested = false;
+    }
+
+    /**
+     * Writes and forces the committing batch outside the lock, so new records can be submitted meanwhile.
+     *
+     * @return false if the batch could not be written, which fails the writer.
+     */
+    private boolean commit() {
+        IOException error = null;
+        try {
+            while (committing.hasRemaining()) {
+                channel.write(committing);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+        }
+        if (error != null) {
+            fail(error);
+            return false;
+        }
+
+        List<CompletableFuture<Void>> done;
+        lock.lock();
+        try {
+            done = new ArrayList<>(committingFutures);
+            committingFutures.clear();
+            committedBatches++;
+            committedRecords += done.size();
+        } finally {
+            lock.unlock();
+        }
+        done.forEach(future -> future.complete(null));
+        return true;
+    }
+
+    /**
+     * Fails the writer, unless it has failed already, and completes every record not yet committed exceptionally
+     * with the first error. Pending bytes are dropped, so they are never written after the failed batch.
+     */
+    private void fail(IOException error) {
+        List<CompletableFuture<Void>> outstanding;
+        IOException first;
+        lock.lock();
+        try {
+            if (failure == null) failure = error;
+            first = failure;
+            outstanding = new ArrayList<>(committingFutures);
+            outstanding.addAll(pendingFutures);
+            committingFutures.clear();
+            pendingFutures.clear();
+            committing.clear();
+            pending.clear();
+        } finally {
+            lock.unlock();
+        }
+        outstanding.forEach(future -> future.completeExceptionally(first));
+    }
+
+    private static ByteBuffer grow(ByteBuffer buffer, int needed) {
+        int capacity = buffer.capacity();
+        while (capacity - buffer.position() < needed) capacity *= 2;
+        return ByteBuffer.allocate(capacity).put(buffer.flip());
+    }
+}
@@ -0,0 +1,181 @@
+package edu.ntnu.iir.bidata.persistence;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.registers.AuthorRegister;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static edu.ntnu.iir.bidata.persistence.RecordBuffer.getString;
+import static edu.ntnu.iir.bidata.persistence.RecordBuffer.getTime;
+
+/**
+ * Applies journal records to the registers, through the same public methods the user interface uses.
+ * <p>
+ * Diary entries are found by author name and entry title. Authors are tracked by name here as well,
+ * so entries whose author is not in the author register can still be found by later records.
+ * Authors of entries already in the register, for example restored from a snapshot, are known from the start.
+ */
+final class JournalReplayer {
+
+    private final AuthorRegister authorRegister;
+    private final DiaryEntryRegister diaryEntryRegister;
+    private final Map<String, Author> authorsByName = new HashMap<>();
+
+    JournalReplayer(AuthorRegister authorRegister, DiaryEntryRegister diaryEntryRegister) {
+        this.authorRegister = authorRegister;
+        this.diaryEntryRegister = diaryEntryRegister;
+        diaryEntryRegister.getAllDiaryEntries()
+                .forEach(entry -> authorsByName.put(entry.getAuthor().getName(), entry.getAuthor()));
+    }
+
+    /**
+     * Applies one record.
+     *
+     * @param type    Type of the record.
+     * @param time    Time of the change.
+     * @param payload Fields of the record.
+     * @return true if the record was applied, false if it refers to an author or entry that does not exist,
+     *         or if the registers rejected it.
+     */
+    boolean apply(RecordType type, LocalDateTime time, ByteBuffer payload) {
+        try {
+            return switch (type) {
+                case ADD_AUTHOR -> addAuthor(payload);
+                case RENAME_AUTHOR -> renameAuthor(payload);
+                case REMOVE_AUTHOR -> removeAuthor(payload);
+                case ADD_ENTRY -> addEntry(time, payload);
+                case INSERT_PAGE -> onEntry(payload, time, entry ->
+                        entry.insertPage(payload.getInt(), getString(payload), getString(payload)));
+                case SET_PAGE_TEXT -> onEntry(payload, time, entry ->
+                        entry.setPageText(payload.getInt(), getString(payload)));
+                case SET_PAGE_TITLE -> onEntry(payload, time, entry ->
+                        entry.setPageTitle(payload.getInt(), getString(payload)));
+                case REMOVE_PAGE -> onEntry(payload, time, entry ->
+                        entry.removePage(payload.getInt()));
+                case MOVE_PAGE -> onEntry(payload, time, entry ->
+                        entry.movePage(payload.getInt(), payload.getInt()));
+                case SET_ENTRY_TITLE -> onEntry(payload, time, entry ->
+                        entry.setEntryTitle(getString(payload)));
+                case REMOVE_ENTRY -> removeEntry(payload);
+            };
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            return false;
+        }
+    }
+
+    private boolean addAuthor(ByteBuffer payload) {
+        Author author = new Author(getString(payload), getString(payload), getString(payload));
+        authorRegister.addAuthor(author);
+        authorsByName.put(author.getName(), author);
+        return true;
+    }
+
+    /**
+     * Renames an author through the register method that changes exactly the fields that differ,
+     * since the single-field setters reject clearing a field.
+     */
+    private boolean renameAuthor(ByteBuffer payload) {
+        String oldName = getString(payload);
+        String firstName = getString(payload);
+        String lastName = getString(payload);
+        String nickname = getString(payload);
+
+        Optional<Author> registered = authorRegister.getAuthor(oldName);
+        Author author = registered.orElseGet(() -> authorsByName.get(oldName));
+        if (author == null) return false;
+
+        boolean firstChanged = !Objects.equals(author.getFirstName(), firstName);
+        boolean lastChanged = !Objects.equals(author.getLastName(), lastName);
+        boolean nicknameChanged = !Objects.equals(author.getNickname(), nickname);
+
+        if (registered.isEmpty()) {
+            if (firstChanged) author.setFirstName(firstName);
+            if (lastChanged) author.setLastName(lastName);
+            if (nicknameChanged) author.setNickname(nickname);
+        } else if (firstChanged && lastChanged && nicknameChanged) {
+            authorRegister.updateName(oldName, firstName, lastName, nickname);
+        } else if (firstChanged && lastChanged) {
+            authorRegister.updateName(oldName, firstName, lastName);
+        } else {
+            String name = oldName;
+            if (firstChanged) name = authorRegister.updateFirstName(name, firstName).orElseThrow().getName();
+            if (lastChanged) name = authorRegister.updateLastName(name, lastName).orElseThrow().getName();
+            if (nicknameChanged) authorRegister.updateName(name, nickname);
+        }
+
+        authorsByName.remove(oldName);
+        authorsByName.put(author.getName(), author);
+        return true;
+    }
+
+    private boolean removeAuthor(ByteBuffer payload) {
+        String name = getString(payload);
+        authorsByName.remove(name);
+        return authorRegister.removeAuthor(name).isPresent();
+    }
+
+    private boolean addEntry(LocalDateTime time, ByteBuffer payload) {
+        Author author = resolveAuthor(getString(payload), getString(payload), getString(payload));
+        String title = getString(payload);
+        int maxWordsPerPage = payload.getInt();
+        LocalDateTime timeCreated = getTime(payload);
+        int pageCount = payload.getInt();
+
+        DiaryEntry entry = new DiaryEntry(author, maxWordsPerPage, title, timeCreated);
+        for (int page = 0; page < pageCount; page++) {
+            entry.addPage(getString(payload), getString(payload));
+        }
+        entry.setTimeChanged(time);
+        diaryEntryRegister.addDiaryEntry(entry);
+        return true;
+    }
+
+    private boolean removeEntry(ByteBuffer payload) {
+        Author author = authorNamed(getString(payload));
+        String title = getString(payload);
+        return author != null && diaryEntryRegister.removeDiaryEntry(author, title).isPresent();
+    }
+
+    /**
+     * Finds the entry named at the start of the payload, applies a change to it,
+     * and puts back the time of the change.
+     */
+    private boolean onEntry(ByteBuffer payload, LocalDateTime time, Consumer<DiaryEntry> change) {
+        Author author = authorNamed(getString(payload));
+        String title = getString(payload);
+        if (author == null) return false;
+
+        Optional<DiaryEntry> entry = diaryEntryRegister.findDiaryEntryFromAuthorByTitle(author, title);
+        if (entry.isEmpty()) return false;
+
+        change.accept(entry.get());
+        entry.get().setTimeChanged(time);
+        return true;
+    }
+
+    /**
+     * Finds the author of a restored entry by name, or creates a detached author when the author
+     * is not in the register, the same way the entry was created originally.
+     */
+    private Author resolveAuthor(String firstName, String lastName, String nickname) {
+        Author detached = new Author(firstName, lastName, nickname);
+        String name = detached.getName();
+        Author author = authorNamed(name);
+        if (author == null) author = detached;
+        authorsByName.put(name, author);
+        return author;
+    }
+
+    private Author authorNamed(String name) {
+        Author author = authorsByName.get(name);
+        return author != null ? author : authorRegister.getAuthor(name).orElse(null);
+    }
+}
@@ -0,0 +1,255 @@
+package edu.ntnu.iir.bidata.persistence;
+
+import edu.ntnu.iir.bidata.models.PageTextStore;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Page text store backed by a file mapped into memory in segments.
+ * <p>
+ * Texts are appended as UTF-8 bytes to the last segment, and a new segment is mapped when the last one is full.
+ * A text is never split between segments, so reading it is one copy out of one mapping. Only the mapped pages
+ * the operating system keeps in memory use RAM, and they are dropped under memory pressure, so the stored text
+ * can be larger than the heap, and larger than RAM.
+ * <p>
+ * The file is scratch space for one run of the application: it is emptied when the store is opened.
+ * Page text is saved by the {@link DiaryJournal} and the {@link DiarySnapshot}, not by this store.
+ * Space released by changed or removed pages is counted but not reused.
+ */
+public final class MappedPageStore implements PageTextStore, Closeable {
+
+    /**
+     * Name of the page store file within the data directory.
+     */
+    public static final String FILE_NAME = "pages.dat";
+
+    /**
+     * Default size of one mapped segment.
+     */
+    public static final int DEFAULT_SEGMENT_BYTES = 64 * 1024 * 1024;
+
+    private record Segment(long base, MappedByteBuffer buffer) {
+    }
+
+    private final FileChannel channel;
+    private final int segmentBytes;
+    private volatile Segment[] segments = new Segment[0];
+    private volatile long end;
+    private long storedBytes;
+    private long releasedBytes;
+    private volatile boolean closed;
+
+    private MappedPageStore(FileChannel channel, int segmentBytes) {
+        this.channel = channel;
+        this.segmentBytes = segmentBytes;
+    }
+
+    /**
+     * Opens an empty store with the default segment size.
+     *
+     * @param file Store file, created if missing and emptied if not.
+     * @return The open store.
+     * @throws IOException if the file cannot be opened.
+     * @throws IllegalArgumentException if file is null.
+     */
+    public static MappedPageStore open(Path file) throws IOException {
+        return open(file, DEFAULT_SEGMENT_BYTES);
+    }
+
+    /**
+     * Opens an empty store.
+     *
+     * @param file         Store file, created if missing and emptied if not.
+     * @param segmentBytes Size of each mapped segment. Texts longer than this get a segment of their own.
+     * @return The open store.
+     * @throws IOException if the file cannot be opened.
+     * @throws IllegalArgumentException if file is null, or if segmentBytes is less than 1.
+     */
+    public static MappedPageStore open(Path file, int segmentBytes) throws IOException {
+        if (file == null) throw new IllegalArgumentException("File cannot be null");
+        if (segmentBytes < 1) throw new IllegalArgumentException("Segment size must be at least 1 byte");
+
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+        return new MappedPageStore(FileChannel.open(file, CREATE, READ, WRITE, TRUNCATE_EXISTING), segmentBytes);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalArgumentException if utf8 is null.
+     * @throws IllegalStateException if the store is closed.
+     * @throws UncheckedIOException if a new segment cannot be mapped.
+     */
+    @Override
+    public long append(byte[] utf8) {
+        if (utf8 == null) throw new IllegalArgumentException("Text cannot be null");
+        return append(ByteBuffer.wrap(utf8));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The bytes are copied into the mapping with one bulk put, so a text from another mapping never
+     * passes through the heap.
+     *
+     * @throws IllegalArgumentException if utf8 is null.
+     * @throws IllegalStateException if the store is closed.
+     * @throws UncheckedIOException if a new segment cannot be mapped.
+     */
+    @Override
+    public synchronized long append(ByteBuffer utf8) {
+        if (utf8 == null) throw new IllegalArgumentException("Text cannot be null");
+        if (closed) throw new IllegalStateException("Page store is closed");
+
+        int length = utf8.remaining();
+        Segment last = segments.length == 0 ? null : segments[segments.length - 1];
+        if (last == null || last.buffer().remaining() < length) {
+            long base = last == null ? 0 : last.base() + last.buffer().capacity();
+            last = map(base, Math.max(segmentBytes, length));
+        }
+        long offset = last.base() + last.buffer().position();
+        last.buffer().put(utf8);
+        storedBytes += length;
+        end = offset + length;
+        return offset;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the store is closed.
+     */
+    @Override
+    public String read(long offset, int length) {
+        if (closed) throw new IllegalStateException("Page store is closed");
+        if (offset < 0 || length < 0 || offset + length > end) {
+            throw new IllegalArgumentException("No stored text at offset " + offset + " with length " + length);
+        }
+        if (length == 0) return "";
+
+        Segment segment = segmentAt(segments, offset);
+        if (segment == null || offset - segment.base() + length > segment.buffer().capacity()) {
+            throw new IllegalArgumentException("No stored text at offset " + offset + " with length " + length);
+        }
+        byte[] utf8 = new byte[length];
+        segment.buffer().get((int) (offset - segment.base()), utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The bytes go from the store file to the channel with {@link FileChannel#transferTo}, which lets the
+     * operating system copy them without passing through the heap. Writes through the mapping are in the same
+     * page cache, so the file reads back what was appended.
+     *
+     * @throws IllegalStateException if the store is closed.
+     */
+    @Override
+    public void transferTo(long offset, int length, WritableByteChannel target) throws IOException {
+        if (closed) throw new IllegalStateException("Page store is closed");
+        if (offset < 0 || length < 0 || offset + length > end) {
+            throw new IllegalArgumentException("No stored text at offset " + offset + " with length " + length);
+        }
+
+        long position = offset;
+        long last = offset + length;
+        while (position < last) {
+            long sent = channel.transferTo(position, last - position, target);
+            if (sent <= 0) throw new IOException("Could not transfer stored text at offset " + position);
+            position += sent;
+        }
+    }
+
+    @Override
+    public synchronized void release(long offset, int length) {
+        releasedBytes += length;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return !closed;
+    }
+
+    /**
+     * Retrieves the number of text bytes appended since the store was opened.
+     *
+     * @return Number of bytes, including released ones.
+     */
+    public synchronized long getStoredBytes() {
+        return storedBytes;
+    }
+
+    /**
+     * Retrieves the number of text bytes no longer used by any page.
+     *
+     * @return Number of released bytes.
+     */
+    public synchronized long getReleasedBytes() {
+        return releasedBytes;
+    }
+
+    /**
+     * Retrieves the number of mapped segments.
+     *
+     * @return Number of segments.
+     */
+    public int getSegmentCount() {
+        return segments.length;
+    }
+
+    /**
+     * Closes the file. Pages whose text is in the store can no longer be read.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        segments = new Segment[0];
+        channel.close();
+    }
+
+    private Segment map(long base, int size) {
+        try {
+            Segment segment = new Segment(base, channel.map(FileChannel.MapMode.READ_WRITE, base, size));
+            Segment[] grown = Arrays.copyOf(segments, segments.length + 1);
+            grown[grown.length - 1] = segment;
+            segments = grown;
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not map page store segment", e);
+        }
+    }
+
+    /**
+     * Finds the segment holding an offset by binary search over the segment base offsets.
+     */
+    private static Segment segmentAt(Segment[] segments, long offset) {
+        int low = 0;
+        int high = segments.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            Segment segment = segments[middle];
+            if (offset < segment.base()) {
+                high = middle - 1;
+            } else if (offset >= segment.base() + segment.buffer().capacity()) {
+                low = middle + 1;
+            } else {
+                return segment;
+            }
+        }
+        return null;
+    }
+}
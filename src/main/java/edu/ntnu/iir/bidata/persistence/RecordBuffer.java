@@ -0,0 +1,106 @@
+package edu.ntnu.iir.bidata.persistence;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Growable buffer used to encode one record at a time, and the matching decoders.
+ * <p>
+ * Numbers are written big-endian. Strings are written as their UTF-8 length followed by the bytes,
+ * with length -1 for null. Times are written as UTC epoch seconds followed by nanoseconds.
+ */
+final class RecordBuffer {
+
+    private ByteBuffer buffer = ByteBuffer.allocate(4096);
+
+    /**
+     * Empties the buffer so the next record can be written.
+     *
+     * @return This buffer.
+     */
+    RecordBuffer clear() {
+        buffer.clear();
+        return this;
+    }
+
+    RecordBuffer putByte(byte value) {
+        ensureRemaining(1).put(value);
+        return this;
+    }
+
+    RecordBuffer putInt(int value) {
+        ensureRemaining(Integer.BYTES).putInt(value);
+        return this;
+    }
+
+    RecordBuffer putLong(long value) {
+        ensureRemaining(Long.BYTES).putLong(value);
+        return this;
+    }
+
+    RecordBuffer putString(String value) {
+        if (value == null) return putInt(-1);
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        ensureRemaining(bytes.length).put(bytes);
+        return this;
+    }
+
+    RecordBuffer putTime(LocalDateTime time) {
+        putLong(time.toEpochSecond(ZoneOffset.UTC));
+        return putInt(time.getNano());
+    }
+
+    /**
+     * Overwrites an int at an absolute position, used to fill in a length after the content is known.
+     */
+    RecordBuffer putInt(int position, int value) {
+        buffer.putInt(position, value);
+        return this;
+    }
+
+    /**
+     * Retrieves the number of bytes written since the last {@link #clear()}.
+     *
+     * @return Number of bytes.
+     */
+    int position() {
+        return buffer.position();
+    }
+
+    /**
+     * Retrieves a read-only view of the written bytes, ready to be written to a channel.
+     *
+     * @return View of the written bytes.
+     */
+    ByteBuffer written() {
+        return buffer.asReadOnlyBuffer().flip();
+    }
+
+    static String getString(ByteBuffer source) {
+        int length = source.getInt();
+        if (length < 0) return null;
+        String value = new String(source.array(), source.arrayOffset() + source.position(), length, StandardCharsets.UTF_8);
+        source.position(source.position() + length);
+        return value;
+    }
+
+    static LocalDateTime getTime(ByteBuffer source) {
+        long epochSecond = source.getLong();
+        int nano = source.getInt();
+        return LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+    }
+
+    private ByteBuffer ensureRemaining(int bytes) {
+        if (buffer.remaining() < bytes) {
+            int capacity = buffer.capacity();
+            while (capacity - buffer.position() < bytes) capacity *= 2;
+            ByteBuffer grown = ByteBuffer.allocate(capacity);
+            grown.put(buffer.flip());
+            buffer = grown;
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,43 @@
+package edu.ntnu.iir.bidata.persistence;
+
+/**
+ * Kinds of records in the diary journal, one per register mutation.
+ * The code of a record type is written to disk and must never change.
+ */
+enum RecordType {
+    ADD_AUTHOR(1),
+    RENAME_AUTHOR(2),
+    REMOVE_AUTHOR(3),
+    ADD_ENTRY(10),
+    INSERT_PAGE(11),
+    SET_PAGE_TEXT(12),
+    SET_PAGE_TITLE(13),
+    REMOVE_PAGE(14),
+    MOVE_PAGE(15),
+    SET_ENTRY_TITLE(16),
+    REMOVE_ENTRY(17);
+
+    private static final RecordType[] BY_CODE = new RecordType[128];
+
+    static {
+        for (RecordType type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    final byte code;
+
+    RecordType(int code) {
+        this.code = (byte) code;
+    }
+
+    /**
+     * Finds the record type with a code.
+     *
+     * @param code Code read from disk.
+     * @return The record type, or null if no type has the code.
+     */
+    static RecordType fromCode(byte code) {
+        return code >= 0 ? BY_CODE[code] : null;
+    }
+}
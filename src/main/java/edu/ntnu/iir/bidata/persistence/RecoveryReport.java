@@ -0,0 +1,49 @@
+package edu.ntnu.iir.bidata.persistence;
+
+/**
+ * What a {@link DiaryJournal} found when it read its files back on open.
+ * <p>
+ * Recovery reads the journal files front to back and stops at the first record that is cut off, fails its
+ * checksum or cannot be decoded. Everything before that record is kept; the record and everything after it,
+ * in that file and in any later file, is discarded, since later records may depend on the lost one.
+ *
+ * @param recordsRecovered Number of complete, valid records read, including those already in the snapshot.
+ * @param bytesRecovered   Bytes of journal files kept.
+ * @param bytesDiscarded   Bytes of journal files cut off or deleted, 0 if the journal was intact.
+ * @param lastLsn          Sequence number of the last change recovered, from the journal or the snapshot.
+ * @param problem          Why recovery stopped early, {@link Problem#NONE} if it read every file to the end.
+ */
+public record RecoveryReport(long recordsRecovered, long bytesRecovered, long bytesDiscarded, long lastLsn,
+                             Problem problem) {
+
+    /**
+     * Reasons recovery stops before the end of the journal.
+     */
+    public enum Problem {
+        /**
+         * Every journal file was read to the end.
+         */
+        NONE,
+        /**
+         * A record was only partly written, as when the application stops in the middle of a write.
+         */
+        TORN_RECORD,
+        /**
+         * A record does not match its checksum.
+         */
+        CHECKSUM_MISMATCH,
+        /**
+         * A record has an impossible length or an unknown type.
+         */
+        UNREADABLE_RECORD
+    }
+
+    /**
+     * Checks whether the whole journal was recovered.
+     *
+     * @return true if nothing was discarded.
+     */
+    public boolean isIntact() {
+        return problem == Problem.NONE && bytesDiscarded == 0;
+    }
+}
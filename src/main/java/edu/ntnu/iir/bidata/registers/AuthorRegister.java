@@ -1,134 +1,209 @@
 package edu.ntnu.iir.bidata.registers;
 
+import edu.ntnu.iir.bidata.index.NamePrefixIndex;
 import edu.ntnu.iir.bidata.models.Author;
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Register of authors, keyed by their full name.
+ * <p>
+ * The register may be shared by several threads. Lookups go straight to a concurrent map and never lock.
+ * Changes lock the names they touch, spread over {@link StripedLocks}, so changes to different authors
+ * run side by side while a rename moves an author from its old name to its new one in one step.
+ */
 public class AuthorRegister {
+    private static final int LOCK_STRIPES = 64;
+
     private final Map<String, Author> authors;
+    private final NamePrefixIndex firstNameIndex;
+    private final NamePrefixIndex lastNameIndex;
+    private final NamePrefixIndex nicknameIndex;
+    private final List<AuthorRegisterListener> listeners = new CopyOnWriteArrayList<>();
+    private final StripedLocks locks = new StripedLocks(LOCK_STRIPES);
 
     public AuthorRegister() {
-        this.authors = new HashMap<>();
+        this.authors = new ConcurrentHashMap<>();
+        this.firstNameIndex = new NamePrefixIndex();
+        this.lastNameIndex = new NamePrefixIndex();
+        this.nicknameIndex = new NamePrefixIndex();
     }
 
 
     public void addAuthor(Author author) {
         if (author == null)
             throw new IllegalArgumentException("Author cannot be null");
-        authors.put(author.getName(), author);
+        putAuthor(author);
     }
 
     public void addAuthor(String firstName, String lastName) {
-        Author author = new Author(firstName, lastName);
-        authors.put(author.getName(), author);
+        putAuthor(new Author(firstName, lastName));
     }
 
     public void addAuthor(String nickname) {
-        Author author = new Author(nickname);
-        authors.put(author.getName(), author);
+        putAuthor(new Author(nickname));
     }
 
     public void addAuthor(String firstName, String lastName, String nickname) {
-        Author author = new Author(firstName, lastName, nickname);
-        authors.put(author.getName(), author);
+        putAuthor(new Author(firstName, lastName, nickname));
     }
 
+    private void putAuthor(Author author) {
+        StripedLocks.Held held = locks.lock(author.getName());
+        try {
+            Author previous = authors.put(author.getName(), author);
+            if (previous != null && previous != author)
+                unindexNames(previous);
+            indexNames(author);
+            listeners.forEach(listener -> listener.authorAdded(author));
+        } finally {
+            held.unlock();
+        }
+    }
 
-    public Optional<Author> updateName(String oldName, String firstName, String lastName) {
-        if (oldName == null || oldName.isBlank())
-            throw new IllegalArgumentException("Old name cannot be null or blank");
+    /**
+     * Sets a lock that every change of the register holds, from before it is made until its listeners have been
+     * notified, so the holder of the exclusive side of a read-write lock sees the register between changes.
+     *
+     * @param writeGate Lock to hold, or null to hold none.
+     */
+    public void setWriteGate(Lock writeGate) {
+        locks.setGate(writeGate);
+    }
 
-        Author author = authors.get(oldName);
+    public void addListener(AuthorRegisterListener listener) {
+        if (listener == null)
+            throw new IllegalArgumentException("Listener cannot be null");
+        listeners.add(listener);
+    }
 
-        if (author == null)
-            return Optional.empty();
+    public void removeListener(AuthorRegisterListener listener) {
+        listeners.remove(listener);
+    }
 
-        String newName = constructName(firstName, lastName, author.getNickname());
-        if (authors.containsKey(newName))
-            throw new IllegalArgumentException("Name already exists.");
+    private void indexNames(Author author) {
+        firstNameIndex.add(author.getFirstName(), author);
+        lastNameIndex.add(author.getLastName(), author);
+        nicknameIndex.add(author.getNickname(), author);
+    }
 
-        authors.remove(oldName);
-        author.setFirstName(firstName);
-        author.setLastName(lastName);
-        authors.put(author.getName(), author);
-        return Optional.of(author);
+    private void unindexNames(Author author) {
+        firstNameIndex.remove(author.getFirstName(), author);
+        lastNameIndex.remove(author.getLastName(), author);
+        nicknameIndex.remove(author.getNickname(), author);
     }
 
-    public Optional<Author> updateName(String oldName, String nickname) {
+    /**
+     * Renames an author and re-keys it under its new name, holding the locks of both names.
+     * The author is put under the new name before it is removed from the old one, so a concurrent lookup finds
+     * it under one name or the other, never under neither. If renaming fails half way, the author is kept under
+     * whatever name it ended up with.
+     *
+     * @param oldName      Current name of the author.
+     * @param newNameOf    Computes the new name of the author.
+     * @param renameAction Renames the author.
+     * @return The renamed author, or empty if there is no author by the old name.
+     * @throws IllegalArgumentException if oldName is null or blank, or if another author has the new name.
+     */
+    private Optional<Author> rename(String oldName, Function<Author, String> newNameOf, Consumer<Author> renameAction) {
         if (oldName == null || oldName.isBlank())
             throw new IllegalArgumentException("Old name cannot be null or blank");
-        Author author = authors.get(oldName);
-        if (author == null)
-            return Optional.empty();
-
-        String newName = constructName(author.getFirstName(), author.getLastName(), nickname);
-        if (authors.containsKey(newName))
-            throw new IllegalArgumentException("Name already exists.");
 
-        authors.remove(oldName);
-        author.setNickname(nickname);
-        authors.put(author.getName(), author);
-        return Optional.of(author);
+        while (true) {
+            Author author = authors.get(oldName);
+            if (author == null)
+                return Optional.empty();
+
+            String newName = newNameOf.apply(author);
+            StripedLocks.Held held = locks.lockAll(List.of(oldName, newName));
+            try {
+                if (authors.get(oldName) != author || !newName.equals(newNameOf.apply(author)))
+                    continue;
+                if (authors.containsKey(newName))
+                    throw new IllegalArgumentException("Name already exists.");
+
+                String oldFirstName = author.getFirstName();
+                String oldLastName = author.getLastName();
+                String oldNickname = author.getNickname();
+                try {
+                    renameAction.accept(author);
+                } finally {
+                    authors.put(author.getName(), author);
+                    if (!author.getName().equals(oldName))
+                        authors.remove(oldName, author);
+                    firstNameIndex.move(oldFirstName, author.getFirstName(), author);
+                    lastNameIndex.move(oldLastName, author.getLastName(), author);
+                    nicknameIndex.move(oldNickname, author.getNickname(), author);
+                }
+                listeners.forEach(listener -> listener.authorRenamed(oldName, author));
+                return Optional.of(author);
+            } finally {
+                held.unlock();
+            }
+        }
     }
 
-    public Optional<Author> updateName(String oldName, String firstName, String lastName, String nickname) {
-        if (oldName == null || oldName.isBlank())
-            throw new IllegalArgumentException("Old name cannot be null or blank");
-        Author author = authors.get(oldName);
-        if (author == null)
-            return Optional.empty();
-
-        String newName = constructName(firstName, lastName, nickname);
-        if (authors.containsKey(newName))
-            throw new IllegalArgumentException("Name already exists.");
 
-        authors.remove(oldName);
-        author.setFirstName(firstName);
-        author.setLastName(lastName);
-        author.setNickname(nickname);
-        authors.put(author.getName(), author);
-        return Optional.of(author);
+    public Optional<Author> updateName(String oldName, String firstName, String lastName) {
+        return rename(oldName,
+                author -> constructName(firstName, lastName, author.getNickname()),
+                author -> {
+                    author.setFirstName(firstName);
+                    author.setLastName(lastName);
+                });
     }
 
-    public Optional<Author> updateFirstName(String oldName, String firstName) {
-        if (oldName == null || oldName.isBlank())
-            throw new IllegalArgumentException("Old name cannot be null or blank");
-        Author author = authors.get(oldName);
-        if (author == null)
-            return Optional.empty();
+    public Optional<Author> updateName(String oldName, String nickname) {
+        return rename(oldName,
+                author -> constructName(author.getFirstName(), author.getLastName(), nickname),
+                author -> author.setNickname(nickname));
+    }
 
-        String newName = constructName(firstName, author.getLastName(), author.getNickname());
-        if (authors.containsKey(newName))
-            throw new IllegalArgumentException("Name already exists.");
+    public Optional<Author> updateName(String oldName, String firstName, String lastName, String nickname) {
+        return rename(oldName,
+                author -> constructName(firstName, lastName, nickname),
+                author -> {
+                    author.setFirstName(firstName);
+                    author.setLastName(lastName);
+                    author.setNickname(nickname);
+                });
+    }
 
-        authors.remove(oldName);
-        author.setFirstName(firstName);
-        authors.put(author.getName(), author);
-        return Optional.of(author);
+    public Optional<Author> updateFirstName(String oldName, String firstName) {
+        return rename(oldName,
+                author -> constructName(firstName, author.getLastName(), author.getNickname()),
+                author -> author.setFirstName(firstName));
     }
 
     public Optional<Author> updateLastName(String oldName, String lastName) {
-        if (oldName == null || oldName.isBlank()) throw new IllegalArgumentException("Old name cannot be null or blank");
-        Author author = authors.get(oldName);
-        if (author == null)
-            return Optional.empty();
-
-        String newName = constructName(author.getFirstName(), lastName, author.getNickname());
-        if (authors.containsKey(newName))
-            throw new IllegalArgumentException("Name already exists.");
-
-        authors.remove(oldName);
-        author.setLastName(lastName);
-        authors.put(author.getName(), author);
-        return Optional.of(author);
+        return rename(oldName,
+                author -> constructName(author.getFirstName(), lastName, author.getNickname()),
+                author -> author.setLastName(lastName));
     }
 
 
     public Optional<Author> removeAuthor(String name) {
-
-        return Optional.ofNullable(authors.remove(name));
+        if (name == null)
+            return Optional.empty();
+        StripedLocks.Held held = locks.lock(name);
+        try {
+            Author removed = authors.remove(name);
+            if (removed != null) {
+                unindexNames(removed);
+                listeners.forEach(listener -> listener.authorRemoved(removed));
+            }
+            return Optional.ofNullable(removed);
+        } finally {
+            held.unlock();
+        }
     }
     public Optional<Author> getAuthor(String name) {
-
+        if (name == null)
+            return Optional.empty();
         return Optional.ofNullable(authors.get(name));
     }
     public Iterator<Author> getAllAuthors() {
@@ -136,7 +211,7 @@ public class AuthorRegister {
     }
 
     public boolean hasAuthor(String name) {
-        return authors.containsKey(name);
+        return name != null && authors.containsKey(name);
     }
 
     public int getNumberOfAuthors() {
@@ -148,7 +223,15 @@ public class AuthorRegister {
     }
 
     public void clear() {
-        authors.clear();
+        StripedLocks.Held held = locks.lockEverything();
+        try {
+            authors.clear();
+            firstNameIndex.clear();
+            lastNameIndex.clear();
+            nicknameIndex.clear();
+        } finally {
+            held.unlock();
+        }
     }
     public enum ENameCombination {
         FIRST_LAST_NICK,   // first + last + nickname
@@ -197,68 +280,32 @@ public class AuthorRegister {
     public Iterator<Author> findByFirstName(String firstName, boolean isFirstNameStartWith) {
         if (firstName == null || firstName.isBlank())
             throw new IllegalArgumentException("First name cannot be null or blank");
-        firstName = firstName.toLowerCase();
-
-        String finalFirstName = firstName;
-        return authors.values().stream()
-                .filter(author -> isFirstNameStartWith
-                        ? author.getFirstName().toLowerCase().startsWith(finalFirstName)
-                        : author.getFirstName().equalsIgnoreCase(finalFirstName))
-                .toList()
-                .iterator();
+
+        return firstNameIndex.find(firstName, isFirstNameStartWith);
     }
 
     public Iterator<Author> findByLastName(String lastName, boolean isLastNameStartWith) {
         if (lastName == null || lastName.isBlank())
             throw new IllegalArgumentException("Last name cannot be null or blank");
-        lastName = lastName.toLowerCase();
-
-        String finalLastName = lastName;
-        return authors.values().stream()
-                .filter(author -> isLastNameStartWith
-                        ? author.getLastName().toLowerCase().startsWith(finalLastName)
-                        : author.getLastName().equalsIgnoreCase(finalLastName))
-                .toList()
-                .iterator();
+
+        return lastNameIndex.find(lastName, isLastNameStartWith);
     }
 
     public Iterator<Author> findByNickname(String nickname, boolean isNicknameStartWith) {
         if (nickname == null || nickname.isBlank())
             throw new IllegalArgumentException("Nickname cannot be null or blank");
-        nickname = nickname.toLowerCase();
-
-        String finalNickname = nickname;
-        return authors.values().stream()
-                .filter(author -> isNicknameStartWith
-                        ? author.getNickname().toLowerCase().startsWith(finalNickname)
-                        : author.getNickname().equalsIgnoreCase(finalNickname))
-                .toList()
-                .iterator();
+
+        return nicknameIndex.find(nickname, isNicknameStartWith);
     }
 
     public Iterator<Author> findByFullName(String firstName, String lastName, boolean isFirstNameStartWith, boolean isLastNameStartWith) {
         if ((firstName == null || firstName.isBlank()) || (lastName == null || lastName.isBlank()))
             throw new IllegalArgumentException("First and last name cannot be null or blank");
 
-        firstName = firstName.toLowerCase();
-        lastName =  lastName.toLowerCase();
-
-        String finalLastName = lastName;
-        String finalFirstName = firstName;
-        return authors.values().stream()
-                .filter(author -> {
-                    boolean firstMatches =
-                            isFirstNameStartWith
-                                    ? author.getFirstName().toLowerCase().startsWith(finalFirstName)
-                                    : author.getFirstName().equalsIgnoreCase(finalFirstName);
-                    boolean lastMatches =
-                            isLastNameStartWith
-                                    ? author.getLastName().toLowerCase().startsWith(finalLastName)
-                                    : author.getLastName().equalsIgnoreCase(finalLastName);
-                    return firstMatches && lastMatches;
-                })
-                .toList()
-                .iterator();
+        return intersect(List.of(
+                matchSet(firstNameIndex, firstName, isFirstNameStartWith),
+                matchSet(lastNameIndex, lastName, isLastNameStartWith)
+        ));
     }
 
     public Iterator<Author> findByFullNameWithNickname(String firstName, String lastName, String nickname,
@@ -268,32 +315,35 @@ public class AuthorRegister {
                 (nickname == null || nickname.isBlank()))
             throw new IllegalArgumentException("First name, last name, and nickname cannot be null or blank");
 
-        firstName = firstName.toLowerCase();
-        lastName = lastName.toLowerCase();
-        nickname = nickname.toLowerCase();
+        return intersect(List.of(
+                matchSet(firstNameIndex, firstName, isFirstNameStartWith),
+                matchSet(lastNameIndex, lastName, isLastNameStartWith),
+                matchSet(nicknameIndex, nickname, isNicknameStartWith)
+        ));
+    }
 
-        String key = constructName(firstName, lastName, nickname);
-        if (authors.containsKey(key)) {
-            return Collections.singletonList(authors.get(key)).iterator();
-        }
+    /**
+     * Exact matches are returned as the index' own set, prefix matches are collected into a new set.
+     */
+    private Set<Author> matchSet(NamePrefixIndex index, String name, boolean isStartWith) {
+        if (!isStartWith)
+            return index.findExact(name);
+
+        Set<Author> matches = Collections.newSetFromMap(new IdentityHashMap<>());
+        index.findPrefix(name).forEachRemaining(matches::add);
+        return matches;
+    }
+
+    /**
+     * Walks the smallest set and keeps the authors contained in all the other sets.
+     */
+    private Iterator<Author> intersect(List<Set<Author>> matchSets) {
+        Set<Author> smallest = matchSets.stream()
+                .min(Comparator.comparingInt(Set::size))
+                .orElse(Set.of());
 
-        String finalNickname = nickname;
-        String finalLastName = lastName;
-        String finalFirstName = firstName;
-        return authors.values().stream()
-                .filter(author -> {
-                    boolean firstMatches = isFirstNameStartWith
-                            ? author.getFirstName().toLowerCase().startsWith(finalFirstName)
-                            : author.getFirstName().equalsIgnoreCase(finalFirstName);
-                    boolean lastMatches = isLastNameStartWith
-                            ? author.getLastName().toLowerCase().startsWith(finalLastName)
-                            : author.getLastName().equalsIgnoreCase(finalLastName);
-                    boolean nickMatches = isNicknameStartWith
-                            ? author.getNickname().toLowerCase().startsWith(finalNickname)
-                            : author.getNickname().equalsIgnoreCase(finalNickname);
-                    return firstMatches && lastMatches && nickMatches;
-                })
-                .toList()
+        return smallest.stream()
+                .filter(author -> matchSets.stream().allMatch(matches -> matches.contains(author)))
                 .iterator();
     }
 }
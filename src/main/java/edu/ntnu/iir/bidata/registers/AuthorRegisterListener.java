@@ -0,0 +1,38 @@
+package edu.ntnu.iir.bidata.registers;
+
+import edu.ntnu.iir.bidata.models.Author;
+
+/**
+ * Receives notifications when the authors in an {@link AuthorRegister} change.
+ * <p>
+ * All methods have empty default implementations,
+ * so a listener only overrides the changes it cares about.
+ * Notifications are sent after the change has been applied to the register.
+ */
+public interface AuthorRegisterListener {
+
+    /**
+     * Called after an author has been added to the register.
+     *
+     * @param author The author that was added.
+     */
+    default void authorAdded(Author author) {
+    }
+
+    /**
+     * Called after an author in the register has changed name.
+     *
+     * @param oldName The full name the author had before the change.
+     * @param author  The author, already holding the new name.
+     */
+    default void authorRenamed(String oldName, Author author) {
+    }
+
+    /**
+     * Called after an author has been removed from the register.
+     *
+     * @param author The author that was removed.
+     */
+    default void authorRemoved(Author author) {
+    }
+}
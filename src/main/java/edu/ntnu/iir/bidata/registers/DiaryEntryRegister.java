@@ -1,231 +1,464 @@
 package edu.ntnu.iir.bidata.registers;
 
+import edu.ntnu.iir.bidata.index.IndexingPipeline;
+import edu.ntnu.iir.bidata.index.TemporalIndex;
+import edu.ntnu.iir.bidata.index.WordIndex;
 import edu.ntnu.iir.bidata.models.Author;
 import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.models.DiaryEntryListener;
+import edu.ntnu.iir.bidata.models.Page;
+import edu.ntnu.iir.bidata.models.PageTextStore;
+import edu.ntnu.iir.bidata.text.Vocabulary;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.*;
-
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Register of diary entries, grouped by author and indexed by title, time and words.
+ * <p>
+ * The register may be shared by several threads. Lookups go straight to concurrent maps and indexes and do not
+ * take the register's locks. Adding and removing entries locks the authors involved, spread over
+ * {@link StripedLocks}, so writers of different authors run side by side, while the title check and the insert
+ * of one author's entry happen in one step. The entries of each author are kept in insertion order in a plain
+ * set guarded by the author's lock, so removing one takes constant time; listing them copies the set under
+ * that lock.
+ * <p>
+ * The time indexes are immutable versions published together, so a query pins one version and reads it to the end
+ * without locking, while writers publish newer versions that share most of their structure with it.
+ * <p>
+ * Word counts and the word index can be kept up to date by an {@link IndexingPipeline}, so that with eventual
+ * consistency an edit returns before its words are counted and indexed.
+ */
 public class DiaryEntryRegister {
 
-    private final Map<Author, List<DiaryEntry>> authorEntriesMap;
+    private static final int LOCK_STRIPES = 64;
+
+    /**
+     * One published version of the time indexes.
+     */
+    private record Version(TemporalIndex created, TemporalIndex changed) {
+    }
+
+    /**
+     * How an entry is filed in the time indexes: its number, and the time it is filed under in the changed index.
+     */
+    private record Filing(long number, LocalDateTime timeChanged) {
+    }
+
+    private final Map<Author, Set<DiaryEntry>> authorEntriesMap;
+    private final Map<Author, Map<String, DiaryEntry>> titleIndex;
+    private final WordIndex wordIndex;
+    private volatile Version version = new Version(TemporalIndex.empty(), TemporalIndex.empty());
+    private final Object versionLock = new Object();
+    private final Map<DiaryEntry, Filing> filings = new HashMap<>();
+    private long nextEntryNumber;
+    private final DiaryEntryListener entryTracker;
+    private final List<DiaryEntryRegisterListener> listeners = new CopyOnWriteArrayList<>();
+    private final StripedLocks locks = new StripedLocks(LOCK_STRIPES);
+    private final PageTextStore pageTextStore;
+    private final IndexingPipeline pipeline;
+    private volatile Lock writeGate;
+    private PageTextStore idlePageStore;
+    private LocalDateTime idleSweptBefore;
 
     public DiaryEntryRegister() {
-        this.authorEntriesMap = new HashMap<>();
+        this(null);
     }
 
-    public Map<Author, List<DiaryEntry>> getEntriesCreatedAtDateGroupedByAuthor(LocalDate date) {
-        if (date == null) throw new IllegalArgumentException("Date cannot be null");
+    /**
+     * Creates a register that keeps the page text of its entries in a store instead of on the heap.
+     *
+     * @param pageTextStore Store for page text, or null to keep page text on the heap.
+     */
+    public DiaryEntryRegister(PageTextStore pageTextStore) {
+        this(pageTextStore, null);
+    }
 
-        Map<Author, List<DiaryEntry>> result = new HashMap<>();
-        for (Map.Entry<Author, List<DiaryEntry>> entry : authorEntriesMap.entrySet()) {
-            Author author = entry.getKey();
-            if (author.getLastTimeCreated().toLocalDate().isEqual(date)) {
-                result.put(author, new ArrayList<>(entry.getValue()));
-                continue;
+    /**
+     * Creates a register whose entries count and index their words through a pipeline.
+     *
+     * @param pageTextStore Store for page text, or null to keep page text on the heap.
+     * @param pipeline      Pipeline updating word counts and the word index, or null to update them during each edit.
+     */
+    public DiaryEntryRegister(PageTextStore pageTextStore, IndexingPipeline pipeline) {
+        this.pageTextStore = pageTextStore;
+        this.pipeline = pipeline;
+        this.authorEntriesMap = new ConcurrentHashMap<>();
+        this.titleIndex = new ConcurrentHashMap<>();
+        this.wordIndex = new WordIndex(Vocabulary.shared(), pipeline);
+        this.entryTracker = new DiaryEntryListener() {
+            @Override
+            public void timeChangedUpdated(DiaryEntry entry, LocalDateTime oldTimeChanged) {
+                synchronized (versionLock) {
+                    Filing filing = filings.get(entry);
+                    if (filing == null) return;
+                    LocalDateTime timeChanged = entry.getTimeChanged();
+                    filings.put(entry, new Filing(filing.number(), timeChanged));
+                    version = new Version(version.created(),
+                            version.changed().move(filing.timeChanged(), timeChanged, filing.number(), entry));
+                }
             }
 
-            List<DiaryEntry> filtered = entry.getValue().stream()
-                    .filter(diary -> diary.getTimeCreated().toLocalDate().isEqual(date))
-                    .toList();
+            /**
+             * Checks the new title and reserves it for the entry in one step under the author's lock, so an entry
+             * added or renamed at the same time cannot take the same title.
+             */
+            @Override
+            public void entryTitleChanging(DiaryEntry entry, String newTitle) {
+                StripedLocks.Held held = locks.lock(entry.getAuthor());
+                try {
+                    Map<String, DiaryEntry> titles = titlesOf(entry.getAuthor());
+                    if (titles.get(foldTitle(entry.getEntryTitle())) != entry) return;
+                    DiaryEntry existing = titles.get(foldTitle(newTitle));
+                    if (existing != null && existing != entry)
+                        throw new IllegalArgumentException("An entry titled \"" + newTitle + "\" already exists for this author");
+                    titles.put(foldTitle(newTitle), entry);
+                } finally {
+                    held.unlock();
+                }
+            }
 
-            if (!filtered.isEmpty()) {
-                result.put(author, filtered);
+            @Override
+            public void entryTitleChanged(DiaryEntry entry, String oldTitle) {
+                StripedLocks.Held held = locks.lock(entry.getAuthor());
+                try {
+                    Map<String, DiaryEntry> titles = titlesOf(entry.getAuthor());
+                    if (titles.get(foldTitle(entry.getEntryTitle())) != entry) return;
+                    if (!foldTitle(oldTitle).equals(foldTitle(entry.getEntryTitle())))
+                        titles.remove(foldTitle(oldTitle), entry);
+                } finally {
+                    held.unlock();
+                }
             }
-        }
-        return result;
+        };
+    }
+
+    public Map<Author, List<DiaryEntry>> getEntriesCreatedAtDateGroupedByAuthor(LocalDate date) {
+        if (date == null) throw new IllegalArgumentException("Date cannot be null");
+
+        return TemporalIndex.groupByAuthor(version.created().on(date));
     }
 
     public Map<Author, List<DiaryEntry>> getEntriesChangedAtDateGroupedByAuthor(LocalDate date) {
         if (date == null) throw new IllegalArgumentException("Date cannot be null");
 
-        Map<Author, List<DiaryEntry>> result = new HashMap<>();
-        for (Map.Entry<Author, List<DiaryEntry>> entry : authorEntriesMap.entrySet()) {
-            Author author = entry.getKey();
-            if (author.getLastTimeChanged().toLocalDate().isEqual(date)) {
-                result.put(author, new ArrayList<>(entry.getValue()));
-                continue;
-            }
+        return TemporalIndex.groupByAuthor(version.changed().on(date));
+    }
 
-            List<DiaryEntry> filtered = entry.getValue().stream()
-                    .filter(d -> d.getTimeChanged().toLocalDate().isEqual(date))
-                    .toList();
+    public List<DiaryEntry> getMostRecentlyChangedEntries(int limit) {
+        if (limit < 0) throw new IllegalArgumentException("Limit cannot be negative");
 
-            if (!filtered.isEmpty()) {
-                result.put(author, filtered);
-            }
-        }
-        return result;
+        return version.changed().latest(limit);
     }
 
     public int getNumberOfEntries(Author author) {
         if (author == null) throw new IllegalArgumentException("Author cannot be null");
-        return authorEntriesMap.getOrDefault(author, Collections.emptyList()).size();
+        return titleIndex.getOrDefault(author, Map.of()).size();
     }
 
     public List<DiaryEntry> getDiaryEntriesByAuthor(Author author) {
         if (author == null) throw new IllegalArgumentException("Author cannot be null");
-        return authorEntriesMap.getOrDefault(author, new ArrayList<>());
+        Set<DiaryEntry> entries = authorEntriesMap.get(author);
+        if (entries == null) return new ArrayList<>();
+        StripedLocks.Held held = locks.lockForReading(author);
+        try {
+            return new ArrayList<>(entries);
+        } finally {
+            held.unlock();
+        }
+    }
+
+    public List<DiaryEntry> getAllDiaryEntries() {
+        List<DiaryEntry> all = new ArrayList<>();
+        authorEntriesMap.forEach((author, entries) -> {
+            StripedLocks.Held held = locks.lockForReading(author);
+            try {
+                all.addAll(entries);
+            } finally {
+                held.unlock();
+            }
+        });
+        return Collections.unmodifiableList(all);
     }
 
     public Map<Author, List<DiaryEntry>> getEntriesCreatedBetweenGroupedByAuthor(LocalDate start, LocalDate end) {
         if (start == null || end == null) throw new IllegalArgumentException("Start and end cannot be null");
 
-        Map<Author, List<DiaryEntry>> result = new HashMap<>();
-        for (Map.Entry<Author, List<DiaryEntry>> entry : authorEntriesMap.entrySet()) {
-            Author author = entry.getKey();
-            LocalDate lastDateAuthorCreated = author.getLastTimeCreated().toLocalDate();
-
-            if (!lastDateAuthorCreated.isBefore(start) && !lastDateAuthorCreated.isAfter(end)) {
-                result.put(author, new ArrayList<>(entry.getValue()));
-                continue;
-            }
+        return TemporalIndex.groupByAuthor(version.created().between(start, end));
+    }
 
-            List<DiaryEntry> filtered = entry.getValue().stream()
-                    .filter(diary -> {
-                        LocalDate createdDate = diary.getTimeCreated().toLocalDate();
-                        return !createdDate.isBefore(start) && !createdDate.isAfter(end);
-                    })
-                    .toList();
+    /**
+     * Retrieves the entries created between two dates, both inclusive, oldest first.
+     *
+     * @param start First date of the range.
+     * @param end   Last date of the range.
+     * @return Matching entries.
+     * @throws IllegalArgumentException if start or end is null.
+     */
+    public List<DiaryEntry> getEntriesCreatedBetween(LocalDate start, LocalDate end) {
+        if (start == null || end == null) throw new IllegalArgumentException("Start and end cannot be null");
 
-            if (!filtered.isEmpty()) {
-                result.put(author, filtered);
-            }
-        }
-        return result;
+        return version.created().between(start, end);
     }
 
     public Map<Author, List<DiaryEntry>> getEntriesChangedBetweenGroupedByAuthor(LocalDate start, LocalDate end) {
         if (start == null || end == null) throw new IllegalArgumentException("Start and end cannot be null");
 
-        Map<Author, List<DiaryEntry>> result = new HashMap<>();
-        for (Map.Entry<Author, List<DiaryEntry>> entry : authorEntriesMap.entrySet()) {
-            Author author = entry.getKey();
-            LocalDate lastDateAuthorChanged = author.getLastTimeChanged().toLocalDate();
+        return TemporalIndex.groupByAuthor(version.changed().between(start, end));
+    }
 
-            if (!lastDateAuthorChanged.isBefore(start) && !lastDateAuthorChanged.isAfter(end)) {
-                result.put(author, new ArrayList<>(entry.getValue()));
-                continue;
-            }
+    public Map<Author, List<DiaryEntry>> getEntriesCreatedOrChangedBetweenGroupedByAuthor(LocalDate start, LocalDate end) {
+        if (start == null || end == null) throw new IllegalArgumentException("Start and end cannot be null");
 
-            List<DiaryEntry> filtered = entry.getValue().stream()
-                    .filter(diary -> {
-                        LocalDate changedDate = diary.getTimeChanged().toLocalDate();
-                        return !changedDate.isBefore(start) && !changedDate.isAfter(end);
-                    })
-                    .toList();
+        Version pinned = version;
+        Set<DiaryEntry> matches = new LinkedHashSet<>(pinned.created().between(start, end));
+        matches.addAll(pinned.changed().between(start, end));
+        return TemporalIndex.groupByAuthor(matches);
+    }
 
-            if (!filtered.isEmpty()) {
-                result.put(author, filtered);
+    public void addAuthor(Author author) {
+        if (author == null) throw new IllegalArgumentException("Author cannot be null");
+        authorEntriesMap.computeIfAbsent(author, key -> new LinkedHashSet<>());
+    }
+
+    public void addDiaryEntry(DiaryEntry entry) {
+        if (entry == null) throw new IllegalArgumentException("Diary entry cannot be null");
+
+        StripedLocks.Held held = locks.lock(entry.getAuthor());
+        try {
+            validateNewEntry(entry);
+            insert(entry);
+        } finally {
+            held.unlock();
+        }
+        storePages(entry);
+    }
+
+    /**
+     * Adds a batch of entries, such as a chunk of a bulk import. Every entry is checked before any is added,
+     * so either the whole batch is added or, if one of them is invalid, none of them.
+     *
+     * @param entries Entries to add.
+     * @throws IllegalArgumentException if entries is null, if an entry is null or has no title, or if an entry
+     *                                  has the same title as another entry of its author, in the register or
+     *                                  in the batch.
+     */
+    public void addDiaryEntries(Collection<DiaryEntry> entries) {
+        if (entries == null) throw new IllegalArgumentException("Diary entries cannot be null");
+
+        Set<Author> authors = new HashSet<>();
+        for (DiaryEntry entry : entries) {
+            if (entry == null) throw new IllegalArgumentException("Diary entry cannot be null");
+            authors.add(entry.getAuthor());
+        }
+
+        StripedLocks.Held held = locks.lockAll(authors);
+        try {
+            Map<Author, Set<String>> batchTitles = new HashMap<>();
+            for (DiaryEntry entry : entries) {
+                validateNewEntry(entry);
+                if (!batchTitles.computeIfAbsent(entry.getAuthor(), key -> new HashSet<>())
+                        .add(foldTitle(entry.getEntryTitle())))
+                    throw new IllegalArgumentException("An entry titled \"" + entry.getEntryTitle() + "\" appears twice for this author");
             }
+            entries.forEach(this::insert);
+        } finally {
+            held.unlock();
         }
-        return result;
+        entries.forEach(this::storePages);
     }
 
-    public Map<Author, List<DiaryEntry>> getEntriesCreatedOrChangedBetweenGroupedByAuthor(LocalDate start, LocalDate end) {
-        if (start == null || end == null) throw new IllegalArgumentException("Start and end cannot be null");
+    private void validateNewEntry(DiaryEntry entry) {
+        if (entry.getEntryTitle() == null || entry.getEntryTitle().isBlank())
+            throw new IllegalArgumentException("Entry title cannot be null or blank");
 
-        Map<Author, List<DiaryEntry>> result = new HashMap<>();
-        for (Map.Entry<Author, List<DiaryEntry>> entry : authorEntriesMap.entrySet()) {
-            Author author = entry.getKey();
-            LocalDate lastDateAuthorCreated = author.getLastTimeCreated().toLocalDate();
-            LocalDate lastDateAuthorChanged = author.getLastTimeChanged().toLocalDate();
+        if (hasDiaryEntry(entry.getAuthor(), entry.getEntryTitle()))
+            throw new IllegalArgumentException("An entry titled \"" + entry.getEntryTitle() + "\" already exists for this author");
+    }
 
-            if ((!lastDateAuthorCreated.isBefore(start) && !lastDateAuthorCreated.isAfter(end)) ||
-                    (!lastDateAuthorChanged.isBefore(start) && !lastDateAuthorChanged.isAfter(end))) {
-                result.put(author, new ArrayList<>(entry.getValue()));
-                continue;
-            }
+    private void insert(DiaryEntry entry) {
+        Author author = entry.getAuthor();
+        authorEntriesMap.computeIfAbsent(author, key -> new LinkedHashSet<>()).add(entry);
+        titlesOf(author).put(foldTitle(entry.getEntryTitle()), entry);
+        entry.setWriteGate(writeGate);
+        if (pipeline != null) entry.indexThrough(pipeline);
+        wordIndex.addEntry(entry);
+        entry.addListener(entryTracker);
+        synchronized (versionLock) {
+            long number = nextEntryNumber++;
+            LocalDateTime timeChanged = entry.getTimeChanged();
+            filings.put(entry, new Filing(number, timeChanged));
+            version = new Version(version.created().add(entry.getTimeCreated(), number, entry),
+                    version.changed().add(timeChanged, number, entry));
+        }
+        listeners.forEach(listener -> listener.entryAdded(entry));
+    }
 
-            List<DiaryEntry> filtered = entry.getValue().stream()
-                    .filter(diary -> {
-                        LocalDate createdDate = diary.getTimeCreated().toLocalDate();
-                        LocalDate changedDate = diary.getTimeChanged().toLocalDate();
-                        return (!createdDate.isBefore(start) && !createdDate.isAfter(end)) ||
-                                (!changedDate.isBefore(start) && !changedDate.isAfter(end));
-                    })
-                    .toList();
-
-            if (!filtered.isEmpty()) {
-                result.put(author, filtered);
-            }
+    /**
+     * Moves the page text of a new entry into the page store. Done after releasing the author's lock, since it
+     * takes the entry's writer lock, which a rename holds while it waits for the author's lock.
+     */
+    private void storePages(DiaryEntry entry) {
+        if (pageTextStore != null) entry.storePagesIn(pageTextStore);
+    }
+
+    /**
+     * Moves the page text of entries that have not changed for a while from the heap into a store, such as a
+     * {@link edu.ntnu.iir.bidata.persistence.CompressedPageStore}. Text already in a store, such as the page store
+     * of the register, is left there, since moving it frees no heap. A page that changes afterwards leaves the store
+     * again. Only entries that became idle since the last call with the same store are visited.
+     * An entry counts as idle from its time of last change, since reads are not tracked, so a page that is read
+     * often but never changed is compressed too and inflated on each read the store's cache misses.
+     * Sweeps run one at a time, and take each entry's writer lock while moving its pages, so they can run
+     * on a background thread while the entries are edited.
+     *
+     * @param store    Store for the text of idle pages.
+     * @param idleTime How long an entry must have been unchanged.
+     * @return Number of pages moved into the store.
+     * @throws IllegalArgumentException if a parameter is null, or if idleTime is negative.
+     */
+    public synchronized int storeIdlePages(PageTextStore store, Duration idleTime) {
+        if (store == null) throw new IllegalArgumentException("Store cannot be null");
+        if (idleTime == null || idleTime.isNegative()) throw new IllegalArgumentException("Idle time cannot be null or negative");
+
+        if (store != idlePageStore) {
+            idlePageStore = store;
+            idleSweptBefore = null;
         }
-        return result;
+        LocalDateTime cutoff = LocalDateTime.now().minus(idleTime);
+        int moved = 0;
+        for (DiaryEntry entry : version.changed().between(idleSweptBefore, cutoff)) {
+            moved += entry.storeHeapPagesIn(store);
+        }
+        if (idleSweptBefore == null || cutoff.isAfter(idleSweptBefore)) idleSweptBefore = cutoff;
+        return moved;
     }
 
-    public void addAuthor(Author author) {
-        if (author == null) throw new IllegalArgumentException("Author cannot be null");
-        authorEntriesMap.putIfAbsent(author, new ArrayList<>());
+    /**
+     * Retrieves the store the page text of entries is kept in.
+     *
+     * @return The page store, or null if page text is kept on the heap.
+     */
+    public PageTextStore getPageTextStore() {
+        return pageTextStore;
     }
 
-    public void addDiaryEntry(DiaryEntry entry) {
-        if (entry == null) throw new IllegalArgumentException("Diary entry cannot be null");
+    /**
+     * Sets a lock that every change of the register and of its entries holds, from before it is made until its
+     * listeners have been notified. Given the shared side of a read-write lock, the holder of the exclusive side
+     * sees the register between changes, such as when a journal captures a snapshot.
+     *
+     * @param writeGate Lock to hold, or null to hold none.
+     */
+    public void setWriteGate(Lock writeGate) {
+        this.writeGate = writeGate;
+        locks.setGate(writeGate);
+        getAllDiaryEntries().forEach(entry -> entry.setWriteGate(writeGate));
+    }
 
-        Author author = entry.getAuthor();
-        authorEntriesMap.putIfAbsent(author, new ArrayList<>());
-        authorEntriesMap.get(author).add(entry);
+    /**
+     * Waits until the word counts and the word index reflect every edit made so far by any thread.
+     * Returns at once unless the register counts words through a pipeline with eventual consistency.
+     */
+    public void awaitIndexing() {
+        if (pipeline != null) pipeline.awaitAll();
+    }
+
+    public void addListener(DiaryEntryRegisterListener listener) {
+        if (listener == null) throw new IllegalArgumentException("Listener cannot be null");
+        listeners.add(listener);
+    }
+
+    public void removeListener(DiaryEntryRegisterListener listener) {
+        listeners.remove(listener);
+    }
+
+    public boolean hasDiaryEntry(Author author, String entryTitle) {
+        if (author == null) throw new IllegalArgumentException("Author cannot be null");
+        if (entryTitle == null || entryTitle.isBlank()) throw new IllegalArgumentException("Entry title cannot be null or blank");
+
+        Map<String, DiaryEntry> titles = titleIndex.get(author);
+        return titles != null && titles.containsKey(foldTitle(entryTitle));
     }
 
     public Optional<DiaryEntry> findDiaryEntryFromAuthorByTitle(Author author, String entryTitle) {
         if (author == null) throw new IllegalArgumentException("Author cannot be null");
         if (entryTitle == null || entryTitle.isBlank()) throw new IllegalArgumentException("Entry title cannot be null or blank");
 
-        List<DiaryEntry> entries = authorEntriesMap.get(author);
-        if (entries == null) return Optional.empty();
+        Map<String, DiaryEntry> titles = titleIndex.get(author);
+        if (titles == null) return Optional.empty();
 
-        return entries.stream()
-                .filter(entry -> entry.getEntryTitle().equalsIgnoreCase(entryTitle))
-                .findFirst();
+        return Optional.ofNullable(titles.get(foldTitle(entryTitle)));
     }
 
     public List<DiaryEntry> searchForWord(String word, int limit) {
         if (word == null || word.isBlank()) throw new IllegalArgumentException("word cannot be null or blank");
 
-        List<DiaryEntry> matches = new ArrayList<>();
+        return wordIndex.findEntries(word, limit);
+    }
 
-        List<Author> sortedAuthors = authorEntriesMap.keySet().stream()
-                .sorted((author1, author2) -> Long.compare(
-                        author2.getWordCount().getOrDefault(word, 0L),
-                        author1.getWordCount().getOrDefault(word, 0L)
-                ))
-                .toList();
+    public Map<Integer, Page> getPagesContainingWord(DiaryEntry entry, String word) {
+        if (entry == null) throw new IllegalArgumentException("Diary entry cannot be null");
+        if (word == null || word.isBlank()) throw new IllegalArgumentException("word cannot be null or blank");
 
-        int found = 0;
+        return wordIndex.getPagesContainingWord(entry, word);
+    }
 
-        for (Author author : sortedAuthors) {
-            long authorCount = author.getWordCount().getOrDefault(word, 0L);
-            if (authorCount == 0) continue;
+    public List<WordIndex.PageMatch> searchForPhrase(String phrase, int limit) {
+        if (phrase == null || phrase.isBlank()) throw new IllegalArgumentException("phrase cannot be null or blank");
 
-            List<DiaryEntry> entries = authorEntriesMap.getOrDefault(author, Collections.emptyList());
+        return wordIndex.findPhrase(phrase, limit);
+    }
 
-            for (DiaryEntry entry : entries) {
-                long entryCount = entry.getWordCount().getOrDefault(word.toLowerCase(), 0L);
-                if (entryCount > 0) {
-                    matches.add(entry);
-                    found++;
-                    if (found >= limit) return matches;
-                }
-            }
-        }
+    public List<WordIndex.PageMatch> searchForWordsNear(List<String> words, int maxDistance, int limit) {
+        if (words == null || words.isEmpty()) throw new IllegalArgumentException("words cannot be null or empty");
 
-        return matches;
+        return wordIndex.findNear(words, maxDistance, limit);
     }
 
     public Optional<DiaryEntry> removeDiaryEntry(Author author, String entryTitle) {
         if (author == null) throw new IllegalArgumentException("Author cannot be null");
         if (entryTitle == null || entryTitle.isBlank()) throw new IllegalArgumentException("Entry title cannot be null or empty");
 
-        List<DiaryEntry> entries = authorEntriesMap.get(author);
-        if (entries == null || entries.isEmpty()) return Optional.empty();
-
-        Iterator<DiaryEntry> iterator = entries.iterator();
-        while (iterator.hasNext()) {
-            DiaryEntry entry = iterator.next();
-            if (entry.getEntryTitle().equalsIgnoreCase(entryTitle)) {
-                iterator.remove();
-                return Optional.of(entry);
+        DiaryEntry entry;
+        StripedLocks.Held held = locks.lock(author);
+        try {
+            Map<String, DiaryEntry> titles = titleIndex.get(author);
+            if (titles == null) return Optional.empty();
+
+            entry = titles.remove(foldTitle(entryTitle));
+            if (entry == null) return Optional.empty();
+            // A rename in progress has reserved its new title, or not yet released its old one.
+            titles.remove(foldTitle(entry.getEntryTitle()), entry);
+
+            authorEntriesMap.get(author).remove(entry);
+            entry.removeListener(entryTracker);
+            entry.setWriteGate(null);
+            wordIndex.removeEntry(entry);
+            synchronized (versionLock) {
+                Filing filing = filings.remove(entry);
+                version = new Version(version.created().remove(entry.getTimeCreated(), filing.number()),
+                        version.changed().remove(filing.timeChanged(), filing.number()));
             }
+            listeners.forEach(listener -> listener.entryRemoved(entry));
+        } finally {
+            held.unlock();
         }
-        return Optional.empty();
+        // Takes the entry's writer lock, which a rename holds while it waits for the author's lock.
+        entry.releasePages();
+        return Optional.of(entry);
+    }
+
+    private Map<String, DiaryEntry> titlesOf(Author author) {
+        return titleIndex.computeIfAbsent(author, key -> new ConcurrentHashMap<>());
+    }
+
+    private static String foldTitle(String entryTitle) {
+        return entryTitle.toLowerCase();
     }
 }
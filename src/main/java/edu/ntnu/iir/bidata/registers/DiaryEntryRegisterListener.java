@@ -0,0 +1,30 @@
+package edu.ntnu.iir.bidata.registers;
+
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+
+/**
+ * Receives notifications when diary entries are added to or removed from a {@link DiaryEntryRegister}.
+ * <p>
+ * All methods have empty default implementations,
+ * so a listener only overrides the changes it cares about.
+ * Notifications are sent after the change has been applied to the register.
+ * Changes to the entries themselves are reported through {@link edu.ntnu.iir.bidata.models.DiaryEntryListener}.
+ */
+public interface DiaryEntryRegisterListener {
+
+    /**
+     * Called after a diary entry has been added to the register.
+     *
+     * @param entry The entry that was added, with all its pages.
+     */
+    default void entryAdded(DiaryEntry entry) {
+    }
+
+    /**
+     * Called after a diary entry has been removed from the register.
+     *
+     * @param entry The entry that was removed.
+     */
+    default void entryRemoved(DiaryEntry entry) {
+    }
+}
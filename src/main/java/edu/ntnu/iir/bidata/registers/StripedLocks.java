@@ -0,0 +1,119 @@
+package edu.ntnu.iir.bidata.registers;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks that keys are spread over by hash, so writers working on different keys rarely wait
+ * for each other while the number of locks stays bounded. Used by the registers to serialize the writers
+ * of one author, while readers go straight to the concurrent maps without locking.
+ * <p>
+ * Several keys are locked in stripe order, so two writers locking overlapping keys cannot deadlock.
+ * <p>
+ * Writers may also pass a shared gate before their stripes, see {@link #setGate(Lock)}.
+ */
+final class StripedLocks {
+
+    /**
+     * Locks held by one writer, released in reverse order by {@link #unlock()}.
+     */
+    final class Held {
+
+        private final Lock gate;
+        private final int[] stripes;
+
+        private Held(Lock gate, int[] stripes) {
+            this.gate = gate;
+            this.stripes = stripes;
+        }
+
+        /**
+         * Releases the locks, in a finally block of the code they guard.
+         */
+        void unlock() {
+            for (int index = stripes.length - 1; index >= 0; index--) locks[stripes[index]].unlock();
+            if (gate != null) gate.unlock();
+        }
+    }
+
+    private final ReentrantLock[] locks;
+    private volatile Lock gate;
+
+    /**
+     * Creates a set of locks.
+     *
+     * @param stripes Number of locks, rounded up to a power of two.
+     * @throws IllegalArgumentException if stripes is not positive.
+     */
+    StripedLocks(int stripes) {
+        if (stripes <= 0) throw new IllegalArgumentException("Number of stripes must be greater than 0");
+        int size = 1;
+        while (size < stripes) size <<= 1;
+        locks = new ReentrantLock[size];
+        for (int index = 0; index < locks.length; index++) locks[index] = new ReentrantLock();
+    }
+
+    /**
+     * Sets a lock that writers take before their stripes and release after them, such as the shared side of
+     * a read-write lock whose exclusive side waits until no writer is changing anything.
+     *
+     * @param gate Lock to take, or null to take none.
+     */
+    void setGate(Lock gate) {
+        this.gate = gate;
+    }
+
+    /**
+     * Locks the stripe of one key for a writer.
+     *
+     * @param key Key to lock.
+     * @return The held lock, to be unlocked when done.
+     */
+    Held lock(Object key) {
+        return acquire(gate, new int[]{stripeOf(key)});
+    }
+
+    /**
+     * Locks the stripe of one key for a reader, without the gate.
+     *
+     * @param key Key to lock.
+     * @return The held lock, to be unlocked when done.
+     */
+    Held lockForReading(Object key) {
+        return acquire(null, new int[]{stripeOf(key)});
+    }
+
+    /**
+     * Locks the stripes of several keys.
+     *
+     * @param keys Keys to lock.
+     * @return The held locks, to be unlocked when done.
+     */
+    Held lockAll(Collection<?> keys) {
+        return acquire(gate, keys.stream().mapToInt(this::stripeOf).sorted().distinct().toArray());
+    }
+
+    /**
+     * Locks every stripe, for changes that touch every key.
+     *
+     * @return The held locks, to be unlocked when done.
+     */
+    Held lockEverything() {
+        int[] stripes = new int[locks.length];
+        Arrays.setAll(stripes, index -> index);
+        return acquire(gate, stripes);
+    }
+
+    private Held acquire(Lock gate, int[] stripes) {
+        if (gate != null) gate.lock();
+        for (int stripe : stripes) locks[stripe].lock();
+        return new Held(gate, stripes);
+    }
+
+    private int stripeOf(Object key) {
+        int hash = key == null ? 0 : key.hashCode();
+        return (hash ^ (hash >>> 16)) & (locks.length - 1);
+    }
+}
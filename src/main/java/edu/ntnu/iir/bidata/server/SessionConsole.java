@@ -0,0 +1,71 @@
+package edu.ntnu.iir.bidata.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Standard output that sends what a session thread prints to that session.
+ * <p>
+ * The menus print through {@link System#out}, so once the console is installed, each session thread binds its own
+ * {@link SessionOutput} and everything it prints lands there, while other threads keep printing to the console.
+ * Output is only buffered here; sessions send it themselves, so a slow client never holds up the shared stream.
+ */
+final class SessionConsole extends OutputStream {
+
+    private static final ThreadLocal<SessionOutput> TARGET = new ThreadLocal<>();
+    private static SessionConsole installed;
+
+    private final OutputStream console;
+
+    private SessionConsole(OutputStream console) {
+        this.console = console;
+    }
+
+    /**
+     * Replaces standard output with a session console, unless one is installed already.
+     * Text is encoded as UTF-8.
+     */
+    static synchronized void install() {
+        if (installed != null) return;
+        installed = new SessionConsole(System.out);
+        System.setOut(new PrintStream(installed, true, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Sends what the current thread prints to a session, until {@link #unbind()}.
+     *
+     * @param output Output of the session.
+     */
+    static void bind(SessionOutput output) {
+        TARGET.set(output);
+    }
+
+    /**
+     * Sends what the current thread prints to the console again.
+     */
+    static void unbind() {
+        TARGET.remove();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        target().write(b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        target().write(bytes, offset, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        target().flush();
+    }
+
+    private OutputStream target() {
+        SessionOutput output = TARGET.get();
+        return output != null ? output : console;
+    }
+}
@@ -0,0 +1,62 @@
+package edu.ntnu.iir.bidata.server;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Reads the input of one session from its client, sending the pending output first so the client sees the
+ * prompt it is answering.
+ * <p>
+ * The menus keep asking until they get an answer and treat a failed read as a reason to ask again, so once the
+ * client has hung up, reads throw an {@link UncheckedIOException} that ends the session instead.
+ * <p>
+ * Sessions wait here on virtual threads, so nothing on the way holds a monitor while it blocks, which would pin
+ * the thread to its carrier. The channel locks with a {@link java.util.concurrent.locks.ReentrantLock}, and the
+ * session decodes this stream with a plain {@link java.io.InputStreamReader} and {@link java.io.BufferedReader},
+ * which since JDK 21 lock the same way as long as neither class is extended.
+ */
+final class SessionInput extends InputStream {
+
+    private final SocketChannel channel;
+    private final SessionOutput output;
+
+    SessionInput(SocketChannel channel, SessionOutput output) {
+        this.channel = channel;
+        this.output = output;
+    }
+
+    @Override
+    public int read() {
+        byte[] one = new byte[1];
+        return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] bytes, int offset, int length) {
+        if (length == 0) return 0;
+        try {
+            output.send(channel);
+            int read = channel.read(ByteBuffer.wrap(bytes, offset, length));
+            if (read < 0) throw new EOFException("The client hung up");
+            return read;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Sends what is left of the output and hangs up.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (channel.isOpen()) output.send(channel);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package edu.ntnu.iir.bidata.server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+
+/**
+ * Output of one session, kept until the session waits for input and then sent to the client in one write.
+ * <p>
+ * Line feeds are sent as carriage return and line feed, as telnet clients expect. The buffer grows to hold
+ * the largest screen printed between two reads, and shrinks back afterwards so idle sessions stay small.
+ * Only the session's own thread uses it.
+ */
+final class SessionOutput extends OutputStream {
+
+    private static final int INITIAL_BYTES = 256;
+    private static final int RETAINED_BYTES = 16 * 1024;
+
+    private byte[] buffer = new byte[INITIAL_BYTES];
+    private int size;
+
+    @Override
+    public void write(int b) {
+        if (b == '\n') append((byte) '\r');
+        append((byte) b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        for (int index = offset; index < offset + length; index++) write(bytes[index]);
+    }
+
+    /**
+     * Sends the buffered output to the client.
+     *
+     * @param channel Channel of the client.
+     * @throws IOException if the channel cannot be written.
+     */
+    void send(WritableByteChannel channel) throws IOException {
+        if (size == 0) return;
+        ByteBuffer pending = ByteBuffer.wrap(buffer, 0, size);
+        while (pending.hasRemaining()) channel.write(pending);
+        size = 0;
+        if (buffer.length > RETAINED_BYTES) buffer = new byte[INITIAL_BYTES];
+    }
+
+    private void append(byte b) {
+        if (size == buffer.length) buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        buffer[size++] = b;
+    }
+}
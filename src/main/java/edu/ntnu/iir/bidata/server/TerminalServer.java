@@ -0,0 +1,155 @@
+package edu.ntnu.iir.bidata.server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves terminal sessions to telnet-style clients, so many users can share one application.
+ * <p>
+ * Each connection gets a session on a virtual thread of its own, which costs little while the session waits
+ * for input, so a thousand idle sessions fit in a small heap. The session reads lines from the client, and
+ * what it prints to {@link System#out} is sent to that client only. All sessions run against whatever the
+ * session code shares, typically the registers of one {@link edu.ntnu.iir.bidata.DiaryUi}.
+ */
+public final class TerminalServer implements AutoCloseable {
+
+    /**
+     * Port served on by default.
+     */
+    public static final int DEFAULT_PORT = 2323;
+
+    private static final int READ_BUFFER_CHARS = 256;
+    private static final int ACCEPT_BACKLOG = 1_024;
+
+    /**
+     * Code run for each connection.
+     */
+    @FunctionalInterface
+    public interface Session {
+
+        /**
+         * Runs one session until the user leaves. Whatever the session prints to {@link System#out} is sent
+         * to its client.
+         *
+         * @param reader Lines typed by the client. Reads throw {@link UncheckedIOException} once the client
+         *               has hung up.
+         * @throws IOException if the session fails.
+         */
+        void run(BufferedReader reader) throws IOException;
+    }
+
+    private final ServerSocketChannel server;
+    private final Session session;
+    private final ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<SocketChannel> clients = ConcurrentHashMap.newKeySet();
+
+    private TerminalServer(ServerSocketChannel server, Session session) {
+        this.server = server;
+        this.session = session;
+    }
+
+    /**
+     * Starts serving sessions.
+     *
+     * @param address Address to listen on. Port 0 picks a free port.
+     * @param session Code to run for each connection.
+     * @return The running server.
+     * @throws IOException if the address cannot be listened on.
+     * @throws IllegalArgumentException if a parameter is null.
+     */
+    public static TerminalServer start(InetSocketAddress address, Session session) throws IOException {
+        if (address == null) throw new IllegalArgumentException("Address cannot be null");
+        if (session == null) throw new IllegalArgumentException("Session cannot be null");
+
+        SessionConsole.install();
+        TerminalServer terminalServer = new TerminalServer(ServerSocketChannel.open().bind(address, ACCEPT_BACKLOG), session);
+        terminalServer.threads.execute(terminalServer::acceptAll);
+        return terminalServer;
+    }
+
+    /**
+     * Retrieves the port the server listens on.
+     *
+     * @return The port.
+     * @throws IOException if the server is closed.
+     */
+    public int getPort() throws IOException {
+        return ((InetSocketAddress) server.getLocalAddress()).getPort();
+    }
+
+    /**
+     * Retrieves the number of connected clients.
+     *
+     * @return Number of sessions running.
+     */
+    public int getSessionCount() {
+        return clients.size();
+    }
+
+    /**
+     * Stops accepting connections, hangs up on every client and waits for their sessions to end.
+     *
+     * @throws IOException if the server could not be closed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            server.close();
+            for (SocketChannel client : clients) client.close();
+        } finally {
+            threads.shutdown();
+            try {
+                threads.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void acceptAll() {
+        try {
+            while (true) {
+                SocketChannel client = server.accept();
+                clients.add(client);
+                try {
+                    threads.execute(() -> serve(client));
+                } catch (RejectedExecutionException e) {
+                    clients.remove(client);
+                    client.close();
+                }
+            }
+        } catch (ClosedChannelException e) {
+            // The server was closed.
+        } catch (IOException e) {
+            System.err.println("Terminal server stopped accepting connections: " + e.getMessage());
+        }
+    }
+
+    private void serve(SocketChannel client) {
+        SessionOutput output = new SessionOutput();
+        SessionConsole.bind(output);
+        // Plain JDK readers, so a session waiting for input holds no monitor; see SessionInput.
+        InputStreamReader decoder = new InputStreamReader(new SessionInput(client, output), StandardCharsets.UTF_8);
+        try (BufferedReader reader = new BufferedReader(decoder, READ_BUFFER_CHARS)) {
+            session.run(reader);
+        } catch (IOException | UncheckedIOException e) {
+            // The client hung up, or the session failed and there is no one left to tell.
+        } finally {
+            SessionConsole.unbind();
+            clients.remove(client);
+        }
+    }
+}
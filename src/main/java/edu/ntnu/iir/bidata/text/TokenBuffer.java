@@ -0,0 +1,98 @@
+package edu.ntnu.iir.bidata.text;
+
+import java.util.Arrays;
+
+/**
+ * Reusable list of token boundaries within one text, filled by {@link Tokenizer}.
+ * <p>
+ * Only the start and end offsets of each token are stored, in one growing {@code int} array,
+ * so tokenizing a text into a buffer that is already large enough allocates nothing.
+ * Token strings are only created when asked for.
+ */
+public final class TokenBuffer {
+
+    private CharSequence text = "";
+    private int[] bounds = new int[64];
+    private int size;
+
+    /**
+     * Retrieves the text the tokens were read from.
+     *
+     * @return The tokenized text.
+     */
+    public CharSequence text() {
+        return text;
+    }
+
+    /**
+     * Retrieves the number of tokens.
+     *
+     * @return Number of tokens.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Retrieves the offset of the first character of a token.
+     *
+     * @param index Token number, starting at 0.
+     * @return Start offset in the text, inclusive.
+     * @throws IndexOutOfBoundsException if index is outside the buffer.
+     */
+    public int start(int index) {
+        return bounds[checkIndex(index) * 2];
+    }
+
+    /**
+     * Retrieves the offset after the last character of a token.
+     *
+     * @param index Token number, starting at 0.
+     * @return End offset in the text, exclusive.
+     * @throws IndexOutOfBoundsException if index is outside the buffer.
+     */
+    public int end(int index) {
+        return bounds[checkIndex(index) * 2 + 1];
+    }
+
+    /**
+     * Creates a string holding a token.
+     *
+     * @param index Token number, starting at 0.
+     * @return The token.
+     * @throws IndexOutOfBoundsException if index is outside the buffer.
+     */
+    public String token(int index) {
+        return text.subSequence(start(index), end(index)).toString();
+    }
+
+    /**
+     * Creates a string holding a token normalized the way words are counted and indexed.
+     *
+     * @param index Token number, starting at 0.
+     * @return The token in lower case.
+     * @throws IndexOutOfBoundsException if index is outside the buffer.
+     */
+    public String normalizedToken(int index) {
+        return token(index).toLowerCase();
+    }
+
+    void reset(CharSequence text) {
+        this.text = text;
+        this.size = 0;
+    }
+
+    void add(int start, int end) {
+        if (size * 2 == bounds.length) bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        bounds[size * 2] = start;
+        bounds[size * 2 + 1] = end;
+        size++;
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + size);
+        }
+        return index;
+    }
+}
@@ -0,0 +1,122 @@
+package edu.ntnu.iir.bidata.text;
+
+/**
+ * Splits text into tokens in a single pass, without regular expressions.
+ * <p>
+ * Two kinds of tokens are supported:
+ * <ul>
+ *   <li>{@link Mode#WORDS}: runs of letters and digits. An apostrophe or hyphen between two
+ *       letters or digits stays inside the word, so "don't" and "well-known" are one word each.
+ *       All other punctuation and whitespace separates words. Used for counting and indexing.</li>
+ *   <li>{@link Mode#WHITESPACE}: runs of characters that are not whitespace, punctuation included.
+ *       Used for the page word limit and for laying out page text.</li>
+ * </ul>
+ * Token boundaries are written into a {@link TokenBuffer}. Each thread has one buffer of its own
+ * that is reused by {@link #tokenize(CharSequence, Mode)}; its contents are only valid until the next
+ * call on the same thread, so callers must be done with the tokens before tokenizing again.
+ */
+public final class Tokenizer {
+
+    /**
+     * What counts as a token.
+     */
+    public enum Mode {
+        WORDS,
+        WHITESPACE
+    }
+
+    private static final ThreadLocal<TokenBuffer> BUFFERS = ThreadLocal.withInitial(TokenBuffer::new);
+
+    private Tokenizer() {
+    }
+
+    /**
+     * Tokenizes a text into the buffer of the current thread.
+     *
+     * @param text Text to tokenize. Null is treated as empty.
+     * @param mode What counts as a token.
+     * @return The buffer of the current thread, holding the tokens of the text.
+     */
+    public static TokenBuffer tokenize(CharSequence text, Mode mode) {
+        return tokenize(text, mode, BUFFERS.get());
+    }
+
+    /**
+     * Tokenizes a text into a given buffer, replacing its contents.
+     *
+     * @param text   Text to tokenize. Null is treated as empty.
+     * @param mode   What counts as a token.
+     * @param buffer Buffer to fill.
+     * @return The given buffer.
+     */
+    public static TokenBuffer tokenize(CharSequence text, Mode mode, TokenBuffer buffer) {
+        CharSequence source = text == null ? "" : text;
+        buffer.reset(source);
+        int length = source.length();
+        int position = 0;
+        while (position < length) {
+            int start = skipSeparators(source, position, mode);
+            if (start == length) break;
+            int end = tokenEnd(source, start, mode);
+            buffer.add(start, end);
+            position = end;
+        }
+        return buffer;
+    }
+
+    /**
+     * Counts the tokens in a text without recording their boundaries.
+     *
+     * @param text Text to count. Null is treated as empty.
+     * @param mode What counts as a token.
+     * @return Number of tokens.
+     */
+    public static int count(CharSequence text, Mode mode) {
+        if (text == null) return 0;
+        int length = text.length();
+        int count = 0;
+        int position = 0;
+        while (position < length) {
+            int start = skipSeparators(text, position, mode);
+            if (start == length) break;
+            position = tokenEnd(text, start, mode);
+            count++;
+        }
+        return count;
+    }
+
+    private static int skipSeparators(CharSequence text, int position, Mode mode) {
+        int length = text.length();
+        while (position < length) {
+            int codePoint = Character.codePointAt(text, position);
+            if (isTokenStart(codePoint, mode)) return position;
+            position += Character.charCount(codePoint);
+        }
+        return length;
+    }
+
+    private static int tokenEnd(CharSequence text, int start, Mode mode) {
+        int length = text.length();
+        int position = start;
+        while (position < length) {
+            int codePoint = Character.codePointAt(text, position);
+            int next = position + Character.charCount(codePoint);
+            if (mode == Mode.WHITESPACE) {
+                if (Character.isWhitespace(codePoint)) return position;
+            } else if (!Character.isLetterOrDigit(codePoint)) {
+                boolean joins = (codePoint == '\'' || codePoint == '-' || codePoint == '’')
+                        && next < length
+                        && Character.isLetterOrDigit(Character.codePointAt(text, next));
+                if (!joins) return position;
+            }
+            position = next;
+        }
+        return length;
+    }
+
+    private static boolean isTokenStart(int codePoint, Mode mode) {
+        return mode == Mode.WHITESPACE
+                ? !Character.isWhitespace(codePoint)
+                : Character.isLetterOrDigit(codePoint);
+    }
+}
@@ -0,0 +1,104 @@
+package edu.ntnu.iir.bidata.text;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dictionary from normalized words to dense integer ids, shared by the whole application.
+ * <p>
+ * Each distinct word is stored once and gets the next free id, starting at 0, the first time it
+ * is seen. Ids are never reused, so word counts and indexes can key on ids instead of keeping their
+ * own copies of the words. Looking up an id is lock-free; only assigning a new id takes a lock.
+ */
+public final class Vocabulary {
+
+    private static final Vocabulary SHARED = new Vocabulary();
+
+    /**
+     * Id returned by {@link #lookup(String)} for words that have no id.
+     */
+    public static final int UNKNOWN = -1;
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] words = new String[1024];
+    private int size;
+
+    /**
+     * Creates an empty vocabulary. Most code should use {@link #shared()}.
+     */
+    public Vocabulary() {
+    }
+
+    /**
+     * Retrieves the vocabulary shared by all diary entries, authors and indexes.
+     *
+     * @return The shared vocabulary.
+     */
+    public static Vocabulary shared() {
+        return SHARED;
+    }
+
+    /**
+     * Retrieves the id of a word, assigning a new id if the word has not been seen before.
+     *
+     * @param word Normalized word.
+     * @return The id of the word.
+     * @throws IllegalArgumentException if word is null or blank.
+     */
+    public int idOf(String word) {
+        if (word == null || word.isBlank()) throw new IllegalArgumentException("Word cannot be null or empty");
+        Integer id = ids.get(word);
+        return id != null ? id : assign(word);
+    }
+
+    /**
+     * Retrieves the id of a word without assigning one, so that queries do not grow the vocabulary.
+     *
+     * @param word Normalized word.
+     * @return The id of the word, or {@link #UNKNOWN} if the word has no id.
+     */
+    public int lookup(String word) {
+        if (word == null) return UNKNOWN;
+        Integer id = ids.get(word);
+        return id != null ? id : UNKNOWN;
+    }
+
+    /**
+     * Retrieves the word with an id.
+     *
+     * @param id Id of the word.
+     * @return The word.
+     * @throws IllegalArgumentException if no word has the id.
+     */
+    public String word(int id) {
+        String[] current = words;
+        String word = id >= 0 && id < current.length ? current[id] : null;
+        if (word == null) throw new IllegalArgumentException("No word has id " + id);
+        return word;
+    }
+
+    /**
+     * Retrieves the number of words with an id.
+     *
+     * @return Number of words.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private synchronized int assign(String word) {
+        Integer existing = ids.get(word);
+        if (existing != null) return existing;
+
+        int id = size++;
+        String[] current = words;
+        if (id == current.length) {
+            current = Arrays.copyOf(current, current.length * 2);
+        }
+        current[id] = word;
+        words = current;
+        ids.put(word, id);
+        return id;
+    }
+}
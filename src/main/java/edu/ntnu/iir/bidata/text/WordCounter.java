@@ -0,0 +1,226 @@
+package edu.ntnu.iir.bidata.text;
+
+import java.util.Arrays;
+
+/**
+ * Counts occurrences of words without boxing.
+ * <p>
+ * Words are identified by their {@link Vocabulary} id.
+ * Ids and counts are kept in two parallel arrays using open addressing with linear probing.
+ * Incrementing or decrementing a count updates the {@code long} slot in place,
+ * so counting allocates nothing once a word has been seen.
+ * A word whose count drops to zero is removed.
+ * <p>
+ * A counter is not thread-safe; share it behind the lock its writers hold. {@link #get(int)} reads each table
+ * once, so an optimistic reader racing a writer gets a wrong count or an exception it can retry on, never a hang.
+ */
+public class WordCounter {
+
+    /**
+     * Receives one counted word.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * @param wordId Vocabulary id of the word.
+         * @param count  Number of occurrences, always greater than 0.
+         */
+        void accept(int wordId, long count);
+    }
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_LOAD_PERCENT = 60;
+    private static final int EMPTY = -1;
+
+    private int[] words;
+    private long[] counts;
+    private int size;
+
+    /**
+     * Creates an empty counter.
+     */
+    public WordCounter() {
+        this.words = emptySlots(INITIAL_CAPACITY);
+        this.counts = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Retrieves the count of a word.
+     *
+     * @param wordId Vocabulary id of the word to look up.
+     * @return The count, or 0 if the word has not been counted.
+     */
+    public long get(int wordId) {
+        if (wordId < 0) return 0L;
+        int[] slots = words;
+        long[] values = counts;
+        int slot = find(slots, wordId);
+        return slots[slot] == EMPTY ? 0L : values[slot];
+    }
+
+    /**
+     * Adds one to the count of a word.
+     *
+     * @param wordId Vocabulary id of the word to count.
+     * @return The new count.
+     */
+    public long increment(int wordId) {
+        return add(wordId, 1L);
+    }
+
+    /**
+     * Subtracts one from the count of a word, removing the word when the count reaches zero.
+     *
+     * @param wordId Vocabulary id of the word to uncount.
+     * @return The new count.
+     */
+    public long decrement(int wordId) {
+        return add(wordId, -1L);
+    }
+
+    /**
+     * Adds a delta to the count of a word.
+     * The word is removed when its count drops to zero or below.
+     * A negative delta for a word that is not counted is ignored.
+     *
+     * @param wordId Vocabulary id of the word to count.
+     * @param delta  Amount to add, may be negative.
+     * @return The new count.
+     * @throws IllegalArgumentException if wordId is negative.
+     */
+    public long add(int wordId, long delta) {
+        if (wordId < 0) throw new IllegalArgumentException("Word id cannot be negative");
+        int slot = find(words, wordId);
+        if (words[slot] == EMPTY) {
+            if (delta <= 0L) return 0L;
+            words[slot] = wordId;
+            counts[slot] = delta;
+            if (++size * 100 > words.length * MAX_LOAD_PERCENT) resize(words.length * 2);
+            return delta;
+        }
+
+        long count = counts[slot] + delta;
+        if (count > 0L) {
+            counts[slot] = count;
+            return count;
+        }
+        removeSlot(slot);
+        return 0L;
+    }
+
+    /**
+     * Retrieves the number of distinct words counted.
+     *
+     * @return Number of distinct words.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether no words are counted.
+     *
+     * @return true if the counter is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Performs an action for every counted word and its count, in no particular order.
+     *
+     * @param visitor Action to perform.
+     */
+    public void forEach(Visitor visitor) {
+        for (int slot = 0; slot < words.length; slot++) {
+            if (words[slot] != EMPTY) visitor.accept(words[slot], counts[slot]);
+        }
+    }
+
+    /**
+     * Creates an independent copy of the counter.
+     *
+     * @return A counter with the same words and counts.
+     */
+    public WordCounter copy() {
+        WordCounter copy = new WordCounter();
+        copy.words = words.clone();
+        copy.counts = counts.clone();
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Removes all words.
+     */
+    public void clear() {
+        Arrays.fill(words, EMPTY);
+        Arrays.fill(counts, 0L);
+        size = 0;
+    }
+
+    /**
+     * Finds the slot holding a word, or the empty slot where it would be inserted.
+     */
+    private static int find(int[] words, int wordId) {
+        int mask = words.length - 1;
+        int slot = mix(wordId) & mask;
+        while (words[slot] != EMPTY && words[slot] != wordId) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Removes a slot and shifts later entries of the same probe run back,
+     * so lookups never need tombstones.
+     */
+    private void removeSlot(int slot) {
+        int mask = words.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (words[next] != EMPTY) {
+            int home = mix(words[next]) & mask;
+            boolean canMove = hole <= next
+                    ? home <= hole || home > next
+                    : home <= hole && home > next;
+            if (canMove) {
+                words[hole] = words[next];
+                counts[hole] = counts[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        words[hole] = EMPTY;
+        counts[hole] = 0L;
+        size--;
+    }
+
+    private void resize(int capacity) {
+        int[] oldWords = words;
+        long[] oldCounts = counts;
+        words = emptySlots(capacity);
+        counts = new long[capacity];
+        for (int slot = 0; slot < oldWords.length; slot++) {
+            if (oldWords[slot] != EMPTY) {
+                int target = find(words, oldWords[slot]);
+                words[target] = oldWords[slot];
+                counts[target] = oldCounts[slot];
+            }
+        }
+    }
+
+    private static int[] emptySlots(int capacity) {
+        int[] slots = new int[capacity];
+        Arrays.fill(slots, EMPTY);
+        return slots;
+    }
+
+    /**
+     * Spreads dense, sequential ids over the table.
+     */
+    private static int mix(int wordId) {
+        int hash = wordId * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+}
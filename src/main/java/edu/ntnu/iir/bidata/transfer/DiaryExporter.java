@@ -0,0 +1,157 @@
+package edu.ntnu.iir.bidata.transfer;
+
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.models.Page;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.format.DateTimeFormatter;
+import java.util.Locale;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Writes diary entries to Markdown or plain text files, either all in one file or one file per entry.
+ * <p>
+ * Entries are written one page at a time straight to a {@link FileChannel}. Page text is handed to the channel
+ * by the page body: text in a {@link edu.ntnu.iir.bidata.persistence.MappedPageStore} goes from the store file
+ * with {@link FileChannel#transferTo} without being decoded or copied to the heap, compressed text is inflated
+ * to its UTF-8 bytes, and only text on the heap is encoded. Only the titles and times around the pages are built
+ * as strings, so an export of the whole corpus uses the same small amount of memory as an export of one entry.
+ */
+public final class DiaryExporter {
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final int MAX_NAME_CHARS = 60;
+
+    private final ExportFormat format;
+
+    /**
+     * Creates an exporter.
+     *
+     * @param format Format of the files written.
+     * @throws IllegalArgumentException if format is null.
+     */
+    public DiaryExporter(ExportFormat format) {
+        if (format == null) throw new IllegalArgumentException("Format cannot be null");
+        this.format = format;
+    }
+
+    /**
+     * Writes entries to one file, in the order given, replacing the file if it exists.
+     *
+     * @param entries Entries to export.
+     * @param file    File to write.
+     * @return What was written.
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if entries or file is null.
+     */
+    public ExportReport exportToFile(Iterable<DiaryEntry> entries, Path file) throws IOException {
+        if (entries == null) throw new IllegalArgumentException("Entries cannot be null");
+        if (file == null) throw new IllegalArgumentException("File cannot be null");
+
+        long start = System.nanoTime();
+        createParent(file);
+        long entryCount = 0;
+        long pageCount = 0;
+        long bytes;
+        try (FileChannel channel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            for (DiaryEntry entry : entries) {
+                if (entryCount > 0) write(channel, format == ExportFormat.MARKDOWN ? "\n---\n\n" : "\n\n");
+                pageCount += writeEntry(entry, channel);
+                entryCount++;
+            }
+            bytes = channel.position();
+        }
+        return new ExportReport(entryCount, pageCount, 1, bytes, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Writes each entry to a file of its own in a directory. Files are named by their place in the order given,
+     * the author and the entry title, such as {@code 0001 Ola Nordmann - Summer.md}, and replace files with the
+     * same name.
+     *
+     * @param entries   Entries to export.
+     * @param directory Directory to write to, created if missing.
+     * @return What was written.
+     * @throws IOException if a file cannot be written.
+     * @throws IllegalArgumentException if entries or directory is null.
+     */
+    public ExportReport exportToDirectory(Iterable<DiaryEntry> entries, Path directory) throws IOException {
+        if (entries == null) throw new IllegalArgumentException("Entries cannot be null");
+        if (directory == null) throw new IllegalArgumentException("Directory cannot be null");
+
+        long start = System.nanoTime();
+        Files.createDirectories(directory);
+        long entryCount = 0;
+        long pageCount = 0;
+        long bytes = 0;
+        for (DiaryEntry entry : entries) {
+            entryCount++;
+            Path file = directory.resolve(fileName(entryCount, entry));
+            try (FileChannel channel = FileChannel.open(file, CREATE, WRITE, TRUNCATE_EXISTING)) {
+                pageCount += writeEntry(entry, channel);
+                bytes += channel.position();
+            }
+        }
+        return new ExportReport(entryCount, pageCount, entryCount, bytes, Duration.ofNanos(System.nanoTime() - start));
+    }
+
+    /**
+     * Writes one entry to a channel.
+     *
+     * @param entry  Entry to write.
+     * @param target Channel to write to.
+     * @return Number of pages written.
+     * @throws IOException if the channel cannot be written.
+     * @throws IllegalArgumentException if entry or target is null.
+     */
+    public int writeEntry(DiaryEntry entry, WritableByteChannel target) throws IOException {
+        if (entry == null) throw new IllegalArgumentException("Entry cannot be null");
+        if (target == null) throw new IllegalArgumentException("Target cannot be null");
+
+        String byline = entry.getAuthor().getName() + ", created " + TIME.format(entry.getTimeCreated())
+                + ", changed " + TIME.format(entry.getTimeChanged());
+        if (format == ExportFormat.MARKDOWN) {
+            write(target, "# " + entry.getEntryTitle() + "\n\n*" + byline + "*\n");
+        } else {
+            write(target, entry.getEntryTitle() + "\n" + "=".repeat(entry.getEntryTitle().length()) + "\n" + byline + "\n");
+        }
+
+        int pages = 0;
+        for (Page page : entry.getPages()) {
+            write(target, format == ExportFormat.MARKDOWN ? "\n## " + page.getTitle() + "\n\n" : "\n" + page.getTitle() + "\n\n");
+            page.getBody().transferTo(target);
+            write(target, "\n");
+            pages++;
+        }
+        return pages;
+    }
+
+    /**
+     * Builds the name of the file of an entry, keeping letters, digits, spaces, dots and dashes of the author
+     * and title.
+     */
+    private String fileName(long number, DiaryEntry entry) {
+        String name = (entry.getAuthor().getName() + " - " + entry.getEntryTitle())
+                .replaceAll("[^\\p{L}\\p{N} .\\-]", "_").strip();
+        if (name.length() > MAX_NAME_CHARS) name = name.substring(0, MAX_NAME_CHARS).strip();
+        return String.format(Locale.ROOT, "%04d %s%s", number, name, format.getExtension());
+    }
+
+    private static void write(WritableByteChannel target, String text) throws IOException {
+        ByteBuffer utf8 = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        while (utf8.hasRemaining()) target.write(utf8);
+    }
+
+    private static void createParent(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) Files.createDirectories(parent);
+    }
+}
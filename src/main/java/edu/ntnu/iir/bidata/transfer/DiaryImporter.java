@@ -0,0 +1,454 @@
+package edu.ntnu.iir.bidata.transfer;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.models.PageBody;
+import edu.ntnu.iir.bidata.models.PageBodyPool;
+import edu.ntnu.iir.bidata.registers.AuthorRegister;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static edu.ntnu.iir.bidata.ui.DiaryUiUtils.STD_MAX_AMOUNT_WORDS;
+
+/**
+ * Streams authors, diary entries and pages from a JSONL or CSV file into an {@link AuthorRegister} and a
+ * {@link DiaryEntryRegister}, see {@link ImportFormat} for the fields of a row.
+ * <p>
+ * The calling thread reads the input and cuts it into chunks of rows. Chunks are parsed on a pool of worker
+ * threads, which also tokenize the page text: each text is interned in the {@link PageBodyPool} and its words
+ * and word counts worked out there, so adding the page afterwards finds them ready. The parsed chunks are
+ * applied in input order on the calling thread, which owns the registers. New entries are collected and added
+ * to the entry register in batches with {@link DiaryEntryRegister#addDiaryEntries}, once their pages from
+ * following rows are in, so a journal listening to the register writes one record per entry instead of one per
+ * page. Rows for an entry already in the register add pages to it.
+ * <p>
+ * Only a few chunks are read ahead of the rows being applied, and only one batch of entries is held back, so
+ * the memory used by the import itself does not grow with the size of the input. Where the imported text goes
+ * is up to the register; a register with a page store keeps it off the heap.
+ * <p>
+ * A row that cannot be read or added is skipped and counted in the {@link ImportReport}; the import goes on.
+ * Progress is reported to an optional listener while the import runs.
+ */
+public final class DiaryImporter {
+
+    /**
+     * Default number of new entries added to the register at a time.
+     */
+    public static final int DEFAULT_BATCH_ENTRIES = 256;
+
+    /**
+     * Default number of rows parsed by a worker at a time.
+     */
+    public static final int DEFAULT_CHUNK_ROWS = 512;
+
+    /**
+     * Most rejected rows described in a report.
+     */
+    public static final int MAX_PROBLEMS = 100;
+
+    private static final int CHUNK_CHARS = 1024 * 1024;
+    private static final AtomicInteger WORKER_NUMBER = new AtomicInteger();
+
+    private final AuthorRegister authorRegister;
+    private final DiaryEntryRegister diaryEntryRegister;
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    private int batchEntries = DEFAULT_BATCH_ENTRIES;
+    private int chunkRows = DEFAULT_CHUNK_ROWS;
+    private Duration progressInterval = Duration.ofSeconds(1);
+    private Consumer<ImportProgress> progressListener;
+
+    /**
+     * A row as read, before parsing.
+     */
+    private record RawRow(long line, String text) {
+    }
+
+    /**
+     * A parsed chunk: its rows, the rows that could not be parsed, and the page bodies tokenized for it,
+     * which the chunk holds a reference to until its pages are added.
+     */
+    private record ParsedChunk(List<ImportRow> rows, List<String> problems, List<PageBody> bodies) {
+    }
+
+    /**
+     * Creates an importer into a pair of registers.
+     *
+     * @param authorRegister     Register to add authors to.
+     * @param diaryEntryRegister Register to add diary entries to.
+     * @throws IllegalArgumentException if a register is null.
+     */
+    public DiaryImporter(AuthorRegister authorRegister, DiaryEntryRegister diaryEntryRegister) {
+        if (authorRegister == null) throw new IllegalArgumentException("Author register cannot be null");
+        if (diaryEntryRegister == null) throw new IllegalArgumentException("Diary entry register cannot be null");
+        this.authorRegister = authorRegister;
+        this.diaryEntryRegister = diaryEntryRegister;
+    }
+
+    /**
+     * Sets the number of worker threads parsing and tokenizing rows. Defaults to the number of processors.
+     *
+     * @param parallelism Number of workers.
+     * @throws IllegalArgumentException if parallelism is less than 1.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Sets how many new entries are added to the register at a time.
+     *
+     * @param batchEntries Entries per batch.
+     * @throws IllegalArgumentException if batchEntries is less than 1.
+     */
+    public void setBatchEntries(int batchEntries) {
+        if (batchEntries < 1) throw new IllegalArgumentException("Batch size must be at least 1");
+        this.batchEntries = batchEntries;
+    }
+
+    /**
+     * Sets how many rows a worker parses at a time. A chunk also ends after about a million characters.
+     *
+     * @param chunkRows Rows per chunk.
+     * @throws IllegalArgumentException if chunkRows is less than 1.
+     */
+    public void setChunkRows(int chunkRows) {
+        if (chunkRows < 1) throw new IllegalArgumentException("Chunk size must be at least 1 row");
+        this.chunkRows = chunkRows;
+    }
+
+    /**
+     * Sets a listener told how far the import has come, at most once per interval and once at the end.
+     * It is called on the thread running the import.
+     *
+     * @param listener Progress listener, or null for none.
+     * @param interval Least time between reports.
+     * @throws IllegalArgumentException if interval is null or negative.
+     */
+    public void setProgressListener(Consumer<ImportProgress> listener, Duration interval) {
+        if (interval == null || interval.isNegative())
+            throw new IllegalArgumentException("Interval cannot be null or negative");
+        this.progressListener = listener;
+        this.progressInterval = interval;
+    }
+
+    /**
+     * Imports a file, in the format given by its extension.
+     *
+     * @param file File to import.
+     * @return What was imported.
+     * @throws IOException if the file cannot be read.
+     * @throws IllegalArgumentException if file is null or its format is not known.
+     */
+    public ImportReport importFile(Path file) throws IOException {
+        ImportFormat format = ImportFormat.of(file);
+        try (InputStream in = Files.newInputStream(file)) {
+            return importFrom(in, format, Files.size(file));
+        }
+    }
+
+    /**
+     * Imports rows from a stream of UTF-8 text. The stream is read to the end but not closed.
+     *
+     * @param in         Input to import.
+     * @param format     Format of the input.
+     * @param totalBytes Size of the input for progress reports, or -1 if it is not known.
+     * @return What was imported.
+     * @throws IOException if the input cannot be read, or the import is interrupted.
+     * @throws IllegalArgumentException if in or format is null.
+     */
+    public ImportReport importFrom(InputStream in, ImportFormat format, long totalBytes) throws IOException {
+        if (in == null) throw new IllegalArgumentException("Input cannot be null");
+        if (format == null) throw new IllegalArgumentException("Format cannot be null");
+
+        ExecutorService workers = Executors.newFixedThreadPool(parallelism, task -> {
+            Thread thread = new Thread(task, "diary-import-" + WORKER_NUMBER.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        Run run = new Run(new CountingInputStream(in), format, totalBytes);
+        try {
+            run.readAll(workers);
+        } catch (IOException | RuntimeException | Error e) {
+            workers.shutdownNow();
+            try {
+                run.finish();
+            } catch (RuntimeException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            throw e;
+        }
+        workers.shutdown();
+        run.finish();
+        return run.report();
+    }
+
+    /**
+     * State of one import.
+     */
+    private final class Run {
+
+        private final CountingInputStream in;
+        private final ImportFormat format;
+        private final long totalBytes;
+        private final long startNanos = System.nanoTime();
+        private final ArrayDeque<Future<ParsedChunk>> inFlight = new ArrayDeque<>();
+        private final List<DiaryEntry> batch = new ArrayList<>();
+        private final Map<Author, Map<String, DiaryEntry>> batchTitles = new HashMap<>();
+        private final List<String> problems = new ArrayList<>();
+        private List<String> header;
+        private long rows;
+        private long rowsApplied;
+        private long authorsAdded;
+        private long entriesAdded;
+        private long pagesAdded;
+        private long rowsRejected;
+        private long lastProgressNanos = startNanos;
+
+        Run(CountingInputStream in, ImportFormat format, long totalBytes) {
+            this.in = in;
+            this.format = format;
+            this.totalBytes = totalBytes;
+        }
+
+        /**
+         * Reads the input into chunks, hands them to the workers, and applies them as they are done,
+         * keeping at most two chunks per worker in flight.
+         */
+        void readAll(ExecutorService workers) throws IOException {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 1 << 16);
+            List<RawRow> chunk = new ArrayList<>();
+            int chunkChars = 0;
+            StringBuilder record = new StringBuilder();
+            boolean insideQuotes = false;
+            long recordLine = 0;
+            long line = 0;
+            for (String text; (text = reader.readLine()) != null; ) {
+                line++;
+                if (format == ImportFormat.CSV) {
+                    if (record.isEmpty() && !insideQuotes) recordLine = line;
+                    else record.append('\n');
+                    record.append(text);
+                    insideQuotes = ImportRow.insideQuotesAfter(insideQuotes, text);
+                    if (insideQuotes) continue;
+                    text = record.toString();
+                    record.setLength(0);
+                } else {
+                    recordLine = line;
+                }
+                if (text.isBlank()) continue;
+                if (format == ImportFormat.CSV && header == null) {
+                    header = ImportRow.parseCsvRecord(text).stream().map(String::strip).toList();
+                    continue;
+                }
+
+                chunk.add(new RawRow(recordLine, text));
+                chunkChars += text.length();
+                if (chunk.size() >= chunkRows || chunkChars >= CHUNK_CHARS) {
+                    submit(workers, chunk);
+                    chunk = new ArrayList<>();
+                    chunkChars = 0;
+                }
+            }
+            if (!record.isEmpty()) chunk.add(new RawRow(recordLine, record.toString()));
+            if (!chunk.isEmpty()) submit(workers, chunk);
+            while (!inFlight.isEmpty()) apply(inFlight.poll());
+        }
+
+        private void submit(ExecutorService workers, List<RawRow> chunk) throws IOException {
+            List<String> columns = header;
+            inFlight.add(workers.submit(() -> parse(chunk, columns)));
+            rows += chunk.size();
+            if (inFlight.size() > 2 * parallelism) apply(inFlight.poll());
+        }
+
+        /**
+         * Parses a chunk on a worker, and tokenizes its page text into shared page bodies.
+         */
+        private ParsedChunk parse(List<RawRow> chunk, List<String> columns) {
+            List<ImportRow> parsed = new ArrayList<>(chunk.size());
+            List<String> failures = new ArrayList<>();
+            List<PageBody> bodies = new ArrayList<>();
+            for (RawRow raw : chunk) {
+                try {
+                    ImportRow row = ImportRow.of(raw.line(), fields(raw.text(), columns));
+                    if (row.text() != null) {
+                        PageBody body = PageBodyPool.shared().intern(row.text());
+                        bodies.add(body);
+                        body.prepare();
+                    }
+                    parsed.add(row);
+                } catch (IllegalArgumentException e) {
+                    failures.add("Line " + raw.line() + ": " + e.getMessage());
+                }
+            }
+            return new ParsedChunk(parsed, failures, bodies);
+        }
+
+        private Map<String, String> fields(String text, List<String> columns) {
+            if (format == ImportFormat.JSONL) return ImportRow.parseJsonObject(text);
+
+            List<String> values = ImportRow.parseCsvRecord(text);
+            if (values.size() > columns.size())
+                throw new IllegalArgumentException("Row has " + values.size() + " values but the header names "
+                        + columns.size());
+            Map<String, String> fields = new HashMap<>();
+            for (int index = 0; index < values.size(); index++) fields.put(columns.get(index), values.get(index));
+            return fields;
+        }
+
+        private void apply(Future<ParsedChunk> pending) throws IOException {
+            ParsedChunk chunk;
+            try {
+                chunk = pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Import was interrupted");
+            } catch (ExecutionException e) {
+                throw new IOException("Could not parse rows", e.getCause());
+            }
+
+            try {
+                chunk.problems().forEach(this::reject);
+                for (ImportRow row : chunk.rows()) {
+                    try {
+                        add(row);
+                    } catch (IllegalArgumentException e) {
+                        reject("Line " + row.line() + ": " + e.getMessage());
+                    }
+                }
+            } finally {
+                chunk.bodies().forEach(PageBodyPool.shared()::release);
+            }
+            rowsApplied += chunk.rows().size() + chunk.problems().size();
+            reportProgress(false);
+        }
+
+        /**
+         * Adds one row to the registers: its author if new, its entry if new, and its page.
+         */
+        private void add(ImportRow row) {
+            String name = authorRegister.constructName(row.firstName(), row.lastName(), row.nickname());
+            Author author = authorRegister.getAuthor(name).orElse(null);
+            if (author == null) {
+                author = new Author(row.firstName(), row.lastName(), row.nickname());
+                authorRegister.addAuthor(author);
+                authorsAdded++;
+            }
+            if (row.entry() == null) return;
+
+            String title = row.entry().strip();
+            Map<String, DiaryEntry> titles = batchTitles.computeIfAbsent(author, key -> new HashMap<>());
+            DiaryEntry entry = titles.get(title.toLowerCase());
+            if (entry == null) entry = diaryEntryRegister.findDiaryEntryFromAuthorByTitle(author, title).orElse(null);
+            boolean isNew = entry == null;
+            if (isNew) {
+                LocalDateTime created = row.created() != null ? row.created() : LocalDateTime.now();
+                int maxWords = row.maxWords() > 0 ? row.maxWords() : STD_MAX_AMOUNT_WORDS;
+                entry = new DiaryEntry(author, maxWords, title, created);
+            }
+
+            if (row.text() != null) {
+                String pageTitle = row.page() != null ? row.page() : "Page " + (entry.getNmbPages() + 1);
+                entry.addPage(pageTitle, row.text());
+                pagesAdded++;
+            }
+            if (isNew) {
+                titles.put(title.toLowerCase(), entry);
+                batch.add(entry);
+            }
+            LocalDateTime changed = row.changed() != null ? row.changed() : row.created();
+            if (changed != null) entry.setTimeChanged(changed);
+            if (batch.size() >= batchEntries) flushBatch();
+        }
+
+        private void flushBatch() {
+            if (batch.isEmpty()) return;
+            List<DiaryEntry> added = List.copyOf(batch);
+            batch.clear();
+            batchTitles.clear();
+            diaryEntryRegister.addDiaryEntries(added);
+            entriesAdded += added.size();
+        }
+
+        private void reject(String problem) {
+            rowsRejected++;
+            if (problems.size() < MAX_PROBLEMS) problems.add(problem);
+        }
+
+        /**
+         * Adds the last batch, also when the import stopped early, so every row applied is in the registers.
+         */
+        void finish() {
+            for (Future<ParsedChunk> pending : inFlight) pending.cancel(true);
+            inFlight.clear();
+            flushBatch();
+            reportProgress(true);
+        }
+
+        private void reportProgress(boolean last) {
+            long now = System.nanoTime();
+            if (progressListener == null || (!last && now - lastProgressNanos < progressInterval.toNanos())) return;
+            lastProgressNanos = now;
+            progressListener.accept(new ImportProgress(rowsApplied, in.count(), totalBytes,
+                    Duration.ofNanos(now - startNanos)));
+        }
+
+        ImportReport report() {
+            return new ImportReport(rows, authorsAdded, entriesAdded, pagesAdded, rowsRejected, problems,
+                    Duration.ofNanos(System.nanoTime() - startNanos));
+        }
+    }
+
+    /**
+     * Counts the bytes read through it, for progress reports.
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private volatile long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int next = super.read();
+            if (next >= 0) count++;
+            return next;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) count += read;
+            return read;
+        }
+
+        long count() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package edu.ntnu.iir.bidata.transfer;
+
+/**
+ * File formats written by the {@link DiaryExporter}.
+ */
+public enum ExportFormat {
+    /**
+     * Markdown: the entry title as a heading, the author and times in italics, and a heading per page.
+     */
+    MARKDOWN(".md"),
+    /**
+     * Plain text: the entry title underlined, the author and times on a line, and each page title on its own line.
+     */
+    PLAIN_TEXT(".txt");
+
+    private final String extension;
+
+    ExportFormat(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Retrieves the file name extension of the format.
+     *
+     * @return The extension, with its leading dot.
+     */
+    public String getExtension() {
+        return extension;
+    }
+}
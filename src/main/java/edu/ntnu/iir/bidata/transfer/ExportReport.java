@@ -0,0 +1,33 @@
+package edu.ntnu.iir.bidata.transfer;
+
+import java.time.Duration;
+
+/**
+ * Outcome of an export by the {@link DiaryExporter}.
+ *
+ * @param entries Entries written.
+ * @param pages   Pages written.
+ * @param files   Files written.
+ * @param bytes   Bytes written, over all files.
+ * @param elapsed Time the export took.
+ */
+public record ExportReport(long entries, long pages, long files, long bytes, Duration elapsed) {
+
+    /**
+     * Creates a report.
+     *
+     * @throws IllegalArgumentException if elapsed is null.
+     */
+    public ExportReport {
+        if (elapsed == null) throw new IllegalArgumentException("Elapsed time cannot be null");
+    }
+
+    /**
+     * Retrieves the average number of bytes written per second.
+     *
+     * @return Bytes per second, or 0 if no time passed.
+     */
+    public double bytesPerSecond() {
+        return ImportReport.perSecond(bytes, elapsed);
+    }
+}
@@ -0,0 +1,42 @@
+package edu.ntnu.iir.bidata.transfer;
+
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * File formats read by the {@link DiaryImporter}.
+ * <p>
+ * Both formats hold one row per line, or per record for CSV, with the same fields: {@code firstName},
+ * {@code lastName} and {@code nickname} name the author, {@code entry} the entry title, {@code created} and
+ * {@code changed} are ISO dates or date-times, {@code maxWords} is the word limit of a new entry, and
+ * {@code page} and {@code text} are one page. A row without an entry only adds the author, and a row without
+ * text only adds the entry. Fields that are missing or empty are left out.
+ */
+public enum ImportFormat {
+    /**
+     * One JSON object per line, with string or number values.
+     */
+    JSONL,
+    /**
+     * Comma-separated values with a header row naming the fields, quoted the usual way.
+     * Quoted values may span lines.
+     */
+    CSV;
+
+    /**
+     * Picks the format of a file from its extension: {@code .jsonl}, {@code .ndjson} or {@code .json}
+     * for JSONL, and {@code .csv} for CSV.
+     *
+     * @param file File to import.
+     * @return The format.
+     * @throws IllegalArgumentException if file is null or has another extension.
+     */
+    public static ImportFormat of(Path file) {
+        if (file == null) throw new IllegalArgumentException("File cannot be null");
+
+        String name = String.valueOf(file.getFileName()).toLowerCase(Locale.ROOT);
+        if (name.endsWith(".jsonl") || name.endsWith(".ndjson") || name.endsWith(".json")) return JSONL;
+        if (name.endsWith(".csv")) return CSV;
+        throw new IllegalArgumentException("Cannot tell the format of " + file + ", expected .jsonl or .csv");
+    }
+}
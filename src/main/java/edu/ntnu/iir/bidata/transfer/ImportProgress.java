@@ -0,0 +1,33 @@
+package edu.ntnu.iir.bidata.transfer;
+
+import java.time.Duration;
+
+/**
+ * How far a running import has come, reported by the {@link DiaryImporter} while it reads.
+ *
+ * @param rows       Rows added to the registers or rejected so far.
+ * @param bytesRead  Bytes of input read so far. Reading runs a little ahead of the rows added.
+ * @param totalBytes Size of the input, or -1 if it is not known.
+ * @param elapsed    Time since the import started.
+ */
+public record ImportProgress(long rows, long bytesRead, long totalBytes, Duration elapsed) {
+
+    /**
+     * Retrieves the average number of rows handled per second.
+     *
+     * @return Rows per second, or 0 before any time has passed.
+     */
+    public double rowsPerSecond() {
+        return ImportReport.perSecond(rows, elapsed);
+    }
+
+    /**
+     * Retrieves the share of the input read.
+     *
+     * @return Share from 0 to 1, or -1 if the size of the input is not known.
+     */
+    public double fractionRead() {
+        if (totalBytes < 0) return -1;
+        return totalBytes == 0 ? 1 : Math.min(1.0, (double) bytesRead / totalBytes);
+    }
+}
@@ -0,0 +1,45 @@
+package edu.ntnu.iir.bidata.transfer;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of an import by the {@link DiaryImporter}.
+ *
+ * @param rows          Rows read, not counting a CSV header.
+ * @param authorsAdded  Authors added to the author register.
+ * @param entriesAdded  Entries added to the diary entry register.
+ * @param pagesAdded    Pages added, to new or existing entries.
+ * @param rowsRejected  Rows that could not be read or added, and were skipped.
+ * @param problems      Why rows were rejected, with their line numbers, for at most
+ *                      {@link DiaryImporter#MAX_PROBLEMS} rows.
+ * @param elapsed       Time the import took.
+ */
+public record ImportReport(long rows, long authorsAdded, long entriesAdded, long pagesAdded, long rowsRejected,
+                           List<String> problems, Duration elapsed) {
+
+    /**
+     * Creates a report.
+     *
+     * @throws IllegalArgumentException if problems or elapsed is null.
+     */
+    public ImportReport {
+        if (problems == null) throw new IllegalArgumentException("Problems cannot be null");
+        if (elapsed == null) throw new IllegalArgumentException("Elapsed time cannot be null");
+        problems = List.copyOf(problems);
+    }
+
+    /**
+     * Retrieves the average number of rows handled per second.
+     *
+     * @return Rows per second, or 0 if no time passed.
+     */
+    public double rowsPerSecond() {
+        return perSecond(rows, elapsed);
+    }
+
+    static double perSecond(long count, Duration elapsed) {
+        long nanos = elapsed.toNanos();
+        return nanos <= 0 ? 0 : count * 1e9 / nanos;
+    }
+}
@@ -0,0 +1,228 @@
+package edu.ntnu.iir.bidata.transfer;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * One row of an import, read from a JSONL line or a CSV record. Fields that were missing or empty are null,
+ * and maxWords is 0 when not given.
+ */
+record ImportRow(long line, String firstName, String lastName, String nickname, String entry,
+                 LocalDateTime created, LocalDateTime changed, int maxWords, String page, String text) {
+
+    private static final Pattern JSON_NUMBER = Pattern.compile("-?\\d+(\\.\\d+)?([eE][+-]?\\d+)?");
+
+    /**
+     * Creates a row from named fields.
+     *
+     * @throws IllegalArgumentException if a date or number cannot be read, or if the row names no author,
+     *                                  or has text but no entry.
+     */
+    static ImportRow of(long line, Map<String, String> fields) {
+        String firstName = field(fields, "firstName");
+        String lastName = field(fields, "lastName");
+        String nickname = field(fields, "nickname");
+        String entry = field(fields, "entry");
+        String text = field(fields, "text");
+        if (firstName == null && lastName == null && nickname == null)
+            throw new IllegalArgumentException("Row names no author");
+        if (entry == null && text != null) throw new IllegalArgumentException("Row has text but no entry");
+
+        String maxWords = field(fields, "maxWords");
+        int limit = 0;
+        if (maxWords != null) {
+            try {
+                limit = Integer.parseInt(maxWords);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("maxWords is not a number: " + maxWords);
+            }
+            if (limit <= 0) throw new IllegalArgumentException("maxWords must be greater than 0");
+        }
+        return new ImportRow(line, firstName, lastName, nickname, entry, time(fields, "created"),
+                time(fields, "changed"), limit, field(fields, "page"), text);
+    }
+
+    /**
+     * Reads a JSON object holding only string, number, boolean and null values, as found on a JSONL line.
+     *
+     * @throws IllegalArgumentException if the line is not such an object.
+     */
+    static Map<String, String> parseJsonObject(String line) {
+        JsonReader json = new JsonReader(line);
+        Map<String, String> fields = new HashMap<>();
+        json.expect('{');
+        if (!json.consume('}')) {
+            do {
+                String name = json.string();
+                json.expect(':');
+                fields.put(name, json.value());
+            } while (json.consume(','));
+            json.expect('}');
+        }
+        json.end();
+        return fields;
+    }
+
+    /**
+     * Splits a CSV record into its values. Quoted values may hold commas, line breaks and doubled quotes.
+     *
+     * @throws IllegalArgumentException if a quote is not closed, or is followed by something other than a comma.
+     */
+    static List<String> parseCsvRecord(String record) {
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        int index = 0;
+        while (true) {
+            if (index < record.length() && record.charAt(index) == '"') {
+                index++;
+                while (true) {
+                    if (index >= record.length()) throw new IllegalArgumentException("Quoted value is not closed");
+                    char next = record.charAt(index++);
+                    if (next != '"') {
+                        value.append(next);
+                    } else if (index < record.length() && record.charAt(index) == '"') {
+                        value.append('"');
+                        index++;
+                    } else {
+                        break;
+                    }
+                }
+                if (index < record.length() && record.charAt(index) != ',')
+                    throw new IllegalArgumentException("Unexpected character after quoted value at column " + (index + 1));
+            } else {
+                while (index < record.length() && record.charAt(index) != ',') value.append(record.charAt(index++));
+            }
+            values.add(value.toString());
+            value.setLength(0);
+            if (index >= record.length()) return values;
+            index++;
+        }
+    }
+
+    /**
+     * Follows the quotes of a CSV record read line by line, to tell whether a line break ends the record
+     * or is part of a quoted value.
+     *
+     * @param insideQuotes Whether the record was inside a quoted value before text.
+     * @param text         Text read.
+     * @return Whether the record is inside a quoted value after text.
+     */
+    static boolean insideQuotesAfter(boolean insideQuotes, String text) {
+        for (int index = 0; index < text.length(); index++) {
+            if (text.charAt(index) == '"') insideQuotes = !insideQuotes;
+        }
+        return insideQuotes;
+    }
+
+    private static String field(Map<String, String> fields, String name) {
+        String value = fields.get(name);
+        return value == null || value.isBlank() ? null : value;
+    }
+
+    private static LocalDateTime time(Map<String, String> fields, String name) {
+        String value = field(fields, name);
+        if (value == null) return null;
+        try {
+            return value.length() <= 10 ? LocalDate.parse(value).atStartOfDay() : LocalDateTime.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " is not a date: " + value);
+        }
+    }
+
+    /**
+     * Reader of the flat JSON objects of a JSONL line.
+     */
+    private static final class JsonReader {
+
+        private final String text;
+        private int index;
+
+        JsonReader(String text) {
+            this.text = text;
+        }
+
+        void expect(char expected) {
+            if (!consume(expected)) throw error("Expected '" + expected + "'");
+        }
+
+        boolean consume(char expected) {
+            skipSpace();
+            if (index < text.length() && text.charAt(index) == expected) {
+                index++;
+                return true;
+            }
+            return false;
+        }
+
+        void end() {
+            skipSpace();
+            if (index < text.length()) throw error("Unexpected text after the object");
+        }
+
+        /**
+         * Reads a value as text: strings unquoted, numbers and booleans as written, and null as null.
+         */
+        String value() {
+            skipSpace();
+            if (index >= text.length()) throw error("Expected a value");
+            char first = text.charAt(index);
+            if (first == '"') return string();
+            if (first == '{' || first == '[') throw error("Nested objects and arrays are not supported");
+            int start = index;
+            while (index < text.length() && ",}] \t\r\n".indexOf(text.charAt(index)) < 0) index++;
+            String literal = text.substring(start, index);
+            if (literal.equals("null")) return null;
+            if (literal.equals("true") || literal.equals("false")) return literal;
+            if (!JSON_NUMBER.matcher(literal).matches()) throw error("Unknown value " + literal);
+            return literal;
+        }
+
+        String string() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                if (index >= text.length()) throw error("String is not closed");
+                char next = text.charAt(index++);
+                if (next == '"') return value.toString();
+                if (next != '\\') {
+                    value.append(next);
+                    continue;
+                }
+                if (index >= text.length()) throw error("String is not closed");
+                char escaped = text.charAt(index++);
+                switch (escaped) {
+                    case '"', '\\', '/' -> value.append(escaped);
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'u' -> {
+                        if (index + 4 > text.length()) throw error("Incomplete \\u escape");
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(index, index + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("Invalid \\u escape");
+                        }
+                        index += 4;
+                    }
+                    default -> throw error("Invalid escape \\" + escaped);
+                }
+            }
+        }
+
+        private void skipSpace() {
+            while (index < text.length() && Character.isWhitespace(text.charAt(index))) index++;
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at column " + (index + 1));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package edu.ntnu.iir.bidata.ui;
 
+import edu.ntnu.iir.bidata.index.WordIndex;
 import edu.ntnu.iir.bidata.models.Author;
 import edu.ntnu.iir.bidata.models.DiaryEntry;
 import edu.ntnu.iir.bidata.models.Page;
@@ -10,6 +11,8 @@ import java.io.BufferedReader;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.IntStream;
 
 import static edu.ntnu.iir.bidata.ui.DiaryUiUtils.*;
@@ -21,6 +24,7 @@ public class DiaryEntrySearchUi {
     private final DiaryEntryRegister diaryRegister;
     private final FindAuthorUi findAuthorUi;
     private final DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final Pattern NEAR_QUERY = Pattern.compile("(.+?)\\s*~(\\d+)");
 
     public DiaryEntrySearchUi(DiaryEntryRegister diaryRegister, FindAuthorUi findAuthorUi) {
         this.diaryRegister = diaryRegister;
@@ -62,10 +66,11 @@ public class DiaryEntrySearchUi {
     public enum ESearchOption {
         BY_AUTHOR(0),
         BY_WORD(1),
-        BY_DATE_RANGE(2),
-        BY_CREATED_DATE(3),
-        BY_CHANGED_DATE(4),
-        BACK(5);
+        BY_PHRASE(2),
+        BY_DATE_RANGE(3),
+        BY_CREATED_DATE(4),
+        BY_CHANGED_DATE(5),
+        BACK(6);
 
         private final int index;
 
@@ -77,10 +82,11 @@ public class DiaryEntrySearchUi {
             return switch (index) {
                 case 0 -> BY_AUTHOR;
                 case 1 -> BY_WORD;
-                case 2 -> BY_DATE_RANGE;
-                case 3 -> BY_CREATED_DATE;
-                case 4 -> BY_CHANGED_DATE;
-                case 5 -> BACK;
+                case 2 -> BY_PHRASE;
+                case 3 -> BY_DATE_RANGE;
+                case 4 -> BY_CREATED_DATE;
+                case 5 -> BY_CHANGED_DATE;
+                case 6 -> BACK;
                 default -> BACK;
             };
         }
@@ -90,6 +96,7 @@ public class DiaryEntrySearchUi {
         List<String> options = List.of(
                 "Search by author",
                 "Search by word",
+                "Search by phrase",
                 "Search by date range",
                 "Search by creation date",
                 "Search by changed date",
@@ -120,6 +127,8 @@ public class DiaryEntrySearchUi {
                     Object dataToReturn = null;
                     if (option == ESearchOption.BY_WORD) {
                         dataToReturn = searchWord;
+                    } else if (option == ESearchOption.BY_PHRASE) {
+                        dataToReturn = phrasePageNumber;
                     }
 
                     Map<DiaryEntry, EntrySearchResult> entryMap = new HashMap<>();
@@ -133,6 +142,7 @@ public class DiaryEntrySearchUi {
     }
 
     private String searchWord;
+    private int phrasePageNumber;
 
     private void showSearchMenuOptions(List<String> options, int selectedIndex) {
         options.forEach(option -> {
@@ -156,6 +166,7 @@ public class DiaryEntrySearchUi {
         return switch (option) {
             case BY_AUTHOR -> getEntryByAuthor(reader);
             case BY_WORD -> getEntryByWord(reader);
+            case BY_PHRASE -> getEntryByPhrase(reader);
             case BY_DATE_RANGE -> getEntryByDateRange(reader);
             case BY_CREATED_DATE -> getEntryByCreatedDate(reader);
             case BY_CHANGED_DATE -> getEntryByChangedDate(reader);
@@ -194,7 +205,7 @@ public class DiaryEntrySearchUi {
 
         Map<DiaryEntry, String> pageTitles = new HashMap<>();
         for (DiaryEntry entry : entries) {
-            Map<Integer, Page> matchingPages = entry.getPagesContainingWord(searchWord);
+            Map<Integer, Page> matchingPages = diaryRegister.getPagesContainingWord(entry, searchWord);
             String firstPageTitle = matchingPages.isEmpty() ? "" : matchingPages.values().iterator().next().getTitle();
             pageTitles.put(entry, firstPageTitle);
         }
@@ -202,6 +213,45 @@ public class DiaryEntrySearchUi {
         return getEntryFromMenuChoice(reader, entries, pageTitles, "WORD SEARCH: \"" + searchWord + "\"");
     }
 
+    private DiaryEntry getEntryByPhrase(BufferedReader reader) {
+        out.println("Write a phrase, e.g. \"rar venn\", or words followed by ~N to find");
+        out.println("words within N words of each other, e.g. rar venn ~3\n");
+        String query = readNonBlankInput(reader, "Enter phrase> ").trim();
+
+        List<WordIndex.PageMatch> matches = findPhraseMatches(query);
+        if (matches.isEmpty()) {
+            out.println("No matches found for phrase: " + query);
+            readCommand(reader);
+            return null;
+        }
+
+        Map<DiaryEntry, WordIndex.PageMatch> firstMatches = new LinkedHashMap<>();
+        matches.forEach(match -> firstMatches.putIfAbsent(match.entry(), match));
+
+        List<DiaryEntry> entries = new ArrayList<>(firstMatches.keySet());
+        Map<DiaryEntry, String> pageTitles = new HashMap<>();
+        firstMatches.forEach((entry, match) -> pageTitles.put(entry, match.page().getTitle()));
+
+        DiaryEntry selected = getEntryFromMenuChoice(reader, entries, pageTitles, "PHRASE SEARCH: " + query);
+        if (selected != null) {
+            phrasePageNumber = firstMatches.get(selected).pageNumber();
+        }
+        return selected;
+    }
+
+    private List<WordIndex.PageMatch> findPhraseMatches(String query) {
+        Matcher nearQuery = NEAR_QUERY.matcher(query);
+        if (nearQuery.matches()) {
+            List<String> words = WordIndex.splitQuery(nearQuery.group(1).replace("\"", " "));
+            if (words.isEmpty()) return List.of();
+            return diaryRegister.searchForWordsNear(words, Integer.parseInt(nearQuery.group(2)), 50);
+        }
+
+        String phrase = query.replace("\"", " ");
+        if (phrase.isBlank()) return List.of();
+        return diaryRegister.searchForPhrase(phrase, 50);
+    }
+
     private DiaryEntry getEntryByDateRange(BufferedReader reader) {
         LocalDate start = readDate(reader, "Enter start date (yyyy-MM-dd)> ");
         LocalDate end = readDate(reader, "Enter end date (yyyy-MM-dd)> ");
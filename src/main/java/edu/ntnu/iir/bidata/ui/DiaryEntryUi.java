@@ -5,6 +5,8 @@ import edu.ntnu.iir.bidata.models.DiaryEntry;
 import edu.ntnu.iir.bidata.models.Page;
 import edu.ntnu.iir.bidata.registers.AuthorRegister;
 import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import edu.ntnu.iir.bidata.text.TokenBuffer;
+import edu.ntnu.iir.bidata.text.Tokenizer;
 import edu.ntnu.iir.bidata.ui.data.EntrySearchResult;
 
 import java.io.BufferedReader;
@@ -82,6 +84,8 @@ public class DiaryEntryUi {
         REMOVE_PAGE_EDITMODE("R"),
         EDIT_MAIN_TITLE_EDITMODE("M"),
         ADD_PAGE_EDITMODE("A"),
+        INSERT_PAGE_EDITMODE("I"),
+        MOVE_PAGE_EDITMODE("V"),
         ERASE_ENTRY("E"),
         INVALID("");
 
@@ -103,6 +107,8 @@ public class DiaryEntryUi {
                 case "R" -> editMode ? REMOVE_PAGE_EDITMODE : INVALID;
                 case "M" -> editMode ? EDIT_MAIN_TITLE_EDITMODE : INVALID;
                 case "A" -> editMode ? ADD_PAGE_EDITMODE : INVALID;
+                case "I" -> editMode ? INSERT_PAGE_EDITMODE : INVALID;
+                case "V" -> editMode ? MOVE_PAGE_EDITMODE : INVALID;
                 default -> INVALID;
             };
         }
@@ -278,6 +284,10 @@ public class DiaryEntryUi {
         out.println("Author: " + DARK_BLUE_TEXT + author.getName() + DEFAULT + "\n");
 
         String title = readNonBlankInput(reader, "Enter diary entry title> ");
+        while (diaryEntryRegister.hasDiaryEntry(author, title)) {
+            out.println("This author already has an entry titled \"" + title + "\".");
+            title = readNonBlankInput(reader, "Enter diary entry title> ");
+        }
 
         int maxWordsPerPage = STD_MAX_AMOUNT_WORDS;
         boolean isFinished = false;
@@ -312,7 +322,7 @@ public class DiaryEntryUi {
         isFinished = false;
         while(!isFinished) {
             pageContent = readNonBlankInput(reader, "Enter first page content> ");
-            int wordCount = pageContent.split(" ").length;
+            int wordCount = Tokenizer.count(pageContent, Tokenizer.Mode.WHITESPACE);
             if(wordCount <= maxWordsPerPage)
                 isFinished = true;
             else
@@ -333,7 +343,7 @@ public class DiaryEntryUi {
 
         if (result.option() == DiaryEntrySearchUi.ESearchOption.BY_WORD) {
             String word = result.data().toString();
-            Map<Integer, Page> matchingPages = entry.getPagesContainingWord(word);
+            Map<Integer, Page> matchingPages = diaryEntryRegister.getPagesContainingWord(entry, word);
             Map.Entry<Integer, Page> firstEntry = matchingPages.entrySet()
                     .stream()
                     .findFirst()
@@ -341,6 +351,9 @@ public class DiaryEntryUi {
 
             int pageIndex = firstEntry != null ? firstEntry.getKey() : 1;
             navigateDiaryEntry(reader, entry, editMode, pageIndex);
+        } else if (result.option() == DiaryEntrySearchUi.ESearchOption.BY_PHRASE) {
+            int pageIndex = Math.max(1, (Integer) result.data());
+            navigateDiaryEntry(reader, entry, editMode, pageIndex);
         } else {
             navigateDiaryEntry(reader, entry, editMode);
         }
@@ -363,15 +376,12 @@ public class DiaryEntryUi {
         }
 
         int offset = 0;
-        List<String> words = List.of(entry.getPageText(startPageIndex).split(" "));
-        int numberOfWords = words.size();
+        int numberOfWords = Tokenizer.count(entry.getPageText(startPageIndex), Tokenizer.Mode.WHITESPACE);
         NavigationState navigation = new NavigationState(startPageIndex, offset, numberOfWords);
 
         boolean exitDiary = false;
         while (!exitDiary) {
             clearScreen();
-            words = List.of(entry.getPageText(navigation.currentPageIndex).split(" "));
-            navigation.numberOfWords = words.size();
 
             showSectionTitle(editMode ? "EDIT DIARY" : "MY DIARY");
             showEntryInformation(entry);
@@ -416,7 +426,7 @@ public class DiaryEntryUi {
     }
 
     private void showPageContent(DiaryEntry entry, NavigationState navigation) {
-        List<String> words = List.of(entry.getPageText(navigation.currentPageIndex).split(" "));
+        TokenBuffer words = Tokenizer.tokenize(entry.getPageText(navigation.currentPageIndex), Tokenizer.Mode.WHITESPACE);
         navigation.numberOfWords = words.size();
 
         int totalParts = Math.ceilDiv(words.size(), NavigationState.WORDS_PER_PART);
@@ -428,7 +438,7 @@ public class DiaryEntryUi {
                 GREEN_TEXT + " [Part " + currentPart + " of " + totalParts + "]" + DEFAULT + "\n");
 
         IntStream.range(start, end).forEach(wordIndex -> {
-            out.print(words.get(wordIndex) + " ");
+            out.append(words.text(), words.start(wordIndex), words.end(wordIndex)).append(' ');
             if ((wordIndex - start + 1) % 12 == 0) out.println();
         });
 
@@ -450,6 +460,8 @@ public class DiaryEntryUi {
                 List.of("R", "Remove page"),
                 List.of("M", "Edit main title"),
                 List.of("A", "Add page"),
+                List.of("I", "Insert page"),
+                List.of("V", "Move page"),
                 List.of("E", "Erase entry")
         );
 
@@ -466,7 +478,7 @@ public class DiaryEntryUi {
                 boolean finished = false;
                 while(!finished) {
                     String text = readNonBlankInput(reader, "Enter new page content> ");
-                    if(text.split(" ").length <= entry.getMaxWordsPerPage()) {
+                    if(Tokenizer.count(text, Tokenizer.Mode.WHITESPACE) <= entry.getMaxWordsPerPage()) {
                         entry.setPageText(navigation.currentPageIndex,text );
                         finished = true;
                     } else {
@@ -481,18 +493,46 @@ public class DiaryEntryUi {
                 readCommand(reader);
                 return true;
             }
-            case EDIT_MAIN_TITLE_EDITMODE -> entry.setEntryTitle(readNonBlankInput(reader, "Enter new diary main title> "));
+            case EDIT_MAIN_TITLE_EDITMODE -> {
+                try {
+                    entry.setEntryTitle(readNonBlankInput(reader, "Enter new diary main title> "));
+                } catch (IllegalArgumentException e) {
+                    out.println(e.getMessage());
+                    readCommand(reader);
+                }
+            }
             case ADD_PAGE_EDITMODE -> {
                 String pageTitle = readNonBlankInput(reader, "Enter page title> ");
                 String pageContent = readNonBlankInput(reader, "Enter page content> ");
                 entry.addPage(pageTitle, pageContent);
             }
+            case INSERT_PAGE_EDITMODE -> {
+                String pageTitle = readNonBlankInput(reader, "Enter page title> ");
+                String pageContent = readNonBlankInput(reader, "Enter page content> ");
+                entry.insertPage(navigation.currentPageIndex, pageTitle, pageContent);
+            }
+            case MOVE_PAGE_EDITMODE -> movePage(reader, entry, navigation);
             case INVALID -> out.println("Invalid command.");
             default -> {}
         }
         return false;
     }
 
+    private void movePage(BufferedReader reader, DiaryEntry entry, NavigationState navigation) {
+        String input = readNonBlankInput(reader, "Move page to page number (1-" + entry.getNmbPages() + ")> ");
+        try {
+            int toPageNumber = Integer.parseInt(input.trim());
+            entry.movePage(navigation.currentPageIndex, toPageNumber);
+            navigation.currentPageIndex = toPageNumber;
+        } catch (NumberFormatException e) {
+            out.println("Invalid number.");
+            readCommand(reader);
+        } catch (IllegalArgumentException e) {
+            out.println(e.getMessage());
+            readCommand(reader);
+        }
+    }
+
     private void removePage(BufferedReader reader, DiaryEntry entry, NavigationState navigation) {
         entry.removePage(navigation.currentPageIndex);
         if (entry.getNmbPages() == 0) {
@@ -0,0 +1,133 @@
+package edu.ntnu.iir.bidata.ui;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.registers.AuthorRegister;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import edu.ntnu.iir.bidata.transfer.DiaryExporter;
+import edu.ntnu.iir.bidata.transfer.DiaryImporter;
+import edu.ntnu.iir.bidata.transfer.ExportFormat;
+import edu.ntnu.iir.bidata.transfer.ExportReport;
+import edu.ntnu.iir.bidata.transfer.ImportProgress;
+import edu.ntnu.iir.bidata.transfer.ImportReport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+import static edu.ntnu.iir.bidata.ui.DiaryUiUtils.*;
+import static java.lang.System.*;
+
+/**
+ * Menus for moving diaries in and out of the application in bulk.
+ */
+public class TransferUi {
+
+    private final AuthorRegister authorRegister;
+    private final DiaryEntryRegister diaryEntryRegister;
+
+    public TransferUi(AuthorRegister authorRegister, DiaryEntryRegister diaryEntryRegister) {
+        this.authorRegister = authorRegister;
+        this.diaryEntryRegister = diaryEntryRegister;
+    }
+
+    /**
+     * Asks for a JSONL or CSV file and imports it, showing progress while it runs.
+     *
+     * @param reader Reader of user input.
+     */
+    public void importMenu(BufferedReader reader) {
+        clearScreen();
+        showSectionTitle("IMPORT DIARIES");
+        out.println("Rows have the fields firstName, lastName, nickname, entry, created, changed, maxWords, page and text.");
+
+        Path file = Path.of(readNonBlankInput(reader, "Enter path of a .jsonl or .csv file> "));
+        if (!Files.isRegularFile(file)) {
+            out.println("No such file: " + file);
+            readInput(reader, "Press enter to go back> ");
+            return;
+        }
+
+        DiaryImporter importer = new DiaryImporter(authorRegister, diaryEntryRegister);
+        importer.setProgressListener(TransferUi::showProgress, Duration.ofSeconds(1));
+        try {
+            ImportReport report = importer.importFile(file);
+            out.printf("%nImported %d authors, %d entries and %d pages from %d rows in %.1f s (%.0f rows/s).%n",
+                    report.authorsAdded(), report.entriesAdded(), report.pagesAdded(), report.rows(),
+                    report.elapsed().toMillis() / 1000.0, report.rowsPerSecond());
+            if (report.rowsRejected() > 0) {
+                out.println(report.rowsRejected() + " rows were skipped:");
+                report.problems().forEach(problem -> out.println("  " + problem));
+            }
+        } catch (IllegalArgumentException | IOException e) {
+            out.println("Could not import " + file + ": " + e.getMessage());
+        }
+        readInput(reader, "Press enter to go back> ");
+    }
+
+    /**
+     * Asks for an author or a date range and exports their entries, to one file or one file per entry.
+     *
+     * @param reader Reader of user input.
+     */
+    public void exportMenu(BufferedReader reader) {
+        clearScreen();
+        showSectionTitle("EXPORT DIARIES");
+
+        List<DiaryEntry> entries;
+        String choice = readNonBlankInput(reader, "Export one author's diary [A] or a date range [D]> ").toUpperCase();
+        if (choice.startsWith("A")) {
+            String name = readNonBlankInput(reader, "Enter author name> ");
+            Optional<Author> author = authorRegister.getAuthor(name);
+            if (author.isEmpty()) {
+                out.println("No author named " + name);
+                readInput(reader, "Press enter to go back> ");
+                return;
+            }
+            entries = diaryEntryRegister.getDiaryEntriesByAuthor(author.get());
+            entries.sort(Comparator.comparing(DiaryEntry::getTimeCreated));
+        } else {
+            LocalDate start = readDate(reader, "Enter first date (yyyy-MM-dd)> ");
+            LocalDate end = start == null ? null : readDate(reader, "Enter last date (yyyy-MM-dd)> ");
+            if (end == null) {
+                readInput(reader, "Press enter to go back> ");
+                return;
+            }
+            entries = diaryEntryRegister.getEntriesCreatedBetween(start, end);
+        }
+        if (entries.isEmpty()) {
+            out.println("No entries to export.");
+            readInput(reader, "Press enter to go back> ");
+            return;
+        }
+
+        ExportFormat format = readNonBlankInput(reader, "Markdown [M] or plain text [T]> ").toUpperCase().startsWith("T")
+                ? ExportFormat.PLAIN_TEXT : ExportFormat.MARKDOWN;
+        boolean perEntry = readNonBlankInput(reader, "One combined file [C] or one file per entry [E]> ")
+                .toUpperCase().startsWith("E");
+        Path target = Path.of(readNonBlankInput(reader, perEntry ? "Enter directory> " : "Enter file name> "));
+
+        DiaryExporter exporter = new DiaryExporter(format);
+        try {
+            ExportReport report = perEntry
+                    ? exporter.exportToDirectory(entries, target)
+                    : exporter.exportToFile(entries, target);
+            out.printf("Exported %d entries and %d pages to %d files, %.1f kB in %d ms.%n", report.entries(),
+                    report.pages(), report.files(), report.bytes() / 1000.0, report.elapsed().toMillis());
+        } catch (IOException e) {
+            out.println("Could not export to " + target + ": " + e.getMessage());
+        }
+        readInput(reader, "Press enter to go back> ");
+    }
+
+    private static void showProgress(ImportProgress progress) {
+        String read = progress.fractionRead() < 0 ? "" : String.format("%3.0f%% read, ", progress.fractionRead() * 100);
+        out.printf("%s%d rows, %.0f rows/s%n", read, progress.rows(), progress.rowsPerSecond());
+    }
+}
@@ -82,7 +82,7 @@ public class UpdateNameUi {
                 case UP -> selectedIndex = Math.max(0, selectedIndex - 1);
                 case DOWN -> selectedIndex = Math.min(authorsList.size() - 1, selectedIndex + 1);
                 case BACK -> backToMain = true;
-                case ENTER -> updateAuthorName(reader, authorsList.get(selectedIndex));
+                case ENTER -> updateAuthorName(reader, authorRegister, authorsList.get(selectedIndex));
                 case INVALID -> { return; }
             }
         }
@@ -100,7 +100,7 @@ public class UpdateNameUi {
         });
     }
 
-    private void updateAuthorName(BufferedReader reader, Author author) {
+    private void updateAuthorName(BufferedReader reader, AuthorRegister authorRegister, Author author) {
         boolean backToUpdateMenu = false;
         int currentSelected = 0;
         List<EAuthorName> names = new ArrayList<>(Arrays.asList(EAuthorName.values()));
@@ -120,7 +120,7 @@ public class UpdateNameUi {
                 case UP -> currentSelected = Math.max(0, currentSelected - 1);
                 case DOWN -> currentSelected = Math.min(names.size() - 1, currentSelected + 1);
                 case BACK -> backToUpdateMenu = true;
-                case ENTER -> editAuthorName(reader, author, names.get(currentSelected));
+                case ENTER -> editAuthorName(reader, authorRegister, author, names.get(currentSelected));
                 case INVALID -> { return; }
             }
         }
@@ -139,14 +139,18 @@ public class UpdateNameUi {
 
 
 
-    private void editAuthorName(BufferedReader reader, Author author, EAuthorName name) {
+    private void editAuthorName(BufferedReader reader, AuthorRegister authorRegister, Author author, EAuthorName name) {
         String newName = readNonBlankInput(reader, "Enter new " + name + "> ");
-        switch (name) {
-            case FIRST_NAME -> author.setFirstName(newName);
-            case LAST_NAME -> author.setLastName(newName);
-            case NICKNAME -> author.setNickname(newName);
+        try {
+            switch (name) {
+                case FIRST_NAME -> authorRegister.updateFirstName(author.getName(), newName);
+                case LAST_NAME -> authorRegister.updateLastName(author.getName(), newName);
+                case NICKNAME -> authorRegister.updateName(author.getName(), newName);
+            }
+            out.println("Updated successfully!");
+        } catch (IllegalArgumentException e) {
+            out.println("Could not update name: " + e.getMessage());
         }
-        out.println("Updated successfully!");
         readCommand(reader);
     }
 
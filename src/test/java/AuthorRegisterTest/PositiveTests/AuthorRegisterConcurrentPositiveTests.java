@@ -0,0 +1,140 @@
+package AuthorRegisterTest.PositiveTests;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.registers.AuthorRegister;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Positive tests for an AuthorRegister shared by several threads.
+ *
+ * <ul>
+ *   <li>testConcurrentAdds: Tests that authors added from several threads are all registered and indexed</li>
+ *   <li>testRenameIsNeverMissed: Tests that a renamed author is found under its old or new name at every moment</li>
+ *   <li>testConcurrentRenamesToSameName: Tests that only one of several renames to the same name succeeds</li>
+ * </ul>
+ */
+public class AuthorRegisterConcurrentPositiveTests {
+
+    private static final int THREADS = 8;
+
+    private static <T> List<T> runAll(List<Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : executor.invokeAll(tasks)) results.add(future.get());
+            return results;
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Tests that authors added from several threads are all registered and indexed.
+     */
+    @Test
+    void testConcurrentAdds() throws Exception {
+        AuthorRegister register = new AuthorRegister();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            int first = thread;
+            tasks.add(() -> {
+                for (int index = 0; index < 500; index++) register.addAuthor("Writer" + first, "Number" + index);
+                return null;
+            });
+        }
+
+        runAll(tasks);
+
+        assertEquals(THREADS * 500, register.getNumberOfAuthors());
+        List<Author> found = new ArrayList<>();
+        register.findByLastName("Number49", false).forEachRemaining(found::add);
+        assertEquals(THREADS, found.size());
+    }
+
+    /**
+     * Tests that a renamed author is found under its old or new name at every moment.
+     */
+    @Test
+    void testRenameIsNeverMissed() throws Exception {
+        AuthorRegister register = new AuthorRegister();
+        Author author = new Author("Ola", "Nordmann");
+        register.addAuthor(author);
+        AtomicBoolean renaming = new AtomicBoolean(true);
+        AtomicInteger misses = new AtomicInteger();
+        AtomicInteger renames = new AtomicInteger();
+
+        List<Callable<Void>> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            try {
+                for (int round = 0; round < 2_000; round++) {
+                    register.updateLastName("Ola Nordmann", "Normann");
+                    renames.incrementAndGet();
+                    register.updateLastName("Ola Normann", "Nordmann");
+                    renames.incrementAndGet();
+                }
+            } finally {
+                renaming.set(false);
+            }
+            return null;
+        });
+        for (int reader = 1; reader < THREADS; reader++) {
+            tasks.add(() -> {
+                while (renaming.get()) {
+                    // The lookups are not atomic together, so two renames between them could hide the author.
+                    int before = renames.get();
+                    if (!register.hasAuthor("Ola Nordmann") && !register.hasAuthor("Ola Normann")
+                            && register.getAuthor("Ola Nordmann").isEmpty() && renames.get() - before <= 1)
+                        misses.incrementAndGet();
+                }
+                return null;
+            });
+        }
+
+        runAll(tasks);
+
+        assertEquals(0, misses.get());
+        assertEquals(1, register.getNumberOfAuthors());
+        assertSame(author, register.getAuthor("Ola Nordmann").orElseThrow());
+        assertFalse(register.findByLastName("Normann", false).hasNext());
+    }
+
+    /**
+     * Tests that only one of several renames to the same name succeeds.
+     */
+    @Test
+    void testConcurrentRenamesToSameName() throws Exception {
+        AuthorRegister register = new AuthorRegister();
+        for (int thread = 0; thread < THREADS; thread++) register.addAuthor("Writer" + thread);
+
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            String name = "Writer" + thread;
+            tasks.add(() -> {
+                try {
+                    return register.updateName(name, "Champion").isPresent();
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            });
+        }
+
+        long renamed = runAll(tasks).stream().filter(Boolean::booleanValue).count();
+
+        assertEquals(1, renamed);
+        assertEquals(THREADS, register.getNumberOfAuthors());
+        assertTrue(register.hasAuthor("Champion"));
+    }
+}
@@ -134,4 +134,60 @@ public class AuthorRegisterPositiveTests {
         }
         assertEquals(2, count);
     }
+
+    @Test
+    void testFindByFirstNameStartWithIgnoresCase() {
+        register.addAuthor(authorFull);
+        register.addAuthor(new Author(FIRST_NAME_3, LAST_NAME_3, NICKNAME_4));
+        register.addAuthor(new Author(FIRST_NAME_2, LAST_NAME_2, NICKNAME_3));
+        register.addAuthor(authorNick);
+        Iterator<Author> it = register.findByFirstName("ROB", true);
+        int count = 0;
+        while (it.hasNext()) {
+            assertTrue(it.next().getFirstName().startsWith(FIRST_NAME_3));
+            count++;
+        }
+        assertEquals(2, count);
+    }
+
+    @Test
+    void testFindByFullNameIntersectsFields() {
+        register.addAuthor(authorFull);
+        register.addAuthor(new Author(FIRST_NAME_1, LAST_NAME_2, NICKNAME_4));
+        register.addAuthor(new Author(FIRST_NAME_2, LAST_NAME_1, NICKNAME_3));
+        Iterator<Author> it = register.findByFullName(FIRST_NAME_1, "lar", false, true);
+        assertTrue(it.hasNext());
+        assertSame(authorFull, it.next());
+        assertFalse(it.hasNext());
+    }
+
+    @Test
+    void testFindByFullNameWithNickname() {
+        register.addAuthor(authorFull);
+        register.addAuthor(new Author(FIRST_NAME_1, LAST_NAME_1, NICKNAME_5));
+        Iterator<Author> it = register.findByFullNameWithNickname(FIRST_NAME_1, LAST_NAME_1, "rob", false, false, true);
+        int count = 0;
+        while (it.hasNext()) {
+            it.next();
+            count++;
+        }
+        assertEquals(2, count);
+    }
+
+    @Test
+    void testFindByFirstNameAfterUpdateFirstName() {
+        register.addAuthor(authorFull);
+        register.updateFirstName(FULL_NAME_2, FIRST_NAME_4);
+        assertFalse(register.findByFirstName(FIRST_NAME_1, false).hasNext());
+        assertSame(authorFull, register.findByFirstName(FIRST_NAME_4, false).next());
+    }
+
+    @Test
+    void testFindByNicknameAfterRemoveAuthor() {
+        register.addAuthor(authorFull);
+        register.addAuthor(authorNick);
+        register.removeAuthor(NICKNAME_2);
+        assertFalse(register.findByNickname(NICKNAME_2, false).hasNext());
+        assertSame(authorFull, register.findByNickname(NICKNAME_1, true).next());
+    }
 }
@@ -1,6 +1,7 @@
 package AuthorTests.PositiveTests;
 
 import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -29,6 +30,12 @@ import static org.junit.jupiter.api.Assertions.*;
  *       <li>testGetNameWithNicknameOnly: Tests getName returns nickname when only nickname is set</li>
  *     </ul>
  *   </li>
+ *
+ *   <li>Word counts
+ *     <ul>
+ *       <li>testWordCountReadDuringEdits: Tests that word counts read while another thread adds words are never torn</li>
+ *     </ul>
+ *   </li>
  * </ul>
  */
 class AuthorPositiveTest {
@@ -138,4 +145,29 @@ class AuthorPositiveTest {
     void testGetNameWithNicknameOnly() {
         assertEquals(NICKNAME_2, authorNickname.getName());
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests that word counts read while another thread adds words are never torn.
+     */
+    @Test
+    void testWordCountReadDuringEdits() throws InterruptedException {
+        Author author = new Author(NICKNAME_1);
+        DiaryEntry entry = new DiaryEntry(author, 10, "Growing");
+        Thread writer = new Thread(() -> {
+            for (int page = 0; page < 2_000; page++) entry.addPage("Page", "common distinct" + page);
+        });
+        writer.start();
+
+        long previous = 0;
+        while (writer.isAlive()) {
+            long count = author.getWordCount("common");
+            assertTrue(count >= previous && count <= 2_000);
+            previous = count;
+            author.getWordCount().forEach((wordId, wordCount) -> assertTrue(wordCount > 0));
+        }
+        writer.join();
+
+        assertEquals(2_000, author.getWordCount("common"));
+        assertEquals(2_001, author.getWordCount().size());
+    }
+}
@@ -78,6 +78,14 @@ import static org.junit.jupiter.api.Assertions.*;
  *     </ul>
  *   </li>
  *
+ *   <li>Insert and move pages
+ *     <ul>
+ *       <li>testInsertPageWithPageNumberZero: Tests insertPage when page number is zero</li>
+ *       <li>testInsertPageWithPageNumberTooLarge: Tests insertPage when page number is more than one past the last page</li>
+ *       <li>testMovePageWithPageNumberTooLarge: Tests movePage when the target page number is too large</li>
+ *     </ul>
+ *   </li>
+ *
  *   <li>Edit diary title
  *     <ul>
  *       <li>testEditEntryTitleWithNullTitle: Tests editEntryTitle when title is null</li>
@@ -446,4 +454,32 @@ class DiaryEntryNegativeTest {
                 diaryEntry.setEntryTitle(ERROR_BLANK_TITLE)
         );
     }
+
+    /** Tests insertPage with page number zero. */
+    @Test
+    void testInsertPageWithPageNumberZero() {
+        assertThrows(IllegalArgumentException.class, () ->
+                diaryEntry.insertPage(ERROR_PAGE_NUMBER_ZERO, TITLE_1, TEXT_1)
+        );
+    }
+
+    /** Tests insertPage with page number more than one past the last page. */
+    @Test
+    void testInsertPageWithPageNumberTooLarge() {
+        diaryEntry.addPage(TITLE_1, TEXT_1);
+        assertThrows(IllegalArgumentException.class, () ->
+                diaryEntry.insertPage(3, TITLE_2, TEXT_2)
+        );
+    }
+
+    /** Tests movePage with target page number too large. */
+    @Test
+    void testMovePageWithPageNumberTooLarge() {
+        diaryEntry.addPage(TITLE_1, TEXT_1);
+        diaryEntry.addPage(TITLE_2, TEXT_2);
+        assertThrows(IllegalArgumentException.class, () ->
+                diaryEntry.movePage(1, ERROR_PAGE_NUMBER_TOO_LARGE)
+        );
+        assertEquals(TITLE_1, diaryEntry.getPageTitle(1));
+    }
 }
@@ -0,0 +1,132 @@
+package DiaryEntryTests.PositiveTests;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.models.DiaryEntryListener;
+import edu.ntnu.iir.bidata.models.Page;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Positive tests for a DiaryEntry viewed from several threads while it is edited.
+ *
+ * <ul>
+ *   <li>testReadersDuringEdits: Tests that readers only ever see whole pages while a writer edits the entry</li>
+ *   <li>testConcurrentWriters: Tests that pages added from several threads are all kept and counted</li>
+ *   <li>testListenersReadEntry: Tests that listeners can read the entry while they are notified of a change</li>
+ * </ul>
+ */
+public class DiaryEntryConcurrentPositiveTest {
+
+    private static final int THREADS = 8;
+    private static final String TEXT_A = "alpha alpha alpha";
+    private static final String TEXT_B = "beta beta";
+
+    private static <T> List<T> runAll(List<Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : executor.invokeAll(tasks)) results.add(future.get());
+            return results;
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    /**
+     * Tests that readers only ever see whole pages while a writer edits the entry.
+     */
+    @Test
+    void testReadersDuringEdits() throws Exception {
+        DiaryEntry entry = new DiaryEntry(new Author("Nero"), 100, "Popular");
+        entry.addPage("First", TEXT_A);
+        AtomicBoolean writing = new AtomicBoolean(true);
+
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            try {
+                for (int round = 0; round < 2_000; round++) {
+                    entry.setPageText(1, round % 2 == 0 ? TEXT_B : TEXT_A);
+                    entry.addPage("Second", TEXT_B);
+                    entry.removePage(2);
+                }
+            } finally {
+                writing.set(false);
+            }
+            return 0;
+        });
+        for (int reader = 1; reader < THREADS; reader++) {
+            tasks.add(() -> {
+                int wrong = 0;
+                while (writing.get()) {
+                    if (!Set.of(TEXT_A, TEXT_B).contains(entry.getPageText(1))) wrong++;
+                    int pages = entry.getNmbPages();
+                    if (pages < 1 || pages > 2) wrong++;
+                    long alpha = entry.getWordCount("alpha");
+                    if (alpha != 0 && alpha != 3) wrong++;
+                    if (!entry.getEntryTitle().equals("Popular")) wrong++;
+                }
+                return wrong;
+            });
+        }
+
+        assertTrue(runAll(tasks).stream().allMatch(wrong -> wrong == 0));
+        assertEquals(1, entry.getNmbPages());
+        assertEquals(TEXT_A, entry.getPageText(1));
+    }
+
+    /**
+     * Tests that pages added from several threads are all kept and counted.
+     */
+    @Test
+    void testConcurrentWriters() throws Exception {
+        Author author = new Author("Nero");
+        DiaryEntry entry = new DiaryEntry(author, 100, "Shared");
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            tasks.add(() -> {
+                for (int page = 0; page < 250; page++) entry.addPage("Page", TEXT_B);
+                return null;
+            });
+        }
+
+        runAll(tasks);
+
+        assertEquals(THREADS * 250, entry.getNmbPages());
+        assertEquals(THREADS * 250 * 2L, entry.getWordCount("beta"));
+        assertEquals(THREADS * 250 * 2L, author.getWordCount("beta"));
+    }
+
+    /**
+     * Tests that listeners can read the entry while they are notified of a change.
+     */
+    @Test
+    void testListenersReadEntry() {
+        DiaryEntry entry = new DiaryEntry(new Author("Nero"), 100, "Listened");
+        List<Integer> pageNumbers = new ArrayList<>();
+        entry.addListener(new DiaryEntryListener() {
+            @Override
+            public void pageAdded(DiaryEntry changed, Page page) {
+                pageNumbers.add(changed.getPageNumber(page));
+                assertEquals(page.getText(), changed.getPageText(changed.getPageNumber(page)));
+            }
+        });
+
+        entry.addPage("First", TEXT_A);
+        entry.insertPage(1, "Zeroth", TEXT_B);
+
+        assertEquals(List.of(1, 1), pageNumbers);
+    }
+}
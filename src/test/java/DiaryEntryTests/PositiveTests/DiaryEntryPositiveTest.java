@@ -2,11 +2,18 @@ package DiaryEntryTests.PositiveTests;
 
 import edu.ntnu.iir.bidata.models.Author;
 import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.text.Vocabulary;
+import edu.ntnu.iir.bidata.text.WordCounter;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 import static java.lang.Thread.sleep;
 import static org.junit.jupiter.api.Assertions.*;
@@ -29,6 +36,16 @@ import static org.junit.jupiter.api.Assertions.*;
  *     </ul>
  *   </li>
  *
+ *   <li>Inserting and moving pages
+ *     <ul>
+ *       <li>testInsertPageInMiddle: Tests insertPage between two existing pages</li>
+ *       <li>testInsertPageAfterLastPage: Tests insertPage at the position after the last page</li>
+ *       <li>testMovePageForward: Tests movePage from the first to the last page</li>
+ *       <li>testMovePageBackward: Tests movePage from the last to the first page</li>
+ *       <li>testMixedInsertRemoveMove: Tests many inserts, removals and moves against a reference list</li>
+ *     </ul>
+ *   </li>
+ *
  *   <li>Removing a page
  *     <ul>
  *       <li>testRemovePage: Tests removePage for a page in the middle of the diary</li>
@@ -86,6 +103,16 @@ import static org.junit.jupiter.api.Assertions.*;
  *     </ul>
  *   </li>
  *
+ *   <li>Word counts
+ *     <ul>
+ *       <li>testWordCountAfterAddingPages: Tests that entry and author word counts add up over several pages</li>
+ *       <li>testWordCountAfterEditingAndRemoving: Tests that word counts follow editPageText and removePage</li>
+ *       <li>testWordCountIsCopy: Tests that the counts returned by getWordCount are not changed by later edits</li>
+ *       <li>testWordCountAgainstReference: Tests many random edits against a reference map</li>
+ *       <li>testWordIdsSharedAcrossEntries: Tests that the same word gets one vocabulary id in every entry</li>
+ *     </ul>
+ *   </li>
+ *
  *   <li>Combined operations
  *     <ul>
  *       <li>testCombinedAddEditRemoveScenario: Tests combined usage of editEntryTitle, addPage, editPageText, and removePage</li>
@@ -440,4 +467,220 @@ public class DiaryEntryPositiveTest {
         assertEquals(TITLE_2, diaryEntry.getPageTitle(1));
         assertEquals(TITLE_3, diaryEntry.getPageTitle(2));
     }
+
+    /**
+     * Tests insertPage between two existing pages.
+     */
+    @Test
+    void testInsertPageInMiddle() {
+        diaryEntry.addPage(TITLE_1, TEXT_1);
+        diaryEntry.addPage(TITLE_3, TEXT_3);
+        diaryEntry.insertPage(2, TITLE_2, TEXT_2);
+        assertEquals(3, diaryEntry.getNmbPages());
+        assertEquals(TITLE_1, diaryEntry.getPageTitle(1));
+        assertEquals(TITLE_2, diaryEntry.getPageTitle(2));
+        assertEquals(TITLE_3, diaryEntry.getPageTitle(3));
+    }
+
+    /**
+     * Tests insertPage at the position after the last page.
+     */
+    @Test
+    void testInsertPageAfterLastPage() {
+        diaryEntry.addPage(TITLE_1, TEXT_1);
+        diaryEntry.insertPage(2, TITLE_2, TEXT_2);
+        assertEquals(TITLE_2, diaryEntry.getPageTitle(2));
+        assertEquals(TEXT_2, diaryEntry.getPageText(2));
+    }
+
+    /**
+     * Tests movePage from the first to the last page.
+     */
+    @Test
+    void testMovePageForward() {
+        diaryEntry.addPage(TITLE_1, TEXT_1);
+        diaryEntry.addPage(TITLE_2, TEXT_2);
+        diaryEntry.addPage(TITLE_3, TEXT_3);
+        diaryEntry.movePage(1, 3);
+        assertEquals(TITLE_2, diaryEntry.getPageTitle(1));
+        assertEquals(TITLE_3, diaryEntry.getPageTitle(2));
+        assertEquals(TITLE_1, diaryEntry.getPageTitle(3));
+    }
+
+    /**
+     * Tests movePage from the last to the first page.
+     */
+    @Test
+    void testMovePageBackward() {
+        diaryEntry.addPage(TITLE_1, TEXT_1);
+        diaryEntry.addPage(TITLE_2, TEXT_2);
+        diaryEntry.addPage(TITLE_3, TEXT_3);
+        diaryEntry.movePage(3, 1);
+        assertEquals(TITLE_3, diaryEntry.getPageTitle(1));
+        assertEquals(TITLE_1, diaryEntry.getPageTitle(2));
+        assertEquals(TITLE_2, diaryEntry.getPageTitle(3));
+    }
+
+    /**
+     * Tests many inserts, removals and moves against a reference list.
+     */
+    @Test
+    void testMixedInsertRemoveMove() {
+        List<String> expected = new ArrayList<>();
+        Random random = new Random(42);
+        for (int step = 0; step < 500; step++) {
+            int size = expected.size();
+            int operation = size < 3 ? 0 : random.nextInt(4);
+            String title = "Page " + step;
+            switch (operation) {
+                case 0 -> {
+                    int pageNumber = random.nextInt(size + 1) + 1;
+                    diaryEntry.insertPage(pageNumber, title, TEXT_1);
+                    expected.add(pageNumber - 1, title);
+                }
+                case 1 -> {
+                    diaryEntry.addPage(title, TEXT_1);
+                    expected.add(title);
+                }
+                case 2 -> {
+                    int pageNumber = random.nextInt(size) + 1;
+                    diaryEntry.removePage(pageNumber);
+                    expected.remove(pageNumber - 1);
+                }
+                default -> {
+                    int from = random.nextInt(size) + 1;
+                    int to = random.nextInt(size) + 1;
+                    diaryEntry.movePage(from, to);
+                    expected.add(to - 1, expected.remove(from - 1));
+                }
+            }
+        }
+
+        List<String> actual = new ArrayList<>();
+        diaryEntry.getPageTitles().forEachRemaining(actual::add);
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * Tests that entry and author word counts add up over several pages.
+     */
+    @Test
+    void testWordCountAfterAddingPages() {
+        Author author = new Author("Kari Nordmann");
+        DiaryEntry entry = new DiaryEntry(author, MAX_LENGTH, ENTRY_TITLE);
+        entry.addPage(TITLE_1, "one two two");
+        entry.addPage(TITLE_2, "Two three");
+
+        assertEquals(1L, entry.getWordCount("one"));
+        assertEquals(3L, entry.getWordCount("TWO"));
+        assertEquals(1L, entry.getWordCount("three"));
+        assertEquals(3L, entry.getWordCount().size());
+        assertEquals(3L, author.getWordCount("two"));
+        assertEquals(1L, author.getWordCount("one"));
+    }
+
+    /**
+     * Tests that word counts follow editPageText and removePage.
+     */
+    @Test
+    void testWordCountAfterEditingAndRemoving() {
+        Author author = new Author("Kari Nordmann");
+        DiaryEntry entry = new DiaryEntry(author, MAX_LENGTH, ENTRY_TITLE);
+        DiaryEntry other = new DiaryEntry(author, MAX_LENGTH, ENTRY_TITLE_NEW);
+        entry.addPage(TITLE_1, "one two two");
+        entry.addPage(TITLE_2, "two three");
+        other.addPage(TITLE_3, "three");
+
+        entry.setPageText(1, "four");
+        assertEquals(0L, entry.getWordCount("one"));
+        assertEquals(1L, entry.getWordCount("two"));
+        assertEquals(1L, entry.getWordCount("four"));
+        assertEquals(2L, author.getWordCount("three"));
+
+        entry.removePage(2);
+        assertEquals(0L, entry.getWordCount("two"));
+        assertEquals(0L, author.getWordCount("two"));
+        assertEquals(1L, author.getWordCount("three"));
+        assertEquals(1L, entry.getWordCount().size());
+    }
+
+    /**
+     * Tests that the counts returned by getWordCount are not changed by later edits.
+     */
+    @Test
+    void testWordCountIsCopy() {
+        DiaryEntry entry = new DiaryEntry(new Author("Kari Nordmann"), MAX_LENGTH, ENTRY_TITLE);
+        entry.addPage(TITLE_1, "one two");
+
+        WordCounter counts = entry.getWordCount();
+        entry.setPageText(1, "three");
+        counts.increment(Vocabulary.shared().lookup("one"));
+
+        assertEquals(2, counts.size());
+        assertEquals(2L, counts.get(Vocabulary.shared().lookup("one")));
+        assertEquals(0L, entry.getWordCount("one"));
+        assertEquals(1L, entry.getWordCount().size());
+    }
+
+    /**
+     * Tests many random edits against a reference map.
+     */
+    @Test
+    void testWordCountAgainstReference() {
+        String[] words = new String[200];
+        for (int index = 0; index < words.length; index++) {
+            words[index] = "word" + index;
+        }
+        Random random = new Random(7);
+        List<String> texts = new ArrayList<>();
+        for (int step = 0; step < 400; step++) {
+            StringBuilder text = new StringBuilder();
+            for (int count = random.nextInt(5) + 1; count > 0; count--) {
+                text.append(words[random.nextInt(words.length)]).append(' ');
+            }
+            if (texts.size() > 5 && random.nextBoolean()) {
+                int pageNumber = random.nextInt(texts.size()) + 1;
+                diaryEntry.removePage(pageNumber);
+                texts.remove(pageNumber - 1);
+            } else {
+                diaryEntry.addPage(TITLE_1, text.toString());
+                texts.add(text.toString());
+            }
+        }
+
+        Map<String, Long> expected = new HashMap<>();
+        for (String text : texts) {
+            for (String word : text.split(" ")) {
+                if (!word.isBlank()) expected.merge(word, 1L, Long::sum);
+            }
+        }
+        Map<String, Long> actual = new HashMap<>();
+        diaryEntry.getWordCount().forEach((wordId, count) -> actual.put(Vocabulary.shared().word(wordId), count));
+        assertEquals(expected, actual);
+        for (String word : words) {
+            assertEquals(expected.getOrDefault(word, 0L), AUTHOR.getWordCount(word));
+        }
+    }
+
+    /**
+     * Tests that the same word gets one vocabulary id in every entry,
+     * and that looking up a word does not give it an id.
+     */
+    @Test
+    void testWordIdsSharedAcrossEntries() {
+        DiaryEntry other = new DiaryEntry(new Author("Kari Nordmann"), MAX_LENGTH, ENTRY_TITLE_NEW);
+        diaryEntry.addPage(TITLE_1, "Sunshine");
+        other.addPage(TITLE_2, "sunshine");
+
+        int wordId = Vocabulary.shared().lookup("sunshine");
+        assertTrue(wordId >= 0);
+        assertEquals(1L, diaryEntry.getWordCount().get(wordId));
+        assertEquals(1L, other.getWordCount().get(wordId));
+        assertEquals("sunshine", Vocabulary.shared().word(wordId));
+
+        int size = Vocabulary.shared().size();
+        assertEquals(0L, diaryEntry.getWordCount("neverwrittenanywhere"));
+        assertEquals(Vocabulary.UNKNOWN, Vocabulary.shared().lookup("neverwrittenanywhere"));
+        assertEquals(size, Vocabulary.shared().size());
+    }
 }
@@ -0,0 +1,72 @@
+package DiaryRegisterTest.NegativeTests;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiaryEntryRegisterNegativeTests {
+
+    private DiaryEntryRegister register;
+    private Author author;
+    private DiaryEntry entry1;
+    private DiaryEntry entry2;
+
+    private static final String FIRST_NAME = "Robert";
+    private static final String LAST_NAME = "Larsen";
+
+    private static final String ENTRY_TITLE_1 = "Det";
+    private static final String ENTRY_TITLE_2 = "var";
+
+    private static final String PAGE_TITLE = "siden det";
+    private static final String PAGE_TEXT = "tok moro moro";
+
+    private static final int MAX_TEXT_LENGTH = 500;
+
+    @BeforeEach
+    void setUp() {
+        register = new DiaryEntryRegister();
+        author = new Author(FIRST_NAME, LAST_NAME);
+
+        entry1 = new DiaryEntry(author, MAX_TEXT_LENGTH, ENTRY_TITLE_1);
+        entry1.addPage(PAGE_TITLE, PAGE_TEXT);
+        entry2 = new DiaryEntry(author, MAX_TEXT_LENGTH, ENTRY_TITLE_2);
+        entry2.addPage(PAGE_TITLE, PAGE_TEXT);
+
+        register.addDiaryEntry(entry1);
+        register.addDiaryEntry(entry2);
+    }
+
+    @Test
+    void testAddDiaryEntryWithNullEntry() {
+        assertThrows(IllegalArgumentException.class, () -> register.addDiaryEntry(null));
+    }
+
+    @Test
+    void testAddDiaryEntryWithDuplicateTitle() {
+        DiaryEntry duplicate = new DiaryEntry(author, MAX_TEXT_LENGTH, ENTRY_TITLE_1.toUpperCase());
+        assertThrows(IllegalArgumentException.class, () -> register.addDiaryEntry(duplicate));
+        assertEquals(2, register.getNumberOfEntries(author));
+    }
+
+    @Test
+    void testSetEntryTitleToExistingTitle() {
+        assertThrows(IllegalArgumentException.class, () -> entry2.setEntryTitle(ENTRY_TITLE_1));
+        assertEquals(ENTRY_TITLE_2, entry2.getEntryTitle());
+        assertSame(entry2, register.findDiaryEntryFromAuthorByTitle(author, ENTRY_TITLE_2).orElseThrow());
+    }
+
+    @Test
+    void testRemoveDiaryEntryWithUnknownTitle() {
+        assertTrue(register.removeDiaryEntry(author, "unknown").isEmpty());
+        assertEquals(2, register.getNumberOfEntries(author));
+    }
+
+    @Test
+    void testFindDiaryEntryFromAuthorByTitleWithBlankTitle() {
+        assertThrows(IllegalArgumentException.class, () -> register.findDiaryEntryFromAuthorByTitle(author, " "));
+    }
+}
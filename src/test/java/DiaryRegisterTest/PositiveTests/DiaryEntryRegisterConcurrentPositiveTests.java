@@ -0,0 +1,291 @@
+package DiaryRegisterTest.PositiveTests;
+
+import edu.ntnu.iir.bidata.index.IndexingPipeline;
+import edu.ntnu.iir.bidata.index.WordIndex;
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Positive tests for a DiaryEntryRegister shared by several threads.
+ *
+ * <ul>
+ *   <li>testConcurrentAddsAndRemoves: Tests that entries added and removed from several threads leave every index consistent</li>
+ *   <li>testConcurrentSameTitle: Tests that only one of several entries with the same title and author is added</li>
+ *   <li>testConcurrentRenamesAndAdds: Tests that entries renamed and added at the same time never share a title</li>
+ *   <li>testReadsDuringWrites: Tests that lookups and searches keep working while entries are added</li>
+ *   <li>testSearchesSeeWholeEntries: Tests that searches never see an entry that is only partly added or removed</li>
+ *   <li>testEventualIndexingMatchesSync: Tests that counting and indexing on the indexer thread ends up where counting during each edit does</li>
+ * </ul>
+ */
+public class DiaryEntryRegisterConcurrentPositiveTests {
+
+    private static final int THREADS = 8;
+    private static final int ENTRIES = 200;
+
+    private static <T> List<T> runAll(List<Callable<T>> tasks) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<T> results = new ArrayList<>();
+            for (Future<T> future : executor.invokeAll(tasks)) results.add(future.get());
+            return results;
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        }
+    }
+
+    private static DiaryEntry entry(Author author, String title) {
+        DiaryEntry entry = new DiaryEntry(author, 100, title);
+        entry.addPage("First", "Shared word and " + title.replace(' ', '_'));
+        return entry;
+    }
+
+    /**
+     * Tests that entries added and removed from several threads leave every index consistent.
+     */
+    @Test
+    void testConcurrentAddsAndRemoves() throws Exception {
+        DiaryEntryRegister register = new DiaryEntryRegister();
+        Author shared = new Author("Shared");
+        List<Author> authors = new ArrayList<>();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            Author own = new Author("Writer" + thread);
+            authors.add(own);
+            int number = thread;
+            tasks.add(() -> {
+                for (int index = 0; index < ENTRIES; index++) {
+                    register.addDiaryEntry(entry(own, "Entry " + index));
+                    register.addDiaryEntry(entry(shared, "Entry " + number + "-" + index));
+                }
+                for (int index = 0; index < ENTRIES; index += 2) {
+                    assertTrue(register.removeDiaryEntry(own, "Entry " + index).isPresent());
+                }
+                return null;
+            });
+        }
+
+        runAll(tasks);
+
+        for (Author author : authors) {
+            assertEquals(ENTRIES / 2, register.getNumberOfEntries(author));
+            assertEquals(ENTRIES / 2, register.getDiaryEntriesByAuthor(author).size());
+            assertFalse(register.hasDiaryEntry(author, "Entry 0"));
+            assertTrue(register.hasDiaryEntry(author, "Entry 1"));
+        }
+        assertEquals(THREADS * ENTRIES, register.getNumberOfEntries(shared));
+        int total = THREADS * ENTRIES + THREADS * ENTRIES / 2;
+        assertEquals(total, register.getAllDiaryEntries().size());
+        assertEquals(total, register.getEntriesCreatedBetween(LocalDate.now().minusDays(1), LocalDate.now()).size());
+        assertEquals(total, register.searchForWord("shared", Integer.MAX_VALUE).size());
+    }
+
+    /**
+     * Tests that only one of several entries with the same title and author is added.
+     */
+    @Test
+    void testConcurrentSameTitle() throws Exception {
+        DiaryEntryRegister register = new DiaryEntryRegister();
+        Author author = new Author("Nero");
+        List<Callable<Boolean>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            DiaryEntry entry = entry(author, "Summer");
+            tasks.add(() -> {
+                try {
+                    register.addDiaryEntry(entry);
+                    return true;
+                } catch (IllegalArgumentException e) {
+                    return false;
+                }
+            });
+        }
+
+        long added = runAll(tasks).stream().filter(Boolean::booleanValue).count();
+
+        assertEquals(1, added);
+        assertEquals(1, register.getNumberOfEntries(author));
+        assertEquals(1, register.searchForWord("summer", 10).size());
+    }
+
+    /**
+     * Tests that entries renamed and added at the same time never share a title.
+     */
+    @Test
+    void testConcurrentRenamesAndAdds() throws Exception {
+        DiaryEntryRegister register = new DiaryEntryRegister();
+        Author author = new Author("Nero");
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            DiaryEntry own = entry(author, "Own " + thread);
+            register.addDiaryEntry(own);
+            int number = thread;
+            tasks.add(() -> {
+                for (int round = 0; round < ENTRIES; round++) {
+                    try {
+                        own.setEntryTitle("Target " + round);
+                    } catch (IllegalArgumentException e) {
+                        // Another thread got the title first.
+                    }
+                    try {
+                        register.addDiaryEntry(entry(author, "Target " + round));
+                    } catch (IllegalArgumentException e) {
+                        // Another thread got the title first.
+                    }
+                    if (round % 10 == number) register.removeDiaryEntry(author, "Target " + round);
+                }
+                return null;
+            });
+        }
+
+        runAll(tasks);
+
+        List<DiaryEntry> entries = register.getDiaryEntriesByAuthor(author);
+        Set<String> titles = new HashSet<>();
+        for (DiaryEntry entry : entries) {
+            assertTrue(titles.add(entry.getEntryTitle().toLowerCase()), entry.getEntryTitle());
+            assertSame(entry, register.findDiaryEntryFromAuthorByTitle(author, entry.getEntryTitle()).orElseThrow());
+        }
+        assertEquals(entries.size(), register.getNumberOfEntries(author));
+    }
+
+    /**
+     * Tests that lookups and searches keep working while entries are added.
+     */
+    @Test
+    void testReadsDuringWrites() throws Exception {
+        DiaryEntryRegister register = new DiaryEntryRegister();
+        Author author = new Author("Nero");
+        register.addDiaryEntry(entry(author, "Fixed"));
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            for (int index = 0; index < 1_000; index++) register.addDiaryEntry(entry(author, "Entry " + index));
+            return 0;
+        });
+        for (int reader = 1; reader < THREADS; reader++) {
+            tasks.add(() -> {
+                int misses = 0;
+                for (int round = 0; round < 1_000; round++) {
+                    if (register.findDiaryEntryFromAuthorByTitle(author, "fixed").isEmpty()) misses++;
+                    if (register.searchForWord("fixed", 10).isEmpty()) misses++;
+                    register.getDiaryEntriesByAuthor(author);
+                    register.getMostRecentlyChangedEntries(5);
+                }
+                return misses;
+            });
+        }
+
+        assertTrue(runAll(tasks).stream().allMatch(misses -> misses == 0));
+        assertEquals(1_001, register.getNumberOfEntries(author));
+    }
+
+    /**
+     * Tests that searches never see an entry that is only partly added or removed.
+     */
+    @Test
+    void testSearchesSeeWholeEntries() throws Exception {
+        DiaryEntryRegister register = new DiaryEntryRegister();
+        Author author = new Author("Nero");
+        List<DiaryEntry> entries = new ArrayList<>();
+        for (int index = 0; index < 100; index++) {
+            DiaryEntry entry = new DiaryEntry(author, 100, "Entry " + index);
+            entry.addPage("First", "Churning page one");
+            entry.addPage("Second", "Churning page two");
+            entries.add(entry);
+        }
+        List<Callable<Integer>> tasks = new ArrayList<>();
+        tasks.add(() -> {
+            for (int round = 0; round < 10; round++) {
+                for (DiaryEntry entry : entries) register.addDiaryEntry(entry);
+                for (DiaryEntry entry : entries) register.removeDiaryEntry(author, entry.getEntryTitle());
+            }
+            return 0;
+        });
+        for (int reader = 1; reader < THREADS; reader++) {
+            tasks.add(() -> {
+                int torn = 0;
+                for (int round = 0; round < 1_000; round++) {
+                    Map<DiaryEntry, Integer> pagesPerEntry = new HashMap<>();
+                    for (WordIndex.PageMatch match : register.searchForPhrase("churning page", Integer.MAX_VALUE)) {
+                        pagesPerEntry.merge(match.entry(), 1, Integer::sum);
+                    }
+                    if (pagesPerEntry.containsValue(1)) torn++;
+                }
+                return torn;
+            });
+        }
+
+        assertTrue(runAll(tasks).stream().allMatch(torn -> torn == 0));
+        assertTrue(register.searchForWord("churning", 10).isEmpty());
+    }
+
+    /**
+     * Tests that counting and indexing on the indexer thread ends up where counting during each edit does,
+     * and that each writer reads its own edits.
+     */
+    @Test
+    void testEventualIndexingMatchesSync() throws Exception {
+        try (IndexingPipeline pipeline = new IndexingPipeline(IndexingPipeline.Consistency.EVENTUAL, 64)) {
+            DiaryEntryRegister sync = new DiaryEntryRegister();
+            DiaryEntryRegister eventual = new DiaryEntryRegister(null, pipeline);
+            List<Author> syncAuthors = new ArrayList<>();
+            List<Author> eventualAuthors = new ArrayList<>();
+            List<Callable<Void>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                Author syncAuthor = new Author("Writer" + thread);
+                Author eventualAuthor = new Author("Writer" + thread);
+                syncAuthors.add(syncAuthor);
+                eventualAuthors.add(eventualAuthor);
+                tasks.add(() -> {
+                    for (int index = 0; index < ENTRIES / 10; index++) {
+                        edit(sync, syncAuthor, index);
+                        DiaryEntry entry = edit(eventual, eventualAuthor, index);
+                        assertEquals(2, entry.getWordCount("kept"));
+                        assertEquals(0, entry.getWordCount("dropped"));
+                    }
+                    return null;
+                });
+            }
+
+            runAll(tasks);
+            eventual.awaitIndexing();
+
+            for (String word : List.of("kept", "dropped", "shared", "again", "later")) {
+                assertEquals(sync.searchForWord(word, Integer.MAX_VALUE).size(),
+                        eventual.searchForWord(word, Integer.MAX_VALUE).size());
+                for (int index = 0; index < THREADS; index++) {
+                    assertEquals(syncAuthors.get(index).getWordCount(word), eventualAuthors.get(index).getWordCount(word));
+                }
+            }
+            assertEquals(sync.searchForPhrase("kept again", Integer.MAX_VALUE).size(),
+                    eventual.searchForPhrase("kept again", Integer.MAX_VALUE).size());
+            assertTrue(eventual.searchForWord("dropped", 10).isEmpty());
+        }
+    }
+
+    private static DiaryEntry edit(DiaryEntryRegister register, Author author, int index) {
+        DiaryEntry entry = entry(author, "Edited " + index);
+        register.addDiaryEntry(entry);
+        entry.addPage("Second", "Dropped words shared later");
+        entry.insertPage(1, "Zeroth", "Kept again");
+        entry.setPageText(2, "Kept again and shared");
+        entry.removePage(3);
+        return entry;
+    }
+}
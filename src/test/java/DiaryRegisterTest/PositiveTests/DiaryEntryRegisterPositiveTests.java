@@ -1,7 +1,9 @@
 package DiaryRegisterTest.PositiveTests;
 
+import edu.ntnu.iir.bidata.index.WordIndex;
 import edu.ntnu.iir.bidata.models.Author;
 import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.models.Page;
 import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -142,6 +144,13 @@ public class DiaryEntryRegisterPositiveTests {
         assertTrue(results.get(author2).contains(entry3));
     }
 
+    @Test
+    void testGetEntriesCreatedBetweenWholeCalendar() {
+        assertEquals(3, register.getEntriesCreatedBetween(LocalDate.MIN, LocalDate.MAX).size());
+        assertEquals(2, register.getEntriesChangedBetweenGroupedByAuthor(LocalDate.now(), LocalDate.MAX).size());
+        assertTrue(register.getEntriesCreatedBetween(LocalDate.MAX, LocalDate.MAX).isEmpty());
+    }
+
     @Test
     void testGetEntriesChangedBetweenGroupedByAuthor() {
         LocalDate start = LocalDate.now().minusDays(1);
@@ -213,4 +222,160 @@ public class DiaryEntryRegisterPositiveTests {
         List<DiaryEntry> results = register.searchForWord(WORD_UNKOWN, 10);
         assertTrue(results.isEmpty());
     }
+
+    @Test
+    void testSearchForWordAfterSetPageText() {
+        entry3.setPageText(1, "trogg " + WORD_1);
+
+        List<DiaryEntry> results = register.searchForWord(WORD_1, 10);
+        assertTrue(results.contains(entry3));
+        assertTrue(register.searchForWord(WORD_3, 10).isEmpty());
+    }
+
+    @Test
+    void testSearchForWordAfterAddAndRemovePage() {
+        entry3.addPage(PAGE_TITLE_4, PAGE_TEXT_4);
+        assertTrue(register.searchForWord(WORD_1, 10).contains(entry3));
+
+        entry3.removePage(2);
+        assertFalse(register.searchForWord(WORD_1, 10).contains(entry3));
+    }
+
+    @Test
+    void testSearchForWordIgnoresCase() {
+        List<DiaryEntry> results = register.searchForWord(WORD_2.toUpperCase(), 10);
+
+        assertEquals(1, results.size());
+        assertEquals(entry2, results.getFirst());
+    }
+
+    @Test
+    void testSearchForWordAfterRemoveDiaryEntry() {
+        register.removeDiaryEntry(author2, ENTRY_TITLE_3);
+        assertTrue(register.searchForWord(WORD_3, 10).isEmpty());
+    }
+
+    @Test
+    void testGetPagesContainingWord() {
+        entry1.addPage(PAGE_TITLE_2, PAGE_TEXT_3);
+        entry1.addPage(PAGE_TITLE_3, PAGE_TEXT_4);
+
+        Map<Integer, Page> pages = register.getPagesContainingWord(entry1, WORD_1);
+        assertEquals(List.of(1, 3), List.copyOf(pages.keySet()));
+
+        entry1.removePage(1);
+        pages = register.getPagesContainingWord(entry1, WORD_1);
+        assertEquals(List.of(2), List.copyOf(pages.keySet()));
+        assertEquals(PAGE_TITLE_3, pages.get(2).getTitle());
+    }
+
+    @Test
+    void testSearchForWordIgnoresPunctuation() {
+        List<DiaryEntry> results = register.searchForWord(" " + WORD_2 + ", ", 10);
+
+        assertEquals(List.of(entry2), results);
+        assertEquals(List.of(1), List.copyOf(register.getPagesContainingWord(entry2, WORD_2 + ".").keySet()));
+        assertTrue(register.searchForWord(",", 10).isEmpty());
+    }
+
+    @Test
+    void testGetPagesContainingWordOnlyInEntry() {
+        entry2.addPage(PAGE_TITLE_3, PAGE_TEXT_3);
+        entry2.addPage(PAGE_TITLE_4, PAGE_TEXT_1);
+
+        assertEquals(List.of(1, 3), List.copyOf(register.getPagesContainingWord(entry2, WORD_1).keySet()));
+        assertEquals(List.of(1), List.copyOf(register.getPagesContainingWord(entry1, WORD_1).keySet()));
+        assertTrue(register.getPagesContainingWord(entry3, WORD_1).isEmpty());
+    }
+
+    @Test
+    void testSearchForPhrase() {
+        List<WordIndex.PageMatch> matches = register.searchForPhrase(WORD_1 + " " + WORD_2, 10);
+
+        assertEquals(1, matches.size());
+        assertEquals(entry2, matches.getFirst().entry());
+        assertEquals(1, matches.getFirst().pageNumber());
+        assertEquals(1, matches.getFirst().position());
+    }
+
+    @Test
+    void testSearchForPhraseInWrongOrder() {
+        assertTrue(register.searchForPhrase(WORD_2 + " " + WORD_1, 10).isEmpty());
+    }
+
+    @Test
+    void testSearchForPhraseAfterSetPageText() {
+        entry3.setPageText(1, "trogg " + WORD_1 + " " + WORD_2);
+
+        List<WordIndex.PageMatch> matches = register.searchForPhrase(WORD_1 + " " + WORD_2, 10);
+        assertEquals(2, matches.size());
+        assertTrue(matches.stream().anyMatch(match -> match.entry() == entry3));
+    }
+
+    @Test
+    void testSearchForWordsNear() {
+        List<String> words = List.of(WORD_2, "tare");
+
+        assertEquals(1, register.searchForWordsNear(words, 2, 10).size());
+        assertTrue(register.searchForWordsNear(words, 1, 10).isEmpty());
+    }
+
+    @Test
+    void testGetEntriesCreatedAtOtherDateIsEmpty() {
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        assertTrue(register.getEntriesCreatedAtDateGroupedByAuthor(yesterday).isEmpty());
+        assertTrue(register.getEntriesCreatedBetweenGroupedByAuthor(yesterday.minusDays(7), yesterday).isEmpty());
+    }
+
+    @Test
+    void testGetEntriesCreatedAtDateAfterRemoveDiaryEntry() {
+        register.removeDiaryEntry(author1, ENTRY_TITLE_1);
+        Map<Author, List<DiaryEntry>> results = register.getEntriesCreatedAtDateGroupedByAuthor(LocalDate.now());
+
+        assertEquals(List.of(entry2), results.get(author1));
+        assertEquals(List.of(entry3), results.get(author2));
+    }
+
+    @Test
+    void testGetMostRecentlyChangedEntries() throws InterruptedException {
+        Thread.sleep(5);
+        entry1.setPageText(1, PAGE_TEXT_4);
+        Thread.sleep(5);
+        entry3.setPageTitle(1, PAGE_TITLE_4);
+
+        assertEquals(List.of(entry3, entry1), register.getMostRecentlyChangedEntries(2));
+        assertEquals(3, register.getMostRecentlyChangedEntries(10).size());
+    }
+
+    @Test
+    void testGetEntriesChangedAtDateAfterRemoveDiaryEntry() {
+        register.removeDiaryEntry(author2, ENTRY_TITLE_3);
+        entry3.setPageText(1, PAGE_TEXT_4);
+
+        Map<Author, List<DiaryEntry>> results = register.getEntriesChangedAtDateGroupedByAuthor(LocalDate.now());
+        assertFalse(results.containsKey(author2));
+        assertEquals(2, results.get(author1).size());
+    }
+
+    @Test
+    void testFindDiaryEntryFromAuthorByTitleIgnoresCase() {
+        Optional<DiaryEntry> found = register.findDiaryEntryFromAuthorByTitle(author2, ENTRY_TITLE_3.toUpperCase());
+        assertTrue(found.isPresent());
+        assertSame(entry3, found.get());
+    }
+
+    @Test
+    void testFindDiaryEntryFromAuthorByTitleAfterSetEntryTitle() {
+        entry1.setEntryTitle(ENTRY_TITLE_4);
+
+        assertFalse(register.hasDiaryEntry(author1, ENTRY_TITLE_1));
+        assertSame(entry1, register.findDiaryEntryFromAuthorByTitle(author1, ENTRY_TITLE_4).orElseThrow());
+        assertSame(entry1, register.removeDiaryEntry(author1, ENTRY_TITLE_4).orElseThrow());
+    }
+
+    @Test
+    void testHasDiaryEntry() {
+        assertTrue(register.hasDiaryEntry(author1, ENTRY_TITLE_2));
+        assertFalse(register.hasDiaryEntry(author2, ENTRY_TITLE_2));
+    }
 }
@@ -0,0 +1,50 @@
+package IndexTests.NegativeTests;
+
+import edu.ntnu.iir.bidata.index.IndexingPipeline;
+import edu.ntnu.iir.bidata.index.IndexingPipeline.Consistency;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Negative tests for the IndexingPipeline class.
+ *
+ * <ul>
+ *   <li>testInvalidConstructorArguments: Tests that a null consistency or a capacity below 1 is rejected</li>
+ *   <li>testNullUpdateAndHook: Tests that null updates and hooks are rejected</li>
+ *   <li>testSubmitAfterClose: Tests that updates submitted after closing are rejected</li>
+ * </ul>
+ */
+public class IndexingPipelineNegativeTest {
+
+    /**
+     * Tests that a null consistency or a capacity below 1 is rejected.
+     */
+    @Test
+    void testInvalidConstructorArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new IndexingPipeline(null, 16));
+        assertThrows(IllegalArgumentException.class, () -> new IndexingPipeline(Consistency.EVENTUAL, 0));
+    }
+
+    /**
+     * Tests that null updates and hooks are rejected.
+     */
+    @Test
+    void testNullUpdateAndHook() {
+        try (IndexingPipeline pipeline = new IndexingPipeline(Consistency.EVENTUAL, 16)) {
+            assertThrows(IllegalArgumentException.class, () -> pipeline.submit(null));
+            assertThrows(IllegalArgumentException.class, () -> pipeline.addBatchHook(null));
+        }
+    }
+
+    /**
+     * Tests that updates submitted after closing are rejected.
+     */
+    @Test
+    void testSubmitAfterClose() {
+        IndexingPipeline pipeline = new IndexingPipeline(Consistency.EVENTUAL, 16);
+        pipeline.close();
+
+        assertThrows(IllegalStateException.class, () -> pipeline.submit(() -> { }));
+    }
+}
@@ -0,0 +1,151 @@
+package IndexTests.PositiveTests;
+
+import edu.ntnu.iir.bidata.index.IndexingPipeline;
+import edu.ntnu.iir.bidata.index.IndexingPipeline.Consistency;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Positive tests for the IndexingPipeline class.
+ *
+ * <ul>
+ *   <li>testSyncRunsInline: Tests that synchronous updates and hooks run on the submitting thread</li>
+ *   <li>testEventualKeepsOrder: Tests that updates are applied one at a time in the order submitted</li>
+ *   <li>testReadYourWrites: Tests that awaitIndexed returns once the thread's own updates are applied</li>
+ *   <li>testAwaitAll: Tests that awaitAll waits for the updates of other threads</li>
+ *   <li>testBatches: Tests that updates piling up are applied as one batch followed by one run of the hooks</li>
+ *   <li>testFailedUpdateSkipped: Tests that an update throwing an exception does not stop the indexer</li>
+ * </ul>
+ */
+public class IndexingPipelinePositiveTest {
+
+    /**
+     * Tests that synchronous updates and hooks run on the submitting thread.
+     */
+    @Test
+    void testSyncRunsInline() {
+        IndexingPipeline pipeline = new IndexingPipeline(Consistency.SYNC, 1);
+        AtomicReference<Thread> ranOn = new AtomicReference<>();
+        AtomicInteger hooks = new AtomicInteger();
+        pipeline.addBatchHook(hooks::incrementAndGet);
+
+        pipeline.submit(() -> ranOn.set(Thread.currentThread()));
+
+        assertFalse(pipeline.isDeferred());
+        assertSame(Thread.currentThread(), ranOn.get());
+        assertEquals(1, hooks.get());
+    }
+
+    /**
+     * Tests that updates are applied one at a time in the order submitted.
+     */
+    @Test
+    void testEventualKeepsOrder() {
+        List<Integer> applied = new ArrayList<>();
+        try (IndexingPipeline pipeline = new IndexingPipeline(Consistency.EVENTUAL, 16)) {
+            assertTrue(pipeline.isDeferred());
+            for (int index = 0; index < 10_000; index++) {
+                int number = index;
+                pipeline.submit(() -> applied.add(number));
+            }
+            pipeline.awaitIndexed();
+            assertEquals(10_000, pipeline.getAppliedUpdates());
+        }
+
+        assertEquals(10_000, applied.size());
+        for (int index = 0; index < applied.size(); index++) assertEquals(index, applied.get(index));
+    }
+
+    /**
+     * Tests that awaitIndexed returns once the thread's own updates are applied.
+     */
+    @Test
+    void testReadYourWrites() throws InterruptedException {
+        AtomicBoolean done = new AtomicBoolean();
+        try (IndexingPipeline pipeline = new IndexingPipeline(Consistency.EVENTUAL, IndexingPipeline.DEFAULT_CAPACITY)) {
+            pipeline.submit(() -> {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                done.set(true);
+            });
+            pipeline.awaitIndexed();
+            assertTrue(done.get());
+        }
+    }
+
+    /**
+     * Tests that awaitAll waits for the updates of other threads.
+     */
+    @Test
+    void testAwaitAll() throws InterruptedException {
+        AtomicInteger count = new AtomicInteger();
+        try (IndexingPipeline pipeline = new IndexingPipeline(Consistency.EVENTUAL, 8)) {
+            Thread writer = new Thread(() -> {
+                for (int index = 0; index < 1_000; index++) pipeline.submit(count::incrementAndGet);
+            });
+            writer.start();
+            writer.join();
+
+            pipeline.awaitAll();
+            assertEquals(1_000, count.get());
+        }
+    }
+
+    /**
+     * Tests that updates piling up are applied as one batch followed by one run of the hooks.
+     */
+    @Test
+    void testBatches() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger hooks = new AtomicInteger();
+        try (IndexingPipeline pipeline = new IndexingPipeline(Consistency.EVENTUAL, 128)) {
+            pipeline.addBatchHook(hooks::incrementAndGet);
+            pipeline.submit(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            started.await();
+            for (int index = 0; index < 100; index++) pipeline.submit(() -> { });
+            release.countDown();
+            pipeline.awaitIndexed();
+
+            assertEquals(101, pipeline.getAppliedUpdates());
+            assertEquals(2, pipeline.getBatches());
+            assertEquals(2, hooks.get());
+        }
+    }
+
+    /**
+     * Tests that an update throwing an exception does not stop the indexer.
+     */
+    @Test
+    void testFailedUpdateSkipped() {
+        AtomicBoolean applied = new AtomicBoolean();
+        try (IndexingPipeline pipeline = new IndexingPipeline(Consistency.EVENTUAL, 4)) {
+            pipeline.submit(() -> {
+                throw new IllegalStateException("Broken update");
+            });
+            pipeline.submit(() -> applied.set(true));
+            pipeline.awaitIndexed();
+
+            assertTrue(applied.get());
+            assertEquals(1, pipeline.getFailures());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package IndexTests.PositiveTests;
+
+import edu.ntnu.iir.bidata.index.PersistentSortedMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Positive tests for the PersistentSortedMap class.
+ *
+ * <ul>
+ *   <li>testMatchesTreeMap: Tests random puts and removes against a TreeMap</li>
+ *   <li>testOldVersionsUnchanged: Tests that earlier versions keep their keys after later changes</li>
+ *   <li>testRanges: Tests counting and visiting ranges, with and without bounds</li>
+ *   <li>testVisitorStops: Tests that visiting stops when the visitor returns false</li>
+ * </ul>
+ */
+public class PersistentSortedMapPositiveTest {
+
+    private static List<Integer> keys(PersistentSortedMap<Integer, String> map, Integer from, Integer to) {
+        List<Integer> keys = new ArrayList<>();
+        map.forEach(from, to, (key, value) -> keys.add(key));
+        return keys;
+    }
+
+    /**
+     * Tests random puts and removes against a TreeMap.
+     */
+    @Test
+    void testMatchesTreeMap() {
+        Random random = new Random(7);
+        PersistentSortedMap<Integer, String> map = PersistentSortedMap.empty(Comparator.naturalOrder());
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        for (int round = 0; round < 20_000; round++) {
+            int key = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                map = map.remove(key);
+                expected.remove(key);
+            } else {
+                map = map.put(key, "v" + round);
+                expected.put(key, "v" + round);
+            }
+        }
+
+        assertEquals(expected.size(), map.size());
+        assertEquals(new ArrayList<>(expected.keySet()), keys(map, null, null));
+        for (Map.Entry<Integer, String> entry : expected.entrySet()) assertEquals(entry.getValue(), map.get(entry.getKey()));
+        assertEquals(expected.subMap(500, 1_500).size(), map.count(500, 1_500));
+    }
+
+    /**
+     * Tests that earlier versions keep their keys after later changes.
+     */
+    @Test
+    void testOldVersionsUnchanged() {
+        PersistentSortedMap<Integer, String> empty = PersistentSortedMap.empty(Comparator.naturalOrder());
+        PersistentSortedMap<Integer, String> first = empty.put(1, "one").put(2, "two");
+        PersistentSortedMap<Integer, String> second = first.put(3, "three").remove(1).put(2, "TWO");
+
+        assertTrue(empty.isEmpty());
+        assertEquals(List.of(1, 2), keys(first, null, null));
+        assertEquals("two", first.get(2));
+        assertEquals(List.of(2, 3), keys(second, null, null));
+        assertEquals("TWO", second.get(2));
+        assertSame(second, second.remove(42));
+    }
+
+    /**
+     * Tests counting and visiting ranges, with and without bounds.
+     */
+    @Test
+    void testRanges() {
+        PersistentSortedMap<Integer, String> map = PersistentSortedMap.empty(Comparator.naturalOrder());
+        for (int key = 0; key < 100; key += 10) map = map.put(key, "v" + key);
+
+        assertEquals(List.of(20, 30, 40), keys(map, 20, 50));
+        assertEquals(List.of(20, 30, 40), keys(map, 15, 45));
+        assertEquals(3, map.count(15, 45));
+        assertEquals(List.of(0, 10), keys(map, null, 20));
+        assertEquals(List.of(80, 90), keys(map, 80, null));
+        assertEquals(0, map.count(50, 20));
+        assertTrue(keys(map, 50, 50).isEmpty());
+    }
+
+    /**
+     * Tests that visiting stops when the visitor returns false.
+     */
+    @Test
+    void testVisitorStops() {
+        PersistentSortedMap<Integer, String> map = PersistentSortedMap.empty(Comparator.naturalOrder());
+        for (int key = 0; key < 10; key++) map = map.put(key, "v" + key);
+        List<Integer> ascending = new ArrayList<>();
+        List<Integer> descending = new ArrayList<>();
+
+        assertFalse(map.forEach(null, null, (key, value) -> ascending.add(key) && ascending.size() < 3));
+        assertFalse(map.forEachDescending((key, value) -> descending.add(key) && descending.size() < 3));
+
+        assertEquals(List.of(0, 1, 2), ascending);
+        assertEquals(List.of(9, 8, 7), descending);
+    }
+}
@@ -0,0 +1,58 @@
+package JournalTests.NegativeTests;
+
+import edu.ntnu.iir.bidata.persistence.CompactionTrigger;
+import edu.ntnu.iir.bidata.persistence.DiaryJournal;
+import edu.ntnu.iir.bidata.registers.AuthorRegister;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Negative tests for the CompactionTrigger class and compaction of a DiaryJournal.
+ *
+ * <ul>
+ *   <li>testNegativeLimits: Tests that negative limits are rejected</li>
+ *   <li>testZeroLimitFactories: Tests that factories reject a limit that would never be reached</li>
+ *   <li>testCompactClosedJournal: Tests that a closed journal cannot be compacted</li>
+ * </ul>
+ */
+class CompactionTriggerNegativeTest {
+
+    /**
+     * Tests that negative limits are rejected.
+     */
+    @Test
+    void testNegativeLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new CompactionTrigger(-1, 0));
+        assertThrows(IllegalArgumentException.class, () -> new CompactionTrigger(0, -1));
+    }
+
+    /**
+     * Tests that the factories reject a limit of 0, which would never be reached.
+     */
+    @Test
+    void testZeroLimitFactories() {
+        assertThrows(IllegalArgumentException.class, () -> CompactionTrigger.ofBytes(0));
+        assertThrows(IllegalArgumentException.class, () -> CompactionTrigger.ofRecords(0));
+    }
+
+    /**
+     * Tests that a closed journal cannot be compacted.
+     */
+    @Test
+    void testCompactClosedJournal() throws IOException {
+        Path directory = Files.createTempDirectory("diary-compaction");
+        DiaryJournal journal = DiaryJournal.open(directory, new AuthorRegister(), new DiaryEntryRegister());
+        journal.close();
+
+        assertThrows(IllegalStateException.class, journal::compact);
+        assertThrows(IllegalArgumentException.class, () -> journal.setCompactionTrigger(null));
+        Files.delete(directory.resolve(DiaryJournal.FILE_NAME));
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,69 @@
+package JournalTests.NegativeTests;
+
+import edu.ntnu.iir.bidata.persistence.CompressedPageStore;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Negative tests for the CompressedPageStore class.
+ *
+ * <ul>
+ *   <li>testInvalidConstruction: Tests that a null dictionary and a negative cache size are rejected</li>
+ *   <li>testReadMissingText: Tests that reading a slot that holds no text is rejected</li>
+ *   <li>testTrainWithInvalidArguments: Tests that training without samples or with no room is rejected</li>
+ *   <li>testStoreIdlePagesWithInvalidArguments: Tests that a null store and a negative idle time are rejected</li>
+ * </ul>
+ */
+class CompressedPageStoreNegativeTest {
+
+    /**
+     * Tests that a null dictionary and a negative cache size are rejected.
+     */
+    @Test
+    void testInvalidConstruction() {
+        assertThrows(IllegalArgumentException.class, () -> new CompressedPageStore(null));
+        assertThrows(IllegalArgumentException.class, () -> new CompressedPageStore(new byte[0], -1));
+    }
+
+    /**
+     * Tests that reading a slot that was never used, or was released, is rejected.
+     */
+    @Test
+    void testReadMissingText() {
+        CompressedPageStore store = new CompressedPageStore(new byte[0]);
+        byte[] text = "Some text".getBytes(StandardCharsets.UTF_8);
+        long offset = store.append(text);
+        store.release(offset, text.length);
+
+        assertThrows(IllegalArgumentException.class, () -> store.read(offset, text.length));
+        assertThrows(IllegalArgumentException.class, () -> store.read(5, 1));
+        assertThrows(IllegalArgumentException.class, () -> store.read(-1, 1));
+    }
+
+    /**
+     * Tests that training without samples or with no room for a dictionary is rejected.
+     */
+    @Test
+    void testTrainWithInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> CompressedPageStore.trainDictionary(null, 100));
+        assertThrows(IllegalArgumentException.class, () -> CompressedPageStore.trainDictionary(List.of("text"), 0));
+    }
+
+    /**
+     * Tests that a null store and a negative idle time are rejected.
+     */
+    @Test
+    void testStoreIdlePagesWithInvalidArguments() {
+        DiaryEntryRegister entries = new DiaryEntryRegister();
+        CompressedPageStore store = new CompressedPageStore(new byte[0]);
+        assertThrows(IllegalArgumentException.class, () -> entries.storeIdlePages(null, Duration.ofDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> entries.storeIdlePages(store, Duration.ofDays(-1)));
+        assertThrows(IllegalArgumentException.class, () -> entries.storeIdlePages(store, null));
+    }
+}
@@ -0,0 +1,123 @@
+package JournalTests.NegativeTests;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.persistence.DiarySnapshot;
+import edu.ntnu.iir.bidata.registers.AuthorRegister;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Negative tests for the DiarySnapshot class.
+ *
+ * <ul>
+ *   <li>testReadNotASnapshot: Tests that a file without the snapshot magic number is rejected</li>
+ *   <li>testReadCutShortSnapshot: Tests that a snapshot missing its end is rejected</li>
+ *   <li>testReadDamagedSnapshot: Tests that a snapshot with a changed byte fails its checksum</li>
+ *   <li>testReadOtherVersion: Tests that a snapshot in an older format version is rejected</li>
+ *   <li>testReadZeroWindow: Tests that reading through windows of no bytes is rejected</li>
+ *   <li>testWriteNegativeLsn: Tests that a negative sequence number is rejected</li>
+ * </ul>
+ */
+class DiarySnapshotNegativeTest {
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("diary-snapshot", ".bin");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        Files.deleteIfExists(file);
+    }
+
+    /**
+     * Tests that a file without the snapshot magic number is rejected.
+     */
+    @Test
+    void testReadNotASnapshot() throws IOException {
+        Files.writeString(file, "This is not a diary snapshot");
+        assertThrows(IOException.class, () -> DiarySnapshot.read(file, new AuthorRegister(), new DiaryEntryRegister()));
+    }
+
+    /**
+     * Tests that a snapshot missing its end is rejected.
+     */
+    @Test
+    void testReadCutShortSnapshot() throws IOException {
+        AuthorRegister authors = new AuthorRegister();
+        DiaryEntryRegister entries = new DiaryEntryRegister();
+        DiaryEntry entry = new DiaryEntry(new Author("Ola", "Nordmann"), 100, "Summer");
+        entry.addPage("Title", "Some text on a page");
+        entries.addDiaryEntry(entry);
+        DiarySnapshot.write(file, authors, entries, 1);
+
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 6));
+        assertThrows(IOException.class, () -> DiarySnapshot.read(file, new AuthorRegister(), new DiaryEntryRegister()));
+    }
+
+    /**
+     * Tests that a snapshot with a changed byte fails its checksum.
+     */
+    @Test
+    void testReadDamagedSnapshot() throws IOException {
+        DiaryEntryRegister entries = new DiaryEntryRegister();
+        DiaryEntry entry = new DiaryEntry(new Author("Ola", "Nordmann"), 100, "Summer");
+        entry.addPage("Title", "Some text on a page");
+        entries.addDiaryEntry(entry);
+        DiarySnapshot.write(file, new AuthorRegister(), entries, 1);
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 0x20;
+        Files.write(file, bytes);
+        IOException error = assertThrows(IOException.class,
+                () -> DiarySnapshot.read(file, new AuthorRegister(), new DiaryEntryRegister()));
+        assertTrue(error.getMessage().contains("checksum"));
+    }
+
+    /**
+     * Tests that a snapshot in an older format version is rejected.
+     */
+    @Test
+    void testReadOtherVersion() throws IOException {
+        DiarySnapshot.write(file, new AuthorRegister(), new DiaryEntryRegister(), 1);
+
+        byte[] bytes = Files.readAllBytes(file);
+        ByteBuffer.wrap(bytes).putInt(Long.BYTES, 2);
+        Files.write(file, bytes);
+        IOException error = assertThrows(IOException.class,
+                () -> DiarySnapshot.read(file, new AuthorRegister(), new DiaryEntryRegister()));
+        assertTrue(error.getMessage().contains("version"));
+    }
+
+    /**
+     * Tests that reading through windows of no bytes is rejected.
+     */
+    @Test
+    void testReadZeroWindow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> DiarySnapshot.read(file, new AuthorRegister(), new DiaryEntryRegister(), 0));
+    }
+
+    /**
+     * Tests that a negative sequence number is rejected.
+     */
+    @Test
+    void testWriteNegativeLsn() {
+        assertThrows(IllegalArgumentException.class,
+                () -> DiarySnapshot.write(file, new AuthorRegister(), new DiaryEntryRegister(), -1));
+    }
+}
@@ -0,0 +1,79 @@
+package JournalTests.NegativeTests;
+
+import edu.ntnu.iir.bidata.persistence.GroupCommitWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Negative tests for the GroupCommitWriter class.
+ *
+ * <ul>
+ *   <li>testInvalidArguments: Tests that a writer cannot be created with invalid arguments</li>
+ *   <li>testFailedBatchFailsWriter: Tests that a failed batch fails every record submitted after it</li>
+ * </ul>
+ */
+class GroupCommitWriterNegativeTest {
+
+    private Path file;
+    private FileChannel channel;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("group-commit", ".log");
+        channel = FileChannel.open(file, READ, WRITE);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+
+    private static ByteBuffer record(int value) {
+        return ByteBuffer.allocate(Integer.BYTES).putInt(0, value);
+    }
+
+    /**
+     * Tests that a writer cannot be created without a channel or unit, with a negative window or with empty batches.
+     */
+    @Test
+    void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new GroupCommitWriter(null, 1, TimeUnit.MILLISECONDS, 1));
+        assertThrows(IllegalArgumentException.class, () -> new GroupCommitWriter(channel, 1, null, 1));
+        assertThrows(IllegalArgumentException.class, () -> new GroupCommitWriter(channel, -1, TimeUnit.MILLISECONDS, 1));
+        assertThrows(IllegalArgumentException.class, () -> new GroupCommitWriter(channel, 1, TimeUnit.MILLISECONDS, 0));
+    }
+
+    /**
+     * Tests that once a batch cannot be written, its records, records submitted later and flushes all fail,
+     * and closing the writer reports the error.
+     */
+    @Test
+    void testFailedBatchFailsWriter() throws IOException {
+        GroupCommitWriter writer = new GroupCommitWriter(channel, 1, TimeUnit.HOURS, 64);
+        CompletableFuture<Long> first = writer.submit(record(1), 1L);
+        channel.close();
+
+        assertThrows(CompletionException.class, () -> writer.flush().join());
+        assertThrows(CompletionException.class, first::join);
+        assertNotNull(writer.getFailure());
+        assertTrue(writer.submit(record(2), 2L).isCompletedExceptionally());
+        assertTrue(writer.flush().isCompletedExceptionally());
+        assertThrows(IOException.class, writer::close);
+        assertEquals(0, writer.getCommittedRecords());
+        assertEquals(0, Files.size(file));
+    }
+}
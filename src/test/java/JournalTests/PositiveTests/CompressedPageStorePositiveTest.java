@@ -0,0 +1,265 @@
+package JournalTests.PositiveTests;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.models.Page;
+import edu.ntnu.iir.bidata.persistence.CompressedPageStore;
+import edu.ntnu.iir.bidata.persistence.MappedPageStore;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Positive tests for the CompressedPageStore class and compression of idle pages.
+ *
+ * <ul>
+ *   <li>Store
+ *     <ul>
+ *       <li>testAppendAndRead: Tests that compressed texts are read back unchanged</li>
+ *       <li>testDictionaryImprovesCompression: Tests that a trained dictionary makes short pages smaller</li>
+ *       <li>testCacheKeepsRecentTexts: Tests that recently read texts are answered by the cache, and old ones evicted</li>
+ *       <li>testReaderOutlivesRelease: Tests that a reader still reads a text after it is released and its slot reused</li>
+ *       <li>testConcurrentReadsWhileSlotsAreReused: Tests that concurrent reads never see or cache a reused slot's old text</li>
+ *     </ul>
+ *   </li>
+ *
+ *   <li>Idle pages
+ *     <ul>
+ *       <li>testIdlePagesAreCompressed: Tests that only pages of entries idle long enough are moved into the store</li>
+ *       <li>testEditedPageLeavesStore: Tests that an edited compressed page goes back to the heap and is counted right</li>
+ *       <li>testIdlePagesInPageStoreStay: Tests that idle pages already in the page store are not moved</li>
+ *     </ul>
+ *   </li>
+ * </ul>
+ */
+class CompressedPageStorePositiveTest {
+
+    private final String TEXT_1 = "I went out today and had to hang out with someone I don't really like...";
+    private final String TEXT_2 = "Today I actually went to university. It's boring, I'd rather hang out in the city.";
+    private final String TEXT_3 = "Today I went out to the city, and I'd rather have stayed at the university.";
+
+    private byte[] dictionary;
+    private CompressedPageStore store;
+
+    @BeforeEach
+    void setUp() {
+        dictionary = CompressedPageStore.trainDictionary(List.of(TEXT_1, TEXT_2, TEXT_1, TEXT_2), 1024);
+        store = new CompressedPageStore(dictionary, 2);
+    }
+
+    private long append(CompressedPageStore target, String text) {
+        return target.append(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int length(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private DiaryEntry createEntry(DiaryEntryRegister entries, Author author, String title,
+                                   LocalDateTime timeChanged) {
+        DiaryEntry entry = new DiaryEntry(author, 100, title);
+        entry.addPage("First", TEXT_1);
+        entries.addDiaryEntry(entry);
+        entry.setTimeChanged(timeChanged);
+        return entry;
+    }
+
+    /**
+     * Tests that compressed texts, including an empty one and one with non-ASCII letters, are read back unchanged.
+     */
+    @Test
+    void testAppendAndRead() {
+        String accented = "Blåbærsyltetøy på søndag, og blåbærsyltetøy på mandag";
+        long first = append(store, TEXT_1);
+        long second = append(store, accented);
+        long empty = append(store, "");
+
+        assertEquals(TEXT_1, store.read(first, length(TEXT_1)));
+        assertEquals(accented, store.read(second, length(accented)));
+        assertEquals("", store.read(empty, 0));
+        assertEquals(3, store.getStoredTexts());
+        assertEquals(length(TEXT_1) + length(accented), store.getTextBytes());
+        assertEquals(store.getTextBytes() - store.getCompressedBytes(), store.getBytesSaved());
+    }
+
+    /**
+     * Tests that a trained dictionary makes short pages smaller than compressing them on their own.
+     */
+    @Test
+    void testDictionaryImprovesCompression() {
+        CompressedPageStore plain = new CompressedPageStore(new byte[0]);
+        append(plain, TEXT_3);
+        append(store, TEXT_3);
+
+        assertTrue(store.getCompressedBytes() < plain.getCompressedBytes());
+        assertTrue(store.getBytesSaved() > 0);
+    }
+
+    /**
+     * Tests that recently read texts are answered by the cache, and that the least recently used one is evicted.
+     */
+    @Test
+    void testCacheKeepsRecentTexts() {
+        long first = append(store, TEXT_1);
+        long second = append(store, TEXT_2);
+        long third = append(store, TEXT_3);
+
+        store.read(first, length(TEXT_1));
+        store.read(first, length(TEXT_1));
+        assertEquals(1, store.getCacheHits());
+
+        store.read(second, length(TEXT_2));
+        store.read(third, length(TEXT_3));
+        assertEquals(TEXT_1, store.read(first, length(TEXT_1)));
+        assertEquals(1, store.getCacheHits());
+        assertEquals(5, store.getReads());
+        assertTrue(store.getDecompressionNanos() > 0);
+    }
+
+    /**
+     * Tests that a reader still reads a text after it is released and its slot is reused.
+     */
+    @Test
+    void testReaderOutlivesRelease() {
+        long offset = append(store, TEXT_1);
+        store.read(offset, length(TEXT_1));
+        Supplier<String> reader = store.reader(offset, length(TEXT_1));
+        store.release(offset, length(TEXT_1));
+        long reused = append(store, TEXT_2);
+
+        assertEquals(offset, reused);
+        assertEquals(TEXT_1, reader.get());
+        assertEquals(TEXT_2, store.read(reused, length(TEXT_2)));
+        assertEquals(1, store.getStoredTexts());
+    }
+
+    /**
+     * Tests that threads reading at once, while another thread releases a text and reuses its slot for another,
+     * always read the text in the slot at the time, and that no old text is left in the cache for the reused slot.
+     */
+    @Test
+    void testConcurrentReadsWhileSlotsAreReused() throws InterruptedException {
+        String other = TEXT_2.replace("city", "town");
+        long stable = append(store, TEXT_1);
+        long churned = append(store, TEXT_2);
+        AtomicBoolean churning = new AtomicBoolean(true);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+
+        List<Thread> readers = new ArrayList<>();
+        for (int reader = 0; reader < 4; reader++) {
+            Thread thread = new Thread(() -> {
+                try {
+                    while (churning.get()) {
+                        assertEquals(TEXT_1, store.read(stable, length(TEXT_1)));
+                        try {
+                            String text = store.read(churned, length(TEXT_2));
+                            assertTrue(text.equals(TEXT_2) || text.equals(other), text);
+                        } catch (IllegalArgumentException released) {
+                            // The slot was released at the moment.
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            thread.start();
+            readers.add(thread);
+        }
+        String text = TEXT_2;
+        for (int round = 0; round < 2_000; round++) {
+            store.release(churned, length(text));
+            text = text.equals(TEXT_2) ? other : TEXT_2;
+            assertEquals(churned, append(store, text));
+        }
+        churning.set(false);
+        for (Thread thread : readers) thread.join();
+
+        assertNull(failure.get());
+        assertEquals(text, store.read(churned, length(text)));
+        assertEquals(2, store.getStoredTexts());
+    }
+
+    /**
+     * Tests that only the pages of entries unchanged for the idle time are moved into the store,
+     * that they read and search the same afterwards, and that a second sweep moves nothing.
+     */
+    @Test
+    void testIdlePagesAreCompressed() {
+        DiaryEntryRegister entries = new DiaryEntryRegister();
+        Author author = new Author("Ola", "Nordmann");
+        DiaryEntry old = createEntry(entries, author, "Summer", LocalDateTime.now().minusDays(10));
+        old.addPage("Second", TEXT_2);
+        old.setTimeChanged(LocalDateTime.now().minusDays(10));
+        DiaryEntry recent = createEntry(entries, author, "Winter", LocalDateTime.now().minusHours(1));
+        recent.setPageText(1, "A quiet evening at home with a book.");
+        recent.setTimeChanged(LocalDateTime.now().minusHours(1));
+
+        assertEquals(2, entries.storeIdlePages(store, Duration.ofDays(7)));
+        assertTrue(old.getPages().stream().allMatch(Page::isTextStored));
+        assertFalse(recent.getPages().get(0).isTextStored());
+        assertEquals(TEXT_2, old.getPageText(2));
+        assertEquals(List.of(old), entries.searchForWord("university", 10));
+        assertEquals(0, entries.storeIdlePages(store, Duration.ofDays(7)));
+        assertEquals(1, entries.storeIdlePages(store, Duration.ZERO));
+    }
+
+    /**
+     * Tests that an edited compressed page goes back to the heap, with word counts and search kept right.
+     */
+    @Test
+    void testEditedPageLeavesStore() {
+        DiaryEntryRegister entries = new DiaryEntryRegister();
+        Author author = new Author("Ola", "Nordmann");
+        DiaryEntry entry = createEntry(entries, author, "Summer", LocalDateTime.now().minusDays(10));
+        entry.setPageText(1, "Compressed and then edited: " + TEXT_2);
+        entry.setTimeChanged(LocalDateTime.now().minusDays(10));
+        entries.storeIdlePages(store, Duration.ofDays(7));
+
+        String edited = "Edited after compression: " + TEXT_1;
+        entry.setPageText(1, edited);
+        assertFalse(entry.getPages().get(0).isTextStored());
+        assertEquals(0, store.getStoredTexts());
+        assertEquals(0, entry.getWordCount("university"));
+        assertEquals(2, entry.getWordCount("out"));
+        assertTrue(entries.searchForWord("university", 10).isEmpty());
+
+        List<String> texts = new ArrayList<>();
+        entry.getPageTexts().forEachRemaining(texts::add);
+        assertEquals(List.of(edited), texts);
+    }
+
+    /**
+     * Tests that idle pages whose text is already in the register's page store stay there,
+     * since compressing them would only move the text onto the heap.
+     */
+    @Test
+    void testIdlePagesInPageStoreStay() throws IOException {
+        Path file = Files.createTempFile("idle-pages", ".dat");
+        try (MappedPageStore pageStore = MappedPageStore.open(file)) {
+            DiaryEntryRegister entries = new DiaryEntryRegister(pageStore);
+            DiaryEntry old = createEntry(entries, new Author("Ola", "Nordmann"), "Summer",
+                    LocalDateTime.now().minusDays(10));
+
+            assertEquals(0, entries.storeIdlePages(store, Duration.ofDays(7)));
+            assertTrue(old.getPages().get(0).isTextStored());
+            assertEquals(0, store.getStoredTexts());
+            assertEquals(TEXT_1, old.getPageText(1));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
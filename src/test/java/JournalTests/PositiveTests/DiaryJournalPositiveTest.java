@@ -0,0 +1,237 @@
+package JournalTests.PositiveTests;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.persistence.DiaryJournal;
+import edu.ntnu.iir.bidata.registers.AuthorRegister;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Positive tests for the DiaryJournal class.
+ *
+ * <ul>
+ *   <li>Replay
+ *     <ul>
+ *       <li>testEmptyJournal: Tests opening a journal in an empty directory</li>
+ *       <li>testReplayRestoresAuthorsAndEntries: Tests that authors, entries and pages survive a restart</li>
+ *       <li>testReplayRestoresEdits: Tests that page and entry edits survive a restart</li>
+ *       <li>testReplayRestoresRenameAndRemoval: Tests that author renames and entry removals survive a restart</li>
+ *       <li>testReplayRestoresTimestamps: Tests that creation and change times survive a restart</li>
+ *       <li>testReplayDoesNotWriteRecords: Tests that replaying does not append to the journal</li>
+ *     </ul>
+ *   </li>
+ *
+ *   <li>Damaged journal
+ *     <ul>
+ *       <li>testPartialRecordIsCutOff: Tests that a partly written last record is dropped and writing continues</li>
+ *     </ul>
+ *   </li>
+ * </ul>
+ */
+class DiaryJournalPositiveTest {
+
+    private final int MAX_WORDS = 100;
+    private final String ENTRY_TITLE = "Summer";
+    private final String TITLE_1 = "Went out with a friend";
+    private final String TITLE_2 = "Went to the university";
+    private final String TEXT_1 = "I went out today and had to hang out with someone I don't really like...";
+    private final String TEXT_2 = "Today I actually went to university. It's boring, I'd rather hang out in the city.";
+
+    private Path directory;
+    private AuthorRegister authors;
+    private DiaryEntryRegister entries;
+    private DiaryJournal journal;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("diary-journal");
+        authors = new AuthorRegister();
+        entries = new DiaryEntryRegister();
+        journal = DiaryJournal.open(directory, authors, entries);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private void restart() throws IOException {
+        journal.close();
+        authors = new AuthorRegister();
+        entries = new DiaryEntryRegister();
+        journal = DiaryJournal.open(directory, authors, entries);
+    }
+
+    private DiaryEntry createEntry(String authorName, String title) {
+        Author author = authors.getAuthor(authorName).orElseThrow();
+        DiaryEntry entry = new DiaryEntry(author, MAX_WORDS, title);
+        entry.addPage(TITLE_1, TEXT_1);
+        entries.addDiaryEntry(entry);
+        return entry;
+    }
+
+    private DiaryEntry findEntry(String authorName, String title) {
+        Author author = authors.getAuthor(authorName).orElseThrow();
+        return entries.findDiaryEntryFromAuthorByTitle(author, title).orElseThrow();
+    }
+
+    private static List<String> texts(DiaryEntry entry) {
+        List<String> texts = new ArrayList<>();
+        entry.getPageTexts().forEachRemaining(texts::add);
+        return texts;
+    }
+
+    /**
+     * Tests opening a journal in an empty directory.
+     */
+    @Test
+    void testEmptyJournal() {
+        assertEquals(0, journal.getReplayedRecords());
+        assertEquals(1, journal.getNextLsn());
+        assertTrue(Files.exists(directory.resolve(DiaryJournal.FILE_NAME)));
+    }
+
+    /**
+     * Tests that authors, entries and pages survive a restart.
+     */
+    @Test
+    void testReplayRestoresAuthorsAndEntries() throws IOException {
+        authors.addAuthor("Ola", "Nordmann", "Olan");
+        authors.addAuthor("Kari");
+        createEntry("Ola Nordmann(Olan)", ENTRY_TITLE).addPage(TITLE_2, TEXT_2);
+
+        restart();
+
+        assertEquals(2, authors.getNumberOfAuthors());
+        assertTrue(authors.hasAuthor("Kari"));
+        DiaryEntry entry = findEntry("Ola Nordmann(Olan)", ENTRY_TITLE);
+        assertEquals(List.of(TEXT_1, TEXT_2), texts(entry));
+        assertEquals(TITLE_2, entry.getPageTitle(2));
+        assertEquals(MAX_WORDS, entry.getMaxWordsPerPage());
+        assertEquals(List.of(entry), entries.searchForWord("university", 10));
+    }
+
+    /**
+     * Tests that page and entry edits survive a restart.
+     */
+    @Test
+    void testReplayRestoresEdits() throws IOException {
+        authors.addAuthor("Ola", "Nordmann");
+        DiaryEntry entry = createEntry("Ola Nordmann", ENTRY_TITLE);
+        entry.addPage(TITLE_2, TEXT_2);
+        entry.insertPage(1, "First", "Once upon a time");
+        entry.setPageText(2, "Changed text");
+        entry.setPageTitle(3, "Changed title");
+        entry.movePage(3, 1);
+        entry.removePage(2);
+        entry.setEntryTitle("Winter");
+
+        restart();
+
+        DiaryEntry restored = findEntry("Ola Nordmann", "Winter");
+        assertEquals(texts(entry), texts(restored));
+        assertEquals("Changed title", restored.getPageTitle(1));
+        assertEquals(List.of(TEXT_2, "Changed text"), texts(restored));
+        assertFalse(entries.hasDiaryEntry(restored.getAuthor(), ENTRY_TITLE));
+    }
+
+    /**
+     * Tests that author renames and entry removals survive a restart.
+     */
+    @Test
+    void testReplayRestoresRenameAndRemoval() throws IOException {
+        authors.addAuthor("Ola", "Nordmann");
+        createEntry("Ola Nordmann", ENTRY_TITLE);
+        createEntry("Ola Nordmann", "Removed");
+        authors.updateFirstName("Ola Nordmann", "Per");
+        authors.updateName("Per Nordmann", "Perry");
+        findEntry("Per Nordmann(Perry)", ENTRY_TITLE).addPage(TITLE_2, TEXT_2);
+        entries.removeDiaryEntry(authors.getAuthor("Per Nordmann(Perry)").orElseThrow(), "Removed");
+
+        restart();
+
+        assertFalse(authors.hasAuthor("Ola Nordmann"));
+        Author author = authors.getAuthor("Per Nordmann(Perry)").orElseThrow();
+        assertEquals(1, entries.getNumberOfEntries(author));
+        assertEquals(List.of(TEXT_1, TEXT_2), texts(findEntry("Per Nordmann(Perry)", ENTRY_TITLE)));
+        assertEquals(0, journal.getSkippedRecords());
+    }
+
+    /**
+     * Tests that creation and change times survive a restart.
+     */
+    @Test
+    void testReplayRestoresTimestamps() throws IOException {
+        authors.addAuthor("Ola", "Nordmann");
+        DiaryEntry entry = createEntry("Ola Nordmann", ENTRY_TITLE);
+        entry.setPageText(1, TEXT_2);
+
+        restart();
+
+        DiaryEntry restored = findEntry("Ola Nordmann", ENTRY_TITLE);
+        assertEquals(entry.getTimeCreated(), restored.getTimeCreated());
+        assertEquals(entry.getTimeChanged(), restored.getTimeChanged());
+        assertEquals(List.of(restored), entries.getMostRecentlyChangedEntries(1));
+    }
+
+    /**
+     * Tests that replaying does not append to the journal.
+     */
+    @Test
+    void testReplayDoesNotWriteRecords() throws IOException {
+        authors.addAuthor("Ola", "Nordmann");
+        createEntry("Ola Nordmann", ENTRY_TITLE);
+        journal.flush().join();
+        long size = Files.size(directory.resolve(DiaryJournal.FILE_NAME));
+        long nextLsn = journal.getNextLsn();
+
+        restart();
+
+        assertEquals(size, Files.size(directory.resolve(DiaryJournal.FILE_NAME)));
+        assertEquals(nextLsn, journal.getNextLsn());
+        assertEquals(nextLsn - 1, journal.getReplayedRecords());
+    }
+
+    /**
+     * Tests that a partly written last record is dropped, and that new records are written after the last complete one.
+     */
+    @Test
+    void testPartialRecordIsCutOff() throws IOException {
+        authors.addAuthor("Ola", "Nordmann");
+        createEntry("Ola Nordmann", ENTRY_TITLE);
+        journal.close();
+        Path file = directory.resolve(DiaryJournal.FILE_NAME);
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 60, 11, 0, 0}));
+        }
+
+        restart();
+        assertEquals(size, Files.size(file));
+        findEntry("Ola Nordmann", ENTRY_TITLE).addPage(TITLE_2, TEXT_2);
+
+        restart();
+        assertEquals(List.of(TEXT_1, TEXT_2), texts(findEntry("Ola Nordmann", ENTRY_TITLE)));
+    }
+}
@@ -0,0 +1,374 @@
+package JournalTests.PositiveTests;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.models.Page;
+import edu.ntnu.iir.bidata.persistence.DiaryJournal;
+import edu.ntnu.iir.bidata.persistence.DiarySnapshot;
+import edu.ntnu.iir.bidata.persistence.MappedPageStore;
+import edu.ntnu.iir.bidata.registers.AuthorRegister;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import edu.ntnu.iir.bidata.text.Vocabulary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Positive tests for the DiarySnapshot class and journal checkpoints.
+ *
+ * <ul>
+ *   <li>Snapshot file
+ *     <ul>
+ *       <li>testMissingSnapshot: Tests that reading a missing snapshot restores nothing</li>
+ *       <li>testSnapshotRestoresRegisters: Tests that authors, entries, pages and times survive a snapshot</li>
+ *       <li>testSnapshotRestoresWordCounts: Tests that word counts and the word index are rebuilt from a snapshot</li>
+ *       <li>testSnapshotRestoresDetachedAuthor: Tests that entries whose author is not registered survive a snapshot</li>
+ *       <li>testSnapshotReplacesEarlierSnapshot: Tests that writing a snapshot replaces the earlier one</li>
+ *       <li>testSnapshotWhileCountsGrow: Tests that snapshots written while word counts grow copy whole counters</li>
+ *       <li>testSnapshotReadInSmallWindows: Tests that a snapshot read through windows smaller than its values is restored whole</li>
+ *       <li>testSnapshotRestoresIntoPageStore: Tests that page text is restored straight into the register's page store</li>
+ *     </ul>
+ *   </li>
+ *
+ *   <li>Checkpoints
+ *     <ul>
+ *       <li>testCheckpointEmptiesJournal: Tests that a checkpoint empties the journal and a restart loads the snapshot</li>
+ *       <li>testRecordsAfterCheckpointAreReplayed: Tests that changes after a checkpoint are replayed on top of the snapshot</li>
+ *       <li>testRecordsInSnapshotAreSkipped: Tests that journal records already in the snapshot are not applied twice</li>
+ *     </ul>
+ *   </li>
+ * </ul>
+ */
+class DiarySnapshotPositiveTest {
+
+    private final int MAX_WORDS = 100;
+    private final String ENTRY_TITLE = "Summer";
+    private final String TITLE_1 = "Went out with a friend";
+    private final String TITLE_2 = "Went to the university";
+    private final String TEXT_1 = "I went out today and had to hang out with someone I don't really like...";
+    private final String TEXT_2 = "Today I actually went to university. It's boring, I'd rather hang out in the city.";
+
+    private Path directory;
+    private Path file;
+    private AuthorRegister authors;
+    private DiaryEntryRegister entries;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("diary-snapshot");
+        file = directory.resolve(DiarySnapshot.FILE_NAME);
+        authors = new AuthorRegister();
+        entries = new DiaryEntryRegister();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private DiaryEntry createEntry(Author author, String title) {
+        DiaryEntry entry = new DiaryEntry(author, MAX_WORDS, title);
+        entry.addPage(TITLE_1, TEXT_1);
+        entry.addPage(TITLE_2, TEXT_2);
+        entries.addDiaryEntry(entry);
+        return entry;
+    }
+
+    private static List<String> texts(DiaryEntry entry) {
+        List<String> texts = new ArrayList<>();
+        entry.getPageTexts().forEachRemaining(texts::add);
+        return texts;
+    }
+
+    private static Map<String, Long> wordCounts(Author author) {
+        Map<String, Long> counts = new HashMap<>();
+        author.getWordCount().forEach((wordId, count) -> counts.put(Vocabulary.shared().word(wordId), count));
+        return counts;
+    }
+
+    /**
+     * Tests that reading a missing snapshot restores nothing.
+     */
+    @Test
+    void testMissingSnapshot() throws IOException {
+        assertEquals(0, DiarySnapshot.read(file, authors, entries));
+        assertTrue(authors.isEmpty());
+        assertTrue(entries.getAllDiaryEntries().isEmpty());
+    }
+
+    /**
+     * Tests that authors, entries, pages and times survive a snapshot.
+     */
+    @Test
+    void testSnapshotRestoresRegisters() throws IOException {
+        authors.addAuthor("Ola", "Nordmann", "Olan");
+        authors.addAuthor("Kari");
+        Author ola = authors.getAuthor("Ola Nordmann(Olan)").orElseThrow();
+        DiaryEntry entry = createEntry(ola, ENTRY_TITLE);
+        entry.setTimeChanged(LocalDateTime.of(2024, 6, 1, 12, 30, 15, 123456789));
+
+        DiarySnapshot.write(file, authors, entries, 42);
+        AuthorRegister restoredAuthors = new AuthorRegister();
+        DiaryEntryRegister restoredEntries = new DiaryEntryRegister();
+        assertEquals(42, DiarySnapshot.read(file, restoredAuthors, restoredEntries));
+
+        assertEquals(2, restoredAuthors.getNumberOfAuthors());
+        assertTrue(restoredAuthors.hasAuthor("Kari"));
+        Author author = restoredAuthors.getAuthor("Ola Nordmann(Olan)").orElseThrow();
+        assertEquals(ola.getLastTimeCreated(), author.getLastTimeCreated());
+        assertEquals(ola.getLastTimeChanged(), author.getLastTimeChanged());
+
+        DiaryEntry restored = restoredEntries.findDiaryEntryFromAuthorByTitle(author, ENTRY_TITLE).orElseThrow();
+        assertEquals(List.of(TEXT_1, TEXT_2), texts(restored));
+        assertEquals(TITLE_2, restored.getPageTitle(2));
+        assertEquals(MAX_WORDS, restored.getMaxWordsPerPage());
+        assertEquals(entry.getTimeCreated(), restored.getTimeCreated());
+        assertEquals(entry.getTimeChanged(), restored.getTimeChanged());
+    }
+
+    /**
+     * Tests that word counts and the word index are rebuilt from a snapshot.
+     */
+    @Test
+    void testSnapshotRestoresWordCounts() throws IOException {
+        authors.addAuthor("Ola", "Nordmann");
+        Author ola = authors.getAuthor("Ola Nordmann").orElseThrow();
+        DiaryEntry entry = createEntry(ola, ENTRY_TITLE);
+        createEntry(ola, "Winter").setPageText(1, "Snow and more snow");
+
+        DiarySnapshot.write(file, authors, entries, 1);
+        AuthorRegister restoredAuthors = new AuthorRegister();
+        DiaryEntryRegister restoredEntries = new DiaryEntryRegister();
+        DiarySnapshot.read(file, restoredAuthors, restoredEntries);
+
+        Author author = restoredAuthors.getAuthor("Ola Nordmann").orElseThrow();
+        DiaryEntry restored = restoredEntries.findDiaryEntryFromAuthorByTitle(author, ENTRY_TITLE).orElseThrow();
+        assertEquals(wordCounts(ola), wordCounts(author));
+        assertEquals(2, author.getWordCount("snow"));
+        assertEquals(entry.getWordCount("out"), restored.getWordCount("out"));
+        assertEquals(List.of("Winter"), restoredEntries.searchForWord("snow", 10).stream()
+                .map(DiaryEntry::getEntryTitle).toList());
+        assertEquals(2, restoredEntries.searchForPhrase("hang out in the city", 10).size());
+    }
+
+    /**
+     * Tests that entries whose author is not registered survive a snapshot.
+     */
+    @Test
+    void testSnapshotRestoresDetachedAuthor() throws IOException {
+        createEntry(new Author("Ola", "Nordmann"), ENTRY_TITLE);
+
+        DiarySnapshot.write(file, authors, entries, 1);
+        AuthorRegister restoredAuthors = new AuthorRegister();
+        DiaryEntryRegister restoredEntries = new DiaryEntryRegister();
+        DiarySnapshot.read(file, restoredAuthors, restoredEntries);
+
+        assertTrue(restoredAuthors.isEmpty());
+        List<DiaryEntry> restored = restoredEntries.getAllDiaryEntries();
+        assertEquals(1, restored.size());
+        assertEquals("Ola Nordmann", restored.get(0).getAuthor().getName());
+        assertEquals(List.of(TEXT_1, TEXT_2), texts(restored.get(0)));
+    }
+
+    /**
+     * Tests that writing a snapshot replaces the earlier one and leaves no temporary file behind.
+     */
+    @Test
+    void testSnapshotReplacesEarlierSnapshot() throws IOException {
+        authors.addAuthor("Ola", "Nordmann");
+        DiarySnapshot.write(file, authors, entries, 1);
+        authors.addAuthor("Kari");
+        DiarySnapshot.write(file, authors, entries, 2);
+
+        AuthorRegister restoredAuthors = new AuthorRegister();
+        assertEquals(2, DiarySnapshot.read(file, restoredAuthors, new DiaryEntryRegister()));
+        assertEquals(2, restoredAuthors.getNumberOfAuthors());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+
+    /**
+     * Tests that snapshots written while another thread adds new words copy each word counter whole,
+     * so every snapshot can be read back and the last one holds every count.
+     */
+    @Test
+    void testSnapshotWhileCountsGrow() throws Exception {
+        authors.addAuthor("Ola", "Nordmann");
+        Author ola = authors.getAuthor("Ola Nordmann").orElseThrow();
+        DiaryEntry entry = createEntry(ola, ENTRY_TITLE);
+        Thread writer = new Thread(() -> {
+            for (int page = 0; page < 300; page++) entry.addPage("Growth", "growth" + page + " grows");
+        });
+
+        writer.start();
+        while (writer.isAlive()) {
+            DiarySnapshot.write(file, authors, entries, 1);
+            DiarySnapshot.read(file, new AuthorRegister(), new DiaryEntryRegister());
+        }
+        writer.join();
+        DiarySnapshot.write(file, authors, entries, 1);
+        AuthorRegister restoredAuthors = new AuthorRegister();
+        DiaryEntryRegister restoredEntries = new DiaryEntryRegister();
+        DiarySnapshot.read(file, restoredAuthors, restoredEntries);
+
+        Author author = restoredAuthors.getAuthor("Ola Nordmann").orElseThrow();
+        assertEquals(wordCounts(ola), wordCounts(author));
+        assertEquals(300, author.getWordCount("grows"));
+        assertEquals(1, restoredEntries.findDiaryEntryFromAuthorByTitle(author, ENTRY_TITLE).orElseThrow()
+                .getWordCount("growth299"));
+    }
+
+    /**
+     * Tests that a snapshot read through windows smaller than most of its values, so nearly every value
+     * starts a new window, is restored whole.
+     */
+    @Test
+    void testSnapshotReadInSmallWindows() throws IOException {
+        authors.addAuthor("Ola", "Nordmann");
+        Author ola = authors.getAuthor("Ola Nordmann").orElseThrow();
+        createEntry(ola, ENTRY_TITLE);
+        createEntry(ola, "Winter").setPageText(1, "Snow and more snow");
+
+        DiarySnapshot.write(file, authors, entries, 7);
+        AuthorRegister restoredAuthors = new AuthorRegister();
+        DiaryEntryRegister restoredEntries = new DiaryEntryRegister();
+        assertEquals(7, DiarySnapshot.read(file, restoredAuthors, restoredEntries, 3));
+
+        Author author = restoredAuthors.getAuthor("Ola Nordmann").orElseThrow();
+        assertEquals(wordCounts(ola), wordCounts(author));
+        DiaryEntry restored = restoredEntries.findDiaryEntryFromAuthorByTitle(author, ENTRY_TITLE).orElseThrow();
+        assertEquals(List.of(TEXT_1, TEXT_2), texts(restored));
+        assertEquals(List.of("Snow and more snow", TEXT_2),
+                texts(restoredEntries.findDiaryEntryFromAuthorByTitle(author, "Winter").orElseThrow()));
+    }
+
+    /**
+     * Tests that page text is restored straight into the page store of the diary entry register,
+     * and that the restored pages read and search like the saved ones.
+     */
+    @Test
+    void testSnapshotRestoresIntoPageStore() throws IOException {
+        authors.addAuthor("Ola", "Nordmann");
+        Author ola = authors.getAuthor("Ola Nordmann").orElseThrow();
+        createEntry(ola, "Winter").setPageText(1, "Snow and more snow on the restored page");
+
+        DiarySnapshot.write(file, authors, entries, 1);
+        try (MappedPageStore store = MappedPageStore.open(directory.resolve(MappedPageStore.FILE_NAME), 64)) {
+            AuthorRegister restoredAuthors = new AuthorRegister();
+            DiaryEntryRegister restoredEntries = new DiaryEntryRegister(store);
+            DiarySnapshot.read(file, restoredAuthors, restoredEntries);
+
+            Author author = restoredAuthors.getAuthor("Ola Nordmann").orElseThrow();
+            DiaryEntry restored = restoredEntries.findDiaryEntryFromAuthorByTitle(author, "Winter").orElseThrow();
+            assertTrue(restored.getPages().stream().allMatch(Page::isTextStored));
+            assertEquals(List.of("Snow and more snow on the restored page", TEXT_2), texts(restored));
+            assertTrue(store.getStoredBytes() > 0);
+            assertEquals(List.of("Winter"), restoredEntries.searchForWord("snow", 10).stream()
+                    .map(DiaryEntry::getEntryTitle).toList());
+        }
+    }
+
+    /**
+     * Tests that a checkpoint empties the journal and a restart loads the snapshot.
+     */
+    @Test
+    void testCheckpointEmptiesJournal() throws IOException {
+        DiaryJournal journal = DiaryJournal.open(directory, authors, entries);
+        authors.addAuthor("Ola", "Nordmann");
+        createEntry(authors.getAuthor("Ola Nordmann").orElseThrow(), ENTRY_TITLE);
+        long lastLsn = journal.getNextLsn() - 1;
+        journal.checkpoint();
+        journal.close();
+
+        assertEquals(0, Files.size(directory.resolve(DiaryJournal.FILE_NAME)));
+
+        authors = new AuthorRegister();
+        entries = new DiaryEntryRegister();
+        journal = DiaryJournal.open(directory, authors, entries);
+        try {
+            assertEquals(lastLsn, journal.getSnapshotLsn());
+            assertEquals(lastLsn + 1, journal.getNextLsn());
+            assertEquals(0, journal.getReplayedRecords());
+            Author author = authors.getAuthor("Ola Nordmann").orElseThrow();
+            assertEquals(List.of(TEXT_1, TEXT_2),
+                    texts(entries.findDiaryEntryFromAuthorByTitle(author, ENTRY_TITLE).orElseThrow()));
+        } finally {
+            journal.close();
+        }
+    }
+
+    /**
+     * Tests that changes after a checkpoint are replayed on top of the snapshot.
+     */
+    @Test
+    void testRecordsAfterCheckpointAreReplayed() throws IOException {
+        DiaryJournal journal = DiaryJournal.open(directory, authors, entries);
+        createEntry(new Author("Ola", "Nordmann"), ENTRY_TITLE);
+        journal.checkpoint();
+        DiaryEntry entry = entries.getAllDiaryEntries().get(0);
+        entry.setPageText(1, "Changed text");
+        entry.setEntryTitle("Winter");
+        journal.close();
+
+        authors = new AuthorRegister();
+        entries = new DiaryEntryRegister();
+        journal = DiaryJournal.open(directory, authors, entries);
+        try {
+            assertEquals(2, journal.getReplayedRecords());
+            assertEquals(0, journal.getSkippedRecords());
+            DiaryEntry restored = entries.getAllDiaryEntries().get(0);
+            assertEquals("Winter", restored.getEntryTitle());
+            assertEquals(List.of("Changed text", TEXT_2), texts(restored));
+            assertEquals(entry.getTimeChanged(), restored.getTimeChanged());
+        } finally {
+            journal.close();
+        }
+    }
+
+    /**
+     * Tests that journal records already in the snapshot are not applied twice,
+     * as after a crash between writing the snapshot and emptying the journal.
+     */
+    @Test
+    void testRecordsInSnapshotAreSkipped() throws IOException {
+        DiaryJournal journal = DiaryJournal.open(directory, authors, entries);
+        authors.addAuthor("Ola", "Nordmann");
+        DiaryEntry entry = createEntry(authors.getAuthor("Ola Nordmann").orElseThrow(), ENTRY_TITLE);
+        long snapshotLsn = journal.getNextLsn() - 1;
+        journal.flush().join();
+        DiarySnapshot.write(file, authors, entries, snapshotLsn);
+        entry.addPage("Third", "A third page");
+        journal.close();
+
+        authors = new AuthorRegister();
+        entries = new DiaryEntryRegister();
+        journal = DiaryJournal.open(directory, authors, entries);
+        try {
+            assertEquals(1, journal.getReplayedRecords());
+            assertEquals(snapshotLsn + 2, journal.getNextLsn());
+            Author author = authors.getAuthor("Ola Nordmann").orElseThrow();
+            assertEquals(List.of(TEXT_1, TEXT_2, "A third page"),
+                    texts(entries.findDiaryEntryFromAuthorByTitle(author, ENTRY_TITLE).orElseThrow()));
+        } finally {
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package JournalTests.PositiveTests;
+
+import edu.ntnu.iir.bidata.persistence.GroupCommitWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Positive tests for the GroupCommitWriter class.
+ *
+ * <ul>
+ *   <li>Committing
+ *     <ul>
+ *       <li>testFutureCompletesWithLsn: Tests that a future completes with the sequence number once written</li>
+ *       <li>testRecordsAreWrittenInOrder: Tests that records reach the file in submission order</li>
+ *       <li>testConcurrentRecordsShareCommits: Tests that records from many threads share forces</li>
+ *       <li>testFullBatchCommitsBeforeWindow: Tests that a full batch does not wait for the window</li>
+ *       <li>testFlushCommitsPendingRecords: Tests that flush commits without waiting for the window</li>
+ *     </ul>
+ *   </li>
+ * </ul>
+ */
+class GroupCommitWriterPositiveTest {
+
+    private Path file;
+    private FileChannel channel;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = Files.createTempFile("group-commit", ".log");
+        channel = FileChannel.open(file, READ, WRITE);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+
+    private static ByteBuffer record(int value) {
+        return ByteBuffer.allocate(Integer.BYTES).putInt(0, value);
+    }
+
+    /**
+     * Tests that a future completes with the sequence number once the record is written.
+     */
+    @Test
+    void testFutureCompletesWithLsn() throws IOException {
+        try (GroupCommitWriter writer = new GroupCommitWriter(channel, 0, TimeUnit.MILLISECONDS, 1)) {
+            assertEquals(7L, writer.submit(record(1), 7L).join());
+            assertEquals(Integer.BYTES, Files.size(file));
+        }
+    }
+
+    /**
+     * Tests that records reach the file in submission order.
+     */
+    @Test
+    void testRecordsAreWrittenInOrder() throws IOException {
+        try (GroupCommitWriter writer = new GroupCommitWriter(channel, 1, TimeUnit.MILLISECONDS, 16)) {
+            for (int value = 0; value < 1000; value++) {
+                writer.submit(record(value), value);
+            }
+        }
+        ByteBuffer content = ByteBuffer.wrap(Files.readAllBytes(file));
+        for (int value = 0; value < 1000; value++) {
+            assertEquals(value, content.getInt());
+        }
+        assertFalse(content.hasRemaining());
+    }
+
+    /**
+     * Tests that records submitted from many threads share forces.
+     */
+    @Test
+    void testConcurrentRecordsShareCommits() throws Exception {
+        int threads = 8;
+        int perThread = 50;
+        try (GroupCommitWriter writer = new GroupCommitWriter(channel, 5, TimeUnit.MILLISECONDS, 64)) {
+            List<Thread> workers = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) {
+                int offset = thread * perThread;
+                workers.add(new Thread(() -> {
+                    for (int index = 0; index < perThread; index++) {
+                        writer.submit(record(offset + index), offset + index).join();
+                    }
+                }));
+            }
+            workers.forEach(Thread::start);
+            for (Thread worker : workers) worker.join();
+
+            assertEquals(threads * perThread, writer.getCommittedRecords());
+            assertTrue(writer.getCommittedBatches() < threads * perThread);
+        }
+        assertEquals((long) threads * perThread * Integer.BYTES, Files.size(file));
+    }
+
+    /**
+     * Tests that a full batch is committed without waiting for the window.
+     */
+    @Test
+    void testFullBatchCommitsBeforeWindow() throws IOException {
+        try (GroupCommitWriter writer = new GroupCommitWriter(channel, 1, TimeUnit.HOURS, 4)) {
+            List<CompletableFuture<Long>> futures = new ArrayList<>();
+            for (int value = 0; value < 4; value++) {
+                futures.add(writer.submit(record(value), value));
+            }
+            futures.forEach(CompletableFuture::join);
+            assertEquals(1, writer.getCommittedBatches());
+        }
+    }
+
+    /**
+     * Tests that flush commits pending records without waiting for the window.
+     */
+    @Test
+    void testFlushCommitsPendingRecords() throws IOException {
+        try (GroupCommitWriter writer = new GroupCommitWriter(channel, 1, TimeUnit.HOURS, 64)) {
+            CompletableFuture<Long> future = writer.submit(record(1), 1L);
+            writer.submit(record(2), 2L);
+            writer.flush().join();
+            assertTrue(future.isDone());
+            assertEquals(2, writer.getCommittedRecords());
+            assertEquals(2L * Integer.BYTES, Files.size(file));
+        }
+    }
+}
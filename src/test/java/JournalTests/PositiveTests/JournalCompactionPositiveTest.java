@@ -0,0 +1,261 @@
+package JournalTests.PositiveTests;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.persistence.CompactionMetrics;
+import edu.ntnu.iir.bidata.persistence.CompactionTrigger;
+import edu.ntnu.iir.bidata.persistence.DiaryJournal;
+import edu.ntnu.iir.bidata.persistence.DiarySnapshot;
+import edu.ntnu.iir.bidata.registers.AuthorRegister;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Positive tests for background compaction of the DiaryJournal.
+ *
+ * <ul>
+ *   <li>Triggers
+ *     <ul>
+ *       <li>testRecordTriggerStartsCompaction: Tests that reaching the record limit compacts the journal</li>
+ *       <li>testNeverTriggerDoesNotCompact: Tests that no compaction starts by itself without a trigger</li>
+ *     </ul>
+ *   </li>
+ *
+ *   <li>Consistency
+ *     <ul>
+ *       <li>testSnapshotHoldsCapturedState: Tests that changes made while the snapshot is written stay out of it</li>
+ *       <li>testChangesDuringCompactionSurvive: Tests that changes made while the snapshot is written survive a restart</li>
+ *       <li>testSealedSegmentIsReplayed: Tests that a journal rolled over by an unfinished compaction is replayed</li>
+ *       <li>testConcurrentWritersDuringCompactions: Tests that changes made by several threads while compactions run are restored once each</li>
+ *     </ul>
+ *   </li>
+ *
+ *   <li>Metrics
+ *     <ul>
+ *       <li>testMetricsAfterCheckpoint: Tests that pause, write time, snapshot size and reclaimed bytes are reported</li>
+ *     </ul>
+ *   </li>
+ * </ul>
+ */
+class JournalCompactionPositiveTest {
+
+    private final int MAX_WORDS = 100;
+    private final String TEXT_1 = "I went out today and had to hang out with someone I don't really like...";
+    private final String TEXT_2 = "Today I actually went to university. It's boring, I'd rather hang out in the city.";
+
+    private Path directory;
+    private AuthorRegister authors;
+    private DiaryEntryRegister entries;
+    private DiaryJournal journal;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("diary-compaction");
+        open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private void open() throws IOException {
+        authors = new AuthorRegister();
+        entries = new DiaryEntryRegister();
+        journal = DiaryJournal.open(directory, authors, entries);
+    }
+
+    private void restart() throws IOException {
+        journal.close();
+        open();
+    }
+
+    private DiaryEntry createEntry(String title) {
+        if (authors.getAuthor("Ola Nordmann").isEmpty()) authors.addAuthor("Ola", "Nordmann");
+        DiaryEntry entry = new DiaryEntry(authors.getAuthor("Ola Nordmann").orElseThrow(), MAX_WORDS, title);
+        entry.addPage("First", TEXT_1);
+        entries.addDiaryEntry(entry);
+        return entry;
+    }
+
+    private DiaryEntry findEntry(String title) {
+        return entries.findDiaryEntryFromAuthorByTitle(authors.getAuthor("Ola Nordmann").orElseThrow(), title)
+                .orElseThrow();
+    }
+
+    private List<Path> sealedSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("journal-")).toList();
+        }
+    }
+
+    private static List<String> texts(DiaryEntry entry) {
+        List<String> texts = new ArrayList<>();
+        entry.getPageTexts().forEachRemaining(texts::add);
+        return texts;
+    }
+
+    /**
+     * Tests that reaching the record limit compacts the journal in the background.
+     */
+    @Test
+    void testRecordTriggerStartsCompaction() throws IOException {
+        journal.setCompactionTrigger(CompactionTrigger.ofRecords(3));
+        DiaryEntry entry = createEntry("Summer");
+        assertEquals(0, journal.getCompactionMetrics().compactions());
+
+        entry.addPage("Second", TEXT_2);
+        journal.getLastCompaction().join();
+
+        assertEquals(1, journal.getCompactionMetrics().compactions());
+        assertEquals(3, journal.getSnapshotLsn());
+        assertTrue(sealedSegments().isEmpty());
+        assertEquals(0, Files.size(directory.resolve(DiaryJournal.FILE_NAME)));
+
+        restart();
+        assertEquals(0, journal.getReplayedRecords());
+        assertEquals(List.of(TEXT_1, TEXT_2), texts(findEntry("Summer")));
+    }
+
+    /**
+     * Tests that changes made by several threads while compactions run are restored once each.
+     */
+    @Test
+    void testConcurrentWritersDuringCompactions() throws Exception {
+        journal.setCompactionTrigger(CompactionTrigger.ofRecords(25));
+        List<DiaryEntry> written = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) written.add(createEntry("Thread " + thread));
+        List<Thread> writers = new ArrayList<>();
+        for (DiaryEntry entry : written) {
+            Thread writer = new Thread(() -> {
+                for (int page = 0; page < 100; page++) entry.addPage("Page " + page, TEXT_2);
+            });
+            writers.add(writer);
+            writer.start();
+        }
+        for (Thread writer : writers) writer.join();
+        journal.checkpoint();
+
+        assertTrue(journal.getCompactionMetrics().compactions() > 1);
+        restart();
+        for (int thread = 0; thread < 4; thread++) {
+            DiaryEntry entry = findEntry("Thread " + thread);
+            assertEquals(101, entry.getNmbPages());
+            assertEquals(100, entry.getWordCount("university"));
+        }
+    }
+
+    /**
+     * Tests that no compaction starts by itself when the trigger is never reached.
+     */
+    @Test
+    void testNeverTriggerDoesNotCompact() {
+        journal.setCompactionTrigger(CompactionTrigger.NEVER);
+        DiaryEntry entry = createEntry("Summer");
+        for (int page = 0; page < 20; page++) entry.addPage("Page " + page, TEXT_2);
+
+        assertTrue(journal.getLastCompaction().isDone());
+        assertEquals(0, journal.getCompactionMetrics().compactions());
+        assertEquals(0, journal.getSnapshotLsn());
+    }
+
+    /**
+     * Tests that changes made while the snapshot is written stay out of it, since it holds the captured state.
+     */
+    @Test
+    void testSnapshotHoldsCapturedState() throws IOException {
+        DiaryEntry entry = createEntry("Summer");
+        CompletableFuture<Void> compaction = journal.compact();
+        entry.setPageText(1, TEXT_2);
+        entry.addPage("Second", TEXT_1);
+        compaction.join();
+
+        AuthorRegister snapshotAuthors = new AuthorRegister();
+        DiaryEntryRegister snapshotEntries = new DiaryEntryRegister();
+        DiarySnapshot.read(directory.resolve(DiarySnapshot.FILE_NAME), snapshotAuthors, snapshotEntries);
+        DiaryEntry captured = snapshotEntries.getAllDiaryEntries().get(0);
+        assertEquals(List.of(TEXT_1), texts(captured));
+        assertEquals(0, captured.getWordCount("university"));
+    }
+
+    /**
+     * Tests that changes made while the snapshot is written are kept in the new journal file and survive a restart.
+     */
+    @Test
+    void testChangesDuringCompactionSurvive() throws IOException {
+        DiaryEntry entry = createEntry("Summer");
+        CompletableFuture<Void> compaction = journal.compact();
+        entry.setPageText(1, TEXT_2);
+        createEntry("Winter");
+        compaction.join();
+
+        restart();
+        assertEquals(List.of(TEXT_2), texts(findEntry("Summer")));
+        assertEquals(List.of(TEXT_1), texts(findEntry("Winter")));
+        assertEquals(1, findEntry("Summer").getWordCount("university"));
+    }
+
+    /**
+     * Tests that a journal file rolled over by a compaction that never wrote its snapshot is replayed,
+     * and deleted by the next compaction.
+     */
+    @Test
+    void testSealedSegmentIsReplayed() throws IOException {
+        createEntry("Summer");
+        long lastLsn = journal.getNextLsn() - 1;
+        journal.close();
+        Files.move(directory.resolve(DiaryJournal.FILE_NAME),
+                directory.resolve(String.format("journal-%020d.log", lastLsn)));
+
+        open();
+        findEntry("Summer").addPage("Second", TEXT_2);
+        restart();
+        assertEquals(List.of(TEXT_1, TEXT_2), texts(findEntry("Summer")));
+        assertEquals(1, sealedSegments().size());
+
+        journal.checkpoint();
+        assertTrue(sealedSegments().isEmpty());
+        restart();
+        assertEquals(List.of(TEXT_1, TEXT_2), texts(findEntry("Summer")));
+    }
+
+    /**
+     * Tests that pause, write time, snapshot size and reclaimed bytes are reported after a checkpoint.
+     */
+    @Test
+    void testMetricsAfterCheckpoint() throws IOException {
+        createEntry("Summer");
+        createEntry("Winter");
+        journal.flush().join();
+        long journalSize = Files.size(directory.resolve(DiaryJournal.FILE_NAME));
+        journal.checkpoint();
+
+        CompactionMetrics metrics = journal.getCompactionMetrics();
+        assertEquals(1, metrics.compactions());
+        assertEquals(0, metrics.failedCompactions());
+        assertEquals(journalSize, metrics.bytesReclaimed());
+        assertEquals(Files.size(directory.resolve(DiarySnapshot.FILE_NAME)), metrics.lastSnapshotBytes());
+        assertTrue(metrics.lastPause().toNanos() > 0);
+        assertTrue(metrics.lastWriteTime().toNanos() > 0);
+        assertEquals(metrics.lastPause(), metrics.maxPause());
+        assertEquals(metrics.lastPause(), metrics.totalPause());
+    }
+}
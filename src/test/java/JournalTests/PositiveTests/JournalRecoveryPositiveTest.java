@@ -0,0 +1,231 @@
+package JournalTests.PositiveTests;
+
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.persistence.DiaryJournal;
+import edu.ntnu.iir.bidata.persistence.RecoveryReport;
+import edu.ntnu.iir.bidata.registers.AuthorRegister;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Positive tests for checksummed journal records and recovery of damaged journals.
+ *
+ * <ul>
+ *   <li>Intact journals
+ *     <ul>
+ *       <li>testIntactJournalReport: Tests that an undamaged journal is reported as fully recovered</li>
+ *       <li>testJournalWithoutChecksumsIsReplayed: Tests that a journal written before records had checksums is replayed</li>
+ *     </ul>
+ *   </li>
+ *
+ *   <li>Damaged journals
+ *     <ul>
+ *       <li>testTornTailIsCutOff: Tests that a partly written last record is cut off and reported</li>
+ *       <li>testChecksumMismatchStopsRecovery: Tests that recovery keeps the records before a damaged one</li>
+ *       <li>testDamagedSegmentDiscardsLaterRecords: Tests that records after damage in an older file are discarded</li>
+ *     </ul>
+ *   </li>
+ * </ul>
+ */
+class JournalRecoveryPositiveTest {
+
+    private final int MAX_WORDS = 100;
+    private final String TEXT_1 = "I went out today and had to hang out with someone I don't really like...";
+    private final String TEXT_2 = "Today I actually went to university. It's boring, I'd rather hang out in the city.";
+
+    private Path directory;
+    private Path file;
+    private AuthorRegister authors;
+    private DiaryEntryRegister entries;
+    private DiaryJournal journal;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("diary-recovery");
+        file = directory.resolve(DiaryJournal.FILE_NAME);
+        open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private void open() throws IOException {
+        authors = new AuthorRegister();
+        entries = new DiaryEntryRegister();
+        journal = DiaryJournal.open(directory, authors, entries);
+    }
+
+    private void restart() throws IOException {
+        journal.close();
+        open();
+    }
+
+    private DiaryEntry createEntry(String title) {
+        if (authors.getAuthor("Ola Nordmann").isEmpty()) authors.addAuthor("Ola", "Nordmann");
+        DiaryEntry entry = new DiaryEntry(authors.getAuthor("Ola Nordmann").orElseThrow(), MAX_WORDS, title);
+        entry.addPage("First", TEXT_1);
+        entries.addDiaryEntry(entry);
+        return entry;
+    }
+
+    private DiaryEntry findEntry(String title) {
+        return entries.findDiaryEntryFromAuthorByTitle(authors.getAuthor("Ola Nordmann").orElseThrow(), title)
+                .orElseThrow();
+    }
+
+    private static List<String> texts(DiaryEntry entry) {
+        List<String> texts = new ArrayList<>();
+        entry.getPageTexts().forEachRemaining(texts::add);
+        return texts;
+    }
+
+    private static void flipByte(Path path, long position) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, position);
+            value.put(0, (byte) ~value.get(0)).position(0);
+            channel.write(value, position);
+        }
+    }
+
+    /**
+     * Tests that an undamaged journal is reported as fully recovered.
+     */
+    @Test
+    void testIntactJournalReport() throws IOException {
+        createEntry("Summer");
+        findEntry("Summer").addPage("Second", TEXT_2);
+        long lastLsn = journal.getNextLsn() - 1;
+        restart();
+
+        RecoveryReport report = journal.getRecoveryReport();
+        assertTrue(report.isIntact());
+        assertEquals(RecoveryReport.Problem.NONE, report.problem());
+        assertEquals(lastLsn, report.recordsRecovered());
+        assertEquals(lastLsn, report.lastLsn());
+        assertEquals(Files.size(file), report.bytesRecovered());
+    }
+
+    /**
+     * Tests that a journal written before records had checksums is replayed, and that new records go to a new file.
+     */
+    @Test
+    void testJournalWithoutChecksumsIsReplayed() throws IOException {
+        journal.close();
+        ByteBuffer record = ByteBuffer.allocate(256);
+        record.putInt(0).put((byte) 1).putLong(1).putLong(1_700_000_000L).putInt(0);
+        for (String name : new String[] {"Kari", "Nordmann"}) {
+            byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+            record.putInt(bytes.length).put(bytes);
+        }
+        record.putInt(-1);
+        record.putInt(0, record.position() - Integer.BYTES).flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(record);
+        }
+
+        open();
+        assertTrue(authors.getAuthor("Kari Nordmann").isPresent());
+        assertTrue(journal.getRecoveryReport().isIntact());
+        assertEquals(0, Files.size(file));
+
+        authors.addAuthor("Ola", "Nordmann");
+        restart();
+        assertTrue(authors.getAuthor("Kari Nordmann").isPresent());
+        assertTrue(authors.getAuthor("Ola Nordmann").isPresent());
+    }
+
+    /**
+     * Tests that a partly written last record is cut off and reported.
+     */
+    @Test
+    void testTornTailIsCutOff() throws IOException {
+        createEntry("Summer");
+        journal.close();
+        long size = Files.size(file);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 60, 1, 2, 3, 4, 11}));
+        }
+
+        open();
+        RecoveryReport report = journal.getRecoveryReport();
+        assertEquals(RecoveryReport.Problem.TORN_RECORD, report.problem());
+        assertEquals(9, report.bytesDiscarded());
+        assertEquals(size, Files.size(file));
+        assertEquals(List.of(TEXT_1), texts(findEntry("Summer")));
+    }
+
+    /**
+     * Tests that recovery keeps the records before a record that fails its checksum, and drops it and the rest.
+     */
+    @Test
+    void testChecksumMismatchStopsRecovery() throws IOException {
+        createEntry("Summer");
+        journal.flush().join();
+        long sizeBefore = Files.size(file);
+        findEntry("Summer").addPage("Second", TEXT_2);
+        createEntry("Winter");
+        journal.close();
+        long size = Files.size(file);
+        flipByte(file, sizeBefore + 40);
+
+        open();
+        RecoveryReport report = journal.getRecoveryReport();
+        assertEquals(RecoveryReport.Problem.CHECKSUM_MISMATCH, report.problem());
+        assertEquals(size - sizeBefore, report.bytesDiscarded());
+        assertEquals(sizeBefore, Files.size(file));
+        assertEquals(List.of(TEXT_1), texts(findEntry("Summer")));
+        assertTrue(entries.findDiaryEntryFromAuthorByTitle(authors.getAuthor("Ola Nordmann").orElseThrow(),
+                "Winter").isEmpty());
+    }
+
+    /**
+     * Tests that damage in a sealed journal file discards the records after it, including the current file.
+     */
+    @Test
+    void testDamagedSegmentDiscardsLaterRecords() throws IOException {
+        createEntry("Summer");
+        long lastLsn = journal.getNextLsn() - 1;
+        journal.close();
+        Path sealed = directory.resolve(String.format("journal-%020d.log", lastLsn));
+        Files.move(file, sealed);
+        long sealedSize = Files.size(sealed);
+
+        open();
+        createEntry("Winter");
+        journal.close();
+        long laterSize = Files.size(file);
+        flipByte(sealed, sealedSize - 1);
+
+        open();
+        RecoveryReport report = journal.getRecoveryReport();
+        assertEquals(RecoveryReport.Problem.CHECKSUM_MISMATCH, report.problem());
+        assertTrue(report.bytesDiscarded() > laterSize);
+        assertEquals(0, Files.size(file));
+        assertTrue(entries.getAllDiaryEntries().stream().noneMatch(entry -> entry.getEntryTitle().equals("Winter")));
+        assertTrue(authors.getAuthor("Ola Nordmann").isPresent());
+    }
+}
@@ -0,0 +1,208 @@
+package JournalTests.PositiveTests;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.models.Page;
+import edu.ntnu.iir.bidata.persistence.DiaryJournal;
+import edu.ntnu.iir.bidata.persistence.MappedPageStore;
+import edu.ntnu.iir.bidata.registers.AuthorRegister;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Positive tests for the MappedPageStore class and pages with stored text.
+ *
+ * <ul>
+ *   <li>Store
+ *     <ul>
+ *       <li>testAppendAndRead: Tests that stored texts are read back unchanged</li>
+ *       <li>testTextsAcrossSegments: Tests that texts in several segments, and a text larger than a segment, are read back</li>
+ *     </ul>
+ *   </li>
+ *
+ *   <li>Stored pages
+ *     <ul>
+ *       <li>testStoredPageKeepsNoText: Tests that a stored page reads its text from the store</li>
+ *       <li>testRegisterStoresPages: Tests that a register with a store keeps new and changed pages in it</li>
+ *       <li>testEditsOnStoredPages: Tests that word counts and search stay right when stored pages change</li>
+ *       <li>testJournalWithStoredPages: Tests that entries with stored pages survive a checkpoint and restart</li>
+ *     </ul>
+ *   </li>
+ * </ul>
+ */
+class MappedPageStorePositiveTest {
+
+    private final String TEXT_1 = "I went out today and had to hang out with someone I don't really like...";
+    private final String TEXT_2 = "Today I actually went to university. It's boring, I'd rather hang out in the city.";
+
+    private Path directory;
+    private MappedPageStore store;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("page-store");
+        store = MappedPageStore.open(directory.resolve(MappedPageStore.FILE_NAME), 256);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private long append(String text) {
+        return store.append(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static int length(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static List<String> texts(DiaryEntry entry) {
+        List<String> texts = new ArrayList<>();
+        entry.getPageTexts().forEachRemaining(texts::add);
+        return texts;
+    }
+
+    /**
+     * Tests that stored texts are read back unchanged.
+     */
+    @Test
+    void testAppendAndRead() {
+        String accented = "Blåbærsyltetøy på søndag";
+        long first = append(TEXT_1);
+        long second = append(accented);
+
+        assertEquals(TEXT_1, store.read(first, length(TEXT_1)));
+        assertEquals(accented, store.read(second, length(accented)));
+        assertEquals("", store.read(second, 0));
+        assertEquals(length(TEXT_1) + length(accented), store.getStoredBytes());
+    }
+
+    /**
+     * Tests that texts in several segments, and a text larger than a segment, are read back.
+     */
+    @Test
+    void testTextsAcrossSegments() {
+        String large = "word ".repeat(200);
+        List<Long> offsets = new ArrayList<>();
+        for (int index = 0; index < 10; index++) offsets.add(append(TEXT_2 + index));
+        long largeOffset = append(large);
+
+        for (int index = 0; index < 10; index++) {
+            assertEquals(TEXT_2 + index, store.read(offsets.get(index), length(TEXT_2 + index)));
+        }
+        assertEquals(large, store.read(largeOffset, length(large)));
+        assertTrue(store.getSegmentCount() > 2);
+    }
+
+    /**
+     * Tests that a stored page reads its text from the store, and that changing it brings the text back to the heap.
+     */
+    @Test
+    void testStoredPageKeepsNoText() {
+        String before = "Stored and then edited: " + TEXT_1;
+        String after = "Stored and then edited: " + TEXT_2;
+        Page page = new Page("Title", before);
+        int[] wordIds = page.getWordIds().clone();
+        page.storeText(store);
+
+        assertTrue(page.isTextStored());
+        assertEquals(before, page.getText());
+        assertArrayEquals(wordIds, page.getWordIds());
+
+        page.setText(after);
+        assertFalse(page.isTextStored());
+        assertEquals(after, page.getText());
+        assertEquals(length(before), store.getReleasedBytes());
+    }
+
+    /**
+     * Tests that a register with a store keeps the pages of added entries, and pages added later, in the store.
+     */
+    @Test
+    void testRegisterStoresPages() {
+        DiaryEntryRegister entries = new DiaryEntryRegister(store);
+        DiaryEntry entry = new DiaryEntry(new Author("Ola", "Nordmann"), 100, "Summer");
+        entry.addPage("First", TEXT_1);
+        entries.addDiaryEntry(entry);
+        entry.addPage("Second", TEXT_2);
+        entry.insertPage(1, "Zeroth", "Once upon a time");
+
+        assertTrue(entry.getPages().stream().allMatch(Page::isTextStored));
+        assertEquals(List.of("Once upon a time", TEXT_1, TEXT_2), texts(entry));
+        assertEquals(TEXT_2, entry.getPageText(3));
+    }
+
+    /**
+     * Tests that word counts and search stay right when stored pages change.
+     */
+    @Test
+    void testEditsOnStoredPages() {
+        DiaryEntryRegister entries = new DiaryEntryRegister(store);
+        Author author = new Author("Ola", "Nordmann");
+        DiaryEntry entry = new DiaryEntry(author, 100, "Summer");
+        entry.addPage("First", TEXT_1);
+        entry.addPage("Second", TEXT_2);
+        entries.addDiaryEntry(entry);
+
+        entry.setPageText(1, "Snow and more snow");
+        entry.removePage(2);
+
+        assertTrue(entry.getPages().get(0).isTextStored());
+        assertEquals(2, entry.getWordCount("snow"));
+        assertEquals(0, entry.getWordCount("university"));
+        assertEquals(2, author.getWordCount("snow"));
+        assertEquals(List.of(entry), entries.searchForWord("snow", 10));
+        assertTrue(entries.searchForWord("university", 10).isEmpty());
+        assertEquals(1, entries.searchForPhrase("and more snow", 10).size());
+    }
+
+    /**
+     * Tests that entries with stored pages survive a checkpoint and restart.
+     */
+    @Test
+    void testJournalWithStoredPages() throws IOException {
+        Path data = directory.resolve("data");
+        AuthorRegister authors = new AuthorRegister();
+        DiaryEntryRegister entries = new DiaryEntryRegister(store);
+        DiaryJournal journal = DiaryJournal.open(data, authors, entries);
+        authors.addAuthor("Ola", "Nordmann");
+        DiaryEntry entry = new DiaryEntry(authors.getAuthor("Ola Nordmann").orElseThrow(), 100, "Summer");
+        entry.addPage("First", TEXT_1);
+        entries.addDiaryEntry(entry);
+        journal.checkpoint();
+        entry.addPage("Second", TEXT_2);
+        journal.close();
+
+        try (MappedPageStore restartedStore = MappedPageStore.open(data.resolve(MappedPageStore.FILE_NAME))) {
+            authors = new AuthorRegister();
+            entries = new DiaryEntryRegister(restartedStore);
+            journal = DiaryJournal.open(data, authors, entries);
+            journal.close();
+
+            DiaryEntry restored = entries.findDiaryEntryFromAuthorByTitle(
+                    authors.getAuthor("Ola Nordmann").orElseThrow(), "Summer").orElseThrow();
+            assertTrue(restored.getPages().stream().allMatch(Page::isTextStored));
+            assertEquals(List.of(TEXT_1, TEXT_2), texts(restored));
+            assertEquals(List.of(restored), entries.searchForWord("university", 10));
+        }
+    }
+}
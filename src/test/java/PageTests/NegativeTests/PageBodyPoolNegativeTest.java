@@ -0,0 +1,58 @@
+package PageTests.NegativeTests;
+
+import edu.ntnu.iir.bidata.models.PageBody;
+import edu.ntnu.iir.bidata.models.PageBodyPool;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Negative tests for the PageBodyPool class.
+ *
+ * <ul>
+ *   <li>Intern
+ *     <ul>
+ *       <li>testInternNullText: Tests intern throws when text is null</li>
+ *     </ul>
+ *   </li>
+ *
+ *   <li>Release
+ *     <ul>
+ *       <li>testReleaseNull: Tests release throws when body is null</li>
+ *       <li>testReleaseTooOften: Tests release throws when no page uses the body any more</li>
+ *     </ul>
+ *   </li>
+ * </ul>
+ */
+class PageBodyPoolNegativeTest {
+
+    /**
+     * Tests intern throws when text is null.
+     */
+    @Test
+    void testInternNullText() {
+        PageBodyPool pool = new PageBodyPool();
+        assertThrows(IllegalArgumentException.class, () -> pool.intern(null));
+        assertThrows(IllegalArgumentException.class, () -> pool.intern(null, new int[0]));
+    }
+
+    /**
+     * Tests release throws when body is null.
+     */
+    @Test
+    void testReleaseNull() {
+        PageBodyPool pool = new PageBodyPool();
+        assertThrows(IllegalArgumentException.class, () -> pool.release(null));
+    }
+
+    /**
+     * Tests release throws when no page uses the body any more.
+     */
+    @Test
+    void testReleaseTooOften() {
+        PageBodyPool pool = new PageBodyPool();
+        PageBody body = pool.intern("Released once");
+        pool.release(body);
+        assertThrows(IllegalStateException.class, () -> pool.release(body));
+    }
+}
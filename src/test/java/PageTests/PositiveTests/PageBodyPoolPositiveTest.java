@@ -0,0 +1,228 @@
+package PageTests.PositiveTests;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.models.Page;
+import edu.ntnu.iir.bidata.models.PageBody;
+import edu.ntnu.iir.bidata.models.PageBodyPool;
+import edu.ntnu.iir.bidata.persistence.CompressedPageStore;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Positive tests for the PageBodyPool class and pages sharing identical text.
+ *
+ * <ul>
+ *   <li>Pool
+ *     <ul>
+ *       <li>testInternSharesIdenticalText: Tests that identical texts get the same body and different texts do not</li>
+ *       <li>testStatsCountDeduplicatedBytes: Tests that the statistics count unique and deduplicated bytes</li>
+ *       <li>testReleaseLastReference: Tests that a body leaves the pool with its last reference</li>
+ *       <li>testConcurrentInternShares: Tests that threads interning the same texts share one body per text</li>
+ *     </ul>
+ *   </li>
+ *
+ *   <li>Pages
+ *     <ul>
+ *       <li>testSetTextMovesToOtherBody: Tests that changing the text of a page moves it to another body</li>
+ *       <li>testSharedTextIsStoredOnce: Tests that storing one page stores the text once for every page sharing it</li>
+ *       <li>testWordCountsOfSharedText: Tests that word counts stay right for entries with repeated pages</li>
+ *       <li>testRemovedEntryReleasesText: Tests that removing an entry releases the stored text of its pages</li>
+ *     </ul>
+ *   </li>
+ * </ul>
+ */
+class PageBodyPoolPositiveTest {
+
+    private final String TEXT_1 = "Det skjedde mye spennende";
+    private final String TEXT_2 = "Today I actually went to university. It's boring, I'd rather hang out in the city.";
+
+    private static int length(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    /**
+     * Tests that identical texts get the same body and different texts do not.
+     */
+    @Test
+    void testInternSharesIdenticalText() {
+        PageBodyPool pool = new PageBodyPool();
+        PageBody first = pool.intern(TEXT_1);
+        PageBody second = pool.intern(new String(TEXT_1.toCharArray()));
+        PageBody other = pool.intern(TEXT_2);
+
+        assertSame(first, second);
+        assertNotSame(first, other);
+        assertEquals(2, first.getReferences());
+        assertEquals(1, other.getReferences());
+        assertEquals(TEXT_1, first.getText());
+    }
+
+    /**
+     * Tests that the statistics count unique bytes once and every extra copy as deduplicated.
+     */
+    @Test
+    void testStatsCountDeduplicatedBytes() {
+        PageBodyPool pool = new PageBodyPool();
+        String accented = "Blåbærsyltetøy på søndag";
+        for (int copy = 0; copy < 3; copy++) pool.intern(TEXT_1);
+        pool.intern(accented);
+        pool.intern(accented);
+
+        PageBodyPool.Stats stats = pool.getStats();
+        assertEquals(2, stats.bodies());
+        assertEquals(5, stats.references());
+        assertEquals(length(TEXT_1) + length(accented), stats.uniqueBytes());
+        assertEquals(2L * length(TEXT_1) + length(accented), stats.deduplicatedBytes());
+    }
+
+    /**
+     * Tests that a body stays in the pool while pages use it and leaves it with its last reference.
+     */
+    @Test
+    void testReleaseLastReference() {
+        PageBodyPool pool = new PageBodyPool();
+        PageBody first = pool.intern(TEXT_1);
+        pool.intern(TEXT_1);
+
+        pool.release(first);
+        assertEquals(1, first.getReferences());
+        assertSame(first, pool.intern(TEXT_1));
+        pool.release(first);
+        pool.release(first);
+
+        assertEquals(new PageBodyPool.Stats(0, 0, 0, 0), pool.getStats());
+        assertNotSame(first, pool.intern(TEXT_1));
+    }
+
+    /**
+     * Tests that threads interning and releasing the same texts at once end up sharing one body per text,
+     * and that the counts are back to nothing once every reference is released.
+     */
+    @Test
+    void testConcurrentInternShares() throws InterruptedException {
+        PageBodyPool pool = new PageBodyPool();
+        String[] texts = {TEXT_1, TEXT_2, "Blåbærsyltetøy på søndag"};
+        int threadCount = 4;
+        int rounds = 2_000;
+        List<List<PageBody>> kept = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int thread = 0; thread < threadCount; thread++) {
+            List<PageBody> own = new ArrayList<>();
+            kept.add(own);
+            threads.add(new Thread(() -> {
+                for (int round = 0; round < rounds; round++) {
+                    String text = new String(texts[round % texts.length].toCharArray());
+                    PageBody body = pool.intern(text);
+                    if (round % 2 == 0) {
+                        own.add(body);
+                    } else {
+                        pool.release(body);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) thread.start();
+        for (Thread thread : threads) thread.join();
+
+        for (String text : texts) {
+            PageBody body = pool.intern(text);
+            assertTrue(kept.stream().flatMap(List::stream)
+                    .filter(other -> other.getText().equals(text)).allMatch(other -> other == body));
+            pool.release(body);
+        }
+        assertEquals(texts.length, pool.getStats().bodies());
+        assertEquals((long) threadCount * rounds / 2, pool.getStats().references());
+        kept.forEach(bodies -> bodies.forEach(pool::release));
+        assertEquals(new PageBodyPool.Stats(0, 0, 0, 0), pool.getStats());
+    }
+
+    /**
+     * Tests that changing the text of a page moves it to the body of the new text and lets go of the old one.
+     */
+    @Test
+    void testSetTextMovesToOtherBody() {
+        String shared = "Moved between bodies: " + TEXT_1;
+        String changed = "Moved between bodies: " + TEXT_2;
+        Page first = new Page("First", shared);
+        Page second = new Page("Second", shared);
+        Page third = new Page("Third", changed);
+        PageBody body = first.getBody();
+        assertSame(body, second.getBody());
+        assertEquals(2, body.getReferences());
+
+        second.setText(changed);
+        assertSame(third.getBody(), second.getBody());
+        assertEquals(1, body.getReferences());
+        assertEquals(2, third.getBody().getReferences());
+        assertEquals(shared, first.getText());
+        assertEquals(changed, second.getText());
+    }
+
+    /**
+     * Tests that storing one page stores the text once for every page sharing it.
+     */
+    @Test
+    void testSharedTextIsStoredOnce() {
+        String shared = "Stored once: " + TEXT_2;
+        CompressedPageStore store = new CompressedPageStore(new byte[0]);
+        Page first = new Page("First", shared);
+        Page second = new Page("Second", shared);
+
+        assertTrue(first.storeText(store));
+        assertFalse(second.storeText(store));
+        assertTrue(second.isTextStored());
+        assertEquals(1, store.getStoredTexts());
+        assertEquals(shared, second.getText());
+    }
+
+    /**
+     * Tests that word counts stay right for entries with repeated pages, and when one of them changes.
+     */
+    @Test
+    void testWordCountsOfSharedText() {
+        Author author = new Author("Ola", "Nordmann");
+        DiaryEntry entry = new DiaryEntry(author, 100, "Repeated");
+        for (int page = 1; page <= 3; page++) entry.addPage("Page " + page, TEXT_1);
+
+        assertSame(entry.getPages().get(0).getBody(), entry.getPages().get(2).getBody());
+        assertEquals(3, entry.getWordCount("spennende"));
+        assertEquals(3, author.getWordCount("mye"));
+
+        entry.setPageText(2, TEXT_2);
+        entry.removePage(3);
+        assertEquals(1, entry.getWordCount("spennende"));
+        assertEquals(1, author.getWordCount("university"));
+    }
+
+    /**
+     * Tests that removing an entry from its register lets go of its pages, so the stored text no other page
+     * shares is released and the text shared with a remaining entry is kept.
+     */
+    @Test
+    void testRemovedEntryReleasesText() {
+        CompressedPageStore store = new CompressedPageStore(new byte[0]);
+        DiaryEntryRegister register = new DiaryEntryRegister(store);
+        Author author = new Author("Ola", "Nordmann");
+        String shared = "Kept by the other entry: " + TEXT_1;
+        DiaryEntry removed = new DiaryEntry(author, 100, "Removed");
+        removed.addPage("Own", "Released with the entry: " + TEXT_2);
+        removed.addPage("Shared", shared);
+        register.addDiaryEntry(removed);
+        DiaryEntry kept = new DiaryEntry(author, 100, "Kept");
+        kept.addPage("Shared", shared);
+        register.addDiaryEntry(kept);
+        assertEquals(2, store.getStoredTexts());
+
+        register.removeDiaryEntry(author, "Removed");
+        assertEquals(1, store.getStoredTexts());
+        assertEquals(1, kept.getPages().get(0).getBody().getReferences());
+        assertEquals(shared, kept.getPageText(1));
+    }
+}
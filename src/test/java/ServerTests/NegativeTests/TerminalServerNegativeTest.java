@@ -0,0 +1,43 @@
+package ServerTests.NegativeTests;
+
+import edu.ntnu.iir.bidata.server.TerminalServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Negative tests for the TerminalServer class.
+ *
+ * <ul>
+ *   <li>testNullArguments: Tests start throws when the address or session is null</li>
+ *   <li>testPortInUse: Tests starting a second server on a port in use fails with an IOException</li>
+ * </ul>
+ */
+class TerminalServerNegativeTest {
+
+    private static final InetSocketAddress ANY_PORT = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+
+    /**
+     * Tests start throws when the address or session is null.
+     */
+    @Test
+    void testNullArguments() {
+        assertThrows(IllegalArgumentException.class, () -> TerminalServer.start(null, reader -> {}));
+        assertThrows(IllegalArgumentException.class, () -> TerminalServer.start(ANY_PORT, null));
+    }
+
+    /**
+     * Tests starting a second server on a port in use fails with an IOException.
+     */
+    @Test
+    void testPortInUse() throws Exception {
+        try (TerminalServer server = TerminalServer.start(ANY_PORT, reader -> {})) {
+            InetSocketAddress taken = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+            assertThrows(IOException.class, () -> TerminalServer.start(taken, reader -> {}));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package ServerTests.PositiveTests;
+
+import edu.ntnu.iir.bidata.server.TerminalServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Positive tests for the TerminalServer class.
+ *
+ * <ul>
+ *   <li>testSessionsGetOwnOutput: Tests that each client only sees what its own session prints</li>
+ *   <li>testManyIdleSessions: Tests that many clients can stay connected at once and are counted</li>
+ *   <li>testCloseHangsUp: Tests that closing the server ends every session</li>
+ * </ul>
+ */
+public class TerminalServerPositiveTest {
+
+    /**
+     * Session printing a prompt and echoing each line until the client types "exit".
+     */
+    private static void echo(BufferedReader reader) throws IOException {
+        System.out.print("> ");
+        String line;
+        while (!(line = reader.readLine()).equals("exit")) {
+            System.out.println("echo: " + line);
+            System.out.print("> ");
+        }
+        System.out.println("bye");
+    }
+
+    private static TerminalServer startEcho() throws IOException {
+        return TerminalServer.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0),
+                TerminalServerPositiveTest::echo);
+    }
+
+    private static Socket connect(TerminalServer server) throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        socket.setSoTimeout(10_000);
+        return socket;
+    }
+
+    private static BufferedReader readerOf(Socket socket) throws IOException {
+        return new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+    }
+
+    private static void awaitSessions(TerminalServer server, int count) throws InterruptedException {
+        for (int attempt = 0; attempt < 500 && server.getSessionCount() != count; attempt++) Thread.sleep(10);
+        assertEquals(count, server.getSessionCount());
+    }
+
+    /**
+     * Tests that each client only sees what its own session prints.
+     */
+    @Test
+    void testSessionsGetOwnOutput() throws Exception {
+        try (TerminalServer server = startEcho();
+             Socket first = connect(server);
+             Socket second = connect(server)) {
+            PrintWriter firstOut = new PrintWriter(first.getOutputStream(), true, StandardCharsets.UTF_8);
+            PrintWriter secondOut = new PrintWriter(second.getOutputStream(), true, StandardCharsets.UTF_8);
+            BufferedReader firstIn = readerOf(first);
+            BufferedReader secondIn = readerOf(second);
+
+            firstOut.print("hello\r\n");
+            firstOut.flush();
+            secondOut.print("hei på deg\r\n");
+            secondOut.flush();
+            assertEquals("> echo: hello", firstIn.readLine());
+            assertEquals("> echo: hei på deg", secondIn.readLine());
+
+            firstOut.print("exit\r\n");
+            firstOut.flush();
+            assertEquals("> bye", firstIn.readLine());
+            assertNull(firstIn.readLine());
+
+            secondOut.print("still here\r\n");
+            secondOut.flush();
+            assertEquals("> echo: still here", secondIn.readLine());
+        }
+    }
+
+    /**
+     * Tests that many clients can stay connected at once and are counted.
+     */
+    @Test
+    void testManyIdleSessions() throws Exception {
+        List<Socket> sockets = new ArrayList<>();
+        try (TerminalServer server = startEcho()) {
+            try {
+                for (int index = 0; index < 200; index++) sockets.add(connect(server));
+                awaitSessions(server, 200);
+            } finally {
+                for (Socket socket : sockets) socket.close();
+            }
+            awaitSessions(server, 0);
+        }
+    }
+
+    /**
+     * Tests that closing the server ends every session.
+     */
+    @Test
+    void testCloseHangsUp() throws Exception {
+        TerminalServer server = startEcho();
+        try (Socket socket = connect(server)) {
+            BufferedReader in = readerOf(socket);
+            assertEquals('>', in.read());
+            assertEquals(' ', in.read());
+
+            server.close();
+
+            assertEquals(0, server.getSessionCount());
+            assertNull(in.readLine());
+        }
+    }
+}
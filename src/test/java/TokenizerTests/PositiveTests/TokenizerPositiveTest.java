@@ -0,0 +1,140 @@
+package TokenizerTests.PositiveTests;
+
+import edu.ntnu.iir.bidata.text.TokenBuffer;
+import edu.ntnu.iir.bidata.text.Tokenizer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Positive tests for the Tokenizer class.
+ *
+ * <ul>
+ *   <li>Words
+ *     <ul>
+ *       <li>testWordsIgnorePunctuation: Tests that punctuation separates words</li>
+ *       <li>testWordsKeepApostropheAndHyphen: Tests that apostrophes and hyphens inside a word are kept</li>
+ *       <li>testWordsSplitOnAnyWhitespace: Tests that tabs, newlines and repeated spaces separate words</li>
+ *     </ul>
+ *   </li>
+ *
+ *   <li>Whitespace tokens
+ *     <ul>
+ *       <li>testWhitespaceTokensKeepPunctuation: Tests that punctuation stays attached to its token</li>
+ *       <li>testCountMatchesTokenize: Tests that count gives the same number as tokenize</li>
+ *     </ul>
+ *   </li>
+ *
+ *   <li>Buffer
+ *     <ul>
+ *       <li>testBoundariesPointIntoText: Tests start and end offsets of tokens</li>
+ *       <li>testEmptyText: Tests tokenizing null, empty and punctuation-only text</li>
+ *       <li>testBufferReuse: Tests that a buffer holds only the tokens of the latest text</li>
+ *     </ul>
+ *   </li>
+ * </ul>
+ */
+class TokenizerPositiveTest {
+
+    private final String TEXT_1 = "I went out today and had to hang out with someone I don't really like...";
+    private final String TEXT_2 = "Today I actually went to university. It's boring, I'd rather hang out in the city.";
+
+    private static List<String> words(String text, Tokenizer.Mode mode) {
+        TokenBuffer buffer = Tokenizer.tokenize(text, mode);
+        List<String> result = new ArrayList<>();
+        for (int index = 0; index < buffer.size(); index++) {
+            result.add(buffer.token(index));
+        }
+        return result;
+    }
+
+    /**
+     * Tests that punctuation separates words.
+     */
+    @Test
+    void testWordsIgnorePunctuation() {
+        assertEquals(List.of("university", "It's", "boring", "I'd"),
+                words("university. It's boring, I'd", Tokenizer.Mode.WORDS));
+        assertEquals("like", words(TEXT_1, Tokenizer.Mode.WORDS).get(14));
+    }
+
+    /**
+     * Tests that apostrophes and hyphens inside a word are kept, but not at its edges.
+     */
+    @Test
+    void testWordsKeepApostropheAndHyphen() {
+        assertEquals(List.of("don't", "well-known", "rock'n'roll", "end"),
+                words("'don't' well-known -rock'n'roll- end-", Tokenizer.Mode.WORDS));
+    }
+
+    /**
+     * Tests that tabs, newlines and repeated spaces separate words.
+     */
+    @Test
+    void testWordsSplitOnAnyWhitespace() {
+        assertEquals(List.of("one", "two", "three", "fire"),
+                words("  one\ttwo\n\nthree   fire ", Tokenizer.Mode.WORDS));
+    }
+
+    /**
+     * Tests that punctuation stays attached to its token when splitting on whitespace.
+     */
+    @Test
+    void testWhitespaceTokensKeepPunctuation() {
+        assertEquals(List.of("university.", "It's", "boring,"),
+                words("university.  It's\tboring,", Tokenizer.Mode.WHITESPACE));
+    }
+
+    /**
+     * Tests that count gives the same number as tokenize.
+     */
+    @Test
+    void testCountMatchesTokenize() {
+        for (Tokenizer.Mode mode : Tokenizer.Mode.values()) {
+            assertEquals(words(TEXT_1, mode).size(), Tokenizer.count(TEXT_1, mode));
+            assertEquals(words(TEXT_2, mode).size(), Tokenizer.count(TEXT_2, mode));
+        }
+        assertEquals(15, Tokenizer.count(TEXT_2, Tokenizer.Mode.WHITESPACE));
+    }
+
+    /**
+     * Tests start and end offsets of tokens.
+     */
+    @Test
+    void testBoundariesPointIntoText() {
+        TokenBuffer buffer = Tokenizer.tokenize("Hei, du!", Tokenizer.Mode.WORDS);
+        assertEquals(2, buffer.size());
+        assertEquals(0, buffer.start(0));
+        assertEquals(3, buffer.end(0));
+        assertEquals(5, buffer.start(1));
+        assertEquals(7, buffer.end(1));
+        assertEquals("hei", buffer.normalizedToken(0));
+    }
+
+    /**
+     * Tests tokenizing null, empty and punctuation-only text.
+     */
+    @Test
+    void testEmptyText() {
+        assertEquals(0, Tokenizer.tokenize(null, Tokenizer.Mode.WORDS).size());
+        assertEquals(0, Tokenizer.tokenize("", Tokenizer.Mode.WHITESPACE).size());
+        assertEquals(0, Tokenizer.tokenize(" ... ,, ", Tokenizer.Mode.WORDS).size());
+        assertEquals(2, Tokenizer.count(" ... ,, ", Tokenizer.Mode.WHITESPACE));
+    }
+
+    /**
+     * Tests that a buffer holds only the tokens of the latest text, also after growing.
+     */
+    @Test
+    void testBufferReuse() {
+        TokenBuffer buffer = new TokenBuffer();
+        Tokenizer.tokenize("word ".repeat(500), Tokenizer.Mode.WORDS, buffer);
+        assertEquals(500, buffer.size());
+        Tokenizer.tokenize("only two", Tokenizer.Mode.WORDS, buffer);
+        assertEquals(2, buffer.size());
+        assertEquals("two", buffer.token(1));
+    }
+}
@@ -0,0 +1,78 @@
+package TransferTests.NegativeTests;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.transfer.DiaryExporter;
+import edu.ntnu.iir.bidata.transfer.ExportFormat;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Negative tests for the DiaryExporter class.
+ *
+ * <ul>
+ *   <li>Arguments
+ *     <ul>
+ *       <li>testConstructorWithNullFormat: Tests constructor throws when format is null</li>
+ *       <li>testNullArguments: Tests the export methods throw when an argument is null</li>
+ *     </ul>
+ *   </li>
+ *
+ *   <li>Files
+ *     <ul>
+ *       <li>testExportToDirectoryAsFile: Tests exporting to a file that is a directory fails with an IOException</li>
+ *     </ul>
+ *   </li>
+ * </ul>
+ */
+class DiaryExporterNegativeTest {
+
+    private final DiaryExporter exporter = new DiaryExporter(ExportFormat.MARKDOWN);
+
+    /**
+     * Tests constructor throws when format is null.
+     */
+    @Test
+    void testConstructorWithNullFormat() {
+        assertThrows(IllegalArgumentException.class, () -> new DiaryExporter(null));
+    }
+
+    /**
+     * Tests the export methods throw when an argument is null.
+     */
+    @Test
+    void testNullArguments() {
+        Path file = Path.of("diary.md");
+        DiaryEntry entry = new DiaryEntry(new Author("Nero"), 100, "Summer");
+        assertThrows(IllegalArgumentException.class, () -> exporter.exportToFile(null, file));
+        assertThrows(IllegalArgumentException.class, () -> exporter.exportToFile(List.of(), null));
+        assertThrows(IllegalArgumentException.class, () -> exporter.exportToDirectory(null, file));
+        assertThrows(IllegalArgumentException.class, () -> exporter.exportToDirectory(List.of(), null));
+        assertThrows(IllegalArgumentException.class,
+                () -> exporter.writeEntry(null, Channels.newChannel(new ByteArrayOutputStream())));
+        assertThrows(IllegalArgumentException.class, () -> exporter.writeEntry(entry, null));
+    }
+
+    /**
+     * Tests exporting to a file that is a directory fails with an IOException.
+     */
+    @Test
+    void testExportToDirectoryAsFile() throws IOException {
+        Path directory = Files.createTempDirectory("export");
+        try {
+            DiaryEntry entry = new DiaryEntry(new Author("Nero"), 100, "Summer");
+            entry.addPage("First", "Sun");
+            assertThrows(IOException.class, () -> exporter.exportToFile(List.of(entry), directory));
+        } finally {
+            Files.deleteIfExists(directory);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package TransferTests.NegativeTests;
+
+import edu.ntnu.iir.bidata.registers.AuthorRegister;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import edu.ntnu.iir.bidata.transfer.DiaryImporter;
+import edu.ntnu.iir.bidata.transfer.ImportFormat;
+import edu.ntnu.iir.bidata.transfer.ImportReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Negative tests for the DiaryImporter class.
+ *
+ * <ul>
+ *   <li>Settings
+ *     <ul>
+ *       <li>testConstructorWithNullRegisters: Tests constructor throws when a register is null</li>
+ *       <li>testInvalidSettings: Tests setters throw for sizes below 1 and a negative interval</li>
+ *       <li>testUnknownFormat: Tests a file with an unknown extension is refused</li>
+ *     </ul>
+ *   </li>
+ *
+ *   <li>Rows
+ *     <ul>
+ *       <li>testBadJsonRowsAreSkipped: Tests that unreadable and invalid JSONL rows are skipped with their line numbers</li>
+ *       <li>testBadCsvRowsAreSkipped: Tests that CSV rows with too many values or an open quote are skipped</li>
+ *     </ul>
+ *   </li>
+ * </ul>
+ */
+class DiaryImporterNegativeTest {
+
+    private AuthorRegister authors;
+    private DiaryEntryRegister entries;
+    private DiaryImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        authors = new AuthorRegister();
+        entries = new DiaryEntryRegister();
+        importer = new DiaryImporter(authors, entries);
+    }
+
+    private ImportReport importText(String text, ImportFormat format) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return importer.importFrom(new ByteArrayInputStream(bytes), format, -1);
+    }
+
+    /**
+     * Tests constructor throws when a register is null.
+     */
+    @Test
+    void testConstructorWithNullRegisters() {
+        assertThrows(IllegalArgumentException.class, () -> new DiaryImporter(null, entries));
+        assertThrows(IllegalArgumentException.class, () -> new DiaryImporter(authors, null));
+    }
+
+    /**
+     * Tests setters throw for sizes below 1 and a negative interval.
+     */
+    @Test
+    void testInvalidSettings() {
+        assertThrows(IllegalArgumentException.class, () -> importer.setParallelism(0));
+        assertThrows(IllegalArgumentException.class, () -> importer.setBatchEntries(0));
+        assertThrows(IllegalArgumentException.class, () -> importer.setChunkRows(0));
+        assertThrows(IllegalArgumentException.class, () -> importer.setProgressListener(null, Duration.ofSeconds(-1)));
+        assertThrows(IllegalArgumentException.class, () -> importer.importFrom(null, ImportFormat.CSV, -1));
+    }
+
+    /**
+     * Tests a file with an unknown extension is refused.
+     */
+    @Test
+    void testUnknownFormat() {
+        assertThrows(IllegalArgumentException.class, () -> importer.importFile(Path.of("diaries.xml")));
+    }
+
+    /**
+     * Tests that unreadable and invalid JSONL rows are skipped with their line numbers, and the rest imported.
+     */
+    @Test
+    void testBadJsonRowsAreSkipped() throws IOException {
+        importer.setChunkRows(2);
+        ImportReport report = importText("""
+                {"nickname": "Nero", "entry": "Good", "text": "Fine"}
+                {"nickname": "Nero", "entry": "Broken", "text": "Not closed}
+                {"entry": "Nobody", "text": "No author"}
+                {"nickname": "Nero", "entry": "Long", "maxWords": 2, "text": "Far too many words"}
+                {"nickname": "Nero", "entry": "Dated", "created": "yesterday", "text": "Bad date"}
+                {"nickname": "Nero", "entry": "Nested", "text": ["a", "b"]}
+                {"nickname": "Nero", "entry": "Good", "text": "Also fine"}
+                """, ImportFormat.JSONL);
+
+        assertEquals(7, report.rows());
+        assertEquals(5, report.rowsRejected());
+        assertEquals(2, report.pagesAdded());
+        assertEquals(1, report.entriesAdded());
+        assertEquals(5, report.problems().size());
+        assertTrue(report.problems().get(0).startsWith("Line 2:"));
+        assertTrue(report.problems().stream().anyMatch(problem -> problem.startsWith("Line 4:")));
+        assertFalse(entries.hasDiaryEntry(authors.getAuthor("Nero").orElseThrow(), "Long"));
+        assertEquals(1, entries.getNumberOfEntries(authors.getAuthor("Nero").orElseThrow()));
+    }
+
+    /**
+     * Tests that CSV rows with more values than the header, or a quote that is never closed, are skipped.
+     */
+    @Test
+    void testBadCsvRowsAreSkipped() throws IOException {
+        ImportReport report = importText("""
+                nickname,entry,text
+                Nero,Good,Fine
+                Nero,Wide,Too,many
+                Nero,Open,"never closed
+                """, ImportFormat.CSV);
+
+        assertEquals(3, report.rows());
+        assertEquals(2, report.rowsRejected());
+        assertEquals(1, report.pagesAdded());
+        assertTrue(report.problems().get(0).startsWith("Line 3:"));
+        assertTrue(report.problems().get(1).startsWith("Line 4:"));
+    }
+}
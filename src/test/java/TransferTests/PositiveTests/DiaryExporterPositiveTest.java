@@ -0,0 +1,197 @@
+package TransferTests.PositiveTests;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.persistence.CompressedPageStore;
+import edu.ntnu.iir.bidata.persistence.MappedPageStore;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import edu.ntnu.iir.bidata.transfer.DiaryExporter;
+import edu.ntnu.iir.bidata.transfer.ExportFormat;
+import edu.ntnu.iir.bidata.transfer.ExportReport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Positive tests for the DiaryExporter class.
+ *
+ * <ul>
+ *   <li>Formats
+ *     <ul>
+ *       <li>testExportMarkdownFile: Tests that entries are written to one Markdown file</li>
+ *       <li>testExportPlainTextPerEntry: Tests that each entry is written to a plain text file of its own</li>
+ *     </ul>
+ *   </li>
+ *
+ *   <li>Page stores
+ *     <ul>
+ *       <li>testExportFromMappedStore: Tests that text in a mapped page store is exported unchanged</li>
+ *       <li>testExportFromCompressedStore: Tests that compressed text is exported unchanged</li>
+ *       <li>testExportDateRange: Tests that the entries created in a date range can be exported</li>
+ *     </ul>
+ *   </li>
+ * </ul>
+ */
+class DiaryExporterPositiveTest {
+
+    private final String TEXT_1 = "I went out today and had to hang out with someone I don't really like...";
+    private final String TEXT_2 = "Blåbærsyltetøy på søndag, and then to the university.";
+
+    private Path directory;
+    private Author author;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("export");
+        author = new Author("Ola", "Nordmann");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private DiaryEntry entry(String title, LocalDateTime created, String... texts) {
+        DiaryEntry entry = new DiaryEntry(author, 100, title, created);
+        for (int page = 0; page < texts.length; page++) entry.addPage("Page " + (page + 1), texts[page]);
+        entry.setTimeChanged(created.plusHours(1));
+        return entry;
+    }
+
+    private static String read(Path file) throws IOException {
+        return Files.readString(file, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Tests that entries are written to one Markdown file, in order, separated by a rule.
+     */
+    @Test
+    void testExportMarkdownFile() throws IOException {
+        DiaryEntry summer = entry("Summer", LocalDateTime.of(2024, 7, 1, 9, 0), TEXT_1, TEXT_2);
+        DiaryEntry winter = entry("Winter", LocalDateTime.of(2024, 12, 24, 18, 30), "Snow");
+        Path file = directory.resolve("diary.md");
+
+        ExportReport report = new DiaryExporter(ExportFormat.MARKDOWN).exportToFile(List.of(summer, winter), file);
+
+        assertEquals("""
+                # Summer
+
+                *Ola Nordmann, created 2024-07-01 09:00, changed 2024-07-01 10:00*
+
+                ## Page 1
+
+                %s
+
+                ## Page 2
+
+                %s
+
+                ---
+
+                # Winter
+
+                *Ola Nordmann, created 2024-12-24 18:30, changed 2024-12-24 19:30*
+
+                ## Page 1
+
+                Snow
+                """.formatted(TEXT_1, TEXT_2), read(file));
+        assertEquals(2, report.entries());
+        assertEquals(3, report.pages());
+        assertEquals(1, report.files());
+        assertEquals(Files.size(file), report.bytes());
+    }
+
+    /**
+     * Tests that each entry is written to a plain text file of its own, named by its place, author and title.
+     */
+    @Test
+    void testExportPlainTextPerEntry() throws IOException {
+        DiaryEntry summer = entry("Summer/Sommer", LocalDateTime.of(2024, 7, 1, 9, 0), TEXT_1);
+        DiaryEntry winter = entry("Winter", LocalDateTime.of(2024, 12, 24, 18, 30), TEXT_2);
+        Path target = directory.resolve("entries");
+
+        ExportReport report = new DiaryExporter(ExportFormat.PLAIN_TEXT).exportToDirectory(List.of(summer, winter), target);
+
+        assertEquals(2, report.files());
+        assertEquals("""
+                Summer/Sommer
+                =============
+                Ola Nordmann, created 2024-07-01 09:00, changed 2024-07-01 10:00
+
+                Page 1
+
+                %s
+                """.formatted(TEXT_1), read(target.resolve("0001 Ola Nordmann - Summer_Sommer.txt")));
+        assertTrue(read(target.resolve("0002 Ola Nordmann - Winter.txt")).endsWith(TEXT_2 + "\n"));
+    }
+
+    /**
+     * Tests that text in a mapped page store is exported unchanged, straight from the store file.
+     */
+    @Test
+    void testExportFromMappedStore() throws IOException {
+        try (MappedPageStore store = MappedPageStore.open(directory.resolve(MappedPageStore.FILE_NAME), 64)) {
+            DiaryEntryRegister entries = new DiaryEntryRegister(store);
+            DiaryEntry summer = entry("Summer", LocalDateTime.of(2024, 7, 1, 9, 0), TEXT_1, TEXT_2, TEXT_1);
+            entries.addDiaryEntry(summer);
+            assertTrue(summer.getPages().get(1).isTextStored());
+            Path file = directory.resolve("diary.txt");
+
+            new DiaryExporter(ExportFormat.PLAIN_TEXT).exportToFile(entries.getAllDiaryEntries(), file);
+
+            String exported = read(file);
+            assertTrue(exported.contains("Page 1\n\n" + TEXT_1 + "\n\nPage 2\n\n" + TEXT_2 + "\n\nPage 3\n\n" + TEXT_1 + "\n"));
+        }
+    }
+
+    /**
+     * Tests that compressed text is exported unchanged.
+     */
+    @Test
+    void testExportFromCompressedStore() throws IOException {
+        CompressedPageStore store = new CompressedPageStore(CompressedPageStore.trainDictionary(List.of(TEXT_1), 256));
+        DiaryEntry summer = entry("Summer", LocalDateTime.of(2024, 7, 1, 9, 0), "Exported compressed: " + TEXT_2);
+        summer.storePagesIn(store);
+        Path file = directory.resolve("diary.md");
+
+        new DiaryExporter(ExportFormat.MARKDOWN).exportToFile(List.of(summer), file);
+
+        assertTrue(read(file).endsWith("## Page 1\n\nExported compressed: " + TEXT_2 + "\n"));
+        assertEquals(0, store.getReads());
+    }
+
+    /**
+     * Tests that the entries created in a date range can be exported, oldest first.
+     */
+    @Test
+    void testExportDateRange() throws IOException {
+        DiaryEntryRegister entries = new DiaryEntryRegister();
+        entries.addDiaryEntry(entry("Spring", LocalDateTime.of(2024, 4, 1, 9, 0), TEXT_1));
+        entries.addDiaryEntry(entry("Winter", LocalDateTime.of(2024, 12, 24, 18, 30), TEXT_1));
+        entries.addDiaryEntry(entry("Summer", LocalDateTime.of(2024, 7, 1, 9, 0), TEXT_2));
+
+        List<DiaryEntry> range = entries.getEntriesCreatedBetween(LocalDate.of(2024, 4, 1), LocalDate.of(2024, 7, 1));
+        ExportReport report = new DiaryExporter(ExportFormat.MARKDOWN).exportToDirectory(range, directory.resolve("range"));
+
+        assertEquals(2, report.entries());
+        assertTrue(Files.exists(directory.resolve("range").resolve("0001 Ola Nordmann - Spring.md")));
+        assertTrue(Files.exists(directory.resolve("range").resolve("0002 Ola Nordmann - Summer.md")));
+    }
+}
@@ -0,0 +1,214 @@
+package TransferTests.PositiveTests;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.registers.AuthorRegister;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import edu.ntnu.iir.bidata.transfer.DiaryImporter;
+import edu.ntnu.iir.bidata.transfer.ImportFormat;
+import edu.ntnu.iir.bidata.transfer.ImportProgress;
+import edu.ntnu.iir.bidata.transfer.ImportReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Positive tests for the DiaryImporter class.
+ *
+ * <ul>
+ *   <li>Formats
+ *     <ul>
+ *       <li>testImportJsonl: Tests that authors, entries and pages are imported from JSONL</li>
+ *       <li>testImportCsvWithQuotedText: Tests that quoted CSV values with commas, quotes and line breaks are read</li>
+ *     </ul>
+ *   </li>
+ *
+ *   <li>Import
+ *     <ul>
+ *       <li>testRowsForExistingEntry: Tests that rows for an entry already in the register add pages to it</li>
+ *       <li>testSmallChunksAndBatches: Tests that many chunks and batches keep every page, in order</li>
+ *       <li>testTimesFromArchive: Tests that creation and change times are taken from the rows</li>
+ *       <li>testProgressReported: Tests that progress is reported, ending with every row</li>
+ *     </ul>
+ *   </li>
+ * </ul>
+ */
+class DiaryImporterPositiveTest {
+
+    private final String TEXT_1 = "I went out today and had to hang out with someone I don't really like...";
+    private final String TEXT_2 = "Today I actually went to university. It's boring, I'd rather hang out in the city.";
+
+    private AuthorRegister authors;
+    private DiaryEntryRegister entries;
+    private DiaryImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        authors = new AuthorRegister();
+        entries = new DiaryEntryRegister();
+        importer = new DiaryImporter(authors, entries);
+    }
+
+    private ImportReport importText(String text, ImportFormat format) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return importer.importFrom(new ByteArrayInputStream(bytes), format, bytes.length);
+    }
+
+    private DiaryEntry entry(String author, String title) {
+        return entries.findDiaryEntryFromAuthorByTitle(authors.getAuthor(author).orElseThrow(), title).orElseThrow();
+    }
+
+    private static List<String> texts(DiaryEntry entry) {
+        List<String> texts = new ArrayList<>();
+        entry.getPageTexts().forEachRemaining(texts::add);
+        return texts;
+    }
+
+    /**
+     * Tests that authors, entries and pages are imported from JSONL, including an author without entries.
+     */
+    @Test
+    void testImportJsonl() throws IOException {
+        ImportReport report = importText("""
+                {"firstName": "Ola", "lastName": "Nordmann", "entry": "Summer", "page": "First", "text": "%s"}
+                {"firstName": "Ola", "lastName": "Nordmann", "entry": "Summer", "page": "Second", "text": "%s"}
+
+                {"nickname": "Nero", "entry": "Winter", "maxWords": 50, "text": "Sn\\u00f8 og \\"mer\\" sn\\u00f8"}
+                {"firstName": "Kari", "lastName": null}
+                """.formatted(TEXT_1, TEXT_2), ImportFormat.JSONL);
+
+        assertEquals(4, report.rows());
+        assertEquals(3, report.authorsAdded());
+        assertEquals(2, report.entriesAdded());
+        assertEquals(3, report.pagesAdded());
+        assertEquals(0, report.rowsRejected());
+        assertTrue(authors.hasAuthor("Kari"));
+
+        DiaryEntry summer = entry("Ola Nordmann", "Summer");
+        assertEquals(List.of(TEXT_1, TEXT_2), texts(summer));
+        assertEquals("Second", summer.getPageTitle(2));
+        DiaryEntry winter = entry("Nero", "Winter");
+        assertEquals(50, winter.getMaxWordsPerPage());
+        assertEquals("Page 1", winter.getPageTitle(1));
+        assertEquals("Snø og \"mer\" snø", winter.getPageText(1));
+        assertEquals(2, authors.getAuthor("Nero").orElseThrow().getWordCount("snø"));
+        assertEquals(List.of(summer), entries.searchForWord("university", 10));
+    }
+
+    /**
+     * Tests that quoted CSV values with commas, doubled quotes and line breaks are read, and columns found by name.
+     */
+    @Test
+    void testImportCsvWithQuotedText() throws IOException {
+        ImportReport report = importText("""
+                entry,text,firstName,lastName,page
+                Summer,"Sun, sand and ""sea""
+                and a second line",Ola,Nordmann,Beach
+                Summer,Back home,Ola,Nordmann,
+                """, ImportFormat.CSV);
+
+        assertEquals(2, report.rows());
+        assertEquals(0, report.rowsRejected());
+        DiaryEntry summer = entry("Ola Nordmann", "Summer");
+        assertEquals(List.of("Sun, sand and \"sea\"\nand a second line", "Back home"), texts(summer));
+        assertEquals("Beach", summer.getPageTitle(1));
+        assertEquals("Page 2", summer.getPageTitle(2));
+    }
+
+    /**
+     * Tests that rows for an entry already in the register add pages to it instead of a new entry.
+     */
+    @Test
+    void testRowsForExistingEntry() throws IOException {
+        authors.addAuthor("Ola", "Nordmann");
+        DiaryEntry existing = new DiaryEntry(authors.getAuthor("Ola Nordmann").orElseThrow(), 100, "Summer");
+        existing.addPage("First", TEXT_1);
+        entries.addDiaryEntry(existing);
+
+        ImportReport report = importText("""
+                {"firstName": "Ola", "lastName": "Nordmann", "entry": "summer", "text": "%s"}
+                """.formatted(TEXT_2), ImportFormat.JSONL);
+
+        assertEquals(0, report.authorsAdded());
+        assertEquals(0, report.entriesAdded());
+        assertEquals(1, report.pagesAdded());
+        assertEquals(List.of(TEXT_1, TEXT_2), texts(existing));
+        assertEquals(1, entries.getNumberOfEntries(existing.getAuthor()));
+    }
+
+    /**
+     * Tests that an import cut into many chunks and batches, parsed by several workers, keeps every page in order.
+     */
+    @Test
+    void testSmallChunksAndBatches() throws IOException {
+        importer.setParallelism(3);
+        importer.setChunkRows(3);
+        importer.setBatchEntries(2);
+        StringBuilder input = new StringBuilder();
+        for (int entry = 0; entry < 20; entry++) {
+            for (int page = 0; page < 4; page++) {
+                input.append("{\"nickname\": \"Nero\", \"entry\": \"Entry ").append(entry)
+                        .append("\", \"text\": \"Page ").append(page).append(" of entry ").append(entry).append("\"}\n");
+            }
+        }
+
+        ImportReport report = importText(input.toString(), ImportFormat.JSONL);
+
+        assertEquals(80, report.rows());
+        assertEquals(20, report.entriesAdded());
+        assertEquals(80, report.pagesAdded());
+        for (int entry = 0; entry < 20; entry++) {
+            assertEquals(List.of("Page 0 of entry " + entry, "Page 1 of entry " + entry,
+                    "Page 2 of entry " + entry, "Page 3 of entry " + entry), texts(entry("Nero", "Entry " + entry)));
+        }
+        Author nero = authors.getAuthor("Nero").orElseThrow();
+        assertEquals(80, nero.getWordCount("entry"));
+        assertEquals(24, nero.getWordCount("0"));
+    }
+
+    /**
+     * Tests that creation and change times are taken from the rows, so imported entries keep their history.
+     */
+    @Test
+    void testTimesFromArchive() throws IOException {
+        importText("""
+                {"nickname": "Nero", "entry": "Old", "created": "2019-03-01T08:30", "text": "%s"}
+                {"nickname": "Nero", "entry": "Old", "changed": "2019-03-02", "text": "%s"}
+                """.formatted(TEXT_1, TEXT_2), ImportFormat.JSONL);
+
+        DiaryEntry old = entry("Nero", "Old");
+        assertEquals(LocalDateTime.of(2019, 3, 1, 8, 30), old.getTimeCreated());
+        assertEquals(LocalDateTime.of(2019, 3, 2, 0, 0), old.getTimeChanged());
+        assertEquals(List.of(old), entries.getMostRecentlyChangedEntries(1));
+    }
+
+    /**
+     * Tests that progress is reported while importing, and that the last report covers every row.
+     */
+    @Test
+    void testProgressReported() throws IOException {
+        List<ImportProgress> reports = new ArrayList<>();
+        importer.setProgressListener(reports::add, Duration.ZERO);
+        importer.setChunkRows(1);
+
+        importText("""
+                {"nickname": "Nero", "entry": "One", "text": "%s"}
+                {"nickname": "Nero", "entry": "Two", "text": "%s"}
+                """.formatted(TEXT_1, TEXT_2), ImportFormat.JSONL);
+
+        assertTrue(reports.size() >= 2);
+        ImportProgress last = reports.get(reports.size() - 1);
+        assertEquals(2, last.rows());
+        assertEquals(1.0, last.fractionRead());
+        assertTrue(last.rowsPerSecond() > 0);
+    }
+}
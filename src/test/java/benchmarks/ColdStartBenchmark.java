@@ -0,0 +1,105 @@
+package benchmarks;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.persistence.DiaryJournal;
+import edu.ntnu.iir.bidata.persistence.DiarySnapshot;
+import edu.ntnu.iir.bidata.registers.AuthorRegister;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Compares restoring the registers by replaying the journal with restoring them from a snapshot.
+ * <p>
+ * A corpus of entries is written through the journal, with every page edited a few times, and then
+ * restored twice: once by replaying every journal record, and once after a checkpoint, from the snapshot.
+ * Each restore runs several times and the fastest run is reported, so file cache effects are the same for both.
+ * Run with: {@code java -cp <test classes>:<classes> benchmarks.ColdStartBenchmark [entries] [pages per entry]}
+ */
+public class ColdStartBenchmark {
+
+    private static final int EDITS_PER_PAGE = 3;
+    private static final int WORDS_PER_PAGE = 200;
+    private static final int RUNS = 5;
+    private static final String[] WORDS = ("today went university friend city summer winter snow rain walk "
+            + "dinner morning evening book read write think long short happy tired school work home").split(" ");
+
+    public static void main(String[] args) throws Exception {
+        int entryCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int pagesPerEntry = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        Path directory = Files.createTempDirectory("cold-start-benchmark");
+        try {
+            write(directory, entryCount, pagesPerEntry);
+            long journalBytes = Files.size(directory.resolve(DiaryJournal.FILE_NAME));
+            long replayNanos = fastestOpen(directory);
+
+            checkpoint(directory);
+            long snapshotBytes = Files.size(directory.resolve(DiarySnapshot.FILE_NAME));
+            long snapshotNanos = fastestOpen(directory);
+
+            System.out.printf("%-16s %12s %10s%n", "restore from", "bytes", "ms");
+            System.out.printf("%-16s %12d %10.1f%n", "journal replay", journalBytes, replayNanos / 1e6);
+            System.out.printf("%-16s %12d %10.1f%n", "snapshot", snapshotBytes, snapshotNanos / 1e6);
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static void write(Path directory, int entryCount, int pagesPerEntry) throws IOException {
+        Random random = new Random(42);
+        AuthorRegister authors = new AuthorRegister();
+        DiaryEntryRegister entries = new DiaryEntryRegister();
+        DiaryJournal journal = DiaryJournal.open(directory, authors, entries, Duration.ZERO, 4096);
+        try {
+            for (int author = 0; author < 20; author++) authors.addAuthor("Author" + author);
+            for (int index = 0; index < entryCount; index++) {
+                Author author = authors.getAuthor("Author" + (index % 20)).orElseThrow();
+                DiaryEntry entry = new DiaryEntry(author, WORDS_PER_PAGE, "Entry " + index);
+                for (int page = 0; page < pagesPerEntry; page++) entry.addPage("Page " + page, text(random));
+                entries.addDiaryEntry(entry);
+                for (int edit = 0; edit < EDITS_PER_PAGE; edit++) {
+                    entry.setPageText(1 + random.nextInt(pagesPerEntry), text(random));
+                }
+            }
+        } finally {
+            journal.close();
+        }
+    }
+
+    private static void checkpoint(Path directory) throws IOException {
+        try (DiaryJournal journal = DiaryJournal.open(directory, new AuthorRegister(), new DiaryEntryRegister())) {
+            journal.checkpoint();
+        }
+    }
+
+    private static long fastestOpen(Path directory) throws IOException {
+        long fastest = Long.MAX_VALUE;
+        for (int run = 0; run < RUNS; run++) {
+            long start = System.nanoTime();
+            DiaryJournal journal = DiaryJournal.open(directory, new AuthorRegister(), new DiaryEntryRegister());
+            fastest = Math.min(fastest, System.nanoTime() - start);
+            journal.close();
+        }
+        return fastest;
+    }
+
+    private static String text(Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int word = 0; word < WORDS_PER_PAGE - 10; word++) {
+            if (word > 0) text.append(' ');
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+            if (random.nextInt(12) == 0) text.append(random.nextInt(1000));
+        }
+        return text.toString();
+    }
+}
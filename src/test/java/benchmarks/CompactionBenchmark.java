@@ -0,0 +1,84 @@
+package benchmarks;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.persistence.CompactionMetrics;
+import edu.ntnu.iir.bidata.persistence.CompactionTrigger;
+import edu.ntnu.iir.bidata.persistence.DiaryJournal;
+import edu.ntnu.iir.bidata.registers.AuthorRegister;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Measures how long a compaction pauses the thread that changes the registers, compared with the time it spends
+ * on the compactor thread, and how many edits that thread gets through while a snapshot is being written.
+ * <p>
+ * A corpus of entries is written through the journal, and a compaction is then started while pages keep being
+ * edited until it finishes.
+ * Run with: {@code java -cp <test classes>:<classes> benchmarks.CompactionBenchmark [entries] [pages per entry]}
+ */
+public class CompactionBenchmark {
+
+    private static final int WORDS_PER_PAGE = 200;
+    private static final String[] WORDS = ("today went university friend city summer winter snow rain walk "
+            + "dinner morning evening book read write think long short happy tired school work home").split(" ");
+
+    public static void main(String[] args) throws Exception {
+        int entryCount = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int pagesPerEntry = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        Path directory = Files.createTempDirectory("compaction-benchmark");
+        try {
+            Random random = new Random(42);
+            AuthorRegister authors = new AuthorRegister();
+            DiaryEntryRegister entries = new DiaryEntryRegister();
+            try (DiaryJournal journal = DiaryJournal.open(directory, authors, entries)) {
+                journal.setCompactionTrigger(CompactionTrigger.NEVER);
+                authors.addAuthor("Benchmark", "Author");
+                Author author = authors.getAuthor("Benchmark Author").orElseThrow();
+                for (int index = 0; index < entryCount; index++) {
+                    DiaryEntry entry = new DiaryEntry(author, WORDS_PER_PAGE, "Entry " + index);
+                    for (int page = 0; page < pagesPerEntry; page++) entry.addPage("Page " + page, text(random));
+                    entries.addDiaryEntry(entry);
+                }
+                journal.flush().join();
+                long journalBytes = Files.size(directory.resolve(DiaryJournal.FILE_NAME));
+
+                long edits = 0;
+                var compaction = journal.compact();
+                while (!compaction.isDone()) {
+                    DiaryEntry entry = entries.getAllDiaryEntries().get(random.nextInt(entryCount));
+                    entry.setPageText(1 + random.nextInt(pagesPerEntry), text(random));
+                    edits++;
+                }
+                compaction.join();
+
+                CompactionMetrics metrics = journal.getCompactionMetrics();
+                System.out.printf("journal bytes        %12d%n", journalBytes);
+                System.out.printf("snapshot bytes       %12d%n", metrics.lastSnapshotBytes());
+                System.out.printf("bytes reclaimed      %12d%n", metrics.bytesReclaimed());
+                System.out.printf("pause (ms)           %12.2f%n", metrics.lastPause().toNanos() / 1e6);
+                System.out.printf("compactor (ms)       %12.2f%n", metrics.lastWriteTime().toNanos() / 1e6);
+                System.out.printf("edits meanwhile      %12d%n", edits);
+            }
+        } finally {
+            try (Stream<Path> files = Files.walk(directory)) {
+                for (Path file : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private static String text(Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int word = 0; word < WORDS_PER_PAGE - 10; word++) {
+            if (word > 0) text.append(' ');
+            text.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,72 @@
+package benchmarks;
+
+import edu.ntnu.iir.bidata.index.IndexingPipeline;
+import edu.ntnu.iir.bidata.index.IndexingPipeline.Consistency;
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Measures how long replacing the text of a page takes for pages of different lengths, with word counts and
+ * the word index updated during the edit and with them updated by the indexer thread.
+ * <p>
+ * With eventual consistency the edit only captures the new text, so its latency should hardly grow with the
+ * length of the page, while the indexer catches up afterwards. Run with:
+ * {@code java -cp <test classes>:<classes> benchmarks.EditLatencyBenchmark [edits]}
+ */
+public class EditLatencyBenchmark {
+
+    private static final int[] PAGE_WORDS = {100, 1_000, 10_000};
+
+    public static void main(String[] args) throws Exception {
+        int edits = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+
+        System.out.printf("%d processors, %d edits per page length%n", Runtime.getRuntime().availableProcessors(), edits);
+        System.out.printf("%-10s %10s %14s %14s %14s%n", "mode", "words", "median us", "p99 us", "catch-up ms");
+        for (int round = 0; round < 2; round++) {
+            for (int words : PAGE_WORDS) {
+                for (Consistency consistency : Consistency.values()) measure(consistency, words, edits);
+            }
+        }
+    }
+
+    /**
+     * Replaces the text of one page again and again, then waits for the indexer and prints the results.
+     */
+    private static void measure(Consistency consistency, int words, int edits) {
+        String[] texts = {text(words, 1), text(words, 2)};
+        try (IndexingPipeline pipeline = new IndexingPipeline(consistency, IndexingPipeline.DEFAULT_CAPACITY)) {
+            DiaryEntryRegister register = new DiaryEntryRegister(null, pipeline);
+            DiaryEntry entry = new DiaryEntry(new Author("Nero"), words, "Long page");
+            entry.addPage("Page", texts[0]);
+            register.addDiaryEntry(entry);
+
+            long[] nanos = new long[edits];
+            for (int edit = 0; edit < edits; edit++) {
+                long start = System.nanoTime();
+                entry.setPageText(1, texts[(edit + 1) % 2]);
+                nanos[edit] = System.nanoTime() - start;
+            }
+            long start = System.nanoTime();
+            register.awaitIndexing();
+            double catchUp = (System.nanoTime() - start) / 1e6;
+
+            Arrays.sort(nanos);
+            System.out.printf("%-10s %10d %14.1f %14.1f %14.1f%n", consistency, words,
+                    nanos[edits / 2] / 1e3, nanos[edits * 99 / 100] / 1e3, catchUp);
+        }
+    }
+
+    private static String text(int words, long seed) {
+        Random random = new Random(seed);
+        StringBuilder text = new StringBuilder();
+        for (int word = 0; word < words; word++) {
+            if (word > 0) text.append(' ');
+            text.append("word").append(random.nextInt(2_000));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,89 @@
+package benchmarks;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Measures how many page reads per second 1, 4 and 16 viewers get from one popular entry, with and without
+ * a writer editing a page of the entry once every millisecond.
+ * <p>
+ * Each viewer reads the number of pages, a page title and a page text in a loop, the way the pager does.
+ * Throughput can only scale up to the number of available processors.
+ * Run with:
+ * {@code java -cp <test classes>:<classes> benchmarks.EntryReadBenchmark [milliseconds per run]}
+ */
+public class EntryReadBenchmark {
+
+    private static final int[] READER_COUNTS = {1, 4, 16};
+    private static final int PAGES = 20;
+
+    public static void main(String[] args) throws Exception {
+        long millis = args.length > 0 ? Long.parseLong(args[0]) : 1_000;
+
+        DiaryEntry entry = new DiaryEntry(new Author("Benchmark"), 500, "Popular");
+        for (int page = 1; page <= PAGES; page++) entry.addPage("Page " + page, "Text of page number " + page);
+
+        System.out.printf("%d processors%n", Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-8s %18s %18s %10s%n", "readers", "reads/s", "reads/s editing", "edits");
+        for (int round = 0; round < 2; round++) {
+            for (int readers : READER_COUNTS) {
+                double quiet = run(entry, readers, millis, false)[0];
+                double[] editing = run(entry, readers, millis, true);
+                System.out.printf("%-8d %18.0f %18.0f %10.0f%n", readers, quiet, editing[0], editing[1]);
+            }
+        }
+    }
+
+    /**
+     * @return Reads per second and number of edits made.
+     */
+    private static double[] run(DiaryEntry entry, int readers, long millis, boolean editing) throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executor = Executors.newFixedThreadPool(readers + 1);
+        try {
+            List<Callable<Long>> tasks = new ArrayList<>();
+            for (int reader = 0; reader < readers; reader++) {
+                tasks.add(() -> {
+                    long reads = 0;
+                    int page = 1;
+                    while (running.get()) {
+                        if (entry.getNmbPages() < PAGES) throw new IllegalStateException("Pages missing");
+                        if (entry.getPageTitle(page).isEmpty() || entry.getPageText(page).isEmpty())
+                            throw new IllegalStateException("Empty page");
+                        page = page % PAGES + 1;
+                        reads++;
+                    }
+                    return reads;
+                });
+            }
+            Future<Long> edits = executor.submit(() -> {
+                long count = 0;
+                while (editing && running.get()) {
+                    entry.setPageText(1 + (int) (count % PAGES), "Edited text number " + count);
+                    count++;
+                    Thread.sleep(1);
+                }
+                return count;
+            });
+            List<Future<Long>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (Callable<Long> task : tasks) futures.add(executor.submit(task));
+            Thread.sleep(millis);
+            running.set(false);
+            long reads = 0;
+            for (Future<Long> future : futures) reads += future.get();
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return new double[]{reads / seconds, edits.get()};
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package benchmarks;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.persistence.MappedPageStore;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import edu.ntnu.iir.bidata.transfer.DiaryExporter;
+import edu.ntnu.iir.bidata.transfer.ExportFormat;
+import edu.ntnu.iir.bidata.transfer.ExportReport;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Compares exporting a register kept in a {@link MappedPageStore} with the {@link DiaryExporter}, which hands
+ * the stored bytes to the file channel, against building the whole export as one string and writing it.
+ * <p>
+ * Reports the time taken and the bytes allocated on the exporting thread.
+ * Run with:
+ * {@code java -cp <test classes>:<classes> benchmarks.ExportBenchmark [entries] [pages per entry]}
+ */
+public class ExportBenchmark {
+
+    private static final int WORDS_PER_PAGE = 200;
+    private static final int VOCABULARY = 5_000;
+
+    public static void main(String[] args) throws Exception {
+        int entryCount = args.length > 0 ? Integer.parseInt(args[0]) : 2_000;
+        int pagesPerEntry = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        Path directory = Files.createTempDirectory("export-benchmark");
+        Path storeFile = directory.resolve(MappedPageStore.FILE_NAME);
+        Path exportFile = directory.resolve("export.md");
+        try (MappedPageStore store = MappedPageStore.open(storeFile)) {
+            DiaryEntryRegister entries = new DiaryEntryRegister(store);
+            Random random = new Random(42);
+            Author author = new Author("Benchmark");
+            for (int index = 0; index < entryCount; index++) {
+                DiaryEntry entry = new DiaryEntry(author, WORDS_PER_PAGE, "Entry " + index);
+                for (int page = 0; page < pagesPerEntry; page++) entry.addPage("Page " + page, text(random));
+                entries.addDiaryEntry(entry);
+            }
+            DiaryExporter exporter = new DiaryExporter(ExportFormat.MARKDOWN);
+
+            System.out.printf("%-10s %12s %14s %16s%n", "export", "file (MB)", "time (ms)", "allocated (MB)");
+            for (int round = 0; round < 3; round++) {
+                long allocated = allocatedBytes();
+                long start = System.nanoTime();
+                ExportReport report = exporter.exportToFile(entries.getAllDiaryEntries(), exportFile);
+                print("streamed", report.bytes(), System.nanoTime() - start, allocatedBytes() - allocated);
+
+                allocated = allocatedBytes();
+                start = System.nanoTime();
+                StringBuilder text = new StringBuilder();
+                for (DiaryEntry entry : entries.getAllDiaryEntries()) {
+                    text.append("# ").append(entry.getEntryTitle()).append("\n\n");
+                    for (int page = 1; page <= entry.getNmbPages(); page++) {
+                        text.append("## Page ").append(page).append("\n\n").append(entry.getPageText(page)).append('\n');
+                    }
+                }
+                Files.writeString(exportFile, text.toString(), StandardCharsets.UTF_8);
+                print("string", Files.size(exportFile), System.nanoTime() - start, allocatedBytes() - allocated);
+            }
+        } finally {
+            Files.deleteIfExists(exportFile);
+            Files.deleteIfExists(storeFile);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    private static void print(String name, long bytes, long nanos, long allocated) {
+        System.out.printf("%-10s %12.1f %14.1f %16.1f%n", name, bytes / 1e6, nanos / 1e6, allocated / 1e6);
+    }
+
+    private static long allocatedBytes() {
+        return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean()).getCurrentThreadAllocatedBytes();
+    }
+
+    private static String text(Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int word = 0; word < WORDS_PER_PAGE - 10; word++) {
+            if (word > 0) text.append(' ');
+            text.append("word").append(random.nextInt(VOCABULARY));
+        }
+        return text.toString();
+    }
+}
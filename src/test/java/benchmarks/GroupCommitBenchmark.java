@@ -0,0 +1,120 @@
+package benchmarks;
+
+import edu.ntnu.iir.bidata.persistence.GroupCommitWriter;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Measures throughput and commit latency of the journal writer for several commit windows.
+ * <p>
+ * In the waiting runs, every thread submits records of a typical page edit size and waits for each one
+ * to be durable before submitting the next, the way an interactive user waits for an edit to be saved.
+ * In the pipelined run, one thread submits every record without waiting, the way the journal is fed
+ * by a burst of edits, and latency is measured from submit until the future completes.
+ * The first row of each group forces the file once per record without the group commit writer, as a baseline.
+ * Run with: {@code java -cp <test classes>:<classes> benchmarks.GroupCommitBenchmark [records per thread]}
+ */
+public class GroupCommitBenchmark {
+
+    private static final int RECORD_BYTES = 160;
+    private static final long[] WINDOWS_MICROS = {0, 500, 2_000, 5_000};
+    private static final int[] MAX_RECORDS = {1, 64};
+    private static final int[] THREADS = {1, 8};
+
+    public static void main(String[] args) throws Exception {
+        int recordsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+
+        System.out.printf("%-22s %-11s %8s %12s %9s %10s %10s%n",
+                "configuration", "callers", "records", "records/s", "forces", "p50 (us)", "p99 (us)");
+        for (int threads : THREADS) {
+            reportAll(threads, recordsPerThread, true);
+        }
+        reportAll(1, recordsPerThread * 8, false);
+    }
+
+    private static void reportAll(int threads, int recordsPerThread, boolean waitEach) throws Exception {
+        report("force per record", threads, recordsPerThread, 0, 0, waitEach);
+        for (long window : WINDOWS_MICROS) {
+            for (int maxRecords : MAX_RECORDS) {
+                report("window " + window + "us max " + maxRecords, threads, recordsPerThread, window, maxRecords, waitEach);
+            }
+        }
+    }
+
+    private static void report(String name, int threads, int recordsPerThread, long windowMicros, int maxRecords,
+                               boolean waitEach) throws Exception {
+        Path file = Files.createTempFile("group-commit-benchmark", ".log");
+        try (FileChannel channel = FileChannel.open(file, WRITE)) {
+            long[] latencies = new long[threads * recordsPerThread];
+            long[] forces = new long[1];
+            long start = System.nanoTime();
+            if (maxRecords == 0) {
+                run(threads, recordsPerThread, latencies, (record, lsn, done) -> {
+                    synchronized (channel) {
+                        while (record.hasRemaining()) channel.write(record);
+                        channel.force(false);
+                        forces[0]++;
+                    }
+                    done.run();
+                });
+            } else {
+                try (GroupCommitWriter writer = new GroupCommitWriter(channel, windowMicros, TimeUnit.MICROSECONDS, maxRecords)) {
+                    run(threads, recordsPerThread, latencies, (record, lsn, done) -> {
+                        var future = writer.submit(record, lsn).thenRun(done);
+                        if (waitEach) future.join();
+                    });
+                    writer.flush().join();
+                    forces[0] = writer.getCommittedBatches();
+                }
+            }
+            long elapsed = System.nanoTime() - start;
+
+            Arrays.sort(latencies);
+            System.out.printf("%-22s %-11s %8d %12.0f %9d %10.0f %10.0f%n",
+                    name, waitEach ? threads + " waiting" : "pipelined", latencies.length,
+                    latencies.length / (elapsed / 1e9),
+                    forces[0],
+                    latencies[latencies.length / 2] / 1e3,
+                    latencies[(int) (latencies.length * 0.99)] / 1e3);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Commit {
+        void commit(ByteBuffer record, long lsn, Runnable done) throws IOException;
+    }
+
+    private static void run(int threads, int recordsPerThread, long[] latencies, Commit commit) throws InterruptedException {
+        List<Thread> workers = new ArrayList<>();
+        for (int thread = 0; thread < threads; thread++) {
+            int offset = thread * recordsPerThread;
+            workers.add(new Thread(() -> {
+                ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+                for (int index = 0; index < recordsPerThread; index++) {
+                    record.clear();
+                    long begin = System.nanoTime();
+                    int slot = offset + index;
+                    try {
+                        commit.commit(record, slot, () -> latencies[slot] = System.nanoTime() - begin);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            }));
+        }
+        workers.forEach(Thread::start);
+        for (Thread worker : workers) worker.join();
+    }
+}
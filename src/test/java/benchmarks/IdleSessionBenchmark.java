@@ -0,0 +1,76 @@
+package benchmarks;
+
+import edu.ntnu.iir.bidata.DiaryUi;
+import edu.ntnu.iir.bidata.server.TerminalServer;
+
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the heap used by idle terminal sessions.
+ * <p>
+ * Opens the diaries, serves them, connects the given number of clients and waits until each has been shown the
+ * main menu, then compares the heap in use after a garbage collection with the heap in use before connecting.
+ * The diaries are opened in {@code diary-data} under the working directory, so run it from a scratch directory:
+ * {@code java -cp <test classes>:<classes> benchmarks.IdleSessionBenchmark [sessions]}
+ * <p>
+ * Sessions run on virtual threads, so the numbers only mean something on JDK 21 or later. Adding
+ * {@code -Djdk.tracePinnedThreads=short} there reports any session that pins its carrier while it waits for input.
+ */
+public class IdleSessionBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+
+        DiaryUi ui = new DiaryUi();
+        ui.init();
+        List<Socket> clients = new ArrayList<>();
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        try (TerminalServer server = TerminalServer.start(address, reader -> ui.openSession(reader).start())) {
+            long before = usedHeap();
+            long start = System.nanoTime();
+            for (int index = 0; index < sessions; index++) {
+                Socket client = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+                client.setSoTimeout(10_000);
+                clients.add(client);
+            }
+            for (Socket client : clients) awaitPrompt(client.getInputStream());
+            double seconds = (System.nanoTime() - start) / 1e9;
+            long after = usedHeap();
+
+            System.out.printf("Java %s, %d processors%n", Runtime.version(), Runtime.getRuntime().availableProcessors());
+            System.out.printf("%d sessions connected in %.2f s, %d running%n", sessions, seconds, server.getSessionCount());
+            System.out.printf("heap: %.1f MB before, %.1f MB after, %.1f KB per session%n",
+                    before / 1e6, after / 1e6, (after - before) / 1e3 / sessions);
+            for (Socket client : clients) client.close();
+        } finally {
+            ui.close();
+        }
+    }
+
+    /**
+     * Reads until the prompt of the main menu has arrived.
+     */
+    private static void awaitPrompt(InputStream in) throws Exception {
+        int previous = 0;
+        int current;
+        while ((current = in.read()) >= 0) {
+            if (previous == '>' && current == ' ') return;
+            previous = current;
+        }
+        throw new IllegalStateException("Session ended before showing the menu");
+    }
+
+    private static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int round = 0; round < 3; round++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import edu.ntnu.iir.bidata.registers.AuthorRegister;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+import edu.ntnu.iir.bidata.transfer.DiaryImporter;
+import edu.ntnu.iir.bidata.transfer.ImportReport;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Measures the rows per second of a {@link DiaryImporter} reading a generated JSONL file,
+ * with one worker and with one worker per processor.
+ * <p>
+ * Each entry has a handful of pages of random words from a large vocabulary. Run with:
+ * {@code java -cp <test classes>:<classes> benchmarks.ImportBenchmark [entries] [pages per entry]}
+ */
+public class ImportBenchmark {
+
+    private static final int WORDS_PER_PAGE = 150;
+    private static final int VOCABULARY = 20_000;
+    private static final int AUTHORS = 100;
+
+    public static void main(String[] args) throws IOException {
+        int entryCount = args.length > 0 ? Integer.parseInt(args[0]) : 5_000;
+        int pagesPerEntry = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        Path file = Files.createTempFile("import-benchmark", ".jsonl");
+        try {
+            write(file, entryCount, pagesPerEntry);
+            System.out.printf("%d rows, %.1f MB%n", (long) entryCount * pagesPerEntry, Files.size(file) / 1e6);
+            System.out.printf("%-10s %12s %12s%n", "workers", "time (ms)", "rows/s");
+            int processors = Runtime.getRuntime().availableProcessors();
+            for (int parallelism : new int[]{1, processors, 1, processors}) report(file, parallelism);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void report(Path file, int parallelism) throws IOException {
+        DiaryImporter importer = new DiaryImporter(new AuthorRegister(), new DiaryEntryRegister());
+        importer.setParallelism(parallelism);
+        ImportReport report = importer.importFile(file);
+        if (report.rowsRejected() > 0) throw new IllegalStateException(report.problems().toString());
+        System.out.printf("%-10d %12d %12.0f%n", parallelism, report.elapsed().toMillis(), report.rowsPerSecond());
+    }
+
+    private static void write(Path file, int entryCount, int pagesPerEntry) throws IOException {
+        Random random = new Random(42);
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int entry = 0; entry < entryCount; entry++) {
+                int author = random.nextInt(AUTHORS);
+                for (int page = 0; page < pagesPerEntry; page++) {
+                    writer.write("{\"firstName\": \"Author\", \"lastName\": \"" + author + "\", \"entry\": \"Entry "
+                            + entry + "\", \"created\": \"2020-01-01T12:00\", \"text\": \"");
+                    for (int word = 0; word < WORDS_PER_PAGE; word++) {
+                        if (word > 0) writer.write(' ');
+                        writer.write("word" + random.nextInt(VOCABULARY));
+                    }
+                    writer.write("\"}\n");
+                }
+            }
+        }
+    }
+}
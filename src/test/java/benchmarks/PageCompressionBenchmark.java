@@ -0,0 +1,90 @@
+package benchmarks;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.persistence.CompressedPageStore;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the memory saved by compressing idle pages, with and without a trained dictionary,
+ * and the time to read a compressed page with and without the cache.
+ * <p>
+ * Pages are made of common words drawn with a skewed distribution, so they repeat the way natural
+ * language does. Half the pages are used to train the dictionary; all pages are then compressed.
+ * Run with: {@code java -cp <test classes>:<classes> benchmarks.PageCompressionBenchmark [entries] [pages per entry]}
+ */
+public class PageCompressionBenchmark {
+
+    private static final int WORDS_PER_PAGE = 120;
+    private static final String[] WORDS = ("i the and to a went today was it of my in with we had that but "
+            + "so out at home school friend city university summer winter snow rain walk dinner morning evening "
+            + "book read write think long short happy tired work rather really like boring weekend family "
+            + "mother father brother sister dog cat coffee tea bus train late early again never always").split(" ");
+
+    public static void main(String[] args) {
+        int entryCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int pagesPerEntry = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+
+        Random random = new Random(42);
+        List<String> samples = new ArrayList<>();
+        for (int index = 0; index < entryCount * pagesPerEntry / 2; index++) samples.add(text(random));
+
+        System.out.printf("%-12s %12s %14s %10s %14s %14s%n",
+                "dictionary", "text (MB)", "compressed (MB)", "ratio", "miss (us)", "hit (us)");
+        report("none", new CompressedPageStore(new byte[0], 64), entryCount, pagesPerEntry);
+        byte[] dictionary = CompressedPageStore.trainDictionary(samples, CompressedPageStore.MAX_DICTIONARY_BYTES);
+        report("trained", new CompressedPageStore(dictionary, 64), entryCount, pagesPerEntry);
+    }
+
+    private static void report(String name, CompressedPageStore store, int entryCount, int pagesPerEntry) {
+        Random random = new Random(7);
+        DiaryEntryRegister entries = new DiaryEntryRegister();
+        Author author = new Author("Benchmark");
+        LocalDateTime idle = LocalDateTime.now().minusDays(30);
+        for (int index = 0; index < entryCount; index++) {
+            DiaryEntry entry = new DiaryEntry(author, WORDS_PER_PAGE, "Entry " + index);
+            for (int page = 0; page < pagesPerEntry; page++) entry.addPage("Page " + page, text(random));
+            entries.addDiaryEntry(entry);
+            entry.setTimeChanged(idle);
+        }
+        entries.storeIdlePages(store, Duration.ofDays(7));
+
+        List<DiaryEntry> all = entries.getAllDiaryEntries();
+        long characters = 0;
+        for (DiaryEntry entry : all) {
+            for (int page = 1; page <= entry.getNmbPages(); page++) characters += entry.getPageText(page).length();
+        }
+        long missNanos = store.getDecompressionNanos();
+        long misses = store.getReads() - store.getCacheHits();
+
+        long start = System.nanoTime();
+        int hits = 0;
+        for (int run = 0; run < 100_000; run++) {
+            characters += all.get(run % 8).getPageText(1).length();
+            hits++;
+        }
+        long hitNanos = System.nanoTime() - start;
+
+        System.out.printf("%-12s %12.2f %14.2f %10.2f %14.2f %14.3f%n", name,
+                store.getTextBytes() / 1e6, store.getCompressedBytes() / 1e6,
+                (double) store.getTextBytes() / store.getCompressedBytes(),
+                missNanos / 1e3 / misses, hitNanos / 1e3 / hits);
+        if (characters == 0) throw new IllegalStateException();
+    }
+
+    private static String text(Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int word = 0; word < WORDS_PER_PAGE - 10; word++) {
+            if (word > 0) text.append(' ');
+            int index = (int) Math.min(WORDS.length - 1, Math.abs(random.nextGaussian()) * WORDS.length / 3);
+            text.append(WORDS[index]);
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,93 @@
+package benchmarks;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.models.PageBodyPool;
+import edu.ntnu.iir.bidata.persistence.MappedPageStore;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Compares the heap used by a register that keeps page text on the heap with one that keeps it in a
+ * {@link MappedPageStore}, and the time to read every page back.
+ * <p>
+ * Heap use is measured after a full garbage collection, with the register still reachable, so it covers the
+ * entries, pages, word counts and word index. Pages use a large vocabulary so the index is not all there is.
+ * A share of the pages are copies of a few template texts; the bytes they share through the {@link PageBodyPool}
+ * are reported as deduplicated.
+ * Run with:
+ * {@code java -cp <test classes>:<classes> benchmarks.PageStoreBenchmark [entries] [pages per entry] [template %]}
+ */
+public class PageStoreBenchmark {
+
+    private static final int WORDS_PER_PAGE = 200;
+    private static final int VOCABULARY = 5_000;
+    private static final int TEMPLATES = 5;
+
+    public static void main(String[] args) throws Exception {
+        int entryCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000;
+        int pagesPerEntry = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int templatePercent = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+
+        System.out.printf("%-10s %12s %14s %14s %14s%n",
+                "page text", "heap (MB)", "stored (MB)", "dedup (MB)", "read all (ms)");
+        report("heap", entryCount, pagesPerEntry, templatePercent, null);
+        Path file = Files.createTempFile("page-store-benchmark", ".dat");
+        try (MappedPageStore store = MappedPageStore.open(file)) {
+            report("mapped", entryCount, pagesPerEntry, templatePercent, store);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    private static void report(String name, int entryCount, int pagesPerEntry, int templatePercent,
+                               MappedPageStore store) {
+        long before = usedHeap();
+        long deduplicatedBefore = PageBodyPool.shared().getStats().deduplicatedBytes();
+        DiaryEntryRegister entries = new DiaryEntryRegister(store);
+        Random random = new Random(42);
+        String[] templates = new String[TEMPLATES];
+        for (int template = 0; template < TEMPLATES; template++) templates[template] = "Template " + text(random);
+        Author author = new Author("Benchmark");
+        for (int index = 0; index < entryCount; index++) {
+            DiaryEntry entry = new DiaryEntry(author, WORDS_PER_PAGE, "Entry " + index);
+            for (int page = 0; page < pagesPerEntry; page++) {
+                String text = random.nextInt(100) < templatePercent
+                        ? templates[random.nextInt(TEMPLATES)] : text(random);
+                entry.addPage("Page " + page, text);
+            }
+            entries.addDiaryEntry(entry);
+        }
+        long heap = usedHeap() - before;
+        long deduplicated = PageBodyPool.shared().getStats().deduplicatedBytes() - deduplicatedBefore;
+
+        long start = System.nanoTime();
+        long characters = 0;
+        for (DiaryEntry entry : entries.getAllDiaryEntries()) {
+            for (int page = 1; page <= entry.getNmbPages(); page++) characters += entry.getPageText(page).length();
+        }
+        long readNanos = System.nanoTime() - start;
+
+        System.out.printf("%-10s %12.1f %14.1f %14.1f %14.1f%n", name, heap / 1e6,
+                store == null ? 0 : store.getStoredBytes() / 1e6, deduplicated / 1e6, readNanos / 1e6);
+        if (characters == 0 || entries.getAllDiaryEntries().isEmpty()) throw new IllegalStateException();
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int run = 0; run < 3; run++) System.gc();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static String text(Random random) {
+        StringBuilder text = new StringBuilder();
+        for (int word = 0; word < WORDS_PER_PAGE - 10; word++) {
+            if (word > 0) text.append(' ');
+            text.append("word").append(random.nextInt(VOCABULARY));
+        }
+        return text.toString();
+    }
+}
@@ -0,0 +1,95 @@
+package benchmarks;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.registers.AuthorRegister;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+/**
+ * Measures read and write throughput of registers shared by 1, 4 and 16 threads.
+ * <p>
+ * Reads look up authors by name and entries by title. Writes add entries with one short page to authors
+ * of their own and remove them again, so threads only meet in the shared indexes. Each thread count does the
+ * same total amount of work. Throughput can only scale up to the number of available processors.
+ * Run with:
+ * {@code java -cp <test classes>:<classes> benchmarks.RegisterConcurrencyBenchmark [operations] [authors]}
+ */
+public class RegisterConcurrencyBenchmark {
+
+    private static final int[] THREAD_COUNTS = {1, 4, 16};
+    private static final int ENTRIES_PER_AUTHOR = 50;
+
+    public static void main(String[] args) throws Exception {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int authorCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000;
+
+        AuthorRegister authors = new AuthorRegister();
+        DiaryEntryRegister entries = new DiaryEntryRegister();
+        List<Author> registered = new ArrayList<>();
+        for (int index = 0; index < authorCount; index++) {
+            Author author = new Author("Writer", "Number" + index);
+            authors.addAuthor(author);
+            registered.add(author);
+            for (int entry = 0; entry < ENTRIES_PER_AUTHOR; entry++) entries.addDiaryEntry(entry(author, "Entry " + entry));
+        }
+
+        System.out.printf("%d processors%n", Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-8s %16s %16s%n", "threads", "reads/s", "writes/s");
+        for (int round = 0; round < 2; round++) {
+            for (int threads : THREAD_COUNTS) {
+                double reads = run(threads, thread -> () -> {
+                    Random random = new Random(thread);
+                    int count = operations / 2 / threads;
+                    for (int operation = 0; operation < count; operation++) {
+                        Author author = registered.get(random.nextInt(authorCount));
+                        if (authors.getAuthor(author.getName()).isEmpty()
+                                || entries.findDiaryEntryFromAuthorByTitle(author, "Entry " + random.nextInt(ENTRIES_PER_AUTHOR)).isEmpty())
+                            throw new IllegalStateException("Lookup missed");
+                    }
+                    return 2L * count;
+                });
+                String prefix = "Round" + round + "-" + threads + "-";
+                double writes = run(threads, thread -> () -> {
+                    Author own = new Author(prefix + thread);
+                    int count = operations / 20 / threads;
+                    for (int operation = 0; operation < count; operation++) entries.addDiaryEntry(entry(own, "New " + operation));
+                    for (int operation = 0; operation < count; operation++) entries.removeDiaryEntry(own, "New " + operation);
+                    return 2L * count;
+                });
+                System.out.printf("%-8d %16.0f %16.0f%n", threads, reads, writes);
+            }
+        }
+    }
+
+    /**
+     * Runs one task per thread and returns the operations per second, counted by the operations each task reports.
+     */
+    private static double run(int threads, IntFunction<Callable<Long>> task) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Long>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < threads; thread++) tasks.add(task.apply(thread));
+            long start = System.nanoTime();
+            long operations = 0;
+            for (Future<Long> future : executor.invokeAll(tasks)) operations += future.get();
+            return operations / ((System.nanoTime() - start) / 1e9);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static DiaryEntry entry(Author author, String title) {
+        DiaryEntry entry = new DiaryEntry(author, 100, title);
+        entry.addPage("Page", "A short page about " + title);
+        return entry;
+    }
+}
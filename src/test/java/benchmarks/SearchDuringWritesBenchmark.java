@@ -0,0 +1,85 @@
+package benchmarks;
+
+import edu.ntnu.iir.bidata.models.Author;
+import edu.ntnu.iir.bidata.models.DiaryEntry;
+import edu.ntnu.iir.bidata.registers.DiaryEntryRegister;
+
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how long searches over the whole register take, and how many entries a writer adds and removes
+ * per second, first each on their own and then side by side.
+ * <p>
+ * Every entry contains a common word, so each word search and each date range search visits the whole register.
+ * Searches read a pinned version of the indexes, so neither side should slow the other down beyond sharing
+ * the processors. Run with:
+ * {@code java -cp <test classes>:<classes> benchmarks.SearchDuringWritesBenchmark [entries] [seconds]}
+ */
+public class SearchDuringWritesBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int entryCount = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+        long millis = (args.length > 1 ? Integer.parseInt(args[1]) : 3) * 1_000L;
+
+        DiaryEntryRegister register = new DiaryEntryRegister();
+        Author author = new Author("Nero");
+        for (int index = 0; index < entryCount; index++) register.addDiaryEntry(entry(author, "Entry " + index));
+
+        System.out.printf("%d processors, %d entries%n", Runtime.getRuntime().availableProcessors(), entryCount);
+        System.out.printf("%-16s %16s %16s%n", "mode", "ms/search", "writes/s");
+        for (int round = 0; round < 2; round++) {
+            System.out.printf("%-16s %16.2f %16s%n", "searches only", search(register, millis, new AtomicBoolean()), "-");
+            System.out.printf("%-16s %16s %16.0f%n", "writes only", "-", write(register, author, millis, new AtomicBoolean()));
+
+            AtomicBoolean stop = new AtomicBoolean();
+            AtomicLong writes = new AtomicLong();
+            Thread writer = new Thread(() -> writes.set(Math.round(write(register, author, Long.MAX_VALUE, stop))));
+            writer.start();
+            double searchMillis = search(register, millis, new AtomicBoolean());
+            stop.set(true);
+            writer.join();
+            System.out.printf("%-16s %16.2f %16d%n", "side by side", searchMillis, writes.get());
+        }
+    }
+
+    /**
+     * Searches until the time is up and returns the average milliseconds per search.
+     */
+    private static double search(DiaryEntryRegister register, long millis, AtomicBoolean stop) {
+        LocalDate today = LocalDate.now();
+        long start = System.nanoTime();
+        long deadline = start + millis * 1_000_000;
+        long searches = 0;
+        while (!stop.get() && System.nanoTime() < deadline) {
+            if (register.searchForWord("common", Integer.MAX_VALUE).isEmpty()
+                    || register.getEntriesCreatedOrChangedBetweenGroupedByAuthor(today.minusDays(1), today).isEmpty())
+                throw new IllegalStateException("Search missed");
+            searches += 2;
+        }
+        return (System.nanoTime() - start) / 1e6 / searches;
+    }
+
+    /**
+     * Adds and removes entries until the time is up or asked to stop, and returns the operations per second.
+     */
+    private static double write(DiaryEntryRegister register, Author author, long millis, AtomicBoolean stop) {
+        long start = System.nanoTime();
+        long deadline = millis == Long.MAX_VALUE ? Long.MAX_VALUE : start + millis * 1_000_000;
+        long operations = 0;
+        while (!stop.get() && System.nanoTime() < deadline) {
+            String title = "New " + operations;
+            register.addDiaryEntry(entry(author, title));
+            register.removeDiaryEntry(author, title);
+            operations += 2;
+        }
+        return operations / ((System.nanoTime() - start) / 1e9);
+    }
+
+    private static DiaryEntry entry(Author author, String title) {
+        DiaryEntry entry = new DiaryEntry(author, 100, title);
+        entry.addPage("Page", "A common page about " + title);
+        return entry;
+    }
+}